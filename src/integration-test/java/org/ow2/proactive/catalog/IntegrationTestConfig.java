@@ -42,6 +42,7 @@ import org.ow2.proactive.catalog.mocks.RestApiAccessServiceMock;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.service.*;
 import org.ow2.proactive.catalog.util.ArchiveManagerHelper;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
 import org.ow2.proactive.catalog.util.RawObjectResponseCreator;
 import org.ow2.proactive.catalog.util.RevisionCommitMessageBuilder;
 import org.ow2.proactive.catalog.util.SeparatorUtility;
@@ -116,6 +117,11 @@ public class IntegrationTestConfig {
         return new OwnerGroupStringHelper();
     }
 
+    @Bean
+    public AuthorizationService authorizationService() {
+        return new AuthorizationService(ownerGroupStringHelper());
+    }
+
     @Bean
     public BucketService bucketService() {
         return new BucketService();
@@ -126,6 +132,16 @@ public class IntegrationTestConfig {
         return new CatalogObjectService();
     }
 
+    @Bean
+    public BucketOwnerRevisionService bucketOwnerRevisionService() {
+        return new BucketOwnerRevisionService();
+    }
+
+    @Bean
+    public CatalogObjectContentHelper catalogObjectContentHelper() {
+        return new CatalogObjectContentHelper();
+    }
+
     @Bean
     public GraphqlService graphqlService() {
         return new GraphqlService();
@@ -181,6 +197,31 @@ public class IntegrationTestConfig {
         return new ArchiveManagerHelper();
     }
 
+    @Bean
+    public PartitionedQueryHelper partitionedQueryHelper() {
+        return new PartitionedQueryHelper();
+    }
+
+    @Bean
+    public GrantRightsCache grantRightsCache() {
+        return new GrantRightsCache();
+    }
+
+    @Bean
+    public BucketCache bucketCache() {
+        return new BucketCache();
+    }
+
+    @Bean
+    public CatalogObjectDependencyIndex catalogObjectDependencyIndex() {
+        return new CatalogObjectDependencyIndex();
+    }
+
+    @Bean
+    public ReportArtifactCache reportArtifactCache() {
+        return new ReportArtifactCache();
+    }
+
     @Bean
     public WorkflowParser workflowParser() {
         return new WorkflowParser();
@@ -31,11 +31,14 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.equalToIgnoringWhiteSpace;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.ow2.proactive.catalog.util.LinkUtil.SPACE_ENCODED_AS_PERCENT_20;
 import static org.ow2.proactive.catalog.util.LinkUtil.SPACE_ENCODED_AS_PLUS;
 import static org.ow2.proactive.catalog.util.RawObjectResponseCreator.WORKFLOW_EXTENSION;
 
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -43,6 +46,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.http.HttpStatus;
 import org.junit.After;
@@ -1205,6 +1210,47 @@ public class CatalogObjectControllerIntegrationTest extends AbstractRestAssuredT
                .statusCode(HttpStatus.SC_UNPROCESSABLE_ENTITY);
     }
 
+    @Test
+    public void testCreateWorkflowsFromArchiveWithInvalidEntryReturnsTheOutcomeOfEachEntry() throws IOException {
+        File archive = File.createTempFile("partially-invalid", ".zip");
+        archive.deleteOnExit();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("valid_workflow.xml"));
+            zip.write(IntegrationTestUtil.getWorkflowAsByteArray("workflow.xml"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("invalid_workflow.xml"));
+            zip.write("<job>not a workflow".getBytes());
+            zip.closeEntry();
+        }
+
+        // the valid entry is committed even though the other one is rejected
+        given().header("sessionID", "12345")
+               .pathParam("bucketName", bucket.getName())
+               .queryParam("kind", "workflow")
+               .queryParam("commitMessage", "Import from archive")
+               .queryParam("objectContentType", MediaType.MULTIPART_FORM_DATA.toString())
+               .multiPart(archive)
+               .when()
+               .post(CATALOG_OBJECTS_RESOURCE)
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_MULTI_STATUS)
+               .body("object", hasSize(1))
+               .body("object[0].name", is("valid_workflow"))
+               .body("import_results", hasSize(2))
+               .body("import_results.find { it.name == 'valid_workflow' }.status", is("CREATED"))
+               .body("import_results.find { it.name == 'invalid_workflow' }.status", is("FAILED"))
+               .body("import_results.find { it.name == 'invalid_workflow' }.error", notNullValue());
+
+        given().pathParam("bucketName", bucket.getName())
+               .pathParam("name", "valid_workflow")
+               .when()
+               .get(CATALOG_OBJECT_RESOURCE)
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_OK);
+    }
+
     private String getJobVisualizationExpectedContent() {
         return "<html><head><link rel=\"stylesheet\" href=\"/studio/styles/studio-standalone.css\"><style>\n" +
                "        #workflow-designer {\n" + "            left:0 !important;\n" +
@@ -33,6 +33,11 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.junit.After;
@@ -43,10 +48,14 @@ import org.ow2.proactive.catalog.IntegrationTestConfig;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectDependencies;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.dto.CatalogObjectMetadataPage;
 import org.ow2.proactive.catalog.dto.CatalogObjectNameReference;
 import org.ow2.proactive.catalog.dto.CatalogRawObject;
 import org.ow2.proactive.catalog.dto.DependsOnCatalogObject;
 import org.ow2.proactive.catalog.dto.Metadata;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectNameFilter;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectNotFoundException;
 import org.ow2.proactive.catalog.service.exception.KindOrContentTypeIsNotValidException;
 import org.ow2.proactive.catalog.util.IntegrationTestUtil;
@@ -77,9 +86,15 @@ public class CatalogObjectServiceIntegrationTest {
     @Autowired
     private BucketService bucketService;
 
+    @Autowired
+    private BucketOwnerRevisionService bucketOwnerRevisionService;
+
     @Autowired
     private SeparatorUtility separatorUtility;
 
+    @Autowired
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
     private BucketMetadata bucket;
 
     private List<Metadata> keyValues;
@@ -166,6 +181,49 @@ public class CatalogObjectServiceIntegrationTest {
         bucketService.cleanAll();
     }
 
+    @Test
+    public void testCreateObjectsWithSameNewContentConcurrentlySharesTheContent() throws Exception {
+        int objectCount = 8;
+        byte[] rawObject = "<concurrently-stored-content/>".getBytes("UTF-8");
+        ExecutorService executorService = Executors.newFixedThreadPool(objectCount);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<CatalogObjectMetadata>> createdObjects = new ArrayList<>();
+            for (int i = 0; i < objectCount; i++) {
+                String name = "concurrent-object-" + i;
+                createdObjects.add(executorService.submit(() -> {
+                    start.await();
+                    return catalogObjectService.createCatalogObject(bucket.getName(),
+                                                                    name,
+                                                                    PROJECT_NAME,
+                                                                    TAGS,
+                                                                    "object",
+                                                                    "commit message",
+                                                                    "username",
+                                                                    "application/xml",
+                                                                    keyValues,
+                                                                    rawObject,
+                                                                    null);
+                }));
+            }
+            start.countDown();
+            for (Future<CatalogObjectMetadata> createdObject : createdObjects) {
+                createdObject.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        List<Object[]> storedContents = catalogObjectContentRepository.findDigestsAndIds(Collections.singletonList(CatalogObjectContentEntity.digest(rawObject)));
+        assertThat(storedContents).hasSize(1);
+        assertThat(catalogObjectContentRepository.findOne((Long) storedContents.get(0)[1])
+                                                 .getReferenceCount()).isEqualTo(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            assertThat(catalogObjectService.getCatalogRawObject(bucket.getName(), "concurrent-object-" + i)
+                                           .getRawObject()).isEqualTo(rawObject);
+        }
+    }
+
     @Test
     public void testAddGenericInformationToObjects() {
         CatalogObjectMetadata catalogObjectMetadata = catalogObjectService.getCatalogObjectMetadata(bucket.getName(),
@@ -237,6 +295,11 @@ public class CatalogObjectServiceIntegrationTest {
         String newOwner = "newOwner";
         bucketService.updateOwnerByBucketName(bucket.getName(), newOwner);
 
+        // the objects are revised in the background
+        assertThat(bucketOwnerRevisionService.getPendingBuckets()).isAtLeast(1L);
+        assertThat(bucketOwnerRevisionService.reviseObjectsOfPendingBuckets()).isAtLeast(3L);
+        assertThat(bucketOwnerRevisionService.getPendingBuckets()).isEqualTo(0L);
+
         //check the update of metadata key value for different kind objects
         CatalogObjectMetadata catalogObjectMetadataWorkflow = catalogObjectService.getCatalogObjectMetadata(bucket.getName(),
                                                                                                             "object-name-3");
@@ -1714,6 +1777,102 @@ public class CatalogObjectServiceIntegrationTest {
 
     }
 
+    @Test
+    public void testKeysetPageableCatalogObjectsInBucket() {
+        createCatalogObjectInProject("catalog4", "1. Project");
+        createCatalogObjectInProject("catalog6", "2. Project");
+
+        List<String> names = new ArrayList<>();
+        CatalogObjectMetadataPage page = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                                 Optional.empty(),
+                                                                                 Optional.empty(),
+                                                                                 Optional.empty(),
+                                                                                 Optional.empty(),
+                                                                                 null,
+                                                                                 Optional.empty(),
+                                                                                 2);
+        page.getCatalogObjects().forEach(catalogObject -> names.add(catalogObject.getName()));
+
+        // an object added before the cursor does not shift the next pages
+        createCatalogObjectInProject("catalog5", "1. Project");
+
+        while (page.getNextCursor() != null) {
+            assertThat(page.getCatalogObjects()).hasSize(2);
+            page = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                           Optional.empty(),
+                                                           Optional.empty(),
+                                                           Optional.empty(),
+                                                           Optional.empty(),
+                                                           null,
+                                                           Optional.of(page.getNextCursor()),
+                                                           2);
+            page.getCatalogObjects().forEach(catalogObject -> names.add(catalogObject.getName()));
+        }
+
+        assertThat(names).containsExactly("catalog4",
+                                          "catalog6",
+                                          "object-name-1",
+                                          "object-name-2",
+                                          "object-name-3")
+                         .inOrder();
+    }
+
+    @Test
+    public void testKeysetPageableCatalogObjectsInBucketByObjectTag() {
+        // both tags of the objects match the filter, the objects are listed once
+        CatalogObjectMetadataPage page = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                                 Optional.empty(),
+                                                                                 Optional.empty(),
+                                                                                 Optional.empty(),
+                                                                                 Optional.of("tag"),
+                                                                                 null,
+                                                                                 Optional.empty(),
+                                                                                 10);
+
+        assertThat(page.getCatalogObjects()).hasSize(3);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testPageableCatalogObjectsInBucketByAccessibleObjects() {
+        List<CatalogObjectMetadata> catalogObjects = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             CatalogObjectNameFilter.except(Collections.singleton("object-name-1")),
+                                                                                             0,
+                                                                                             2);
+        assertThat(catalogObjects.stream()
+                                 .map(CatalogObjectMetadata::getName)
+                                 .collect(Collectors.toList())).containsExactly("object-name-2", "object-name-3");
+
+        catalogObjects = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 CatalogObjectNameFilter.only(Collections.singleton("object-name-3")),
+                                                                 0,
+                                                                 2);
+        assertThat(catalogObjects).hasSize(1);
+        assertThat(catalogObjects.get(0).getName()).isEqualTo("object-name-3");
+    }
+
+    private void createCatalogObjectInProject(String name, String projectName) {
+        catalogObjectService.createCatalogObject(bucket.getName(),
+                                                 name,
+                                                 projectName,
+                                                 TAGS,
+                                                 "workflow/standard",
+                                                 "commit message",
+                                                 "username",
+                                                 "application/xml",
+                                                 keyValues,
+                                                 workflowAsByteArray,
+                                                 null);
+    }
+
     @Test
     public void testGetDefaultCatalogObject() {
         CatalogObjectMetadata catalogObjectMetadata = catalogObjectService.getCatalogObjectMetadata(bucket.getName(),
@@ -1741,10 +1900,7 @@ public class CatalogObjectServiceIntegrationTest {
 
     @Test
     public void testGetCatalogObjectsNameReferenceByKindAndContentType() {
-
-        final String sessionId = "12345";
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("workflow"),
                                                                                                      Optional.of("application/xml"))).hasSize(1);
         //Adding two catalog object of kind "workflow" and contentType "application/xml"
@@ -1771,8 +1927,7 @@ public class CatalogObjectServiceIntegrationTest {
                                                  workflowAsByteArray,
                                                  null);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("workflow"),
                                                                                                      Optional.of("application/xml"))).hasSize(3);
 
@@ -1789,12 +1944,10 @@ public class CatalogObjectServiceIntegrationTest {
                                                  workflowAsByteArray,
                                                  null);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("workflow"),
                                                                                                      Optional.of("application/xml"))).hasSize(3);
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("sCriPt"),
                                                                                                      Optional.of("text/x-groovy"))).hasSize(1);
 
@@ -1824,21 +1977,17 @@ public class CatalogObjectServiceIntegrationTest {
                                                  workflowAsByteArray,
                                                  null);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("workflow"),
                                                                                                      Optional.of("application/xml"))).hasSize(3);
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("sCriPt"),
                                                                                                      Optional.of("text/x-groovy"))).hasSize(1);
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("ruLE"),
                                                                                                      Optional.of("text/x-sh"))).hasSize(1);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("ruLE"),
                                                                                                      Optional.empty())).hasSize(2);
 
@@ -1895,52 +2044,42 @@ public class CatalogObjectServiceIntegrationTest {
                                                  workflowAsByteArray,
                                                  null);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("workflow"),
                                                                                                      Optional.of("application/xml"))).hasSize(4);
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("workflow"),
                                                                                                      Optional.of("application/python"))).hasSize(1);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("workflow"),
                                                                                                      Optional.empty())).hasSize(5);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("sCriPt"),
                                                                                                      Optional.empty())).hasSize(2);
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.of("ruLE"),
                                                                                                      Optional.empty())).hasSize(3);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.empty(),
                                                                                                      Optional.of("application/python"))).hasSize(2);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.empty(),
                                                                                                      Optional.of("application/xml"))).hasSize(7);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.empty(),
                                                                                                      Optional.of("text/x-groovy"))).hasSize(1);
 
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.empty(),
                                                                                                      Optional.of("text/x-sh"))).hasSize(1);
 
         //Check total number of existing objects in the Catalog
-        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                     sessionId,
+        assertThat(catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                      Optional.empty(),
                                                                                                      Optional.empty())).hasSize(12);
     }
@@ -1982,8 +2121,7 @@ public class CatalogObjectServiceIntegrationTest {
                                                  workflowAsByteArray,
                                                  null);
 
-        List<CatalogObjectNameReference> catalogObjectNameReferences = catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(false,
-                                                                                                                                                         "123",
+        List<CatalogObjectNameReference> catalogObjectNameReferences = catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(null,
                                                                                                                                                          Optional.empty(),
                                                                                                                                                          Optional.empty());
 
@@ -0,0 +1,107 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.callgraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.jgrapht.Graph;
+import org.jgrapht.GraphPath;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.jgrapht.alg.cycle.Cycles;
+import org.jgrapht.alg.shortestpath.AllDirectedPaths;
+import org.jgrapht.graph.AsSubgraph;
+import org.jgrapht.graph.DefaultEdge;
+
+
+/**
+ * Path based decomposition which was used by {@link TableCallGraphsBuilder} before {@link CallGraphDecomposition}:
+ * all the paths from the roots to the leaves are enumerated, then grouped by root. Kept as the baseline of
+ * {@link CallGraphDecompositionBenchmark}.
+ *
+ * @author ActiveEon Team
+ */
+public class AllDirectedPathsCallGraphDecomposition {
+
+    private final Map<GraphNode, Graph<GraphNode, DefaultEdge>> callGraphs = new HashMap<>();
+
+    private final Map<GraphNode, Integer> diameters = new HashMap<>();
+
+    public AllDirectedPathsCallGraphDecomposition(Graph<GraphNode, DefaultEdge> callGraph) {
+        Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> graphPathsPerRoot = computeAllGraphPaths(callGraph).stream()
+                                                                                                                  .collect(Collectors.groupingBy(GraphPath::getStartVertex,
+                                                                                                                                                 Collectors.toList()));
+        graphPathsPerRoot.forEach((rootNode, graphPaths) -> {
+            Set<GraphNode> callGraphNodes = new HashSet<>();
+            Set<DefaultEdge> callGraphEdges = new HashSet<>();
+            graphPaths.forEach(graphPath -> {
+                callGraphNodes.addAll(graphPath.getVertexList());
+                callGraphEdges.addAll(graphPath.getEdgeList());
+            });
+            callGraphs.put(rootNode, new AsSubgraph<>(callGraph, callGraphNodes, callGraphEdges));
+            diameters.put(rootNode,
+                          Collections.max(graphPaths, Comparator.comparingInt(GraphPath::getLength)).getLength());
+        });
+    }
+
+    public Map<GraphNode, Graph<GraphNode, DefaultEdge>> getCallGraphs() {
+        return callGraphs;
+    }
+
+    public Map<GraphNode, Integer> getDiameters() {
+        return diameters;
+    }
+
+    private static List<GraphPath<GraphNode, DefaultEdge>>
+            computeAllGraphPaths(Graph<GraphNode, DefaultEdge> callGraph) {
+        Set<GraphNode> rootNodes = callGraph.vertexSet()
+                                            .stream()
+                                            .filter(graphNode -> callGraph.inDegreeOf(graphNode) == 0)
+                                            .collect(Collectors.toSet());
+        Set<GraphNode> leafNodes = callGraph.vertexSet()
+                                            .stream()
+                                            .filter(graphNode -> callGraph.outDegreeOf(graphNode) == 0)
+                                            .collect(Collectors.toSet());
+        List<GraphPath<GraphNode, DefaultEdge>> graphPathList = new ArrayList<>(new AllDirectedPaths<>(callGraph).getAllPaths(rootNodes,
+                                                                                                                              leafNodes,
+                                                                                                                              true,
+                                                                                                                              null));
+        CycleDetector<GraphNode, DefaultEdge> cycleDetector = new CycleDetector<>(callGraph);
+        if (cycleDetector.detectCycles()) {
+            Graph<GraphNode, DefaultEdge> subGraphWithCycles = new AsSubgraph<>(callGraph, cycleDetector.findCycles());
+            graphPathList.add(Cycles.simpleCycleToGraphPath(subGraphWithCycles,
+                                                            new ArrayList<>(subGraphWithCycles.edgeSet())));
+        }
+        return graphPathList;
+    }
+}
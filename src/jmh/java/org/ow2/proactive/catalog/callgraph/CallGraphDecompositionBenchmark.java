@@ -0,0 +1,112 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.callgraph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares {@link CallGraphDecomposition} with the former path based decomposition on generated deep diamond graphs:
+ * a few workflows calling a chain of levels, each level made of two scripts calling the same shared script, i.e.
+ * 2^depth paths from each workflow to the last script.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=CallGraphDecompositionBenchmark}.
+ *
+ * @author ActiveEon Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CallGraphDecompositionBenchmark {
+
+    private static final int WORKFLOWS = 5;
+
+    @Param({ "8", "12", "16" })
+    private int depth;
+
+    private Graph<GraphNode, DefaultEdge> callGraph;
+
+    @Setup
+    public void setUp() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode previous = callGraphHolder.addNode("scripts", "shared-0", "Script", true);
+        GraphNode first = previous;
+        for (int level = 1; level <= depth; level++) {
+            GraphNode left = callGraphHolder.addNode("scripts", "left-" + level, "Script", true);
+            GraphNode right = callGraphHolder.addNode("scripts", "right-" + level, "Script", true);
+            GraphNode shared = callGraphHolder.addNode("scripts", "shared-" + level, "Script", true);
+            callGraphHolder.addDependsOnEdge(previous, left);
+            callGraphHolder.addDependsOnEdge(previous, right);
+            callGraphHolder.addDependsOnEdge(left, shared);
+            callGraphHolder.addDependsOnEdge(right, shared);
+            previous = shared;
+        }
+        for (int workflow = 0; workflow < WORKFLOWS; workflow++) {
+            GraphNode workflowNode = callGraphHolder.addNode("workflows",
+                                                             "workflow-" + workflow,
+                                                             "workflow/standard",
+                                                             true);
+            callGraphHolder.addDependsOnEdge(workflowNode, first);
+        }
+        callGraph = callGraphHolder.getCallGraph();
+    }
+
+    @Benchmark
+    public Map<GraphNode, Integer> allDirectedPaths() {
+        AllDirectedPathsCallGraphDecomposition decomposition = new AllDirectedPathsCallGraphDecomposition(callGraph);
+        return decomposition.getDiameters();
+    }
+
+    @Benchmark
+    public Map<GraphNode, Integer> callGraphDecomposition() {
+        CallGraphDecomposition decomposition = new CallGraphDecomposition(callGraph);
+        Map<GraphNode, Integer> diameters = new HashMap<>();
+        for (GraphNode root : decomposition.getRoots()) {
+            decomposition.getCalledGraph(root);
+            diameters.put(root, decomposition.getDepth(root));
+        }
+        return diameters;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the streaming {@link WorkflowXmlManipulator} with the former DOM based implementation on large
+ * generated workflows (about 2.5 KB per task, i.e. 2.5 MB and 12 MB workflows with the default parameters).
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=WorkflowXmlManipulatorBenchmark}.
+ *
+ * @author ActiveEon Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WorkflowXmlManipulatorBenchmark {
+
+    @Param({ "1000", "5000" })
+    private int numberOfTasks;
+
+    private byte[] workflow;
+
+    private Map<String, String> genericInformation;
+
+    private final WorkflowXmlManipulator streamingManipulator = new WorkflowXmlManipulator();
+
+    private final DomWorkflowXmlManipulator domManipulator = new DomWorkflowXmlManipulator();
+
+    @Setup
+    public void setUp() {
+        workflow = generateWorkflow(numberOfTasks);
+        genericInformation = new HashMap<>();
+        genericInformation.put("bucketName", "benchmark-bucket");
+        genericInformation.put("group", "benchmark-group");
+        genericInformation.put("workflow.icon", "/automation-dashboard/styles/patterns/img/wf-icons/python.png");
+    }
+
+    @Benchmark
+    public byte[] domGenericInformationAndJobName() {
+        return domManipulator.replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(workflow,
+                                                                                           genericInformation,
+                                                                                           "benchmark");
+    }
+
+    @Benchmark
+    public byte[] streamingGenericInformationAndJobName() {
+        return streamingManipulator.replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(workflow,
+                                                                                                 genericInformation,
+                                                                                                 "benchmark");
+    }
+
+    @Benchmark
+    public byte[] domProjectName() {
+        return domManipulator.replaceOrAddOrRemoveAttributeOnJobLevel(workflow, "projectName", "benchmark");
+    }
+
+    @Benchmark
+    public byte[] streamingProjectName() {
+        return streamingManipulator.replaceOrAddOrRemoveAttributeOnJobLevel(workflow, "projectName", "benchmark");
+    }
+
+    private static byte[] generateWorkflow(int numberOfTasks) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+               .append("<job xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"")
+               .append(" xmlns=\"urn:proactive:jobdescriptor:3.12\"")
+               .append(" xsi:schemaLocation=\"urn:proactive:jobdescriptor:3.12 http://www.activeeon.com/public_content/schemas/proactive/jobdescriptor/3.12/schedulerjob.xsd\"")
+               .append(" name=\"Benchmark\" priority=\"normal\" onTaskError=\"continueJobExecution\">\n")
+               .append("  <variables>\n")
+               .append("    <variable name=\"PASSWORD\" value=\"secret\" model=\"PA:HIDDEN\"/>\n")
+               .append("    <variable name=\"SCRIPT\" value=\"basic-examples/Python_Script\" model=\"PA:CATALOG_OBJECT\"/>\n")
+               .append("  </variables>\n")
+               .append("  <genericInformation>\n")
+               .append("    <info name=\"bucketName\" value=\"old-bucket\"/>\n")
+               .append("  </genericInformation>\n")
+               .append("  <taskFlow>\n");
+        for (int task = 0; task < numberOfTasks; task++) {
+            builder.append("    <task name=\"Task").append(task).append("\">\n")
+                   .append("      <description>\n        <![CDATA[ Generated task ").append(task).append(" ]]>\n")
+                   .append("      </description>\n");
+            if (task > 0) {
+                builder.append("      <depends>\n        <task ref=\"Task").append(task - 1).append("\"/>\n")
+                       .append("      </depends>\n");
+            }
+            builder.append("      <scriptExecutable>\n        <script>\n          <code language=\"python\">\n")
+                   .append("            <![CDATA[\n");
+            for (int line = 0; line < 40; line++) {
+                builder.append("for x in range(").append(line).append(", 11):\n    print(x)\n");
+            }
+            builder.append("]]>\n          </code>\n        </script>\n      </scriptExecutable>\n")
+                   .append("    </task>\n");
+        }
+        builder.append("  </taskFlow>\n</job>\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
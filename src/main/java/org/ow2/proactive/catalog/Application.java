@@ -31,6 +31,7 @@ import java.io.File;
 
 import javax.sql.DataSource;
 
+import org.ow2.proactive.catalog.rest.interceptor.AuthorizationContextInterceptor;
 import org.ow2.proactive.catalog.util.EntityScanRoot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -50,12 +51,14 @@ import org.springframework.http.MediaType;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartResolver;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
@@ -78,6 +81,7 @@ import springfox.documentation.swagger2.annotations.EnableSwagger2;
 @EnableAutoConfiguration(exclude = { MultipartAutoConfiguration.class })
 @EnableSwagger2
 @EnableTransactionManagement
+@EnableScheduling
 @EnableEncryptableProperties
 @EntityScan(basePackages = "org.ow2.proactive.catalog.repository.entity")
 @EntityScanRoot("classpath:/org/ow2/proactive/catalog/repository/entity")
@@ -96,6 +100,9 @@ public class Application extends WebMvcConfigurerAdapter {
     @Value("${spring.datasource.password:}")
     private String dataSourcePassword;
 
+    @Autowired
+    private AuthorizationContextInterceptor authorizationContextInterceptor;
+
     public static void main(String[] args) {
         //Important notice when using PDFBox with Java 8  :  https://pdfbox.apache.org/2.0/getting-started.html
         System.setProperty("sun.java2d.cmm", "sun.java2d.cmm.kcms.KcmsServiceProvider");
@@ -113,6 +120,11 @@ public class Application extends WebMvcConfigurerAdapter {
                   .mediaType("json", MediaType.APPLICATION_JSON);
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(authorizationContextInterceptor).addPathPatterns("/buckets/**");
+    }
+
     @Bean
     public WebMvcConfigurer corsConfigurer() {
         return new WebMvcConfigurerAdapter() {
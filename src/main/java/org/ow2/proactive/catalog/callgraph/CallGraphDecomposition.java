@@ -0,0 +1,288 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.callgraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsSubgraph;
+import org.jgrapht.graph.DefaultEdge;
+
+
+/**
+ * Decomposes a call graph into the graphs called by each of its roots, in a time linear in the size of the call
+ * graph, instead of enumerating the paths from the roots to the leaves, whose number is exponential in the depth of
+ * diamond-shaped graphs (e.g. scripts shared by many objects).
+ * <p>
+ * The strongly connected components of the call graph are computed first, so that the cycles are handled as single
+ * nodes. The roots are the objects which are not called, plus one object (the first by bucket and object name) of
+ * each cycle which is not called from outside of it. The depth of an object is the length of the longest call chain
+ * starting from it, a cycle counting as many calls as its objects minus one.
+ *
+ * @author ActiveEon Team
+ */
+public class CallGraphDecomposition {
+
+    private static final Comparator<GraphNode> BY_BUCKET_AND_OBJECT_NAME = Comparator.comparing(GraphNode::getBucketName)
+                                                                                     .thenComparing(GraphNode::getObjectName);
+
+    private final Graph<GraphNode, DefaultEdge> callGraph;
+
+    private final List<GraphNode> nodes;
+
+    private final Map<GraphNode, Integer> nodeIndexes = new HashMap<>();
+
+    /**
+     * indexes of the nodes called by each node
+     */
+    private final int[][] successors;
+
+    /**
+     * strongly connected component of each node, the components are numbered in reverse topological order
+     */
+    private final int[] components;
+
+    private final int[] componentDepths;
+
+    private final Set<GraphNode> roots = new LinkedHashSet<>();
+
+    public CallGraphDecomposition(Graph<GraphNode, DefaultEdge> callGraph) {
+        this.callGraph = callGraph;
+        this.nodes = new ArrayList<>(callGraph.vertexSet());
+        for (int node = 0; node < nodes.size(); node++) {
+            nodeIndexes.put(nodes.get(node), node);
+        }
+        this.successors = new int[nodes.size()][];
+        for (int node = 0; node < nodes.size(); node++) {
+            successors[node] = callGraph.outgoingEdgesOf(nodes.get(node))
+                                        .stream()
+                                        .mapToInt(edge -> nodeIndexes.get(callGraph.getEdgeTarget(edge)))
+                                        .toArray();
+        }
+        this.components = new int[nodes.size()];
+        int componentCount = computeStronglyConnectedComponents();
+        this.componentDepths = new int[componentCount];
+        computeRootsAndDepths(componentCount);
+    }
+
+    /**
+     * @return the roots of the call graph, sorted by bucket and object name
+     */
+    public Set<GraphNode> getRoots() {
+        return roots;
+    }
+
+    /**
+     * @param node a node of the call graph
+     * @return the length of the longest call chain starting from the node
+     */
+    public int getDepth(GraphNode node) {
+        return componentDepths[components[nodeIndexes.get(node)]];
+    }
+
+    /**
+     * @param node a node of the call graph
+     * @return the sub graph of the objects called directly or indirectly by the node, including the node
+     */
+    public Graph<GraphNode, DefaultEdge> getCalledGraph(GraphNode node) {
+        boolean[] visited = new boolean[nodes.size()];
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        Set<GraphNode> calledNodes = new HashSet<>();
+        int start = nodeIndexes.get(node);
+        visited[start] = true;
+        toVisit.add(start);
+        while (!toVisit.isEmpty()) {
+            int current = toVisit.poll();
+            calledNodes.add(nodes.get(current));
+            for (int successor : successors[current]) {
+                if (!visited[successor]) {
+                    visited[successor] = true;
+                    toVisit.add(successor);
+                }
+            }
+        }
+        return new AsSubgraph<>(callGraph, calledNodes);
+    }
+
+    /**
+     * Lists the call chains starting from a node, depth first, up to a given number of chains. A chain ends with a
+     * leaf, or with the object closing a cycle when all the objects called by its last object are already in it.
+     *
+     * @param node a node of the call graph
+     * @param maxCallChains maximum number of listed chains
+     * @return the call chains, without the given node
+     */
+    public List<List<GraphNode>> getCallChains(GraphNode node, int maxCallChains) {
+        List<List<GraphNode>> callChains = new ArrayList<>();
+        boolean[] inChain = new boolean[nodes.size()];
+        // the current chain, the position of the next successor of each of its nodes, and whether one was followed
+        int[] chain = new int[nodes.size()];
+        int[] nextSuccessors = new int[nodes.size()];
+        boolean[] followedSuccessors = new boolean[nodes.size()];
+        int chainLength = 0;
+        chain[chainLength++] = nodeIndexes.get(node);
+        inChain[chain[0]] = true;
+        while (chainLength > 0 && callChains.size() < maxCallChains) {
+            int last = chainLength - 1;
+            int current = chain[last];
+            int[] currentSuccessors = successors[current];
+            while (nextSuccessors[last] < currentSuccessors.length &&
+                   inChain[currentSuccessors[nextSuccessors[last]]]) {
+                nextSuccessors[last]++;
+            }
+            if (nextSuccessors[last] < currentSuccessors.length) {
+                int successor = currentSuccessors[nextSuccessors[last]++];
+                followedSuccessors[last] = true;
+                chain[chainLength] = successor;
+                nextSuccessors[chainLength] = 0;
+                followedSuccessors[chainLength] = false;
+                chainLength++;
+                inChain[successor] = true;
+            } else {
+                if (!followedSuccessors[last] && (chainLength > 1 || currentSuccessors.length > 0)) {
+                    List<GraphNode> callChain = new ArrayList<>(chainLength);
+                    for (int position = 1; position < chainLength; position++) {
+                        callChain.add(nodes.get(chain[position]));
+                    }
+                    if (currentSuccessors.length > 0) {
+                        callChain.add(nodes.get(currentSuccessors[0]));
+                    }
+                    callChains.add(callChain);
+                }
+                inChain[current] = false;
+                chainLength--;
+            }
+        }
+        return callChains;
+    }
+
+    /**
+     * Tarjan's algorithm, with an explicit stack since the call chains can be deeper than the thread stack allows.
+     *
+     * @return the number of components
+     */
+    private int computeStronglyConnectedComponents() {
+        int[] discoveryIndexes = new int[nodes.size()];
+        int[] lowLinks = new int[nodes.size()];
+        boolean[] onStack = new boolean[nodes.size()];
+        int[] stack = new int[nodes.size()];
+        int[] callStack = new int[nodes.size()];
+        int[] nextSuccessors = new int[nodes.size()];
+        Arrays.fill(discoveryIndexes, -1);
+        int discoveryIndex = 0;
+        int stackSize = 0;
+        int componentCount = 0;
+        for (int start = 0; start < nodes.size(); start++) {
+            if (discoveryIndexes[start] != -1) {
+                continue;
+            }
+            int callStackSize = 0;
+            discoveryIndexes[start] = lowLinks[start] = discoveryIndex++;
+            stack[stackSize++] = start;
+            onStack[start] = true;
+            callStack[callStackSize] = start;
+            nextSuccessors[callStackSize++] = 0;
+            while (callStackSize > 0) {
+                int node = callStack[callStackSize - 1];
+                if (nextSuccessors[callStackSize - 1] < successors[node].length) {
+                    int successor = successors[node][nextSuccessors[callStackSize - 1]++];
+                    if (discoveryIndexes[successor] == -1) {
+                        discoveryIndexes[successor] = lowLinks[successor] = discoveryIndex++;
+                        stack[stackSize++] = successor;
+                        onStack[successor] = true;
+                        callStack[callStackSize] = successor;
+                        nextSuccessors[callStackSize++] = 0;
+                    } else if (onStack[successor]) {
+                        lowLinks[node] = Math.min(lowLinks[node], discoveryIndexes[successor]);
+                    }
+                } else {
+                    if (lowLinks[node] == discoveryIndexes[node]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            components[member] = componentCount;
+                        } while (member != node);
+                        componentCount++;
+                    }
+                    callStackSize--;
+                    if (callStackSize > 0) {
+                        int caller = callStack[callStackSize - 1];
+                        lowLinks[caller] = Math.min(lowLinks[caller], lowLinks[node]);
+                    }
+                }
+            }
+        }
+        return componentCount;
+    }
+
+    private void computeRootsAndDepths(int componentCount) {
+        List<List<Integer>> componentMembers = new ArrayList<>(componentCount);
+        for (int component = 0; component < componentCount; component++) {
+            componentMembers.add(new ArrayList<>());
+        }
+        for (int node = 0; node < nodes.size(); node++) {
+            componentMembers.get(components[node]).add(node);
+        }
+        boolean[] called = new boolean[componentCount];
+        // a component only calls components numbered before it, whose depth is then already known
+        for (int component = 0; component < componentCount; component++) {
+            List<Integer> members = componentMembers.get(component);
+            int depth = 0;
+            for (int member : members) {
+                for (int successor : successors[member]) {
+                    if (components[successor] != component) {
+                        called[components[successor]] = true;
+                        depth = Math.max(depth, componentDepths[components[successor]] + 1);
+                    }
+                }
+            }
+            componentDepths[component] = depth + members.size() - 1;
+        }
+        List<GraphNode> sortedRoots = new ArrayList<>();
+        for (int component = 0; component < componentCount; component++) {
+            if (!called[component]) {
+                sortedRoots.add(componentMembers.get(component)
+                                                .stream()
+                                                .map(nodes::get)
+                                                .min(BY_BUCKET_AND_OBJECT_NAME)
+                                                .get());
+            }
+        }
+        sortedRoots.sort(BY_BUCKET_AND_OBJECT_NAME);
+        roots.addAll(sortedRoots);
+    }
+}
@@ -26,8 +26,10 @@
 package org.ow2.proactive.catalog.callgraph;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -70,8 +72,21 @@ public class CatalogObjectCallGraphPDFGenerator {
     public byte[] generatePdfImage(List<CatalogObjectMetadata> catalogObjectMetadataList, Optional<String> kind,
             Optional<String> contentType) {
 
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                PDDocument doc = new PDDocument()) {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        generatePdfImage(catalogObjectMetadataList, kind, contentType, byteArrayOutputStream);
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Generate the call graph report and save it directly into the given output stream, without keeping a copy
+     * of the saved document in memory. The stream is not closed.
+     *
+     * @return the names of the buckets of the objects shown in the call graph
+     */
+    public Set<String> generatePdfImage(List<CatalogObjectMetadata> catalogObjectMetadataList, Optional<String> kind,
+            Optional<String> contentType, OutputStream outputStream) {
+
+        try (PDDocument doc = reportGeneratorHelper.createDocument()) {
 
             // Build call graph
             CallGraphHolder callGraphHolder = reportGeneratorHelper.buildCatalogCallGraph(catalogObjectMetadataList);
@@ -90,8 +105,9 @@ public class CatalogObjectCallGraphPDFGenerator {
 
             // Create Header row
 
+            Set<String> bucketNames = reportGeneratorHelper.extractBucketSet(callGraphHolder);
             headersBuilder.createInfoHeader(table,
-                                            reportGeneratorHelper.extractBucketSet(callGraphHolder),
+                                            bucketNames,
                                             reportGeneratorHelper.extractObjectSet(callGraphHolder),
                                             kind,
                                             contentType);
@@ -101,9 +117,9 @@ public class CatalogObjectCallGraphPDFGenerator {
 
             table.draw();
 
-            doc.save(byteArrayOutputStream);
+            doc.save(outputStream);
 
-            return byteArrayOutputStream.toByteArray();
+            return bucketNames;
 
         } catch (Exception e) {
             throw new PDFGenerationException(e);
@@ -30,35 +30,36 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.jgrapht.Graph;
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.alg.cycle.CycleDetector;
-import org.jgrapht.alg.cycle.Cycles;
-import org.jgrapht.alg.shortestpath.AllDirectedPaths;
 import org.jgrapht.ext.JGraphXAdapter;
-import org.jgrapht.graph.AsSubgraph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.traverse.BreadthFirstIterator;
 import org.ow2.proactive.catalog.report.CellFactory;
 import org.ow2.proactive.catalog.report.TableDataBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import com.mxgraph.layout.hierarchical.mxHierarchicalLayout;
 import com.mxgraph.model.mxICell;
 import com.mxgraph.swing.handler.mxGraphHandler;
@@ -87,14 +88,45 @@ public class TableCallGraphsBuilder {
 
     private static final int MAX_DIAMETER = 3;
 
+    private static final float IMAGE_WIDTH = 350;
+
+    private static final float IMAGE_HEIGHT = 250;
+
+    /**
+     * The rendered images are shrunk to at most twice their size in the report: JGraphX renders large call graphs
+     * into images of several hundred megabytes which would otherwise stay in memory until the table is drawn.
+     */
+    @VisibleForTesting
+    static final int MAX_IMAGE_WIDTH = (int) (2 * IMAGE_WIDTH);
+
+    @VisibleForTesting
+    static final int MAX_IMAGE_HEIGHT = (int) (2 * IMAGE_HEIGHT);
+
     @Autowired
     private CellFactory cellFactory;
 
+    @Value("${pa.catalog.pdf.report.image.threads:4}")
+    private int imageThreads;
+
+    private ExecutorService imageExecutorService;
+
+    @PostConstruct
+    public void init() {
+        imageExecutorService = Executors.newFixedThreadPool(Math.max(1, imageThreads),
+                                                            new ThreadFactoryBuilder().setNameFormat("call-graph-image-%d")
+                                                                                      .setDaemon(true)
+                                                                                      .build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        imageExecutorService.shutdownNow();
+    }
+
     /**
-     * This method builds a table of call Graphs which are ordered and grouped by bucket name. The build is composed of three steps
-     * 1. Compute all graph paths of the callGraphHolder. A graph path is a chain of dependencies starting from a root until a leaf
-     * 2. Grouping all graph paths having the same root in a single graph
-     * 3. Compute call graphs for all roots
+     * This method builds a table of call Graphs which are ordered and grouped by bucket name. The build is composed of two steps
+     * 1. Decompose the callGraphHolder, to find its roots (see {@link CallGraphDecomposition})
+     * 2. Compute the call graph of each root, made of the catalog objects called directly or indirectly by the root
      * In case the oder of the callGraphHolder is zero, an appropriate message is displayed.
      *
      * @param callGraphHolder
@@ -109,44 +141,93 @@ public class TableCallGraphsBuilder {
                                              "No identified Dependencies in the Catalog or among the selected Catalog Objects");
         } else {
 
-            // We first compute all graph paths of the callGraphHolder. A graph path is a chain of dependencies starting from a root until a leaf
-            List<GraphPath<GraphNode, DefaultEdge>> graphPathList = computeAllGraphPaths(callGraphHolder);
+            CallGraphDecomposition callGraphDecomposition = new CallGraphDecomposition(callGraphHolder.getCallGraph());
 
-            //Grouping all graph paths having the same root in a single graph
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> groupedGraphPathsHavingSameRoot = graphPathList.stream()
-                                                                                                                   .collect(Collectors.groupingBy(GraphPath::getStartVertex,
-                                                                                                                                                  Collectors.toList()));
             // Compute call graphs for all roots
-            Map<GraphNode, Graph<GraphNode, DefaultEdge>> callGraphHashMap = computeCallGraphForAllRoots(groupedGraphPathsHavingSameRoot,
-                                                                                                         callGraphHolder);
-            Map<GraphNode, Integer> callGraphDiameterHashMap = computeCallGraphsDiameter(groupedGraphPathsHavingSameRoot);
+            Map<GraphNode, Graph<GraphNode, DefaultEdge>> callGraphHashMap = computeCallGraphForAllRoots(callGraphDecomposition);
             TreeMap<GraphNode, Graph<GraphNode, DefaultEdge>> orderedCallGraphsPerBucket = sortCallGraphsPerBucket(callGraphHashMap);
-            String currentBucketName = "";
+            List<Map.Entry<GraphNode, Graph<GraphNode, DefaultEdge>>> callGraphs = new ArrayList<>(orderedCallGraphsPerBucket.entrySet());
 
-            for (Map.Entry<GraphNode, Graph<GraphNode, DefaultEdge>> mapEntry : orderedCallGraphsPerBucket.entrySet()) {
+            // The images are rendered in parallel, at most a few of them ahead of the row being added to the table
+            int renderedAhead = 2 * Math.max(1, imageThreads);
+            List<Future<BufferedImage>> images = new ArrayList<>(callGraphs.size());
+            String currentBucketName = "";
 
-                if (!currentBucketName.equals(mapEntry.getKey().getBucketName())) {
-                    currentBucketName = mapEntry.getKey().getBucketName();
-                    Row<PDPage> dataRow = table.createRow(10f);
-                    cellFactory.createDataCellBucketName(dataRow, 100, currentBucketName);
+            try {
+                for (int i = 0; i < callGraphs.size(); i++) {
+                    while (images.size() < callGraphs.size() && images.size() < i + renderedAhead) {
+                        Map.Entry<GraphNode, Graph<GraphNode, DefaultEdge>> callGraph = callGraphs.get(images.size());
+                        int depth = callGraphDecomposition.getDepth(callGraph.getKey());
+                        images.add(imageExecutorService.submit(() -> renderImage(callGraph.getValue(), depth)));
+                    }
+
+                    GraphNode rootNode = callGraphs.get(i).getKey();
+                    if (!currentBucketName.equals(rootNode.getBucketName())) {
+                        currentBucketName = rootNode.getBucketName();
+                        Row<PDPage> dataRow = table.createRow(10f);
+                        cellFactory.createDataCellBucketName(dataRow, 100, currentBucketName);
+                    }
+                    Row<PDPage> callGraphRow = table.createRow(10f);
+                    Image image = new Image(awaitImage(images.get(i))).scale(IMAGE_WIDTH, IMAGE_HEIGHT);
+                    images.set(i, null);
+                    callGraphRow.createImageCell(100, image).scaleToFit();
                 }
-                Row<PDPage> callGraphRow = table.createRow(10f);
-                Image image;
-                try {
-                    image = new Image(generateBufferedImage(orderedCallGraphsPerBucket.get(mapEntry.getKey()),
-                                                            callGraphDiameterHashMap.get((mapEntry.getKey())))).scale(350,
-                                                                                                                      250);
-                } catch (Throwable e) {
-                    image = new Image(createBufferedImageFromString("Graph generation is not supported by OpenJDK"));
-                    log.warn("Unable to generate graph. Usually this issue is due to the usage of OpenJDK instead of OracleJDK",
-                             e);
-                }
-                callGraphRow.createImageCell(100, image).scaleToFit();
+            } finally {
+                // the images of the rows not added are not needed anymore when adding a row failed
+                images.stream().filter(Objects::nonNull).forEach(image -> image.cancel(true));
             }
         }
 
     }
 
+    private BufferedImage renderImage(Graph<GraphNode, DefaultEdge> callGraph, int depth) {
+        try {
+            return boundImageSize(generateBufferedImage(callGraph, depth));
+        } catch (Throwable e) {
+            log.warn("Unable to generate graph. Usually this issue is due to the usage of OpenJDK instead of OracleJDK",
+                     e);
+            return createBufferedImageFromString("Graph generation is not supported by OpenJDK");
+        }
+    }
+
+    private BufferedImage awaitImage(Future<BufferedImage> image) {
+        try {
+            return image.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering a call graph image", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to render a call graph image", e.getCause());
+        }
+    }
+
+    /**
+     * Shrink the image, keeping its aspect ratio, so that it fits in {@link #MAX_IMAGE_WIDTH} x {@link #MAX_IMAGE_HEIGHT}
+     *
+     * @param image
+     * @return the image itself when it already fits, a shrunk copy otherwise
+     */
+    @VisibleForTesting
+    BufferedImage boundImageSize(BufferedImage image) {
+        double ratio = Math.min((double) MAX_IMAGE_WIDTH / image.getWidth(),
+                                (double) MAX_IMAGE_HEIGHT / image.getHeight());
+        if (ratio >= 1) {
+            return image;
+        }
+        int width = Math.max(1, (int) (image.getWidth() * ratio));
+        int height = Math.max(1, (int) (image.getHeight() * ratio));
+        BufferedImage boundedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = boundedImage.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+        return boundedImage;
+    }
+
     /**
      * Generate an image containing a String
      * @param s the string that will be displayed
@@ -178,99 +259,21 @@ public class TableCallGraphsBuilder {
         return bufferedImage;
     }
 
-    /**
-     * This method computes the diameter of all call graphs. A diameter is the longest shortest path" (i.e., the longest graph geodesic) between any two graph vertices.
-     *
-     * @param groupedGraphPathsHavingSameRoot
-     * @return
-     */
-    private Map<GraphNode, Integer> computeCallGraphsDiameter(
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> groupedGraphPathsHavingSameRoot) {
-        Map<GraphNode, Integer> callGraphDiameterHashMap = new HashMap<>();
-        groupedGraphPathsHavingSameRoot.entrySet().stream().forEach(entry -> {
-            GraphNode rootNode = entry.getKey();
-            int diameter = Collections.max(entry.getValue(), Comparator.comparingInt(GraphPath::getLength)).getLength();
-            callGraphDiameterHashMap.put(rootNode, diameter);
-        });
-
-        return callGraphDiameterHashMap;
-    }
-
     /**
      * This methods computes the call graph for all node roots
      *
-     * @param groupedGraphPathsHavingSameRoot
-     * @param callGraphHolder
+     * @param callGraphDecomposition
      * @return
      */
-    private Map<GraphNode, Graph<GraphNode, DefaultEdge>> computeCallGraphForAllRoots(
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> groupedGraphPathsHavingSameRoot,
-            CallGraphHolder callGraphHolder) {
-
+    private Map<GraphNode, Graph<GraphNode, DefaultEdge>>
+            computeCallGraphForAllRoots(CallGraphDecomposition callGraphDecomposition) {
         Map<GraphNode, Graph<GraphNode, DefaultEdge>> callGraphsHashMap = new HashMap<>();
-        groupedGraphPathsHavingSameRoot.entrySet().stream().forEach(entry -> {
-            GraphNode rootNode = entry.getKey();
-            Set<GraphNode> callGraphNodes = new HashSet<>();
-            Set<DefaultEdge> callGraphEdges = new HashSet<>();
-            entry.getValue().forEach(graphPath -> {
-                callGraphNodes.addAll(graphPath.getVertexList());
-                callGraphEdges.addAll(graphPath.getEdgeList());
-            });
-            callGraphsHashMap.put(rootNode,
-                                  new AsSubgraph(callGraphHolder.getCallGraph(), callGraphNodes, callGraphEdges));
-        });
+        callGraphDecomposition.getRoots()
+                              .forEach(rootNode -> callGraphsHashMap.put(rootNode,
+                                                                         callGraphDecomposition.getCalledGraph(rootNode)));
         return callGraphsHashMap;
     }
 
-    /**
-     * This methods computes all graph paths of the callGraphHolder. A graph path is a chain of dependencies starting from a root until a leaf
-     *
-     * @param callGraphHolder
-     * @return
-     */
-    private List<GraphPath<GraphNode, DefaultEdge>> computeAllGraphPaths(CallGraphHolder callGraphHolder) {
-
-        Graph<GraphNode, DefaultEdge> callGraph = callGraphHolder.getCallGraph();
-        List<GraphPath<GraphNode, DefaultEdge>> graphPathList = new ArrayList<>();
-        ConnectivityInspector<GraphNode, DefaultEdge> inspector = new ConnectivityInspector(new AsSubgraph(callGraph,
-                                                                                                           callGraphHolder.nodeSet(),
-                                                                                                           callGraphHolder.dependencySet()));
-        Set<GraphNode> rootNodes = new HashSet<>();
-        Set<GraphNode> leafNodes = new HashSet<>();
-        inspector.connectedSets().forEach(connectedComponent -> {
-            BreadthFirstIterator breadthFirstIterator = new BreadthFirstIterator(new AsSubgraph(callGraph,
-                                                                                                connectedComponent,
-                                                                                                callGraphHolder.dependencySet()));
-
-            GraphNode graphNode;
-            while (breadthFirstIterator.hasNext()) {
-                graphNode = ((GraphNode) breadthFirstIterator.next());
-                if (callGraph.inDegreeOf(graphNode) == 0) {
-                    rootNodes.add(graphNode);
-                }
-                if (callGraph.outDegreeOf(graphNode) == 0) {
-                    leafNodes.add(graphNode);
-                }
-            }
-        });
-
-        AllDirectedPaths allDirectedPaths = new AllDirectedPaths(callGraph);
-        graphPathList.addAll(allDirectedPaths.getAllPaths(rootNodes, leafNodes, true, null));
-
-        //Detect simple cycles and add them to the graph paths list
-        CycleDetector<GraphNode, DefaultEdge> cycleDetector = new CycleDetector(callGraph);
-
-        if (cycleDetector.detectCycles()) {
-            Set<GraphNode> cycleVertices = cycleDetector.findCycles();
-            Graph<GraphNode, DefaultEdge> subGraphWithCycles = new AsSubgraph(callGraph, cycleVertices);
-            graphPathList.add(Cycles.simpleCycleToGraphPath(subGraphWithCycles,
-                                                            new ArrayList(subGraphWithCycles.edgeSet())));
-
-        }
-
-        return graphPathList;
-    }
-
     /**
      * This methods sorts call graphs per bucket then object name
      *
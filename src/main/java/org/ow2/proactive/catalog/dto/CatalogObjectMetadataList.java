@@ -28,6 +28,7 @@ package org.ow2.proactive.catalog.dto;
 import java.util.Collections;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.Data;
@@ -42,12 +43,25 @@ public class CatalogObjectMetadataList {
     @JsonProperty("object")
     private final List<CatalogObjectMetadata> objectMetadataList;
 
+    /**
+     * The outcome of each entry when a ZIP archive is imported, null otherwise
+     */
+    @JsonProperty("import_results")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<CatalogObjectImportStatus> importResults;
+
     public CatalogObjectMetadataList(List<CatalogObjectMetadata> objectMetadataList) {
-        this.objectMetadataList = objectMetadataList;
+        this(objectMetadataList, null);
     }
 
     public CatalogObjectMetadataList(CatalogObjectMetadata objectMetadata) {
-        this.objectMetadataList = Collections.singletonList(objectMetadata);
+        this(Collections.singletonList(objectMetadata), null);
+    }
+
+    public CatalogObjectMetadataList(List<CatalogObjectMetadata> objectMetadataList,
+            List<CatalogObjectImportStatus> importResults) {
+        this.objectMetadataList = objectMetadataList;
+        this.importResults = importResults;
     }
 
 }
@@ -56,4 +56,9 @@ public class CatalogObjectConnection {
     private int totalPage;
 
     private int totalCount;
+
+    /**
+     * Cursor of the next page when the objects are listed by keyset pagination, null on the last page
+     */
+    private String next;
 }
@@ -42,4 +42,14 @@ public class PageInfo {
     private int page;
 
     private int size;
+
+    /**
+     * Cursor of the last object of the previous page, replacing the page number. It is empty for the first page.
+     */
+    private String after;
+
+    public PageInfo(int page, int size) {
+        this.page = page;
+        this.size = size;
+    }
 }
@@ -43,11 +43,13 @@ import org.ow2.proactive.catalog.graphql.bean.argument.OrderBy;
 import org.ow2.proactive.catalog.graphql.bean.argument.PageInfo;
 import org.ow2.proactive.catalog.graphql.bean.common.Arguments;
 import org.ow2.proactive.catalog.graphql.handler.FilterHandler;
+import org.ow2.proactive.catalog.repository.CatalogObjectCursor;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.repository.specification.catalogobject.DefaultSpecification;
 import org.ow2.proactive.catalog.rest.controller.CatalogObjectController;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
+import org.ow2.proactive.catalog.service.exception.WrongParametersException;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -91,7 +93,7 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
     @Override
     public CatalogObjectConnection get(DataFetchingEnvironment environment) {
 
-        Pageable pageable = createPageRequest(environment);
+        PageInfo pageInfo = getPageInfo(environment);
 
         CatalogObjectWhereArgs argument = objectMapper.convertValue(environment.getArgument(Arguments.WHERE.getName()),
                                                                     CatalogObjectWhereArgs.class);
@@ -103,6 +105,12 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
                                                                                                                                    .map(optional -> optional.get())
                                                                                                                                    .findFirst();
 
+        if (pageInfo.getAfter() != null) {
+            return getPageAfter(specificationOptional.orElseGet(DefaultSpecification::new), pageInfo);
+        }
+
+        Pageable pageable = createPageRequest(environment, pageInfo);
+
         Page<CatalogObjectRevisionEntity> catalogObjectEntitiesPage = specificationOptional.isPresent() ? catalogObjectRevisionRepository.findAll(specificationOptional.get(),
                                                                                                                                                   pageable)
                                                                                                         : catalogObjectRevisionRepository.findAll(new DefaultSpecification(),
@@ -120,23 +128,64 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
                                       .build();
     }
 
-    private Pageable createPageRequest(DataFetchingEnvironment environment) {
-        String orderByString = objectMapper.convertValue(environment.getArgument(Arguments.ORDER_BY.getName()),
-                                                         String.class);
+    /**
+     * Keyset pagination, the total count of objects is not computed since it would read all the matching objects
+     */
+    private CatalogObjectConnection getPageAfter(Specification<CatalogObjectRevisionEntity> specification,
+            PageInfo pageInfo) {
+        int size = pageInfo.getSize();
+        if (size < 1) {
+            throw new WrongParametersException("Page size must not be less than one");
+        }
+        CatalogObjectCursor after = null;
+        if (!pageInfo.getAfter().isEmpty()) {
+            try {
+                after = CatalogObjectCursor.decode(pageInfo.getAfter());
+            } catch (IllegalArgumentException e) {
+                throw new WrongParametersException(e.getMessage());
+            }
+        }
 
-        OrderBy orderBy;
-        if (orderByString == null) {
-            orderBy = OrderBy.CATALOG_OBJECT_KEY_ASC;
-        } else {
-            orderBy = OrderBy.fromValue(orderByString);
+        // one more object is requested to know whether there is a next page
+        List<CatalogObjectRevisionEntity> revisions = catalogObjectRevisionRepository.findDefaultCatalogObjectsAfter(specification,
+                                                                                                                      after,
+                                                                                                                      size == Integer.MAX_VALUE ? size
+                                                                                                                                                : size + 1);
+        String next = null;
+        if (revisions.size() > size) {
+            revisions = revisions.subList(0, size);
+            next = CatalogObjectCursor.of(revisions.get(size - 1)).encode();
         }
 
+        return CatalogObjectConnection.builder()
+                                      .edges(catalogObjectMapper.apply(revisions.stream()).collect(Collectors.toList()))
+                                      .size(size)
+                                      .hasNext(next != null)
+                                      .hasPrevious(after != null)
+                                      .next(next)
+                                      .build();
+    }
+
+    private PageInfo getPageInfo(DataFetchingEnvironment environment) {
         PageInfo pageInfo = objectMapper.convertValue(environment.getArgument(Arguments.PAGE_INFO.getName()),
                                                       PageInfo.class);
 
         if (pageInfo == null) {
             pageInfo = new PageInfo(0, 50);
         }
+        return pageInfo;
+    }
+
+    private Pageable createPageRequest(DataFetchingEnvironment environment, PageInfo pageInfo) {
+        String orderByString = objectMapper.convertValue(environment.getArgument(Arguments.ORDER_BY.getName()),
+                                                         String.class);
+
+        OrderBy orderBy;
+        if (orderByString == null) {
+            orderBy = OrderBy.CATALOG_OBJECT_KEY_ASC;
+        } else {
+            orderBy = OrderBy.fromValue(orderByString);
+        }
 
         // remove orderby for now, and will fix it later
         //        switch (orderBy) {
@@ -27,9 +27,11 @@ package org.ow2.proactive.catalog.report;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -72,8 +74,21 @@ public class CatalogObjectReportPDFGenerator {
     public byte[] generatePDF(Set<CatalogObjectMetadata> orderedObjectsPerBucket, Optional<String> kind,
             Optional<String> contentType) {
 
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                PDDocument doc = new PDDocument()) {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        generatePDF(orderedObjectsPerBucket, kind, contentType, byteArrayOutputStream);
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Generate the report and save it directly into the given output stream, without keeping a copy of the
+     * saved document in memory. The stream is not closed.
+     *
+     * @return the names of the buckets of the objects shown in the report, including their dependencies
+     */
+    public Set<String> generatePDF(Set<CatalogObjectMetadata> orderedObjectsPerBucket, Optional<String> kind,
+            Optional<String> contentType, OutputStream outputStream) {
+
+        try (PDDocument doc = reportGeneratorHelper.createDocument()) {
 
             //Load font for all languages
             reportGeneratorHelper.setFontToUse(doc);
@@ -112,9 +127,13 @@ public class CatalogObjectReportPDFGenerator {
                                                                                         table2);
             table2.draw();
 
-            doc.save(byteArrayOutputStream);
+            doc.save(outputStream);
 
-            return byteArrayOutputStream.toByteArray();
+            Set<String> bucketNames = orderedObjectsPerBucket.stream()
+                                                             .map(CatalogObjectMetadata::getBucketName)
+                                                             .collect(Collectors.toSet());
+            bucketNames.addAll(reportGeneratorHelper.extractBucketSet(globalCallGraph));
+            return bucketNames;
 
         } catch (IOException e) {
             throw new PDFGenerationException(e);
@@ -30,7 +30,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,14 +40,8 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.jgrapht.Graph;
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.alg.cycle.CycleDetector;
-import org.jgrapht.alg.cycle.Cycles;
-import org.jgrapht.alg.shortestpath.AllDirectedPaths;
-import org.jgrapht.graph.AsSubgraph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.traverse.BreadthFirstIterator;
+import org.ow2.proactive.catalog.callgraph.CallGraphDecomposition;
 import org.ow2.proactive.catalog.callgraph.CallGraphHolder;
 import org.ow2.proactive.catalog.callgraph.GraphNode;
 import org.ow2.proactive.catalog.dto.CatalogObjectDependencies;
@@ -92,6 +85,9 @@ public class TableCatalogObjectsDependenciesBuilder {
     @VisibleForTesting
     static final float CELL_HEIGHT = 10f;
 
+    @VisibleForTesting
+    static final int MAX_LISTED_CALL_CHAINS = 50;
+
     /**
      * This method builds a table of catalog objects dependencies ordered and grouped by bucket and object name.
      *  In case the order of the callGraphHolder is zero, an appropriate message is displayed.
@@ -110,23 +106,18 @@ public class TableCatalogObjectsDependenciesBuilder {
                                              CELL_WIDTH,
                                              "No identified Dependencies in the Catalog or among the selected Catalog Objects");
         } else {
-            List<GraphPath<GraphNode, DefaultEdge>> graphPathsList = computeAllGraphPaths(callGraphHolder);
-
-            //Grouping all graph paths having the same root
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> groupingGraphPathsHavingSameRoot = graphPathsList.stream()
-                                                                                                                     .collect(Collectors.groupingBy(GraphPath::getStartVertex,
-                                                                                                                                                    Collectors.toList()));
+            Map<GraphNode, List<List<GraphNode>>> callChainsPerCatalogObject = computeCallChains(callGraphHolder);
             Set<GraphNode> leafNodes = getLeafNodes(callGraphHolder);
             leafNodes.stream()
                      .filter(leafNode -> !leafNode.getObjectKind().equals("N/A"))
                      .collect(Collectors.toSet())
                      .forEach(leafNode -> {
-                         groupingGraphPathsHavingSameRoot.put(leafNode, new ArrayList<>());
+                         callChainsPerCatalogObject.put(leafNode, new ArrayList<>());
                          catalogObjectMetadataList.add(catalogObjectService.getCatalogObjectMetadata(leafNode.getBucketName(),
                                                                                                      leafNode.getObjectName()));
                      });
 
-            TreeMap<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> sortGraphPathsPerBucketAndObjectName = sortGraphPathsPerBucketAndObjectName(groupingGraphPathsHavingSameRoot);
+            TreeMap<GraphNode, List<List<GraphNode>>> sortCallChainsPerBucketAndObjectName = sortCallChainsPerBucketAndObjectName(callChainsPerCatalogObject);
 
             //collect Catalog Objects Dependencies
             Map<String, CatalogObjectDependencies> catalogObjectDependenciesMap = computeCatalogObjectsDependencies(catalogObjectMetadataList,
@@ -134,7 +125,7 @@ public class TableCatalogObjectsDependenciesBuilder {
 
             String currentBucketName = "";
             String bucketAndNameAndKindCatalogObject = "";
-            for (Map.Entry<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> mapEntry : sortGraphPathsPerBucketAndObjectName.entrySet()) {
+            for (Map.Entry<GraphNode, List<List<GraphNode>>> mapEntry : sortCallChainsPerBucketAndObjectName.entrySet()) {
                 if (!currentBucketName.equals(mapEntry.getKey().getBucketName())) {
                     currentBucketName = mapEntry.getKey().getBucketName();
                     Row<PDPage> dataRow = table.createRow(CELL_HEIGHT);
@@ -160,91 +151,72 @@ public class TableCatalogObjectsDependenciesBuilder {
     }
 
     /**
-     * This methods computes all graph paths of the callGraphHolder. A graph path is a chain of dependencies starting from a node until a leaf
+     * This methods computes the call chains of all the catalog objects of the callGraphHolder which call other ones.
+     * A call chain is a chain of dependencies starting from a catalog object until a leaf. At most
+     * {@link #MAX_LISTED_CALL_CHAINS} chains (plus one, to know whether some are not listed) are computed per catalog
+     * object, since their number is exponential in the depth of diamond-shaped graphs.
      *
      * @param callGraphHolder
      * @return
      */
-    private List<GraphPath<GraphNode, DefaultEdge>> computeAllGraphPaths(CallGraphHolder callGraphHolder) {
-
+    private Map<GraphNode, List<List<GraphNode>>> computeCallChains(CallGraphHolder callGraphHolder) {
         Graph<GraphNode, DefaultEdge> callGraph = callGraphHolder.getCallGraph();
-        List<GraphPath<GraphNode, DefaultEdge>> graphPathList = new ArrayList<>();
-
-        Set<GraphNode> leafNodes = getLeafNodes(callGraphHolder);
-
-        AllDirectedPaths allDirectedPaths = new AllDirectedPaths(callGraph);
-        graphPathList.addAll(allDirectedPaths.getAllPaths(callGraph.vertexSet(), leafNodes, true, null));
-
-        //Detect simple cycles and add them to the graph paths list
-        CycleDetector<GraphNode, DefaultEdge> cycleDetector = new CycleDetector(callGraph);
-
-        if (cycleDetector.detectCycles()) {
-            Set<GraphNode> cycleVertices = cycleDetector.findCycles();
-            Graph<GraphNode, DefaultEdge> subGraphWithCycles = new AsSubgraph(callGraph, cycleVertices);
-            graphPathList.add(Cycles.simpleCycleToGraphPath(subGraphWithCycles,
-                                                            new ArrayList(subGraphWithCycles.edgeSet())));
-
-        }
-
-        return graphPathList.stream().filter(graphPath -> graphPath.getLength() >= 1).collect(Collectors.toList());
+        CallGraphDecomposition callGraphDecomposition = new CallGraphDecomposition(callGraph);
+        Map<GraphNode, List<List<GraphNode>>> callChainsPerCatalogObject = new HashMap<>();
+        callGraph.vertexSet()
+                 .stream()
+                 .filter(graphNode -> callGraph.outDegreeOf(graphNode) > 0)
+                 .forEach(graphNode -> callChainsPerCatalogObject.put(graphNode,
+                                                                      callGraphDecomposition.getCallChains(graphNode,
+                                                                                                           MAX_LISTED_CALL_CHAINS +
+                                                                                                                      1)));
+        return callChainsPerCatalogObject;
     }
 
     private Set<GraphNode> getLeafNodes(CallGraphHolder callGraphHolder) {
-
         Graph<GraphNode, DefaultEdge> callGraph = callGraphHolder.getCallGraph();
-        ConnectivityInspector<GraphNode, DefaultEdge> inspector = new ConnectivityInspector(new AsSubgraph(callGraph,
-                                                                                                           callGraphHolder.nodeSet(),
-                                                                                                           callGraphHolder.dependencySet()));
-        Set<GraphNode> leafNodes = new HashSet<>();
-        inspector.connectedSets().forEach(connectedComponent -> {
-            BreadthFirstIterator breadthFirstIterator = new BreadthFirstIterator(new AsSubgraph(callGraph,
-                                                                                                connectedComponent,
-                                                                                                callGraphHolder.dependencySet()));
-            GraphNode graphNode;
-            while (breadthFirstIterator.hasNext()) {
-                graphNode = ((GraphNode) breadthFirstIterator.next());
-                if (callGraph.outDegreeOf(graphNode) == 0) {
-                    leafNodes.add(graphNode);
-                }
-            }
-        });
-        return leafNodes;
+        return callGraph.vertexSet()
+                        .stream()
+                        .filter(graphNode -> callGraph.outDegreeOf(graphNode) == 0)
+                        .collect(Collectors.toSet());
     }
 
     /**
-      * This methods sorts graph paths per bucket then object name
+      * This methods sorts call chains per bucket then object name
       *
-      * @param graphPathsHashMap
+      * @param callChainsHashMap
       * @return
       */
 
-    private TreeMap<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> sortGraphPathsPerBucketAndObjectName(
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> graphPathsHashMap) {
+    private TreeMap<GraphNode, List<List<GraphNode>>>
+            sortCallChainsPerBucketAndObjectName(Map<GraphNode, List<List<GraphNode>>> callChainsHashMap) {
         Comparator<GraphNode> sortBasedOnName = Comparator.comparing(GraphNode::getBucketName);
         sortBasedOnName = sortBasedOnName.thenComparing(GraphNode::getObjectName);
 
-        TreeMap<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> sortedObjects = new TreeMap(sortBasedOnName);
-        sortedObjects.putAll(graphPathsHashMap);
+        TreeMap<GraphNode, List<List<GraphNode>>> sortedObjects = new TreeMap(sortBasedOnName);
+        sortedObjects.putAll(callChainsHashMap);
         return sortedObjects;
     }
 
-    private String dataCell(GraphNode catalogObjectRoot,
-            List<GraphPath<GraphNode, DefaultEdge>> catalogObjectGraphPathList,
+    private String dataCell(GraphNode catalogObjectRoot, List<List<GraphNode>> catalogObjectCallChainList,
             CatalogObjectDependencies catalogObjectDependencies) {
         StringBuilder dataCell = new StringBuilder();
         String root = nodeBeautify(catalogObjectRoot);
         dataCell.append(root).append("<br>");
         dataCell.append("<i>").append("Calls: ").append("</i>").append("<br>");
 
-        for (GraphPath<GraphNode, DefaultEdge> catalogObjectGraphPath : catalogObjectGraphPathList) {
+        for (List<GraphNode> dependencyList : catalogObjectCallChainList.subList(0,
+                                                                                Math.min(catalogObjectCallChainList.size(),
+                                                                                         MAX_LISTED_CALL_CHAINS))) {
             dataCell.append(MARGIN);
-            List<GraphNode> dependencyList = catalogObjectGraphPath.getVertexList();
-            dependencyList.remove(0);
             for (GraphNode catalogObjectDependency : dependencyList) {
                 dataCell.append("\u21E2").append(" ").append(nodeBeautify(catalogObjectDependency)).append(" ");
             }
             dataCell.append("<br>");
         }
+        if (catalogObjectCallChainList.size() > MAX_LISTED_CALL_CHAINS) {
+            dataCell.append(MARGIN).append("\u21E2").append(" ...").append("<br>");
+        }
 
         dataCell.append("<i>").append("Called: ").append("</i>").append("<br>");
         for (String objectCalledBy : catalogObjectDependencies.getCalledByList()) {
@@ -53,6 +53,9 @@ public interface BucketGrantRepository extends JpaRepository<BucketGrantEntity,
     @Query(value = "SELECT bge FROM BucketGrantEntity bge WHERE bge.grantee in ?1 AND bge.granteeType='group'")
     List<BucketGrantEntity> findAllBucketsGrantsByUserGroup(List<String> userGroup);
 
+    @Query(value = "SELECT bge FROM BucketGrantEntity bge JOIN FETCH bge.bucketEntity WHERE (bge.grantee = ?1 AND bge.granteeType='user') OR (bge.grantee in ?2 AND bge.granteeType='group')")
+    List<BucketGrantEntity> findAllBucketsGrantsByUsernameOrUserGroup(String username, List<String> userGroup);
+
     @Query(value = "SELECT bge FROM BucketGrantEntity bge WHERE bge.grantee = ?1 And bge.granteeType='user' AND bge.accessType<>'noAccess'")
     List<BucketGrantEntity> findAccessibleBucketsGrantsAssignedToAUsername(String username);
 
@@ -35,6 +35,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QueryDslPredicateExecutor;
@@ -50,11 +51,51 @@ public interface BucketRepository extends JpaRepository<BucketEntity, Long>, Jpa
 
     List<BucketEntity> findByOwnerIn(List<String> owners, Sort sort);
 
+    @Query(value = "SELECT bk.id, bk.bucketName FROM BucketEntity bk")
+    List<Object[]> findIdsAndNames();
+
+    @Query(value = "SELECT bk.bucketName, bk.owner, bk.objectCount FROM BucketEntity bk WHERE bk.bucketName in ?1")
+    List<Object[]> findBucketsWithObjectCount(List<String> bucketNames);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @QueryHints({ @QueryHint(name = "javax.persistence.lock.timeout", value = "5000") })
-    @Query(value = "SELECT bk FROM BucketEntity bk WHERE SIZE(bk.catalogObjects) = 0")
+    @Query(value = "SELECT bk FROM BucketEntity bk WHERE bk.objectCount = 0")
     List<BucketEntity> findEmptyBucketsForUpdate();
 
+    @Modifying
+    @Query(value = "UPDATE BucketEntity bk SET bk.objectCount = bk.objectCount + ?2 WHERE bk.id = ?1")
+    int updateObjectCount(Long bucketId, int delta);
+
+    @Modifying
+    @Query(value = "UPDATE BucketEntity bk SET bk.objectCount = (SELECT COUNT(co) FROM CatalogObjectEntity co WHERE co.id.bucketId = bk.id) WHERE bk.objectCount IS NULL")
+    int initMissingObjectCounts();
+
+    @Modifying
+    @Query(value = "UPDATE BucketEntity bk SET bk.ownerRevisionPending = true, bk.ownerRevisionCursor = null WHERE bk.id = ?1")
+    int markOwnerRevisionPending(Long bucketId);
+
+    /**
+     * @return the id, the name, the owner and the owner revision cursor of the buckets whose objects still need a
+     * revision for the current owner
+     */
+    @Query(value = "SELECT bk.id, bk.bucketName, bk.owner, bk.ownerRevisionCursor FROM BucketEntity bk WHERE bk.ownerRevisionPending = true ORDER BY bk.id")
+    List<Object[]> findPendingOwnerRevisions();
+
+    @Query(value = "SELECT COUNT(bk) FROM BucketEntity bk WHERE bk.ownerRevisionPending = true")
+    long countPendingOwnerRevisions();
+
+    /**
+     * The cursor is only moved when the owner did not change meanwhile, otherwise the revision restarts from the
+     * first object.
+     */
+    @Modifying
+    @Query(value = "UPDATE BucketEntity bk SET bk.ownerRevisionCursor = ?3 WHERE bk.id = ?1 AND bk.owner = ?2 AND bk.ownerRevisionPending = true")
+    int updateOwnerRevisionCursor(Long bucketId, String owner, String cursor);
+
+    @Modifying
+    @Query(value = "UPDATE BucketEntity bk SET bk.ownerRevisionPending = false, bk.ownerRevisionCursor = null WHERE bk.id = ?1 AND bk.owner = ?2")
+    int completeOwnerRevision(Long bucketId, String owner);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @QueryHints({ @QueryHint(name = "javax.persistence.lock.timeout", value = "5000") })
     @Query(value = "SELECT bk FROM BucketEntity bk WHERE bk.bucketName = ?1")
@@ -0,0 +1,102 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+
+/**
+ * Position of the last catalog object of a page, in the (project name, object name, bucket id) order of the keyset
+ * pagination. The objects without project name are listed first, so that the order does not depend on where the
+ * database sorts the null values.
+ *
+ * @author ActiveEon Team
+ */
+@AllArgsConstructor
+@Data
+public class CatalogObjectCursor {
+
+    /**
+     * Project name of the last object, null when the last object has no project name
+     */
+    private final String projectName;
+
+    private final String name;
+
+    private final long bucketId;
+
+    public static CatalogObjectCursor of(CatalogObjectRevisionEntity lastRevision) {
+        String projectName = lastRevision.getProjectName();
+        return new CatalogObjectCursor(projectName.isEmpty() ? null : projectName,
+                                       lastRevision.getCatalogObject().getId().getName(),
+                                       lastRevision.getCatalogObject().getId().getBucketId());
+    }
+
+    /**
+     * @return the opaque representation of the cursor, which can be passed in a URL
+     */
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeBoolean(projectName != null);
+            output.writeUTF(projectName != null ? projectName : "");
+            output.writeUTF(name);
+            output.writeLong(bucketId);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cursor of " + name + " cannot be encoded", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not returned by {@link #encode()}
+     */
+    public static CatalogObjectCursor decode(String cursor) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder()
+                                                                                         .decode(cursor)))) {
+            boolean hasProjectName = input.readBoolean();
+            String projectName = input.readUTF();
+            String name = input.readUTF();
+            long bucketId = input.readLong();
+            if (input.read() != -1) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new CatalogObjectCursor(hasProjectName ? projectName : null, name, bucketId);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -87,4 +87,8 @@ public interface CatalogObjectGrantRepository extends JpaRepository<CatalogObjec
 
     @Query(value = "SELECT coge FROM CatalogObjectGrantEntity coge WHERE coge.grantee in ?1 AND coge.granteeType='group'")
     List<CatalogObjectGrantEntity> findAllObjectGrantsAssignedToUserGroups(List<String> userGroup);
+
+    @Query(value = "SELECT coge FROM CatalogObjectGrantEntity coge JOIN FETCH coge.catalogObject co JOIN FETCH co.bucket WHERE (coge.grantee = ?1 AND coge.granteeType='user') OR (coge.grantee in ?2 AND coge.granteeType='group')")
+    List<CatalogObjectGrantEntity> findAllObjectGrantsAssignedToAUserOrUserGroups(String username,
+            List<String> userGroup);
 }
@@ -0,0 +1,91 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
+
+import com.google.common.collect.Lists;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+
+/**
+ * Restriction of a catalog object listing either to some object names, or to all the object names except some of
+ * them. It is applied in the listing query, so that the pages only contain the accepted objects.
+ *
+ * @author ActiveEon Team
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Data
+public class CatalogObjectNameFilter {
+
+    public static final CatalogObjectNameFilter ALL = except(Collections.emptySet());
+
+    /**
+     * Whether the names are the only accepted ones, or the only rejected ones
+     */
+    private final boolean onlyNames;
+
+    private final Set<String> names;
+
+    public static CatalogObjectNameFilter only(Set<String> names) {
+        return new CatalogObjectNameFilter(true, names);
+    }
+
+    public static CatalogObjectNameFilter except(Set<String> names) {
+        return new CatalogObjectNameFilter(false, names);
+    }
+
+    public boolean accepts(String name) {
+        return onlyNames == names.contains(name);
+    }
+
+    public Predicate toPredicate(Expression<String> name, CriteriaBuilder cb) {
+        if (names.isEmpty()) {
+            return onlyNames ? cb.disjunction() : cb.conjunction();
+        }
+        List<Predicate> partitionPredicates = Lists.partition(new ArrayList<>(names),
+                                                              PartitionedQueryHelper.MAX_IN_PARAMETERS)
+                                                   .stream()
+                                                   .map(partition -> onlyNames ? name.in(partition)
+                                                                               : cb.not(name.in(partition)))
+                                                   .collect(Collectors.toList());
+        Predicate[] predicates = partitionPredicates.toArray(new Predicate[0]);
+        return onlyNames ? cb.or(predicates) : cb.and(predicates);
+    }
+}
@@ -25,6 +25,7 @@
  */
 package org.ow2.proactive.catalog.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -50,6 +51,12 @@ public interface CatalogObjectRepository
     @Query(value = "SELECT DISTINCT cos.kind FROM CatalogObjectEntity cos")
     Set<String> findAllKinds();
 
+    /**
+     * @return the bucket name, the name, the kind and the last commit time of all the catalog objects
+     */
+    @Query(value = "SELECT cos.bucket.bucketName, cos.id.name, cos.kind, cos.lastCommitTime FROM CatalogObjectEntity cos")
+    List<Object[]> findAllBucketNamesKindsAndLastCommitTimes();
+
     @Query(value = "SELECT DISTINCT cos.contentType FROM CatalogObjectEntity cos")
     Set<String> findAllContentTypes();
 
@@ -57,6 +64,31 @@ public interface CatalogObjectRepository
                    WorkflowParser.OBJECT_TAG_LABEL + "'")
     Set<String> findAllObjectTags();
 
+    /**
+     * @return the name and the kind of every object of the bucket, as {@code [name, kind]} pairs
+     */
+    @Query("SELECT cos.id.name, cos.kind FROM CatalogObjectEntity cos WHERE cos.id.bucketId = ?1")
+    List<Object[]> findNamesAndKindsInBucket(Long bucketId);
+
+    @Query("SELECT cos.id.name FROM CatalogObjectEntity cos WHERE cos.bucket.bucketName = ?1 AND cos.id.name in ?2")
+    List<String> findNamesInBucket(String bucketName, Collection<String> names);
+
+    /**
+     * @return the bucket name and the name of the objects of the given buckets with one of the given names, as
+     * {@code [bucketName, name]} pairs
+     */
+    @Query("SELECT cos.bucket.bucketName, cos.id.name FROM CatalogObjectEntity cos WHERE cos.bucket.bucketName in ?1 AND cos.id.name in ?2")
+    List<Object[]> findBucketAndObjectNames(Collection<String> bucketNames, Collection<String> names);
+
+    /**
+     * @return the {@code [bucketName, name, kind]} of the objects whose bucket and name are among the given ones
+     */
+    @Query("SELECT cos.bucket.bucketName, cos.id.name, cos.kind FROM CatalogObjectEntity cos WHERE cos.bucket.bucketName in ?1 AND cos.id.name in ?2")
+    List<Object[]> findBucketAndObjectNamesAndKinds(Collection<String> bucketNames, Collection<String> names);
+
+    @Query("SELECT cos FROM CatalogObjectEntity cos WHERE cos.id.bucketId = ?1 AND cos.id.name in ?2")
+    List<CatalogObjectEntity> findByBucketIdAndNames(Long bucketId, Collection<String> names);
+
     @Query("SELECT cos FROM CatalogObjectEntity cos WHERE cos.nameLower = null OR cos.kindLower = null OR cos.contentTypeLower = null")
     List<CatalogObjectEntity> findWithNullNameKindOrContentType();
 
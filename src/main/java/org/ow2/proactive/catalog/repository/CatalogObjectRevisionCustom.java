@@ -28,6 +28,7 @@ package org.ow2.proactive.catalog.repository;
 import java.util.List;
 
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.springframework.data.jpa.domain.Specification;
 
 
 /**
@@ -43,4 +44,32 @@ public interface CatalogObjectRevisionCustom {
             List<String> bucketNames, List<String> kindList, String contentType, String objectName, String tag,
             int pageNo, int pageSize);
 
+    /**
+     * Offset pagination of the last revisions of the catalog objects matching the filters. The filters are ignored
+     * when null.
+     */
+    List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(
+            List<String> bucketNames, List<String> kindList, String contentType, String objectName, String tag,
+            CatalogObjectNameFilter nameFilter, int pageNo, int pageSize);
+
+    /**
+     * Keyset pagination of the last revisions of the catalog objects matching the filters. The filters are ignored
+     * when null.
+     *
+     * @param after position of the last object of the previous page, null for the first page
+     * @param maxResults maximum number of revisions returned
+     */
+    List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucketAfter(
+            List<String> bucketNames, List<String> kindList, String contentType, String objectName, String tag,
+            CatalogObjectNameFilter nameFilter, CatalogObjectCursor after, int maxResults);
+
+    /**
+     * Keyset pagination of the revisions matching the specification, which must select the last revisions.
+     *
+     * @param after position of the last object of the previous page, null for the first page
+     * @param maxResults maximum number of revisions returned
+     */
+    List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsAfter(
+            Specification<CatalogObjectRevisionEntity> specification, CatalogObjectCursor after, int maxResults);
+
 }
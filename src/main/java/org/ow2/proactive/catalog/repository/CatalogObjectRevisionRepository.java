@@ -25,6 +25,7 @@
  */
 package org.ow2.proactive.catalog.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,6 +35,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -48,9 +50,16 @@ public interface CatalogObjectRevisionRepository extends JpaRepository<CatalogOb
     @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.projectName = null OR cor.projectName = ''")
     List<CatalogObjectRevisionEntity> findWithEmptyOrNullProjectName();
 
-    @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.bucket.bucketName in ?1 AND cor.catalogObject.lastCommitTime = cor.commitTime ORDER BY cor.projectName")
+    @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.bucket.bucketName in ?1 AND cor.catalogObject.lastCommitTime = cor.commitTime ORDER BY cor.projectName, cor.catalogObject.id.name, cor.catalogObject.id.bucketId")
     Page<CatalogObjectRevisionEntity> findDefaultCatalogObjectsInBucket(List<String> bucketNames, Pageable pageable);
 
+    @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.id.bucketId = ?1 AND cor.catalogObject.lastCommitTime = cor.commitTime ORDER BY cor.catalogObject.id.name")
+    List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsInBucketOrderedByName(Long bucketId, Pageable pageable);
+
+    @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.id.bucketId = ?1 AND cor.catalogObject.id.name > ?2 AND cor.catalogObject.lastCommitTime = cor.commitTime ORDER BY cor.catalogObject.id.name")
+    List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsInBucketAfterName(Long bucketId, String name,
+            Pageable pageable);
+
     @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.bucket.bucketName in ?1 AND cor.catalogObject.id.name = ?2 AND cor.catalogObject.lastCommitTime = cor.commitTime")
     CatalogObjectRevisionEntity findDefaultCatalogObjectByNameInBucket(List<String> bucketNames, String name);
 
@@ -58,6 +67,37 @@ public interface CatalogObjectRevisionRepository extends JpaRepository<CatalogOb
     List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsByNameInBucket(String bucketName,
             List<String> objectName);
 
+    @Query("SELECT cor.content.id, COUNT(cor) FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.id.bucketId = ?1 AND cor.catalogObject.id.name = ?2 AND cor.content IS NOT NULL GROUP BY cor.content.id")
+    List<Object[]> countContentReferences(Long bucketId, String name);
+
+    @Query("SELECT cor.id, cor.content.digest FROM CatalogObjectRevisionEntity cor WHERE cor.id in ?1")
+    List<Object[]> findContentDigests(Collection<Long> revisionIds);
+
+    @Query("SELECT cor.content.id, COUNT(cor) FROM CatalogObjectRevisionEntity cor WHERE cor.id in ?1 AND cor.content IS NOT NULL GROUP BY cor.content.id")
+    List<Object[]> countContentReferencesOfRevisions(Collection<Long> revisionIds);
+
+    /**
+     * @return the {@code [id, name, commitTime]} of the revisions of a bucket, by object name then from the most recent
+     * revision of each object
+     */
+    @Query("SELECT cor.id, cor.catalogObject.id.name, cor.commitTime FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.id.bucketId = ?1 ORDER BY cor.catalogObject.id.name, cor.commitTime DESC")
+    List<Object[]> findRevisionKeysInBucket(Long bucketId, Pageable pageable);
+
+    /**
+     * @return the {@code [id, name, commitTime]} of the revisions of a bucket following the given revision, in the
+     * order of {@link #findRevisionKeysInBucket}
+     */
+    @Query("SELECT cor.id, cor.catalogObject.id.name, cor.commitTime FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.id.bucketId = ?1 AND (cor.catalogObject.id.name > ?2 OR (cor.catalogObject.id.name = ?2 AND cor.commitTime < ?3)) ORDER BY cor.catalogObject.id.name, cor.commitTime DESC")
+    List<Object[]> findRevisionKeysInBucketAfter(Long bucketId, String name, long commitTime, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM KeyValueLabelMetadataEntity kv WHERE kv.catalogObjectRevision.id in ?1")
+    int deleteMetadataOfRevisions(Collection<Long> revisionIds);
+
+    @Modifying
+    @Query("DELETE FROM CatalogObjectRevisionEntity cor WHERE cor.id in ?1")
+    int deleteByIds(Collection<Long> revisionIds);
+
     @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.id = ?1")
     List<CatalogObjectRevisionEntity> findCatalogObject(long catalogObjectId);
 
@@ -91,6 +131,16 @@ public interface CatalogObjectRevisionRepository extends JpaRepository<CatalogOb
     List<CatalogObjectRevisionEntity>
             findCalledByCatalogObjectsFromKeyValueMetadata(@Param("bucketObjectName") String bucketObjectName);
 
+    /**
+     * @return the bucket name and the name of the objects, followed by the key and the value of the depends_on
+     * metadata of their last revision, in the order of the metadata
+     */
+    @Query("SELECT cor.catalogObject.bucket.bucketName, cor.catalogObject.id.name, metadata.key, metadata.value " +
+           "FROM CatalogObjectRevisionEntity cor INNER JOIN cor.keyValueMetadataList metadata WHERE metadata.label = '" +
+           WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL + "' AND cor.commitTime = cor.catalogObject.lastCommitTime" +
+           " ORDER BY metadata.id")
+    List<Object[]> findDependsOnOfLastRevisions();
+
     @Query(value = "SELECT cor FROM CatalogObjectRevisionEntity cor " +
                    "WHERE cor.catalogObject.kindLower LIKE lower(concat(?1, '%')) " +
                    "AND cor.catalogObject.contentTypeLower LIKE lower(concat(?2, '%'))  " +
@@ -27,7 +27,6 @@ package org.ow2.proactive.catalog.repository;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -36,6 +35,7 @@ import javax.persistence.criteria.*;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
 
 
@@ -52,7 +52,7 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
         if (pageSize < 0) {
             throw new IllegalArgumentException("pageSize cannot be negative");
         }
-        return em.createQuery(buildCriteriaQuery(bucketNames, kindList, contentType, objectName))
+        return em.createQuery(buildCriteriaQuery(bucketNames, kindList, contentType, objectName, null, null))
                  .setMaxResults(pageSize)
                  .setFirstResult(pageNo * pageSize)
                  .getResultList();
@@ -66,13 +66,122 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
         if (pageSize < 0) {
             throw new IllegalArgumentException("pageSize cannot be negative");
         }
-        return em.createQuery(buildCriteriaQuery(bucketNames, kindList, contentType, objectName, tag))
+        return em.createQuery(buildCriteriaQuery(bucketNames, kindList, contentType, objectName, tag, null))
                  .setMaxResults(pageSize)
                  .setFirstResult(pageNo * pageSize)
-                 .getResultList()
-                 .stream()
-                 .distinct()
-                 .collect(Collectors.toList());
+                 .getResultList();
+    }
+
+    @Override
+    public List<CatalogObjectRevisionEntity>
+            findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(List<String> bucketNames,
+                    List<String> kindList, String contentType, String objectName, String tag,
+                    CatalogObjectNameFilter nameFilter, int pageNo, int pageSize) {
+        if (pageSize < 0) {
+            throw new IllegalArgumentException("pageSize cannot be negative");
+        }
+        return em.createQuery(buildCriteriaQuery(bucketNames, kindList, contentType, objectName, tag, nameFilter))
+                 .setMaxResults(pageSize)
+                 .setFirstResult(pageNo * pageSize)
+                 .getResultList();
+    }
+
+    @Override
+    public List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucketAfter(
+            List<String> bucketNames, List<String> kindList, String contentType, String objectName, String tag,
+            CatalogObjectNameFilter nameFilter, CatalogObjectCursor after, int maxResults) {
+        return findDefaultCatalogObjectsAfter((root, query, cb) -> {
+            List<Predicate> allPredicates = getFilterPredicates(root,
+                                                                query,
+                                                                cb,
+                                                                bucketNames,
+                                                                kindList,
+                                                                contentType,
+                                                                objectName,
+                                                                tag,
+                                                                nameFilter);
+            return cb.and(allPredicates.toArray(new Predicate[0]));
+        }, after, maxResults);
+    }
+
+    @Override
+    public List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsAfter(
+            Specification<CatalogObjectRevisionEntity> specification, CatalogObjectCursor after, int maxResults) {
+        if (maxResults < 0) {
+            throw new IllegalArgumentException("maxResults cannot be negative");
+        }
+        List<CatalogObjectRevisionEntity> result = new ArrayList<>();
+        // the objects without project name come first, then the others ordered by project name
+        boolean afterObjectWithoutProjectName = after == null || after.getProjectName() == null;
+        if (afterObjectWithoutProjectName) {
+            result.addAll(em.createQuery(buildKeysetCriteriaQuery(specification, after, false))
+                            .setMaxResults(maxResults)
+                            .getResultList());
+        }
+        if (result.size() < maxResults) {
+            result.addAll(em.createQuery(buildKeysetCriteriaQuery(specification,
+                                                                  afterObjectWithoutProjectName ? null : after,
+                                                                  true))
+                            .setMaxResults(maxResults - result.size())
+                            .getResultList());
+        }
+        return result;
+    }
+
+    private CriteriaQuery<CatalogObjectRevisionEntity> buildKeysetCriteriaQuery(
+            Specification<CatalogObjectRevisionEntity> specification, CatalogObjectCursor after,
+            boolean withProjectName) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<CatalogObjectRevisionEntity> cq = cb.createQuery(CatalogObjectRevisionEntity.class);
+        Root<CatalogObjectRevisionEntity> root = cq.from(CatalogObjectRevisionEntity.class);
+        Path<String> projectName = root.get("projectName");
+        Path<String> name = root.get("catalogObject").get("id").get("name");
+        Path<Long> bucketId = root.get("catalogObject").get("id").get("bucketId");
+
+        List<Predicate> allPredicates = new ArrayList<>();
+        allPredicates.add(specification.toPredicate(root, cq, cb));
+        // empty strings are compared by length, since some databases (e.g. Oracle) store them as null
+        if (withProjectName) {
+            allPredicates.add(cb.and(cb.isNotNull(projectName), cb.greaterThan(cb.length(projectName), 0)));
+        } else {
+            allPredicates.add(cb.or(cb.isNull(projectName), cb.lessThanOrEqualTo(cb.length(projectName), 0)));
+        }
+        if (after != null) {
+            Predicate afterObjectInProject = cb.or(cb.greaterThan(name, after.getName()),
+                                                   cb.and(cb.equal(name, after.getName()),
+                                                          cb.greaterThan(bucketId, after.getBucketId())));
+            if (withProjectName) {
+                allPredicates.add(cb.or(cb.greaterThan(projectName, after.getProjectName()),
+                                        cb.and(cb.equal(projectName, after.getProjectName()),
+                                               afterObjectInProject)));
+            } else {
+                allPredicates.add(afterObjectInProject);
+            }
+        }
+        cq.where(allPredicates.toArray(new Predicate[0]));
+
+        if (withProjectName) {
+            cq.orderBy(cb.asc(projectName), cb.asc(name), cb.asc(bucketId));
+        } else {
+            cq.orderBy(cb.asc(name), cb.asc(bucketId));
+        }
+
+        cq.select(root);
+        return cq;
+    }
+
+    /**
+     * The tag is searched in a sub query, since joining the metadata would return the revisions several times
+     */
+    private Predicate buildTagPredicate(Root<CatalogObjectRevisionEntity> root, CriteriaQuery<?> query,
+            CriteriaBuilder cb, String tag) {
+        Subquery<Long> tagQuery = query.subquery(Long.class);
+        Root<KeyValueLabelMetadataEntity> metadata = tagQuery.from(KeyValueLabelMetadataEntity.class);
+        tagQuery.select(metadata.get("id"))
+                .where(cb.equal(metadata.get("catalogObjectRevision"), root),
+                       cb.equal(metadata.get("label"), WorkflowParser.OBJECT_TAG_LABEL),
+                       cb.like(cb.lower(metadata.get("key")), toBothSidesPredicatePattern(tag)));
+        return cb.exists(tagQuery);
     }
 
     private String toRightSidePredicatePattern(String pattern) {
@@ -84,28 +193,55 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
     }
 
     private CriteriaQuery<CatalogObjectRevisionEntity> buildCriteriaQuery(List<String> bucketNames,
-            List<String> kindList, String contentType, String objectName, String tag) {
+            List<String> kindList, String contentType, String objectName, String tag,
+            CatalogObjectNameFilter nameFilter) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<CatalogObjectRevisionEntity> cq = cb.createQuery(CatalogObjectRevisionEntity.class);
         Root<CatalogObjectRevisionEntity> root = cq.from(CatalogObjectRevisionEntity.class);
 
-        ListJoin<CatalogObjectRevisionEntity, KeyValueLabelMetadataEntity> metadata = root.joinList("keyValueMetadataList");
-
-        List<Predicate> allPredicates = getCommonPredicates(kindList, cb, root, contentType, objectName, bucketNames);
-
-        allPredicates.add(cb.equal(metadata.get("label"), WorkflowParser.OBJECT_TAG_LABEL));
-        allPredicates.add(cb.like(cb.lower(metadata.get("key")), toBothSidesPredicatePattern(tag)));
+        List<Predicate> allPredicates = getFilterPredicates(root,
+                                                            cq,
+                                                            cb,
+                                                            bucketNames,
+                                                            kindList,
+                                                            contentType,
+                                                            objectName,
+                                                            tag,
+                                                            nameFilter);
 
         cq.where(allPredicates.toArray(new Predicate[0]));
 
-        cq.orderBy(cb.asc(root.get("projectName")));
+        orderByProjectName(cq, cb, root);
 
         cq.select(root);
-        // we avoid using distinct as it creates an issue in Oracle
-        // distinct is performed in java on the returned result
         return cq;
     }
 
+    /**
+     * @param tag the tag filter, ignored when null
+     * @param nameFilter the restriction of the object names, ignored when null
+     */
+    private List<Predicate> getFilterPredicates(Root<CatalogObjectRevisionEntity> root, CriteriaQuery<?> query,
+            CriteriaBuilder cb, List<String> bucketNames, List<String> kindList, String contentType,
+            String objectName, String tag, CatalogObjectNameFilter nameFilter) {
+        List<Predicate> allPredicates = getCommonPredicates(kindList, cb, root, contentType, objectName, bucketNames);
+        if (tag != null) {
+            allPredicates.add(buildTagPredicate(root, query, cb, tag));
+        }
+        if (nameFilter != null) {
+            allPredicates.add(nameFilter.toPredicate(root.get("catalogObject").get("id").get("name"), cb));
+        }
+        return allPredicates;
+    }
+
+    private void orderByProjectName(CriteriaQuery<CatalogObjectRevisionEntity> cq, CriteriaBuilder cb,
+            Root<CatalogObjectRevisionEntity> root) {
+        // the object key makes the order, and so the pages, deterministic
+        cq.orderBy(cb.asc(root.get("projectName")),
+                   cb.asc(root.get("catalogObject").get("id").get("name")),
+                   cb.asc(root.get("catalogObject").get("id").get("bucketId")));
+    }
+
     private List<Predicate> getCommonPredicates(List<String> kindList, CriteriaBuilder cb,
             Root<CatalogObjectRevisionEntity> root, String contentType, String objectName, List<String> bucketNames) {
         List<Predicate> allPredicates = new ArrayList<>();
@@ -143,20 +279,4 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
         return allPredicates;
     }
 
-    private CriteriaQuery<CatalogObjectRevisionEntity> buildCriteriaQuery(List<String> bucketNames,
-            List<String> kindList, String contentType, String objectName) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<CatalogObjectRevisionEntity> cq = cb.createQuery(CatalogObjectRevisionEntity.class);
-        Root<CatalogObjectRevisionEntity> root = cq.from(CatalogObjectRevisionEntity.class);
-
-        List<Predicate> allPredicates = getCommonPredicates(kindList, cb, root, contentType, objectName, bucketNames);
-
-        cq.where(allPredicates.toArray(new Predicate[0]));
-
-        cq.orderBy(cb.asc(root.get("projectName")));
-
-        cq.select(root);
-        return cq;
-    }
-
 }
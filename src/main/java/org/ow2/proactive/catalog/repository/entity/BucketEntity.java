@@ -57,7 +57,8 @@ import lombok.ToString;
 @AllArgsConstructor
 @Data
 @Entity
-@Table(name = "BUCKET", uniqueConstraints = @UniqueConstraint(columnNames = { "BUCKET_NAME" }), indexes = { @Index(name = "BUCKET_INDEX", columnList = "BUCKET_NAME") })
+@Table(name = "BUCKET", uniqueConstraints = @UniqueConstraint(columnNames = { "BUCKET_NAME" }), indexes = { @Index(name = "BUCKET_INDEX", columnList = "BUCKET_NAME"),
+                                                                                                          @Index(name = "BUCKET_OBJECT_COUNT_INDEX", columnList = "OBJECT_COUNT") })
 @ToString(exclude = "catalogObjects")
 public class BucketEntity implements Serializable {
 
@@ -75,6 +76,26 @@ public class BucketEntity implements Serializable {
     @Column(name = "OWNER", nullable = false)
     protected String owner;
 
+    /**
+     * Number of catalog objects in the bucket. It is only changed by the queries of {@link
+     * org.ow2.proactive.catalog.repository.BucketRepository#updateObjectCount(Long, int)}, in the transactions which
+     * create or delete the objects, so that concurrent changes are not lost when the entity is saved.
+     */
+    @Column(name = "OBJECT_COUNT", updatable = false)
+    private Integer objectCount = 0;
+
+    /**
+     * Whether the catalog objects of the bucket still need a new revision for the current owner of the bucket, and
+     * the name of the last object revised so far. Like the object count, they are only changed by queries of {@link
+     * org.ow2.proactive.catalog.repository.BucketRepository}, see {@link
+     * org.ow2.proactive.catalog.service.BucketOwnerRevisionService}.
+     */
+    @Column(name = "OWNER_REVISION_PENDING", updatable = false)
+    private Boolean ownerRevisionPending = false;
+
+    @Column(name = "OWNER_REVISION_CURSOR", updatable = false)
+    private String ownerRevisionCursor;
+
     @OneToMany(mappedBy = "bucket", fetch = FetchType.LAZY, cascade = { CascadeType.PERSIST,
                                                                         CascadeType.REMOVE }, orphanRemoval = true)
     @Fetch(FetchMode.SELECT)
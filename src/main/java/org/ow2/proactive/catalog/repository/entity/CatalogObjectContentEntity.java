@@ -0,0 +1,102 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.google.common.hash.Hashing;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Raw content of catalog object revisions. It is kept out of {@link CatalogObjectRevisionEntity} and loaded lazily,
+ * so that the queries listing revisions do not read it.
+ * <p>
+ * A content is stored once per SHA-256 digest and shared by all the revisions having the same bytes, the number of
+ * revisions referencing it being kept in {@link #referenceCount}. A content is never modified once stored.
+ *
+ * @author ActiveEon Team
+ */
+@BatchSize(size = 10)
+@Entity
+@Getter
+@NoArgsConstructor
+@Setter
+@Table(name = "CATALOG_OBJECT_CONTENT", indexes = { @Index(name = "CONTENT_DIGEST_INDEX", columnList = "DIGEST", unique = true) })
+public class CatalogObjectContentEntity implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "CATALOG_OBJECT_CONTENT_SEQ")
+    @GenericGenerator(name = "CATALOG_OBJECT_CONTENT_SEQ", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = { @Parameter(name = "sequence_name", value = "CATALOG_OBJECT_CONTENT_SEQ"),
+                                                                                                                                         @Parameter(name = "initial_value", value = "1"),
+                                                                                                                                         @Parameter(name = "increment_size", value = "50"),
+                                                                                                                                         @Parameter(name = "optimizer", value = "hilo") })
+    @Column(name = "ID")
+    protected Long id;
+
+    @Column(name = "DIGEST", length = 64)
+    private String digest;
+
+    @Column(name = "REFERENCE_COUNT", nullable = false)
+    private long referenceCount;
+
+    /**
+     * null for the contents stored before this column was added
+     */
+    @Column(name = "CREATION_TIME")
+    private Long creationTime;
+
+    @Lob
+    @Column(name = "RAW_OBJECT", length = Integer.MAX_VALUE)
+    private byte[] rawObject;
+
+    public CatalogObjectContentEntity(byte[] rawObject) {
+        this.digest = digest(rawObject);
+        this.referenceCount = 1;
+        this.creationTime = System.currentTimeMillis();
+        this.rawObject = rawObject;
+    }
+
+    public static String digest(byte[] rawObject) {
+        return Hashing.sha256().hashBytes(rawObject).toString();
+    }
+}
@@ -53,11 +53,13 @@ import lombok.Data;
                                                                                                "COMMIT_TIME" }), indexes = { @Index(name = "REVISION_INDEX", columnList = "BUCKET,NAME,COMMIT_TIME") })
 public class CatalogObjectRevisionEntity implements Comparable, Serializable {
 
+    // ids are allocated 50 at a time from a sequence still incremented by 1, so that existing schemas are kept
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "CATALOG_OBJECT_REVISION_SEQ")
     @GenericGenerator(name = "CATALOG_OBJECT_REVISION_SEQ", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = { @Parameter(name = "sequence_name", value = "CATALOG_OBJECT_REVISION_SEQ"),
                                                                                                                                           @Parameter(name = "initial_value", value = "1"),
-                                                                                                                                          @Parameter(name = "increment_size", value = "1") })
+                                                                                                                                          @Parameter(name = "increment_size", value = "50"),
+                                                                                                                                          @Parameter(name = "optimizer", value = "hilo") })
     @Column(name = "ID")
     protected Long id;
 
@@ -88,9 +90,11 @@ public class CatalogObjectRevisionEntity implements Comparable, Serializable {
     @Builder.Default
     private List<KeyValueLabelMetadataEntity> keyValueMetadataList = new ArrayList<>();
 
-    @Lob
-    @Column(name = "RAW_OBJECT", length = Integer.MAX_VALUE)
-    private byte[] rawObject;
+    // the raw content is only read when it is needed, not by the queries listing revisions,
+    // and it is shared with the other revisions having the same bytes (see CatalogObjectContentHelper)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "CONTENT_ID")
+    private CatalogObjectContentEntity content;
 
     @Override
     public int compareTo(Object o) {
@@ -110,6 +114,17 @@ public class CatalogObjectRevisionEntity implements Comparable, Serializable {
         keyValueMetadataList.forEach(kv -> addKeyValue(kv));
     }
 
+    public byte[] getRawObject() {
+        return content == null ? null : content.getRawObject();
+    }
+
+    /**
+     * Sets a new, not yet stored, content. The previous content is left untouched since it may be shared.
+     */
+    public void setRawObject(byte[] rawObject) {
+        this.content = rawObject == null ? null : new CatalogObjectContentEntity(rawObject);
+    }
+
     public String getProjectName() {
         return this.projectName == null ? "" : this.projectName;
     }
@@ -149,4 +164,12 @@ public class CatalogObjectRevisionEntity implements Comparable, Serializable {
                username + '\'' + ", commitTime='" + commitTime + '\'' + ", projectName='" + projectName + '\'' +
                ", tags='" + tags + '\'' + ", metadataList=" + keyValueMetadataList + '}';
     }
+
+    public static class CatalogObjectRevisionEntityBuilder {
+
+        public CatalogObjectRevisionEntityBuilder rawObject(byte[] rawObject) {
+            this.content = rawObject == null ? null : new CatalogObjectContentEntity(rawObject);
+            return this;
+        }
+    }
 }
@@ -68,11 +68,13 @@ import lombok.NoArgsConstructor;
 @EqualsAndHashCode(of = { "catalogObjectRevision", "key", "label" })
 public class KeyValueLabelMetadataEntity implements Serializable {
 
+    // ids are allocated 50 at a time from a sequence still incremented by 1, so that existing schemas are kept
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "METADATA_KEY_VALUE_SEQUENCE")
     @GenericGenerator(name = "METADATA_KEY_VALUE_SEQUENCE", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = { @Parameter(name = "sequence_name", value = "METADATA_KEY_VALUE_SEQUENCE"),
                                                                                                                                           @Parameter(name = "initial_value", value = "1"),
-                                                                                                                                          @Parameter(name = "increment_size", value = "1") })
+                                                                                                                                          @Parameter(name = "increment_size", value = "50"),
+                                                                                                                                          @Parameter(name = "optimizer", value = "hilo") })
     @Column(name = "ID")
     protected Long id;
 
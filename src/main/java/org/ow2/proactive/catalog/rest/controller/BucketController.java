@@ -44,6 +44,7 @@ import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketAlreadyExistingException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.UserGrantSnapshot;
 import org.ow2.proactive.catalog.util.AccessTypeHelper;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
@@ -68,6 +69,9 @@ import lombok.extern.log4j.Log4j2;
 
 
 /**
+ * The session is resolved once per request by {@link AuthorizationContext}. The sessionID header parameters of the
+ * handlers are only kept to document the header in the REST API.
+ *
  * @author ActiveEon Team
  */
 @Log4j2
@@ -79,17 +83,11 @@ public class BucketController {
     private BucketService bucketService;
 
     @Autowired
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationContext authorizationContext;
 
     @Autowired
     private GrantRightsService grantRightsService;
 
-    @Autowired
-    private BucketGrantService bucketGrantService;
-
-    @Autowired
-    private CatalogObjectGrantService catalogObjectGrantService;
-
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
 
@@ -107,7 +105,7 @@ public class BucketController {
             @ApiParam(value = "The name of the user that will own the Bucket", defaultValue = BucketService.DEFAULT_BUCKET_OWNER) @RequestParam(value = "owner", required = false, defaultValue = BucketService.DEFAULT_BUCKET_OWNER) String ownerName)
             throws NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
-            restApiAccessService.checkAccessBySessionIdForOwnerOrGroupAndThrowIfDeclined(sessionId, ownerName);
+            authorizationContext.checkOwnerOrGroupAccess(ownerName);
         }
         try {
             return bucketService.createBucket(bucketName, ownerName);
@@ -128,14 +126,8 @@ public class BucketController {
             @ApiParam(value = "The new name of the user that will own the Bucket") @RequestParam(value = "owner", required = true) String newOwnerName)
             throws NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getBucketRights(user, bucketName), admin)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getBucketRights(bucketName), admin)) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
@@ -160,18 +152,13 @@ public class BucketController {
 
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
+            user = authorizationContext.getUser();
             // Check Grants
-            user = restApiAccessService.getUserFromSessionId(sessionId);
-
             if (!grantRightsService.isBucketAccessible(user, data)) {
                 throw new BucketGrantAccessException(bucketName);
             }
 
-            data.setRights(grantRightsService.getBucketRights(user, bucketName));
+            data.setRights(authorizationContext.getBucketRights(bucketName));
         }
         return data;
     }
@@ -202,9 +189,7 @@ public class BucketController {
         objectName = objectName.filter(s -> !s.isEmpty());
         tag = tag.filter(s -> !s.isEmpty());
         if (sessionIdRequired) {
-            AuthenticatedUser user = restApiAccessService.checkAccessBySessionIdForOwnerOrGroupAndThrowIfDeclined(sessionId,
-                                                                                                                  ownerName)
-                                                         .getAuthenticatedUser();
+            AuthenticatedUser user = authorizationContext.checkOwnerOrGroupAccess(ownerName);
             log.debug("bucket list timer : validate session : " + (System.currentTimeMillis() - startTime) + " ms");
             listBucket = bucketService.getBucketsByGroups(ownerName,
                                                           kind,
@@ -215,8 +200,9 @@ public class BucketController {
             listBucket.addAll(grantRightsService.getBucketsByPrioritiedGrants(user));
             listBucket = GrantHelper.removeDuplicate(listBucket);
 
-            List<BucketGrantMetadata> allBucketsGrants = bucketGrantService.getUserAllBucketsGrants(user);
-            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = catalogObjectGrantService.getObjectsGrants(user);
+            UserGrantSnapshot userGrants = grantRightsService.getUserGrantSnapshot(user);
+            List<BucketGrantMetadata> allBucketsGrants = userGrants.getBucketGrants();
+            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = userGrants.getObjectGrants();
 
             for (BucketMetadata bucket : listBucket) {
                 if (GrantHelper.isPublicBucket(bucket.getOwner())) {
@@ -274,13 +260,8 @@ public class BucketController {
             @PathVariable String bucketName) throws NotAuthenticatedException, AccessDeniedException {
         // Check session validation
         if (sessionIdRequired) {
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
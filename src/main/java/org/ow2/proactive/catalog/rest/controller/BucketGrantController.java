@@ -31,9 +31,8 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 import java.util.*;
 
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
+import org.ow2.proactive.catalog.service.AuthorizationContext;
 import org.ow2.proactive.catalog.service.BucketGrantService;
-import org.ow2.proactive.catalog.service.GrantRightsService;
-import org.ow2.proactive.catalog.service.RestApiAccessService;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.exception.LostOfAdminGrantRightException;
@@ -66,10 +65,7 @@ public class BucketGrantController {
     private BucketGrantService bucketGrantService;
 
     @Autowired
-    private GrantRightsService grantRightsService;
-
-    @Autowired
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationContext authorizationContext;
 
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
@@ -89,17 +85,14 @@ public class BucketGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -111,7 +104,7 @@ public class BucketGrantController {
                                                                                                     accessType);
         if (sessionIdRequired) {
             if (user.getName().equals(username)) {
-                if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+                if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By updating this grant assigned to yourself, you will lose your admin rights over the bucket: " +
                                                              bucketName + ".");
                 }
@@ -137,17 +130,14 @@ public class BucketGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -160,8 +150,7 @@ public class BucketGrantController {
                                                                                                               priority);
         if (sessionIdRequired) {
             if (user.getGroups().contains(userGroup)) {
-                if (!restApiAccessService.isBucketAccessibleByUser(true, sessionId, bucketName) ||
-                    !grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+                if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By updating this grant assigned to your group: " +
                                                              userGroup +
                                                              ", you will lose your admin rights over the bucket: " +
@@ -186,17 +175,14 @@ public class BucketGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -205,7 +191,7 @@ public class BucketGrantController {
         BucketGrantMetadata deletedUSerGrant = bucketGrantService.deleteBucketGrantForAUser(bucketName, username);
         if (sessionIdRequired) {
             if (user.getName().equals(username)) {
-                if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+                if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By deleting this grant assigned to yourself, you will lose your admin rights over the bucket: " +
                                                              bucketName + ".");
                 }
@@ -228,17 +214,14 @@ public class BucketGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -248,7 +231,7 @@ public class BucketGrantController {
                                                                                                            userGroup);
         if (sessionIdRequired) {
             if (user.getGroups().contains(userGroup)) {
-                if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+                if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By deleting this grant assigned to your group: " +
                                                              userGroup +
                                                              ", you will lose your admin rights over the bucket: " +
@@ -269,17 +252,14 @@ public class BucketGrantController {
             @ApiParam(value = "The session id used to access ProActive REST server.", required = true) @RequestHeader(value = "sessionID", required = true) String sessionId,
             @ApiParam(value = "The name of the bucket where the catalog objects are stored.", required = true) @PathVariable(value = "bucketName") String bucketName) {
         if (sessionIdRequired) {
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
@@ -301,17 +281,14 @@ public class BucketGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. You can not assign a grant to it or to any of its object");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -323,7 +300,7 @@ public class BucketGrantController {
                                                                                             username);
         if (sessionIdRequired) {
             if (user.getName().equals(username)) {
-                if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+                if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By creating this grant for yourself, you will lose your admin rights over the bucket: " +
                                                              bucketName + ".");
                 }
@@ -350,17 +327,14 @@ public class BucketGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. You can not assign a grant to it or to any of its object");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -373,7 +347,7 @@ public class BucketGrantController {
                                                                                                        userGroup);
         if (sessionIdRequired) {
             if (user.getGroups().contains(userGroup)) {
-                if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+                if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By creating this grant on your group: " + userGroup +
                                                              ", you will lose your admin rights over the bucket: " +
                                                              bucketName + ".");
@@ -394,17 +368,14 @@ public class BucketGrantController {
             @ApiParam(value = "The name of the bucket where the catalog objects are stored.", required = true) @PathVariable(value = "bucketName") String bucketName)
             throws NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
@@ -421,17 +392,14 @@ public class BucketGrantController {
             @ApiParam(value = "The session id used to access ProActive REST server.", required = true) @RequestHeader(value = "sessionID", required = true) String sessionId,
             @ApiParam(value = "The name of the bucket where the catalog objects are stored.", required = true) @PathVariable(value = "bucketName") String bucketName) {
         if (sessionIdRequired) {
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
@@ -450,17 +418,14 @@ public class BucketGrantController {
             @ApiParam(value = "The name of the bucket where the catalog objects are stored.", required = true) @PathVariable(value = "bucketName") String bucketName) {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check if user is admin or has admin Grants over the bucket
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -468,7 +433,7 @@ public class BucketGrantController {
         }
         AllBucketGrants deletedGrantsForTheBucketAndItsObjects = bucketGrantService.deleteAllBucketAndItsObjectsGrants(bucketName);
         if (sessionIdRequired) {
-            if (!grantRightsService.getBucketRights(user, bucketName).equals(admin.toString())) {
+            if (!authorizationContext.getBucketRights(bucketName).equals(admin.toString())) {
                 throw new LostOfAdminGrantRightException("By deleting all grants assigned to the bucket: " +
                                                          bucketName + ", you will lose your admin rights over it");
             }
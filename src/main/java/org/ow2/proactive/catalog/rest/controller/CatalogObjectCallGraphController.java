@@ -39,15 +39,14 @@ import javax.servlet.http.HttpServletResponse;
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
-import org.ow2.proactive.catalog.service.BucketGrantService;
+import org.ow2.proactive.catalog.service.AuthorizationContext;
 import org.ow2.proactive.catalog.service.BucketService;
 import org.ow2.proactive.catalog.service.CatalogObjectCallGraphService;
-import org.ow2.proactive.catalog.service.CatalogObjectGrantService;
 import org.ow2.proactive.catalog.service.GrantRightsService;
-import org.ow2.proactive.catalog.service.RestApiAccessService;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.UserGrantSnapshot;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -83,17 +82,11 @@ public class CatalogObjectCallGraphController {
     private CatalogObjectCallGraphService catalogObjectCallGraphService;
 
     @Autowired
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationContext authorizationContext;
 
     @Autowired
     private GrantRightsService grantRightsService;
 
-    @Autowired
-    private CatalogObjectGrantService catalogObjectGrantService;
-
-    @Autowired
-    private BucketGrantService bucketGrantService;
-
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
 
@@ -111,11 +104,12 @@ public class CatalogObjectCallGraphController {
 
         List<String> authorisedBucketsNames = getListOfAuthorizedBuckets(sessionId, ownerName, kind, contentType);
 
-        byte[] content = catalogObjectCallGraphService.generateBytesCallGraph(authorisedBucketsNames,
-                                                                              kind,
-                                                                              contentType);
-
-        flushResponse(response, content);
+        response.setCharacterEncoding("UTF-8");
+        catalogObjectCallGraphService.writeCallGraph(authorisedBucketsNames,
+                                                     kind,
+                                                     contentType,
+                                                     response.getOutputStream());
+        response.getOutputStream().flush();
 
     }
 
@@ -135,35 +129,30 @@ public class CatalogObjectCallGraphController {
             throws NotAuthenticatedException, AccessDeniedException, IOException {
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
+            AuthenticatedUser user = authorizationContext.getUser();
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            BucketMetadata bucket = bucketService.getBucketMetadata(bucketName);
+            BucketMetadata bucket = authorizationContext.getBucket(bucketName);
             if (!grantRightsService.isBucketAccessible(user, bucket)) {
                 throw new BucketGrantAccessException(bucketName);
             }
 
         }
-        byte[] content = catalogObjectsNames.map(names -> catalogObjectCallGraphService.generateBytesCallGraphForSelectedObjects(bucketName,
-                                                                                                                                 names,
-                                                                                                                                 kind,
-                                                                                                                                 contentType))
-                                            .orElse(catalogObjectCallGraphService.generateBytesCallGraph(Collections.singletonList(bucketName),
-                                                                                                         kind,
-                                                                                                         contentType));
-        flushResponse(response, content);
-
-    }
-
-    private void flushResponse(HttpServletResponse response, byte[] content) throws IOException {
-        response.addHeader("Content-size", Integer.toString(content.length));
         response.setCharacterEncoding("UTF-8");
 
-        response.getOutputStream().write(content);
+        if (catalogObjectsNames.isPresent()) {
+            catalogObjectCallGraphService.writeCallGraphForSelectedObjects(bucketName,
+                                                                           catalogObjectsNames.get(),
+                                                                           kind,
+                                                                           contentType,
+                                                                           response.getOutputStream());
+        } else {
+            catalogObjectCallGraphService.writeCallGraph(Collections.singletonList(bucketName),
+                                                         kind,
+                                                         contentType,
+                                                         response.getOutputStream());
+        }
         response.getOutputStream().flush();
+
     }
 
     private List<String> getListOfAuthorizedBuckets(String sessionId, String ownerName, Optional<String> kind,
@@ -171,18 +160,14 @@ public class CatalogObjectCallGraphController {
         List<BucketMetadata> authorisedBuckets;
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
+            AuthenticatedUser user = authorizationContext.getUser();
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-
             authorisedBuckets = bucketService.getBucketsByGroups(ownerName, kind, contentType, () -> user.getGroups());
             authorisedBuckets.addAll(grantRightsService.getBucketsByPrioritiedGrants(user));
 
-            List<BucketGrantMetadata> allBucketsGrants = bucketGrantService.getUserAllBucketsGrants(user);
-            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = catalogObjectGrantService.getObjectsGrants(user);
+            UserGrantSnapshot userGrants = grantRightsService.getUserGrantSnapshot(user);
+            List<BucketGrantMetadata> allBucketsGrants = userGrants.getBucketGrants();
+            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = userGrants.getObjectGrants();
 
             List<BucketMetadata> res = new LinkedList<>();
             for (BucketMetadata data : authorisedBuckets) {
@@ -32,21 +32,25 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
 import static org.springframework.web.bind.annotation.RequestMethod.PUT;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.FilenameUtils;
 import org.ow2.proactive.catalog.dto.*;
+import org.ow2.proactive.catalog.repository.CatalogObjectNameFilter;
 import org.ow2.proactive.catalog.service.*;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectGrantAccessException;
+import org.ow2.proactive.catalog.service.exception.UnprocessableEntityException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CatalogObjectImportResult;
 import org.ow2.proactive.catalog.util.AccessTypeHelper;
-import org.ow2.proactive.catalog.util.ArchiveManagerHelper.ZipArchiveContent;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.ow2.proactive.catalog.util.LinkUtil;
 import org.ow2.proactive.catalog.util.RawObjectResponseCreator;
@@ -58,6 +62,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -74,6 +79,9 @@ import lombok.extern.log4j.Log4j2;
 
 
 /**
+ * The session is resolved once per request by {@link AuthorizationContext}. The sessionID header parameters of the
+ * handlers are only kept to document the header in the REST API.
+ *
  * @author ActiveEon Team
  */
 @RestController
@@ -99,24 +107,29 @@ public class CatalogObjectController {
     private BucketService bucketService;
 
     @Autowired
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationContext authorizationContext;
 
     @Autowired
     private RawObjectResponseCreator rawObjectResponseCreator;
 
     private static final String ZIP_CONTENT_TYPE = "application/zip";
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private static final long MAXVALUE = Integer.MAX_VALUE;
 
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
 
-    @ApiOperation(value = "Creates a new catalog object")
-    @ApiResponses(value = { @ApiResponse(code = 404, message = "Bucket not found"),
-                            @ApiResponse(code = 422, message = "Invalid file content supplied") })
+    @ApiOperation(value = "Creates a new catalog object", notes = "When a ZIP archive is uploaded, its entries are read as a stream and stored in batches, each batch in its own transaction. " +
+                                                                     "Entries which cannot be imported do not prevent the other entries from being stored: the response lists the outcome of each entry " +
+                                                                     "(import_results) and its status is 207 when some entries could not be imported.")
+    @ApiResponses(value = { @ApiResponse(code = 201, message = "Catalog objects created or revised"),
+                            @ApiResponse(code = 207, message = "Some archive entries could not be imported, the others were stored"),
+                            @ApiResponse(code = 404, message = "Bucket not found"),
+                            @ApiResponse(code = 422, message = "Invalid file content supplied, nothing was stored") })
     @RequestMapping(value = REQUEST_API_QUERY, consumes = { MediaType.MULTIPART_FORM_DATA_VALUE }, method = POST)
-    @ResponseStatus(HttpStatus.CREATED)
-    public CatalogObjectMetadataList create(
+    public ResponseEntity<CatalogObjectMetadataList> create(
             @ApiParam(value = "sessionID", required = true) @RequestHeader(value = "sessionID", required = true) String sessionId,
             @PathVariable String bucketName,
             @ApiParam(value = "Name of the object or empty when a ZIP archive is uploaded (All objects inside the archive are stored inside the catalog).") @RequestParam(required = false) Optional<String> name,
@@ -125,6 +138,7 @@ public class CatalogObjectController {
             @ApiParam(value = "Kind of the new object", required = true) @RequestParam String kind,
             @ApiParam(value = "Commit message", required = true) @RequestParam String commitMessage,
             @ApiParam(value = "The Content-Type of CatalogRawObject - MIME type", required = true) @RequestParam String objectContentType,
+            @ApiParam(value = "When a ZIP archive is uploaded, do not create a new revision of the existing objects whose content, project name, tags and metadata are unchanged. The server default (pa.catalog.revision.skip.unchanged) is used when not specified") @RequestParam(value = "skipIfUnchanged", required = false) Optional<Boolean> skipIfUnchanged,
             @ApiParam(value = "The content of CatalogRawObject", required = true) @RequestPart(value = "file") MultipartFile file)
             throws IOException, NotAuthenticatedException, AccessDeniedException {
 
@@ -132,11 +146,8 @@ public class CatalogObjectController {
         AuthenticatedUser user = null;
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getBucketRights(user, bucketName), write)) {
+            user = authorizationContext.getUser();
+            if (!AccessTypeHelper.satisfy(authorizationContext.getBucketRights(bucketName), write)) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
@@ -160,22 +171,51 @@ public class CatalogObjectController {
             catalogObject.add(LinkUtil.createLink(bucketName, catalogObject.getName()));
             catalogObject.add(LinkUtil.createRelativeLink(bucketName, catalogObject.getName()));
 
-            return new CatalogObjectMetadataList(catalogObject);
+            return ResponseEntity.status(HttpStatus.CREATED).body(new CatalogObjectMetadataList(catalogObject));
         } else {
-            List<CatalogObjectMetadata> catalogObjects = catalogObjectService.createCatalogObjects(bucketName,
-                                                                                                   projectName.orElse(""),
-                                                                                                   tags.orElse(""),
-                                                                                                   kind,
-                                                                                                   commitMessage,
-                                                                                                   userName,
-                                                                                                   file.getBytes());
+            List<CatalogObjectImportResult> importResults;
+            try (InputStream archive = file.getInputStream()) {
+                importResults = catalogObjectService.importCatalogObjects(bucketName,
+                                                                          projectName.orElse(""),
+                                                                          tags.orElse(""),
+                                                                          kind,
+                                                                          commitMessage,
+                                                                          userName,
+                                                                          archive,
+                                                                          skipIfUnchanged.orElse(null));
+            }
 
+            List<CatalogObjectImportResult> failedEntries = importResults.stream()
+                                                                         .filter(CatalogObjectImportResult::isFailed)
+                                                                         .collect(Collectors.toList());
+            if (failedEntries.size() == importResults.size()) {
+                // nothing was stored
+                throw new UnprocessableEntityException(String.format("None of the %d archive entries could be imported (%s)",
+                                                                     importResults.size(),
+                                                                     failedEntries.stream()
+                                                                                  .map(result -> result.getName() +
+                                                                                                 ": " +
+                                                                                                 result.getError())
+                                                                                  .collect(Collectors.joining("; "))));
+            }
+
+            List<CatalogObjectMetadata> catalogObjects = importResults.stream()
+                                                                      .filter(result -> !result.isFailed())
+                                                                      .map(CatalogObjectImportResult::getMetadata)
+                                                                      .collect(Collectors.toList());
             for (CatalogObjectMetadata catalogObject : catalogObjects) {
                 catalogObject.add(LinkUtil.createLink(bucketName, catalogObject.getName()));
                 catalogObject.add(LinkUtil.createRelativeLink(bucketName, catalogObject.getName()));
             }
-
-            return new CatalogObjectMetadataList(catalogObjects);
+            List<CatalogObjectImportStatus> importStatuses = importResults.stream()
+                                                                          .map(result -> new CatalogObjectImportStatus(result.getName(),
+                                                                                                                       result.getStatus()
+                                                                                                                             .name(),
+                                                                                                                       result.getError()))
+                                                                          .collect(Collectors.toList());
+
+            return ResponseEntity.status(failedEntries.isEmpty() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                                 .body(new CatalogObjectMetadataList(catalogObjects, importStatuses));
         }
     }
 
@@ -209,12 +249,38 @@ public class CatalogObjectController {
             @ApiParam(value = "sessionID", required = false) @RequestHeader(value = "sessionID", required = false) String sessionId,
             @ApiParam(value = "Filter according to kind", required = false) @RequestParam(value = "kind", required = false) Optional<String> kind,
             @ApiParam(value = "Filter according to Content-Type", required = false) @RequestParam(value = "contentType", required = false) Optional<String> contentType) {
-        return catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(sessionIdRequired,
-                                                                                                 sessionId,
+        AuthenticatedUser user = sessionIdRequired ? authorizationContext.getUser() : null;
+        return catalogObjectService.getAccessibleCatalogObjectsNameReferenceByKindAndContentType(user,
                                                                                                  kind,
                                                                                                  contentType);
     }
 
+    @ApiOperation(value = "Gets the rights of the user on many catalog objects at once", notes = "The request body gives, by bucket name, the names of the catalog objects. " +
+                                                                                           "The response gives, by bucket name then by catalog object name, the rights of the user. " +
+                                                                                           "The buckets and catalog objects which do not exist are not part of the response.")
+    @ApiResponses(value = { @ApiResponse(code = 401, message = "User not authenticated"),
+                            @ApiResponse(code = 403, message = "Permission denied") })
+    @RequestMapping(value = "/rights", method = POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Map<String, String>> getCatalogObjectsRights(
+            @ApiParam(value = "sessionID", required = true) @RequestHeader(value = "sessionID", required = true) String sessionId,
+            @ApiParam(value = "The names of the catalog objects, by bucket name", required = true) @RequestBody Map<String, List<String>> catalogObjectNamesByBucket)
+            throws NotAuthenticatedException, AccessDeniedException {
+        if (sessionIdRequired) {
+            return grantRightsService.getCatalogObjectsRights(authorizationContext.getUser(),
+                                                              catalogObjectNamesByBucket);
+        } else {
+            // every existing object is fully accessible, the missing ones are omitted as when the session is checked
+            Map<String, Map<String, String>> rights = new LinkedHashMap<>();
+            grantRightsService.filterExistingCatalogObjects(catalogObjectNamesByBucket).forEach((bucketName, names) -> {
+                Map<String, String> bucketObjectsRights = new LinkedHashMap<>();
+                names.forEach(name -> bucketObjectsRights.put(name, admin.name()));
+                rights.put(bucketName, bucketObjectsRights);
+            });
+            return rights;
+        }
+    }
+
     @ApiOperation(value = "Update a catalog object metadata, like kind, Content-Type and project name")
     @ApiResponses(value = { @ApiResponse(code = 404, message = "Bucket, object or revision not found"),
                             @ApiResponse(code = 401, message = "User not authenticated"),
@@ -232,14 +298,8 @@ public class CatalogObjectController {
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
 
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), write)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), write)) {
                 throw new CatalogObjectGrantAccessException(bucketName, name);
             }
 
@@ -260,14 +320,8 @@ public class CatalogObjectController {
             UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
         String objectRights = "";
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check Grants
-            objectRights = grantRightsService.getCatalogObjectRights(user, bucketName, name);
+            objectRights = authorizationContext.getCatalogObjectRights(bucketName, name);
             if (!AccessTypeHelper.satisfy(objectRights, read)) {
                 throw new CatalogObjectGrantAccessException(bucketName, name);
             }
@@ -295,14 +349,8 @@ public class CatalogObjectController {
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
 
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), read)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), read)) {
                 throw new CatalogObjectGrantAccessException(bucketName, name);
             }
 
@@ -326,14 +374,8 @@ public class CatalogObjectController {
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
 
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), read)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), read)) {
                 throw new CatalogObjectGrantAccessException(bucketName, name);
             }
         }
@@ -341,7 +383,9 @@ public class CatalogObjectController {
         return catalogObjectService.getObjectDependencies(bucketName, name);
     }
 
-    @ApiOperation(value = "Lists catalog objects metadata", notes = "Returns catalog objects metadata associated to the latest revision.")
+    @ApiOperation(value = "Lists catalog objects metadata", notes = "Returns catalog objects metadata associated to the latest revision. " +
+                                                                    "When a cursor is given, the objects are listed by keyset pagination and the cursor of the next page, if any, is returned in the " +
+                                                                    NEXT_CURSOR_HEADER + " header.")
     @ApiResponses(value = { @ApiResponse(code = 404, message = "Bucket not found"),
                             @ApiResponse(code = 206, message = "Missing object"),
                             @ApiResponse(code = 401, message = "User not authenticated"),
@@ -358,6 +402,9 @@ public class CatalogObjectController {
             @ApiParam(value = "Page number", required = false) @RequestParam(defaultValue = "0", value = "pageNo") int pageNo,
             @ApiParam(value = "Page size", required = false) @RequestParam(defaultValue = MAXVALUE +
                                                                                           "", value = "pageSize") int pageSize,
+            @ApiParam(value = "Cursor of the page, replacing the page number. It is empty for the first page, then it is the cursor returned in the " +
+                              NEXT_CURSOR_HEADER +
+                              " header of the previous page", required = false) @RequestParam(value = "cursor", required = false) Optional<String> cursor,
             HttpServletResponse response)
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
 
@@ -370,11 +417,8 @@ public class CatalogObjectController {
 
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            user = restApiAccessService.getUserFromSessionId(sessionId);
-            BucketMetadata bucket = bucketService.getBucketMetadata(bucketName);
+            user = authorizationContext.getUser();
+            BucketMetadata bucket = authorizationContext.getBucket(bucketName);
             isPublicBucket = GrantHelper.isPublicBucket(bucket.getOwner());
             if (isPublicBucket) {
                 bucketRights = admin.name();
@@ -396,30 +440,53 @@ public class CatalogObjectController {
         objectNameFilter = objectNameFilter.filter(s -> !s.isEmpty());
         objectTagFilter = objectTagFilter.filter(s -> !s.isEmpty());
         if (names.isPresent()) {
-            ZipArchiveContent content = catalogObjectService.getCatalogObjectsAsZipArchive(bucketName, names.get());
-            return getResponseAsArchive(content, response);
+            List<String> requestedNames = names.get().stream().distinct().collect(Collectors.toList());
+            List<String> archivedNames = catalogObjectService.getExistingCatalogObjectNames(bucketName,
+                                                                                            requestedNames);
+            return getResponseAsArchive(bucketName,
+                                        archivedNames,
+                                        archivedNames.size() != requestedNames.size(),
+                                        response);
         } else {
-            List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjects(Collections.singletonList(bucketName),
-                                                                                               kind,
-                                                                                               contentType,
-                                                                                               objectNameFilter,
-                                                                                               objectTagFilter,
-                                                                                               pageNo,
-                                                                                               pageSize);
-
+            // the objects that the user shouldn't have access according to the grants specification are filtered out by the listing query
+            CatalogObjectNameFilter accessibleObjects = null;
             if (sessionIdRequired && !isPublicBucket) {
-                // remove all objects that the user shouldn't have access according to the grants specification.
-                grantRightsService.removeInaccessibleObjectsInBucket(metadataList, bucketGrants, catalogObjectsGrants);
+                accessibleObjects = grantRightsService.getAccessibleObjectsFilter(bucketGrants, catalogObjectsGrants);
+            }
+
+            List<CatalogObjectMetadata> metadataList;
+            String nextCursor = null;
+            if (cursor.isPresent()) {
+                CatalogObjectMetadataPage page = catalogObjectService.listCatalogObjects(Collections.singletonList(bucketName),
+                                                                                         kind,
+                                                                                         contentType,
+                                                                                         objectNameFilter,
+                                                                                         objectTagFilter,
+                                                                                         accessibleObjects,
+                                                                                         cursor.filter(s -> !s.isEmpty()),
+                                                                                         pageSize);
+                metadataList = page.getCatalogObjects();
+                nextCursor = page.getNextCursor();
+            } else {
+                metadataList = catalogObjectService.listCatalogObjects(Collections.singletonList(bucketName),
+                                                                       kind,
+                                                                       contentType,
+                                                                       objectNameFilter,
+                                                                       objectTagFilter,
+                                                                       accessibleObjects,
+                                                                       pageNo,
+                                                                       pageSize);
             }
 
             Optional<String> userSpecificBucketRights = GrantHelper.filterFirstUserSpecificGrant(bucketGrants)
                                                                    .map(BucketGrantMetadata::getAccessType);
+            Map<String, List<CatalogObjectGrantMetadata>> grantsByObject = GrantHelper.groupObjectGrantsByName(catalogObjectsGrants);
             for (CatalogObjectMetadata catalogObject : metadataList) {
                 catalogObject.add(LinkUtil.createLink(bucketName, catalogObject.getName()));
                 catalogObject.add(LinkUtil.createRelativeLink(bucketName, catalogObject.getName()));
                 if (sessionIdRequired) {
-                    List<CatalogObjectGrantMetadata> objectsGrants = GrantHelper.filterObjectGrants(catalogObjectsGrants,
-                                                                                                    catalogObject.getName());
+                    List<CatalogObjectGrantMetadata> objectsGrants = grantsByObject.getOrDefault(catalogObject.getName(),
+                                                                                                 Collections.emptyList());
                     catalogObject.setRights(grantRightsService.getCatalogObjectRights(isPublicBucket,
                                                                                       bucketRights,
                                                                                       userSpecificBucketRights,
@@ -427,6 +494,9 @@ public class CatalogObjectController {
                 }
             }
             Collections.sort(metadataList);
+            if (nextCursor != null) {
+                return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, nextCursor).body(metadataList);
+            }
             return ResponseEntity.ok(metadataList);
         }
     }
@@ -442,14 +512,8 @@ public class CatalogObjectController {
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
 
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), write)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), write)) {
                 throw new CatalogObjectGrantAccessException(bucketName, name);
             }
 
@@ -457,10 +521,10 @@ public class CatalogObjectController {
         return catalogObjectService.delete(bucketName, name);
     }
 
-    private ResponseEntity<List<CatalogObjectMetadata>> getResponseAsArchive(ZipArchiveContent zipArchiveContent,
-            HttpServletResponse response) {
+    private ResponseEntity<List<CatalogObjectMetadata>> getResponseAsArchive(String bucketName,
+            List<String> catalogObjectsNames, boolean partial, HttpServletResponse response) {
         HttpStatus status;
-        if (zipArchiveContent.isPartial()) {
+        if (partial) {
             status = HttpStatus.PARTIAL_CONTENT;
             response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
         } else {
@@ -472,7 +536,9 @@ public class CatalogObjectController {
         response.addHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"archive.zip\"");
         response.addHeader(HttpHeaders.CONTENT_ENCODING, "binary");
         try {
-            response.getOutputStream().write(zipArchiveContent.getContent());
+            catalogObjectService.writeCatalogObjectsAsZipArchive(bucketName,
+                                                                 catalogObjectsNames,
+                                                                 response.getOutputStream());
             response.getOutputStream().flush();
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
@@ -31,9 +31,8 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 import java.util.List;
 
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
+import org.ow2.proactive.catalog.service.AuthorizationContext;
 import org.ow2.proactive.catalog.service.CatalogObjectGrantService;
-import org.ow2.proactive.catalog.service.GrantRightsService;
-import org.ow2.proactive.catalog.service.RestApiAccessService;
 import org.ow2.proactive.catalog.service.exception.*;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
@@ -61,10 +60,7 @@ public class CatalogObjectGrantController {
     private CatalogObjectGrantService catalogObjectGrantService;
 
     @Autowired
-    private RestApiAccessService restApiAccessService;
-
-    @Autowired
-    private GrantRightsService grantRightsService;
+    private AuthorizationContext authorizationContext;
 
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
@@ -85,17 +81,14 @@ public class CatalogObjectGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. You can not assign a grant to it or to any of its object");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new CatalogObjectGrantAccessException(bucketName, catalogObjectName);
             }
@@ -109,7 +102,7 @@ public class CatalogObjectGrantController {
                                                                                                                        username);
         if (sessionIdRequired) {
             if (user.getName().equals(username)) {
-                if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+                if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                        .equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By creating this grant for yourself, you will lose your admin rights over the object: " +
                                                              catalogObjectName + ".");
@@ -138,17 +131,14 @@ public class CatalogObjectGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. You can not assign a grant to it or to any of its object");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new CatalogObjectGrantAccessException(bucketName, catalogObjectName);
             }
@@ -163,7 +153,7 @@ public class CatalogObjectGrantController {
                                                                                                                              userGroup);
         if (sessionIdRequired) {
             if (user.getGroups().contains(userGroup)) {
-                if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+                if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                        .equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By creating this grant for your group: " + userGroup +
                                                              ", you will lose your admin rights over the object: " +
@@ -189,17 +179,14 @@ public class CatalogObjectGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new CatalogObjectGrantAccessException(bucketName, catalogObjectName);
             }
@@ -211,7 +198,7 @@ public class CatalogObjectGrantController {
                                                                                                                        username);
         if (sessionIdRequired) {
             if (user.getName().equals(username)) {
-                if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+                if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                        .equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By deleting this grant assigned to yourself, you will lose your admin rights over the object: " +
                                                              catalogObjectName + ".");
@@ -236,17 +223,14 @@ public class CatalogObjectGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new CatalogObjectGrantAccessException(bucketName, catalogObjectName);
             }
@@ -258,7 +242,7 @@ public class CatalogObjectGrantController {
                                                                                                                              userGroup);
         if (sessionIdRequired) {
             if (user.getGroups().contains(userGroup)) {
-                if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+                if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                        .equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By deleting this grant assigned to your group: " +
                                                              userGroup +
@@ -286,17 +270,14 @@ public class CatalogObjectGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new CatalogObjectGrantAccessException(bucketName, catalogObjectName);
             }
@@ -310,7 +291,7 @@ public class CatalogObjectGrantController {
                                                                                                                        accessType);
         if (sessionIdRequired) {
             if (user.getName().equals(username)) {
-                if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+                if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                        .equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By updating this grant assigned to yourself, you will lose your admin rights over the object: " +
                                                              catalogObjectName + ".");
@@ -339,17 +320,14 @@ public class CatalogObjectGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new CatalogObjectGrantAccessException(bucketName, catalogObjectName);
             }
@@ -364,7 +342,7 @@ public class CatalogObjectGrantController {
                                                                                                                              priority);
         if (sessionIdRequired) {
             if (user.getGroups().contains(userGroup)) {
-                if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+                if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                        .equals(admin.toString())) {
                     throw new LostOfAdminGrantRightException("By updating this grant assigned to your group: " +
                                                              userGroup +
@@ -388,17 +366,14 @@ public class CatalogObjectGrantController {
             @ApiParam(value = "The name of the object in the bucket, which is the subject of the grant.", required = true) @PathVariable String catalogObjectName)
             throws NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new CatalogObjectGrantAccessException(bucketName, catalogObjectName);
             }
@@ -420,17 +395,14 @@ public class CatalogObjectGrantController {
             throws NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
-            user = restApiAccessService.getUserFromSessionId(sessionId);
             // Check session validation
-            if (!restApiAccessService.isUserSessionActive(sessionId, user.getName())) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            if (restApiAccessService.isAPublicBucket(bucketName)) {
+            user = authorizationContext.getUser();
+            if (authorizationContext.isPublicBucket(bucketName)) {
                 throw new PublicBucketGrantAccessException("Bucket: " + bucketName +
                                                            " is public. No grants are assigned to it or to its objects");
             }
             // Check Grants
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new BucketGrantAccessException(bucketName);
             }
@@ -438,7 +410,7 @@ public class CatalogObjectGrantController {
             user = AuthenticatedUser.EMPTY;
         }
         if (sessionIdRequired) {
-            if (!grantRightsService.getCatalogObjectRights(user, bucketName, catalogObjectName)
+            if (!authorizationContext.getCatalogObjectRights(bucketName, catalogObjectName)
                                    .equals(admin.toString())) {
                 throw new LostOfAdminGrantRightException("By deleting all grants assigned to the object: " +
                                                          catalogObjectName +
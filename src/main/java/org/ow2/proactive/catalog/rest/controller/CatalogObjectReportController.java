@@ -40,15 +40,14 @@ import javax.servlet.http.HttpServletResponse;
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
-import org.ow2.proactive.catalog.service.BucketGrantService;
+import org.ow2.proactive.catalog.service.AuthorizationContext;
 import org.ow2.proactive.catalog.service.BucketService;
-import org.ow2.proactive.catalog.service.CatalogObjectGrantService;
 import org.ow2.proactive.catalog.service.CatalogObjectReportService;
 import org.ow2.proactive.catalog.service.GrantRightsService;
-import org.ow2.proactive.catalog.service.RestApiAccessService;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.UserGrantSnapshot;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -78,17 +77,11 @@ public class CatalogObjectReportController {
     private CatalogObjectReportService catalogObjectReportService;
 
     @Autowired
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationContext authorizationContext;
 
     @Autowired
     private GrantRightsService grantRightsService;
 
-    @Autowired
-    private CatalogObjectGrantService catalogObjectGrantService;
-
-    @Autowired
-    private BucketGrantService bucketGrantService;
-
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
 
@@ -106,9 +99,9 @@ public class CatalogObjectReportController {
 
         List<String> authorisedBucketsNames = getListOfAuthorizedBuckets(sessionId, ownerName, kind, contentType);
 
-        byte[] content = catalogObjectReportService.generateBytesReport(authorisedBucketsNames, kind, contentType);
-
-        flushResponse(response, content);
+        response.setCharacterEncoding("UTF-8");
+        catalogObjectReportService.writeReport(authorisedBucketsNames, kind, contentType, response.getOutputStream());
+        response.getOutputStream().flush();
 
     }
 
@@ -128,39 +121,29 @@ public class CatalogObjectReportController {
 
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
+            AuthenticatedUser user = authorizationContext.getUser();
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            BucketMetadata bucket = bucketService.getBucketMetadata(bucketName);
+            BucketMetadata bucket = authorizationContext.getBucket(bucketName);
             if (!grantRightsService.isBucketAccessible(user, bucket)) {
                 throw new BucketGrantAccessException(bucketName);
             }
 
         }
 
-        byte[] content;
+        response.setCharacterEncoding("UTF-8");
 
         if (catalogObjectsNames.isPresent()) {
-            content = catalogObjectReportService.generateBytesReportForSelectedObjects(bucketName,
-                                                                                       catalogObjectsNames.get(),
-                                                                                       kind,
-                                                                                       contentType);
-        } else {
-            content = catalogObjectReportService.generateBytesReport(Collections.singletonList(bucketName),
+            catalogObjectReportService.writeReportForSelectedObjects(bucketName,
+                                                                     catalogObjectsNames.get(),
                                                                      kind,
-                                                                     contentType);
+                                                                     contentType,
+                                                                     response.getOutputStream());
+        } else {
+            catalogObjectReportService.writeReport(Collections.singletonList(bucketName),
+                                                   kind,
+                                                   contentType,
+                                                   response.getOutputStream());
         }
-        flushResponse(response, content);
-    }
-
-    private void flushResponse(HttpServletResponse response, byte[] content) throws IOException {
-        response.addHeader("Content-size", Integer.toString(content.length));
-        response.setCharacterEncoding("UTF-8");
-
-        response.getOutputStream().write(content);
         response.getOutputStream().flush();
     }
 
@@ -170,18 +153,14 @@ public class CatalogObjectReportController {
         AuthenticatedUser user;
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
+            user = authorizationContext.getUser();
             // Check Grants
-            user = restApiAccessService.getUserFromSessionId(sessionId);
-
             authorisedBuckets = bucketService.getBucketsByGroups(ownerName, kind, contentType, () -> user.getGroups());
             authorisedBuckets.addAll(grantRightsService.getBucketsByPrioritiedGrants(user));
 
-            List<BucketGrantMetadata> allBucketsGrants = bucketGrantService.getUserAllBucketsGrants(user);
-            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = catalogObjectGrantService.getObjectsGrants(user);
+            UserGrantSnapshot userGrants = grantRightsService.getUserGrantSnapshot(user);
+            List<BucketGrantMetadata> allBucketsGrants = userGrants.getBucketGrants();
+            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = userGrants.getObjectGrants();
 
             List<BucketMetadata> res = new LinkedList<>();
             for (BucketMetadata data : authorisedBuckets) {
@@ -39,11 +39,10 @@ import java.util.Optional;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.CatalogRawObject;
+import org.ow2.proactive.catalog.service.AuthorizationContext;
 import org.ow2.proactive.catalog.service.BucketGrantService;
 import org.ow2.proactive.catalog.service.CatalogObjectGrantService;
 import org.ow2.proactive.catalog.service.CatalogObjectService;
-import org.ow2.proactive.catalog.service.GrantRightsService;
-import org.ow2.proactive.catalog.service.RestApiAccessService;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
@@ -84,14 +83,11 @@ public class CatalogObjectRevisionController {
     private CatalogObjectService catalogObjectService;
 
     @Autowired
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationContext authorizationContext;
 
     @Autowired
     private RawObjectResponseCreator rawObjectResponseCreator;
 
-    @Autowired
-    private GrantRightsService grantRightsService;
-
     @Autowired
     private CatalogObjectGrantService catalogObjectGrantService;
 
@@ -114,18 +110,15 @@ public class CatalogObjectRevisionController {
             @ApiParam(value = "The commit message of the CatalogRawObject Revision", required = true) @RequestParam String commitMessage,
             @ApiParam(value = "Project of the object") @RequestParam(value = "projectName", required = false, defaultValue = "") Optional<String> projectName,
             @ApiParam(value = "Tags of the object") @RequestParam(value = "tags", required = false, defaultValue = "") Optional<String> tags,
+            @ApiParam(value = "Return the last revision instead of creating a new one when the content, project name, tags and metadata are unchanged. The server default (pa.catalog.revision.skip.unchanged) is used when not specified") @RequestParam(value = "skipIfUnchanged", required = false) Optional<Boolean> skipIfUnchanged,
             @RequestPart(value = "file") MultipartFile file)
             throws IOException, NotAuthenticatedException, AccessDeniedException {
         AuthenticatedUser user;
         if (sessionIdRequired) {
             // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
+            user = authorizationContext.getUser();
             // Check Grants
-            user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), write)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), write)) {
                 throw new BucketGrantAccessException(bucketName);
             }
         } else {
@@ -137,9 +130,10 @@ public class CatalogObjectRevisionController {
                                                                                                        tags.orElse(""),
                                                                                                        commitMessage,
                                                                                                        user.getName(),
-                                                                                                       file.getBytes());
+                                                                                                       file.getBytes(),
+                                                                                                       skipIfUnchanged.orElse(null));
         if (sessionIdRequired) {
-            catalogObjectRevision.setRights(grantRightsService.getCatalogObjectRights(user, bucketName, name));
+            catalogObjectRevision.setRights(authorizationContext.getCatalogObjectRights(bucketName, name));
         }
         catalogObjectRevision.add(LinkUtil.createLink(bucketName,
                                                       catalogObjectRevision.getName(),
@@ -161,14 +155,8 @@ public class CatalogObjectRevisionController {
             @PathVariable String bucketName, @PathVariable String name, @PathVariable long commitTimeRaw)
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), read)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), read)) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
@@ -192,14 +180,8 @@ public class CatalogObjectRevisionController {
             @PathVariable String bucketName, @PathVariable String name, @PathVariable long commitTimeRaw)
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), read)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), read)) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
@@ -222,31 +204,22 @@ public class CatalogObjectRevisionController {
             @PathVariable String bucketName, @PathVariable String name)
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
         // Check Grants
-        AuthenticatedUser user;
         List<CatalogObjectGrantMetadata> catalogObjectGrants = new LinkedList<>();
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-            user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), read)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), read)) {
                 throw new BucketGrantAccessException(bucketName);
             } else {
                 catalogObjectGrants = catalogObjectGrantService.getObjectsGrantsInABucket(bucketName);
             }
 
-        } else {
-            user = AuthenticatedUser.EMPTY;
         }
         List<CatalogObjectMetadata> catalogObjectMetadataList = catalogObjectService.listCatalogObjectRevisions(bucketName,
                                                                                                                 name);
 
         for (CatalogObjectMetadata catalogObjectMetadata : catalogObjectMetadataList) {
             if (sessionIdRequired) {
-                catalogObjectMetadata.setRights(grantRightsService.getCatalogObjectRights(user,
-                                                                                          bucketName,
-                                                                                          catalogObjectMetadata.getName()));
+                catalogObjectMetadata.setRights(authorizationContext.getCatalogObjectRights(bucketName,
+                                                                                            catalogObjectMetadata.getName()));
             }
             catalogObjectMetadata.add(LinkUtil.createLink(bucketName,
                                                           catalogObjectMetadata.getName(),
@@ -271,14 +244,8 @@ public class CatalogObjectRevisionController {
             @PathVariable String bucketName, @PathVariable String name, @PathVariable Long commitTimeRaw)
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
-            // Check session validation
-            if (!restApiAccessService.isSessionActive(sessionId)) {
-                throw new AccessDeniedException("Session id is not active. Please login.");
-            }
-
             // Check Grants
-            AuthenticatedUser user = restApiAccessService.getUserFromSessionId(sessionId);
-            if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, name), write)) {
+            if (!AccessTypeHelper.satisfy(authorizationContext.getCatalogObjectRights(bucketName, name), write)) {
                 throw new BucketGrantAccessException(bucketName);
             }
         }
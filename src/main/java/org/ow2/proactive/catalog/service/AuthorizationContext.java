@@ -0,0 +1,175 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ow2.proactive.catalog.dto.BucketMetadata;
+import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.util.GrantHelper;
+import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.WebApplicationContext;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Authorization state of the current REST request.
+ *
+ * The session id is set by {@link org.ow2.proactive.catalog.rest.interceptor.AuthorizationContextInterceptor} before
+ * the handler is invoked. The authenticated user, the buckets and the rights of the user are resolved lazily, the
+ * first time a handler asks for them, and are then reused until the end of the request. The memoized rights are
+ * dropped whenever the grants change (see {@link GrantRightsCache#getGeneration()}), so that the rights checked after
+ * a grant update, e.g. to detect a lost of admin rights, are always up to date.
+ *
+ * @author ActiveEon Team
+ */
+@Component
+@Scope(value = WebApplicationContext.SCOPE_REQUEST, proxyMode = ScopedProxyMode.TARGET_CLASS)
+@Log4j2
+public class AuthorizationContext {
+
+    @Autowired
+    private SchedulerUserAuthenticationService schedulerUserAuthenticationService;
+
+    @Autowired
+    private BucketService bucketService;
+
+    @Autowired
+    private GrantRightsService grantRightsService;
+
+    @Autowired
+    private GrantRightsCache grantRightsCache;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    private String sessionId;
+
+    private AuthenticatedUser user;
+
+    private final Map<String, BucketMetadata> buckets = new HashMap<>();
+
+    private final Map<String, String> bucketRights = new HashMap<>();
+
+    private final Map<Pair<String, String>, String> catalogObjectRights = new HashMap<>();
+
+    private long rightsGeneration = -1;
+
+    public void setSessionId(String sessionId) {
+        if (sessionId == null ? this.sessionId != null : !sessionId.equals(this.sessionId)) {
+            this.sessionId = sessionId;
+            this.user = null;
+            clearRights();
+        }
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns the user authenticated by the session id of the request.
+     *
+     * @throws NotAuthenticatedException if the session id is not valid
+     * @throws AccessDeniedException if the session is not active
+     */
+    public AuthenticatedUser getUser() throws NotAuthenticatedException, AccessDeniedException {
+        if (user == null) {
+            AuthenticatedUser authenticatedUser = schedulerUserAuthenticationService.authenticateBySessionId(sessionId);
+            if (authenticatedUser == null) {
+                throw new AccessDeniedException("Session id is not active. Please login.");
+            }
+            user = authenticatedUser;
+        }
+        return user;
+    }
+
+    /**
+     * Returns the authenticated user after checking that it may access the buckets of the given owner or group.
+     *
+     * @throws NotAuthenticatedException if the session id is not valid
+     * @throws AccessDeniedException if the session is not active, or the user is neither the owner nor in the group
+     */
+    public AuthenticatedUser checkOwnerOrGroupAccess(String ownerOrGroup)
+            throws NotAuthenticatedException, AccessDeniedException {
+        AuthenticatedUser authenticatedUser = getUser();
+        if (!authorizationService.askUserAuthorizationByBucketOwner(authenticatedUser, ownerOrGroup)) {
+            throw new AccessDeniedException("User " + authenticatedUser.getName() +
+                                            " is not allowed to access buckets with owner or group " + ownerOrGroup);
+        }
+        return authenticatedUser;
+    }
+
+    public BucketMetadata getBucket(String bucketName) {
+        return buckets.computeIfAbsent(bucketName, bucketService::getBucketMetadata);
+    }
+
+    public boolean isPublicBucket(String bucketName) {
+        return GrantHelper.isPublicBucket(getBucket(bucketName).getOwner());
+    }
+
+    public String getBucketRights(String bucketName) throws NotAuthenticatedException, AccessDeniedException {
+        AuthenticatedUser authenticatedUser = getUser();
+        clearRightsIfGrantsChanged();
+        return bucketRights.computeIfAbsent(bucketName,
+                                            name -> grantRightsService.getBucketRights(authenticatedUser, name));
+    }
+
+    public String getCatalogObjectRights(String bucketName, String catalogObjectName)
+            throws NotAuthenticatedException, AccessDeniedException {
+        AuthenticatedUser authenticatedUser = getUser();
+        clearRightsIfGrantsChanged();
+        return catalogObjectRights.computeIfAbsent(Pair.of(bucketName, catalogObjectName),
+                                                   key -> grantRightsService.getCatalogObjectRights(authenticatedUser,
+                                                                                                    key.getLeft(),
+                                                                                                    key.getRight()));
+    }
+
+    private void clearRightsIfGrantsChanged() {
+        long generation = grantRightsCache.getGeneration();
+        if (generation != rightsGeneration) {
+            if (rightsGeneration != -1) {
+                log.debug("Grants changed during the request, the rights of {} are resolved again", user.getName());
+            }
+            clearRights();
+            rightsGeneration = generation;
+        }
+    }
+
+    private void clearRights() {
+        bucketRights.clear();
+        catalogObjectRights.clear();
+        rightsGeneration = -1;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.service.model.CachedBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * In-memory cache of the id and the owner of the buckets, keyed by the bucket name, invalidated by the bucket
+ * creations, owner changes and deletions. Missing buckets are not cached.
+ *
+ * @author ActiveEon Team
+ */
+@Component
+@ManagedResource(objectName = "org.ow2.proactive.catalog:name=BucketCache", description = "Cache of the bucket ids and owners")
+public class BucketCache {
+
+    @Value("${pa.catalog.bucket.cache.enabled:true}")
+    protected boolean enabled;
+
+    @Value("${pa.catalog.bucket.cache.size:10000}")
+    protected long maximumSize;
+
+    @Value("${pa.catalog.bucket.cache.expiration.seconds:300}")
+    protected long expirationSeconds;
+
+    private TransactionAwareCache<String, CachedBucket> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new TransactionAwareCache<>(maximumSize, expirationSeconds);
+    }
+
+    /**
+     * Get the bucket from the cache, or load and cache it.
+     *
+     * @param bucketName name of the bucket
+     * @param bucketLoader loads the bucket entity when the bucket is not cached
+     * @return the cached bucket, or null if the bucket does not exist
+     */
+    public CachedBucket getBucket(String bucketName, Function<String, BucketEntity> bucketLoader) {
+        if (!enabled || cache == null) {
+            return load(bucketName, bucketLoader);
+        }
+        return cache.get(bucketName, () -> load(bucketName, bucketLoader));
+    }
+
+    /**
+     * Invalidate the cached bucket, to be called when a bucket is created, updated or deleted.
+     *
+     * @param bucketName name of the bucket
+     */
+    public void invalidate(String bucketName) {
+        if (cache != null) {
+            cache.invalidate(name -> name.equals(bucketName));
+        }
+    }
+
+    @ManagedOperation(description = "Invalidates all the cached buckets")
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidate(name -> true);
+        }
+    }
+
+    @ManagedAttribute(description = "Whether the buckets are cached")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute(description = "Number of cached buckets")
+    public long getSize() {
+        return cache.getSize();
+    }
+
+    @ManagedAttribute(description = "Number of buckets found in the cache")
+    public long getHitCount() {
+        return cache.getStats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of buckets loaded because they were not in the cache")
+    public long getMissCount() {
+        return cache.getStats().missCount();
+    }
+
+    @ManagedAttribute(description = "Ratio of the buckets found in the cache")
+    public double getHitRate() {
+        return cache.getStats().hitRate();
+    }
+
+    @ManagedAttribute(description = "Number of cached buckets evicted because of the cache size or the expiration delay")
+    public long getEvictionCount() {
+        return cache.getStats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Number of invalidations caused by the bucket changes")
+    public long getInvalidationCount() {
+        return cache.getInvalidationCount();
+    }
+
+    private CachedBucket load(String bucketName, Function<String, BucketEntity> bucketLoader) {
+        BucketEntity bucketEntity = bucketLoader.apply(bucketName);
+        return bucketEntity == null ? null : new CachedBucket(bucketEntity);
+    }
+}
@@ -40,10 +40,12 @@ import org.ow2.proactive.catalog.service.exception.BucketGrantAlreadyExistsExcep
 import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.GrantNotFoundException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CachedBucket;
 import org.ow2.proactive.catalog.util.AccessTypeValidator;
 import org.ow2.proactive.catalog.util.AllBucketGrants;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.ow2.proactive.catalog.util.ModificationHistoryData;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
 import org.ow2.proactive.catalog.util.PriorityLevelValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -64,22 +66,42 @@ public class BucketGrantService {
     @Autowired
     private BucketRepository bucketRepository;
 
+    @Autowired
+    private BucketCache bucketCache;
+
     @Autowired
     private BucketGrantRepository bucketGrantRepository;
 
     @Autowired
     private CatalogObjectGrantService catalogObjectGrantService;
 
+    @Autowired
+    private PartitionedQueryHelper partitionedQueryHelper;
+
+    @Autowired
+    private GrantRightsCache grantRightsCache;
+
     /**
      * Get the list of all the bucket grants assigned to the user and its groups for all the buckets.
      *
      * @param user authenticated user
      * @return the list of all the bucket grants assigned to the user and its groups
      */
+    @Transactional(readOnly = true)
     public List<BucketGrantMetadata> getUserAllBucketsGrants(AuthenticatedUser user) {
-        List<BucketGrantEntity> grantEntities = bucketGrantRepository.findAllBucketsGrantsByUsername(user.getName());
-        grantEntities.addAll(bucketGrantRepository.findAllBucketsGrantsByUserGroup(user.getGroups()));
-        return GrantHelper.mapToGrants(grantEntities);
+        List<String> groups = user.getGroups() == null ? Collections.emptyList()
+                                                       : new ArrayList<>(new LinkedHashSet<>(user.getGroups()));
+        if (groups.isEmpty()) {
+            return GrantHelper.mapToGrants(bucketGrantRepository.findAllBucketsGrantsByUsername(user.getName()));
+        }
+        // The grants of the user and of its groups are loaded by a single query, together with their buckets,
+        // unless the user belongs to more groups than an IN clause accepts
+        List<String> firstGroups = groups.subList(0, Math.min(groups.size(), PartitionedQueryHelper.MAX_IN_PARAMETERS));
+        List<BucketGrantMetadata> grants = GrantHelper.mapToGrants(bucketGrantRepository.findAllBucketsGrantsByUsernameOrUserGroup(user.getName(),
+                                                                                                                                   firstGroups));
+        grants.addAll(partitionedQueryHelper.fetch(groups.subList(firstGroups.size(), groups.size()),
+                                                   otherGroups -> GrantHelper.mapToGrants(bucketGrantRepository.findAllBucketsGrantsByUserGroup(otherGroups))));
+        return grants;
     }
 
     /**
@@ -101,20 +123,24 @@ public class BucketGrantService {
      * @param user authenticated user
      * @return the list of all positive bucket grants assigned to the user and its groups
      */
+    @Transactional(readOnly = true)
     public List<BucketGrantMetadata> getUserAccessibleBucketsGrants(AuthenticatedUser user) {
-        List<BucketGrantEntity> userGrants = bucketGrantRepository.findAccessibleBucketsGrantsAssignedToAUsername(user.getName());
-        userGrants.addAll(bucketGrantRepository.findAccessibleBucketsGrantsAssignedToUserGroups(user.getGroups()));
-        return GrantHelper.mapToGrants(userGrants);
+        List<BucketGrantMetadata> userGrants = GrantHelper.mapToGrants(bucketGrantRepository.findAccessibleBucketsGrantsAssignedToAUsername(user.getName()));
+        userGrants.addAll(partitionedQueryHelper.fetch(user.getGroups(),
+                                                       groups -> GrantHelper.mapToGrants(bucketGrantRepository.findAccessibleBucketsGrantsAssignedToUserGroups(groups))));
+        return userGrants;
     }
 
     /**
      * Get the list of all no-access bucket grants assigned to the user and its groups for all the buckets
      * @return list of all no-access bucket grants assigned to the user and its groups
      */
+    @Transactional(readOnly = true)
     public List<BucketGrantMetadata> getNoAccessBucketsGrants(AuthenticatedUser user) {
-        List<BucketGrantEntity> result = bucketGrantRepository.findBucketsGrantsAssignedToAUsernameWithNoAccessRight(user.getName());
-        result.addAll(bucketGrantRepository.findBucketsGrantsAssignedToUserGroupsWithNoAccessRight(user.getGroups()));
-        return GrantHelper.mapToGrants(result);
+        List<BucketGrantMetadata> result = GrantHelper.mapToGrants(bucketGrantRepository.findBucketsGrantsAssignedToAUsernameWithNoAccessRight(user.getName()));
+        result.addAll(partitionedQueryHelper.fetch(user.getGroups(),
+                                                   groups -> GrantHelper.mapToGrants(bucketGrantRepository.findBucketsGrantsAssignedToUserGroupsWithNoAccessRight(groups))));
+        return result;
     }
 
     /**
@@ -193,6 +219,7 @@ public class BucketGrantService {
                 bucketGrantEntity.getModificationHistory().push(modificationHistoryData);
                 // Save the grant
                 bucketGrantEntity = bucketGrantRepository.save(bucketGrantEntity);
+                grantRightsCache.invalidateBucket(bucketName);
                 return new BucketGrantMetadata(bucketGrantEntity);
             } else {
                 throw new GrantNotFoundException(username, bucketName);
@@ -243,6 +270,7 @@ public class BucketGrantService {
             }
             // Save the modifications
             bucketGrantEntity = bucketGrantRepository.save(bucketGrantEntity);
+            grantRightsCache.invalidateBucket(bucketName);
             return new BucketGrantMetadata(bucketGrantEntity);
         }
         return null;
@@ -286,6 +314,7 @@ public class BucketGrantService {
                                                                     bucket);
         // Save the grant in db
         bucketGrantEntity = bucketGrantRepository.save(bucketGrantEntity);
+        grantRightsCache.invalidateBucket(bucketName);
         return new BucketGrantMetadata(bucketGrantEntity);
     }
 
@@ -327,6 +356,7 @@ public class BucketGrantService {
                                                                     bucket);
         // Save the grant in db
         bucketGrantEntity = bucketGrantRepository.save(bucketGrantEntity);
+        grantRightsCache.invalidateBucket(bucketName);
         return new BucketGrantMetadata(bucketGrantEntity);
     }
 
@@ -349,6 +379,7 @@ public class BucketGrantService {
         } else {
             throw new DataIntegrityViolationException("Bucket grant was not found in the DB.");
         }
+        grantRightsCache.invalidateBucket(bucketName);
         return new BucketGrantMetadata(bucketGrantEntity);
     }
 
@@ -371,6 +402,7 @@ public class BucketGrantService {
         } else {
             throw new DataIntegrityViolationException("Bucket grant was not found in the DB.");
         }
+        grantRightsCache.invalidateBucket(bucketName);
         return new BucketGrantMetadata(bucketGrantEntity);
     }
 
@@ -397,6 +429,7 @@ public class BucketGrantService {
     public AllBucketGrants deleteAllBucketAndItsObjectsGrants(String bucketName) {
         AllBucketGrants allBucketGrants = this.getAllBucketAndObjectGrants(bucketName);
         this.deleteAllGrantsAssignedToABucketAndItsObjects(this.getBucketIdByName(bucketName));
+        grantRightsCache.invalidateBucket(bucketName);
         return allBucketGrants;
     }
 
@@ -409,7 +442,9 @@ public class BucketGrantService {
      */
     public List<BucketGrantMetadata> deleteAllGrantsAssignedToABucket(String bucketName) {
         long bucketId = this.getBucketIdByName(bucketName);
-        return GrantHelper.mapToGrants(bucketGrantRepository.deleteAllByBucketEntityId(bucketId));
+        List<BucketGrantMetadata> deletedGrants = GrantHelper.mapToGrants(bucketGrantRepository.deleteAllByBucketEntityId(bucketId));
+        grantRightsCache.invalidateBucket(bucketName);
+        return deletedGrants;
     }
 
     /**
@@ -418,7 +453,7 @@ public class BucketGrantService {
      * @return the id of a bucket
      */
     private long getBucketIdByName(String bucketName) {
-        BucketEntity bucket = bucketRepository.findOneByBucketName(bucketName);
+        CachedBucket bucket = bucketCache.getBucket(bucketName, bucketRepository::findOneByBucketName);
         if (bucket != null) {
             return bucket.getId();
         } else {
@@ -0,0 +1,54 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Initializes the object count of the buckets created before it was stored in the bucket table.
+ */
+@Log4j2
+@Component
+public class BucketObjectCountStartupAdder {
+
+    @Autowired
+    private BucketRepository bucketRepository;
+
+    @Transactional
+    public void synchronizeObjectCount() {
+        log.info("Checking bucket object counts ... ");
+        int updatedBuckets = bucketRepository.initMissingObjectCounts();
+        if (updatedBuckets > 0) {
+            log.info("Object count of " + updatedBuckets + " buckets initialized successfully.");
+        }
+    }
+}
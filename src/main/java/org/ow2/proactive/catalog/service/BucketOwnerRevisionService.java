@@ -0,0 +1,260 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Creates a new revision of the catalog objects of the buckets whose owner changed, so that the generic information
+ * of the objects (e.g. the group and the bucket name) match the new owner.
+ * <p>
+ * The owner change only marks the bucket as pending (see {@link BucketService#updateOwnerByBucketName}), the
+ * objects are then revised in the background, by batches ordered by object name, each batch in its own transaction.
+ * The name of the last revised object is saved with the bucket after each batch, so that an interrupted revision
+ * resumes after the last committed batch, and restarts from the first object if the owner changed again meanwhile.
+ * The progress is logged and exposed over JMX.
+ *
+ * @author ActiveEon Team
+ */
+@Log4j2
+@Service
+@ManagedResource(objectName = "org.ow2.proactive.catalog:name=BucketOwnerRevision", description = "Revision of the catalog objects after a change of bucket owner")
+public class BucketOwnerRevisionService {
+
+    static final String COMMIT_MESSAGE_UPDATE_BUCKET = "Update the bucket owner";
+
+    @Autowired
+    private BucketRepository bucketRepository;
+
+    @Autowired
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Autowired
+    private CatalogObjectService catalogObjectService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${pa.catalog.bucket.owner.revision.batch.size:100}")
+    protected int batchSize;
+
+    private final AtomicLong revisedObjects = new AtomicLong();
+
+    private final AtomicLong failedObjects = new AtomicLong();
+
+    private volatile String currentBucket;
+
+    private volatile long currentBucketRevisedObjects;
+
+    @Scheduled(fixedDelayString = "${pa.catalog.bucket.owner.revision.delay:5000}")
+    public void scheduledRevision() {
+        reviseObjectsOfPendingBuckets();
+    }
+
+    /**
+     * Creates the pending revisions of the objects of all the buckets whose owner changed.
+     *
+     * @return the number of revised objects
+     */
+    @ManagedOperation(description = "Creates the pending revisions of the objects of the buckets whose owner changed")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public synchronized long reviseObjectsOfPendingBuckets() {
+        long revisedObjectsOfRun = 0;
+        for (Object[] pendingBucket : bucketRepository.findPendingOwnerRevisions()) {
+            revisedObjectsOfRun += reviseObjectsOfBucket((Long) pendingBucket[0],
+                                                         (String) pendingBucket[1],
+                                                         (String) pendingBucket[2],
+                                                         (String) pendingBucket[3]);
+        }
+        return revisedObjectsOfRun;
+    }
+
+    @VisibleForTesting
+    long reviseObjectsOfBucket(Long bucketId, String bucketName, String owner, String cursor) {
+        long start = System.currentTimeMillis();
+        currentBucket = bucketName;
+        currentBucketRevisedObjects = 0;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String lastRevisedObject = cursor;
+        try {
+            List<String> batch;
+            do {
+                String after = lastRevisedObject;
+                try {
+                    batch = transactionTemplate.execute(status -> reviseBatch(bucketId, owner, after));
+                    revisedObjects.addAndGet(batch.size());
+                } catch (RuntimeException e) {
+                    log.warn("Revision of a batch of objects of bucket " + bucketName +
+                             " failed, its objects are revised one by one", e);
+                    batch = reviseBatchObjectByObject(transactionTemplate, bucketId, bucketName, owner, after);
+                }
+                if (!batch.isEmpty()) {
+                    lastRevisedObject = batch.get(batch.size() - 1);
+                    currentBucketRevisedObjects += batch.size();
+                    log.debug("{} objects of bucket {} revised for the owner {}",
+                              currentBucketRevisedObjects,
+                              bucketName,
+                              owner);
+                }
+            } while (batch.size() == batchSize);
+            transactionTemplate.execute(status -> bucketRepository.completeOwnerRevision(bucketId, owner));
+        } catch (RuntimeException e) {
+            // the revision resumes after the last revised object at the next run
+            log.error("Revision of the objects of bucket " + bucketName + " for the owner " + owner + " failed", e);
+        } finally {
+            currentBucket = null;
+        }
+        log.info("{} objects of bucket {} revised for the owner {} in {} ms",
+                 currentBucketRevisedObjects,
+                 bucketName,
+                 owner,
+                 System.currentTimeMillis() - start);
+        return currentBucketRevisedObjects;
+    }
+
+    /**
+     * Revises the next objects of the bucket and saves the name of the last one with the bucket.
+     *
+     * @return the names of the revised objects, empty when there is no more object to revise or when the owner
+     * changed meanwhile
+     */
+    private List<String> reviseBatch(Long bucketId, String owner, String after) {
+        List<CatalogObjectRevisionEntity> headRevisions = findNextHeadRevisions(bucketId, after, batchSize);
+        if (headRevisions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        for (CatalogObjectRevisionEntity headRevision : headRevisions) {
+            // an object which was already revised, e.g. before an interruption, does not get another revision
+            catalogObjectService.createCatalogObjectRevision(headRevision, COMMIT_MESSAGE_UPDATE_BUCKET, true);
+        }
+        List<String> names = getNames(headRevisions);
+        if (bucketRepository.updateOwnerRevisionCursor(bucketId, owner, names.get(names.size() - 1)) == 0) {
+            // the owner changed meanwhile, the revision restarts from the first object at the next run
+            return Collections.emptyList();
+        }
+        return names;
+    }
+
+    /**
+     * Revises the next objects of the bucket each in its own transaction, the objects which cannot be revised are
+     * skipped.
+     */
+    private List<String> reviseBatchObjectByObject(TransactionTemplate transactionTemplate, Long bucketId,
+            String bucketName, String owner, String after) {
+        List<String> names = transactionTemplate.execute(status -> getNames(findNextHeadRevisions(bucketId,
+                                                                                                  after,
+                                                                                                  batchSize)));
+        for (String name : names) {
+            try {
+                transactionTemplate.execute(status -> {
+                    List<CatalogObjectRevisionEntity> headRevision = catalogObjectRevisionRepository.findDefaultCatalogObjectsByNameInBucket(bucketName,
+                                                                                                                                               Collections.singletonList(name));
+                    headRevision.forEach(revision -> catalogObjectService.createCatalogObjectRevision(revision,
+                                                                                                      COMMIT_MESSAGE_UPDATE_BUCKET,
+                                                                                                      true));
+                    return bucketRepository.updateOwnerRevisionCursor(bucketId, owner, name);
+                });
+                revisedObjects.incrementAndGet();
+            } catch (RuntimeException e) {
+                failedObjects.incrementAndGet();
+                log.error("Object " + name + " of bucket " + bucketName + " cannot be revised for the owner " + owner,
+                          e);
+                transactionTemplate.execute(status -> bucketRepository.updateOwnerRevisionCursor(bucketId,
+                                                                                                 owner,
+                                                                                                 name));
+            }
+        }
+        return names;
+    }
+
+    private List<CatalogObjectRevisionEntity> findNextHeadRevisions(Long bucketId, String after, int maxResults) {
+        // the first page has no name predicate: an empty string cursor would be null on Oracle and match nothing
+        if (after == null || after.isEmpty()) {
+            return catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketOrderedByName(bucketId,
+                                                                                                  new PageRequest(0,
+                                                                                                                  maxResults));
+        }
+        return catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketAfterName(bucketId,
+                                                                                          after,
+                                                                                          new PageRequest(0,
+                                                                                                          maxResults));
+    }
+
+    private static List<String> getNames(List<CatalogObjectRevisionEntity> revisions) {
+        return revisions.stream()
+                        .map(revision -> revision.getCatalogObject().getId().getName())
+                        .collect(Collectors.toList());
+    }
+
+    @ManagedAttribute(description = "Number of buckets whose objects still need a revision for their new owner")
+    public long getPendingBuckets() {
+        return bucketRepository.countPendingOwnerRevisions();
+    }
+
+    @ManagedAttribute(description = "Name of the bucket whose objects are being revised, if any")
+    public String getCurrentBucket() {
+        return currentBucket;
+    }
+
+    @ManagedAttribute(description = "Number of objects revised so far in the bucket being revised")
+    public long getCurrentBucketRevisedObjects() {
+        return currentBucketRevisedObjects;
+    }
+
+    @ManagedAttribute(description = "Number of objects revised since the server start")
+    public long getRevisedObjects() {
+        return revisedObjects.get();
+    }
+
+    @ManagedAttribute(description = "Number of objects which could not be revised since the server start")
+    public long getFailedObjects() {
+        return failedObjects.get();
+    }
+}
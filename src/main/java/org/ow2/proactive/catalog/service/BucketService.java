@@ -32,6 +32,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
@@ -39,6 +40,7 @@ import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketNameIsNotValidException;
 import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.DeleteNonEmptyBucketException;
+import org.ow2.proactive.catalog.service.model.CachedBucket;
 import org.ow2.proactive.catalog.util.name.validator.BucketNameValidator;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
@@ -63,8 +65,6 @@ public class BucketService {
 
     public static final String DEFAULT_BUCKET_OWNER = OwnerGroupStringHelper.GROUP_PREFIX + "public-objects";
 
-    protected static final String COMMIT_MESSAGE_UPDATE_BUCKET = "Update the bucket owner";
-
     protected final Sort sortById = new Sort(Sort.Direction.ASC, "id");
 
     @Autowired
@@ -80,10 +80,22 @@ public class BucketService {
     private BucketGrantService bucketGrantService;
 
     @Autowired
-    CatalogObjectService catalogObjectService;
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
 
     @Autowired
-    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Autowired
+    private GrantRightsCache grantRightsCache;
+
+    @Autowired
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Autowired
+    private ReportArtifactCache reportArtifactCache;
+
+    @Autowired
+    private BucketCache bucketCache;
 
     public BucketMetadata createBucket(String name) {
         return createBucket(name, DEFAULT_BUCKET_OWNER);
@@ -97,6 +109,7 @@ public class BucketService {
         BucketEntity bucketEntity = new BucketEntity(name, owner);
 
         bucketEntity = bucketRepository.save(bucketEntity);
+        bucketCache.invalidate(name);
         return new BucketMetadata(bucketEntity, 0);
     }
 
@@ -106,24 +119,18 @@ public class BucketService {
         bucketEntity.setOwner(owner);
 
         bucketEntity = bucketRepository.save(bucketEntity);
+        bucketCache.invalidate(bucketName);
+        grantRightsCache.invalidateBucket(bucketName);
 
-        createRevisionForObjects(bucketName, COMMIT_MESSAGE_UPDATE_BUCKET);
+        // the objects get a new revision for the new owner in the background, see BucketOwnerRevisionService
+        bucketRepository.markOwnerRevisionPending(bucketEntity.getId());
 
-        return new BucketMetadata(bucketEntity, bucketEntity.getCatalogObjects().size());
-    }
-
-    //create a new revision for objects when the bucket owner is updated
-    protected void createRevisionForObjects(String bucketName, String commitMessage) {
-        List<CatalogObjectRevisionEntity> objectsList = catalogObjectService.listCatalogObjectsEntities(Arrays.asList(bucketName),
-                                                                                                        0,
-                                                                                                        Integer.MAX_VALUE);
-
-        objectsList.forEach(obj -> catalogObjectService.createCatalogObjectRevision(obj, commitMessage));
+        return new BucketMetadata(bucketEntity, bucketEntity.getObjectCount());
     }
 
     public BucketMetadata getBucketMetadata(String bucketName) {
-        BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
-        return new BucketMetadata(bucketEntity);
+        CachedBucket bucket = findCachedBucketByNameAndCheck(bucketName);
+        return new BucketMetadata(bucket.getName(), bucket.getOwner());
     }
 
     public List<BucketMetadata> listBuckets(List<String> owners, Optional<String> kind, Optional<String> contentType,
@@ -194,8 +201,7 @@ public class BucketService {
 
     private List<BucketMetadata> generateBucketMetadataList(List<BucketEntity> bucketEntityList) {
         return bucketEntityList.stream()
-                               .map(bucketEntity -> new BucketMetadata(bucketEntity,
-                                                                       bucketEntity.getCatalogObjects().size()))
+                               .map(bucketEntity -> new BucketMetadata(bucketEntity, bucketEntity.getObjectCount()))
                                .collect(Collectors.toList());
 
     }
@@ -273,10 +279,18 @@ public class BucketService {
     public void cleanAllEmptyBuckets() {
         List<BucketEntity> emptyBucketsForUpdate = bucketRepository.findEmptyBucketsForUpdate();
         bucketRepository.deleteInBatch(emptyBucketsForUpdate);
+        emptyBucketsForUpdate.forEach(bucketEntity -> bucketCache.invalidate(bucketEntity.getBucketName()));
     }
 
     public void cleanAll() {
         bucketRepository.deleteAll();
+        // the revisions are deleted first, since they reference the contents
+        bucketRepository.flush();
+        catalogObjectContentRepository.deleteAllInBatch();
+        bucketCache.invalidateAll();
+        grantRightsCache.invalidateAll();
+        catalogObjectDependencyIndex.invalidate();
+        reportArtifactCache.invalidateAll();
     }
 
     public BucketMetadata deleteEmptyBucket(String bucketName) {
@@ -286,7 +300,7 @@ public class BucketService {
             throw new BucketNotFoundException(bucketName);
         }
 
-        if (!bucketEntity.getCatalogObjects().isEmpty()) {
+        if (bucketEntity.getObjectCount() > 0) {
             throw new DeleteNonEmptyBucketException(bucketName);
         }
         // Get the bucketId
@@ -297,6 +311,8 @@ public class BucketService {
 
         // Delete the bucket
         bucketRepository.delete(bucketId);
+        bucketCache.invalidate(bucketName);
+        grantRightsCache.invalidateBucket(bucketName);
 
         return new BucketMetadata(bucketEntity);
     }
@@ -309,6 +325,14 @@ public class BucketService {
         return bucketEntity;
     }
 
+    private CachedBucket findCachedBucketByNameAndCheck(String bucketName) {
+        CachedBucket bucket = bucketCache.getBucket(bucketName, bucketRepository::findOneByBucketName);
+        if (bucket == null) {
+            throw new BucketNotFoundException(bucketName);
+        }
+        return bucket;
+    }
+
     public List<BucketMetadata> getBucketsByGroups(String ownerName, Optional<String> kind,
             Optional<String> contentType, Supplier<List<String>> authenticatedUserGroupsSupplier) {
         return getBucketsByGroups(ownerName,
@@ -25,11 +25,15 @@
  */
 package org.ow2.proactive.catalog.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import org.ow2.proactive.catalog.callgraph.CatalogObjectCallGraphPDFGenerator;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.service.model.ReportArtifactKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -47,30 +51,59 @@ import lombok.extern.log4j.Log4j2;
 @Transactional
 public class CatalogObjectCallGraphService {
 
+    private static final String CALL_GRAPH_ARTIFACT = "call-graph";
+
+    private static final String SELECTED_OBJECTS_CALL_GRAPH_ARTIFACT = "selected-objects-call-graph";
+
     @Autowired
     private CatalogObjectService catalogObjectService;
 
+    @Autowired
+    private ReportArtifactCache reportArtifactCache;
+
     @Autowired
     private CatalogObjectCallGraphPDFGenerator catalogObjectCallGraphPDFGenerator;
 
-    public byte[] generateBytesCallGraph(List<String> authorisedBucketsNames, Optional<String> kind,
-            Optional<String> contentType) {
+    public void writeCallGraph(List<String> authorisedBucketsNames, Optional<String> kind,
+            Optional<String> contentType, OutputStream outputStream) throws IOException {
+
+        ReportArtifactKey key = reportArtifactCache.newKey(CALL_GRAPH_ARTIFACT,
+                                                           authorisedBucketsNames,
+                                                           kind,
+                                                           contentType,
+                                                           Collections.emptyList());
 
-        List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjects(authorisedBucketsNames,
-                                                                                           kind,
-                                                                                           contentType);
+        reportArtifactCache.write(key, outputStream, artifactStream -> {
+            List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjects(authorisedBucketsNames,
+                                                                                               kind,
+                                                                                               contentType);
 
-        return catalogObjectCallGraphPDFGenerator.generatePdfImage(metadataList, kind, contentType);
+            return catalogObjectCallGraphPDFGenerator.generatePdfImage(metadataList,
+                                                                       kind,
+                                                                       contentType,
+                                                                       artifactStream);
+        });
 
     }
 
-    public byte[] generateBytesCallGraphForSelectedObjects(String bucketName, List<String> catalogObjectsNames,
-            Optional<String> kind, Optional<String> contentType) {
+    public void writeCallGraphForSelectedObjects(String bucketName, List<String> catalogObjectsNames,
+            Optional<String> kind, Optional<String> contentType, OutputStream outputStream) throws IOException {
+
+        ReportArtifactKey key = reportArtifactCache.newKey(SELECTED_OBJECTS_CALL_GRAPH_ARTIFACT,
+                                                           Collections.singletonList(bucketName),
+                                                           kind,
+                                                           contentType,
+                                                           catalogObjectsNames);
 
-        List<CatalogObjectMetadata> metadataList = catalogObjectService.listSelectedCatalogObjects(bucketName,
-                                                                                                   catalogObjectsNames);
+        reportArtifactCache.write(key, outputStream, artifactStream -> {
+            List<CatalogObjectMetadata> metadataList = catalogObjectService.listSelectedCatalogObjects(bucketName,
+                                                                                                       catalogObjectsNames);
 
-        return catalogObjectCallGraphPDFGenerator.generatePdfImage(metadataList, kind, contentType);
+            return catalogObjectCallGraphPDFGenerator.generatePdfImage(metadataList,
+                                                                       kind,
+                                                                       contentType,
+                                                                       artifactStream);
+        });
 
     }
 }
@@ -0,0 +1,334 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+
+
+/**
+ * Stores the raw content of the revisions once per SHA-256 digest. A revision is built with a new content, which is
+ * replaced by the stored content having the same digest, if any, when the revision is saved. The stored contents
+ * count the revisions referencing them and are deleted once no revision references them anymore.
+ *
+ * @author ActiveEon Team
+ */
+@Component
+@Transactional
+public class CatalogObjectContentHelper {
+
+    private static final int MAX_STORE_ATTEMPTS = 10;
+
+    @Autowired
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Autowired
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * To be called before the given revision is saved.
+     */
+    public void storeContent(CatalogObjectRevisionEntity revision) {
+        storeContents(Collections.singletonList(revision));
+    }
+
+    /**
+     * Replaces the new contents of the given revisions by the stored contents having the same digests, and stores
+     * the others once per digest. To be called before the given revisions are saved.
+     * <p>
+     * A stored content may be deleted by a concurrent transaction releasing its last reference, between the time it
+     * is looked up and the time it is referenced: it is then stored again. Two transactions may also store the same
+     * new digest at the same time: the contents are inserted in their own transactions, so that the one violating the
+     * unique digest index can look up the content stored by the other one and reference it instead. As the inserted
+     * contents are committed without references, a content remains unreferenced if the calling transaction is rolled
+     * back, until a revision having the same bytes is stored or it is deleted by {@link #deleteOrphanContents}.
+     */
+    public void storeContents(Collection<CatalogObjectRevisionEntity> revisions) {
+        Map<String, List<CatalogObjectRevisionEntity>> revisionsByDigest = revisions.stream()
+                                                                                    .filter(revision -> revision.getContent() != null &&
+                                                                                                        revision.getContent()
+                                                                                                                .getId() == null)
+                                                                                    .collect(Collectors.groupingBy(revision -> revision.getContent()
+                                                                                                                                       .getDigest(),
+                                                                                                                   LinkedHashMap::new,
+                                                                                                                   Collectors.toList()));
+        if (revisionsByDigest.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> contentIds = new HashMap<>();
+        Map<String, Long> candidateContentIds = findContentIds(revisionsByDigest.keySet());
+        Set<String> pendingDigests = new LinkedHashSet<>(revisionsByDigest.keySet());
+        for (int attempt = 1; !pendingDigests.isEmpty(); attempt++) {
+            if (attempt > MAX_STORE_ATTEMPTS) {
+                throw new IllegalStateException("Could not store the contents " + pendingDigests +
+                                                " as they were concurrently deleted " + MAX_STORE_ATTEMPTS +
+                                                " times");
+            }
+            candidateContentIds.putAll(insertUnreferencedContents(pendingDigests.stream()
+                                                                                .filter(digest -> !candidateContentIds.containsKey(digest))
+                                                                                .map(digest -> revisionsByDigest.get(digest)
+                                                                                                                .get(0)
+                                                                                                                .getContent())
+                                                                                .collect(Collectors.toList())));
+            for (Iterator<String> digests = pendingDigests.iterator(); digests.hasNext();) {
+                String digest = digests.next();
+                Long contentId = candidateContentIds.get(digest);
+                // no row is updated when the content was deleted since it was looked up or inserted
+                if (contentId != null &&
+                    catalogObjectContentRepository.addReferences(contentId,
+                                                                 revisionsByDigest.get(digest).size()) > 0) {
+                    contentIds.put(digest, contentId);
+                    digests.remove();
+                }
+            }
+            candidateContentIds.clear();
+        }
+
+        revisionsByDigest.forEach((digest, sharingRevisions) -> {
+            // the stored bytes are not read, a reference is enough
+            CatalogObjectContentEntity content = catalogObjectContentRepository.getOne(contentIds.get(digest));
+            sharingRevisions.forEach(revision -> revision.setContent(content));
+        });
+    }
+
+    private Map<String, Long> findContentIds(Collection<String> digests) {
+        Map<String, Long> contentIds = new HashMap<>();
+        Lists.partition(new ArrayList<>(digests), PartitionedQueryHelper.MAX_IN_PARAMETERS)
+             .forEach(chunk -> catalogObjectContentRepository.findDigestsAndIds(chunk)
+                                                             .forEach(row -> contentIds.put((String) row[0],
+                                                                                            (Long) row[1])));
+        return contentIds;
+    }
+
+    /**
+     * Inserts the given contents without references, all together in a new transaction or, if one of them was stored
+     * meanwhile by another transaction, one by one.
+     *
+     * @return the ids of the inserted contents, or of the stored contents having the same digests, by digest
+     */
+    private Map<String, Long> insertUnreferencedContents(List<CatalogObjectContentEntity> contents) {
+        if (contents.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return newTransaction().execute(status -> saveUnreferencedContents(contents));
+        } catch (DataIntegrityViolationException e) {
+            Map<String, Long> contentIds = new HashMap<>();
+            for (CatalogObjectContentEntity content : contents) {
+                try {
+                    contentIds.putAll(newTransaction().execute(status -> saveUnreferencedContents(Collections.singletonList(content))));
+                } catch (DataIntegrityViolationException alreadyStored) {
+                    // looked up in a new transaction, to see the content committed by the other transaction
+                    contentIds.putAll(newTransaction().execute(status -> findContentIds(Collections.singletonList(content.getDigest()))));
+                }
+            }
+            return contentIds;
+        }
+    }
+
+    private Map<String, Long> saveUnreferencedContents(List<CatalogObjectContentEntity> contents) {
+        // copies, so that the given contents are not bound to a transaction which may fail
+        List<CatalogObjectContentEntity> unreferencedContents = contents.stream().map(content -> {
+            CatalogObjectContentEntity unreferencedContent = new CatalogObjectContentEntity(content.getRawObject());
+            unreferencedContent.setReferenceCount(0);
+            return unreferencedContent;
+        }).collect(Collectors.toList());
+        catalogObjectContentRepository.save(unreferencedContents);
+        catalogObjectContentRepository.flush();
+        return unreferencedContents.stream()
+                                   .collect(Collectors.toMap(CatalogObjectContentEntity::getDigest,
+                                                             CatalogObjectContentEntity::getId));
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+
+    /**
+     * Tells whether a new revision, not yet saved, would be identical to the given stored revision: same content
+     * digest, same project name and tags, and same metadata.
+     */
+    public boolean isUnchanged(CatalogObjectRevisionEntity storedRevision, CatalogObjectRevisionEntity newRevision) {
+        return isUnchanged(storedRevision,
+                           findContentDigests(Collections.singletonList(storedRevision)).get(storedRevision.getId()),
+                           newRevision);
+    }
+
+    /**
+     * Same as {@link #isUnchanged(CatalogObjectRevisionEntity, CatalogObjectRevisionEntity)}, the content digest of
+     * the stored revision being already known.
+     */
+    public boolean isUnchanged(CatalogObjectRevisionEntity storedRevision, String storedContentDigest,
+            CatalogObjectRevisionEntity newRevision) {
+        String newContentDigest = newRevision.getContent() == null ? null : newRevision.getContent().getDigest();
+        return Objects.equals(storedContentDigest, newContentDigest) &&
+               storedRevision.getProjectName().equals(newRevision.getProjectName()) &&
+               storedRevision.getTags().equals(newRevision.getTags()) &&
+               metadataOf(storedRevision).equals(metadataOf(newRevision));
+    }
+
+    /**
+     * @return the content digests of the given stored revisions, by revision id, read without loading the contents
+     */
+    public Map<Long, String> findContentDigests(Collection<CatalogObjectRevisionEntity> storedRevisions) {
+        Map<Long, String> contentDigests = new HashMap<>();
+        List<Long> revisionIds = storedRevisions.stream()
+                                                .map(CatalogObjectRevisionEntity::getId)
+                                                .collect(Collectors.toList());
+        Lists.partition(revisionIds, PartitionedQueryHelper.MAX_IN_PARAMETERS)
+             .forEach(ids -> catalogObjectRevisionRepository.findContentDigests(ids)
+                                                            .forEach(row -> contentDigests.put((Long) row[0],
+                                                                                               (String) row[1])));
+        return contentDigests;
+    }
+
+    private Multiset<List<String>> metadataOf(CatalogObjectRevisionEntity revision) {
+        Multiset<List<String>> metadata = HashMultiset.create();
+        revision.getKeyValueMetadataList()
+                .forEach(keyValue -> metadata.add(Arrays.asList(keyValue.getKey(),
+                                                                keyValue.getValue(),
+                                                                keyValue.getLabel())));
+        return metadata;
+    }
+
+    /**
+     * Replaces the content of a stored revision by the given bytes, the previous content being released.
+     */
+    public void replaceContent(CatalogObjectRevisionEntity revision, byte[] rawObject) {
+        CatalogObjectContentEntity previousContent = revision.getContent();
+        if (previousContent != null && rawObject != null &&
+            CatalogObjectContentEntity.digest(rawObject).equals(previousContent.getDigest())) {
+            return;
+        }
+        revision.setRawObject(rawObject);
+        storeContent(revision);
+        if (previousContent != null) {
+            catalogObjectContentRepository.addReferences(previousContent.getId(), -1);
+            deleteUnreferencedContents(Collections.singletonList(previousContent.getId()));
+        }
+    }
+
+    /**
+     * Releases the contents of all the revisions of a catalog object, to be called before the object is deleted.
+     *
+     * @return the ids of the released contents, to be given to {@link #deleteUnreferencedContents(Collection)}
+     * once the object is deleted
+     */
+    public List<Long> releaseContents(Long bucketId, String name) {
+        return releaseContents(catalogObjectRevisionRepository.countContentReferences(bucketId, name));
+    }
+
+    /**
+     * Releases the contents of the given revisions, to be called before the revisions are deleted.
+     *
+     * @return the ids of the released contents, to be given to {@link #deleteUnreferencedContents(Collection)}
+     * once the revisions are deleted
+     */
+    public List<Long> releaseContentsOfRevisions(Collection<Long> revisionIds) {
+        return releaseContents(catalogObjectRevisionRepository.countContentReferencesOfRevisions(revisionIds));
+    }
+
+    private List<Long> releaseContents(List<Object[]> contentsReferences) {
+        List<Long> releasedContentIds = new ArrayList<>();
+        for (Object[] contentReferences : contentsReferences) {
+            Long contentId = (Long) contentReferences[0];
+            catalogObjectContentRepository.addReferences(contentId, -(Long) contentReferences[1]);
+            releasedContentIds.add(contentId);
+        }
+        return releasedContentIds;
+    }
+
+    /**
+     * Deletes the contents which are not referenced and were stored before the given time, such as the contents
+     * stored by a transaction which was then rolled back.
+     *
+     * @param creationTimeLimit the contents stored after this time are kept, as their revisions may not be
+     *                          committed yet
+     * @param maxContents maximum number of deleted contents
+     * @return the number of deleted contents
+     */
+    public int deleteOrphanContents(long creationTimeLimit, int maxContents) {
+        List<Long> contentIds = catalogObjectContentRepository.findUnreferencedIdsCreatedBefore(creationTimeLimit,
+                                                                                                new PageRequest(0,
+                                                                                                                maxContents));
+        return deleteUnreferencedContents(contentIds);
+    }
+
+    /**
+     * Deletes those of the given contents which are not referenced anymore. The pending changes are flushed first,
+     * so that the deleted revisions do not reference them anymore.
+     *
+     * @return the number of deleted contents
+     */
+    public int deleteUnreferencedContents(Collection<Long> contentIds) {
+        if (contentIds.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+        return contentIds.stream().mapToInt(catalogObjectContentRepository::deleteIfUnreferenced).sum();
+    }
+}
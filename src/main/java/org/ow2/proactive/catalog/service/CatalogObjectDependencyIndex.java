@@ -0,0 +1,533 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.ow2.proactive.catalog.service.model.IndexedDependency;
+import org.ow2.proactive.catalog.util.SeparatorUtility;
+import org.ow2.proactive.catalog.util.parser.WorkflowParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * In-memory index of the dependencies (depends_on metadata) of the last revision of the catalog objects, kept as
+ * adjacency lists in both directions. It is updated by the object revisions and deletions once committed, and rebuilt
+ * periodically.
+ *
+ * @author ActiveEon Team
+ */
+@Log4j2
+@Component
+@ManagedResource(objectName = "org.ow2.proactive.catalog:name=CatalogObjectDependencyIndex", description = "In-memory index of the dependencies between the catalog objects")
+public class CatalogObjectDependencyIndex {
+
+    @Autowired
+    private CatalogObjectRepository catalogObjectRepository;
+
+    @Autowired
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Autowired
+    private SeparatorUtility separatorUtility;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${pa.catalog.dependency.index.enabled:true}")
+    protected boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * null until the index is built, and after an invalidation
+     */
+    private DependencyGraph graph;
+
+    /**
+     * Changes committed while the index is rebuilt, applied again to the rebuilt index since the database queries
+     * may not have seen them
+     */
+    private List<ObjectChange> changesDuringRebuild;
+
+    private volatile long lastBuildDuration;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${pa.catalog.dependency.index.refresh.delay:600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the last revisions of the catalog objects.
+     */
+    @ManagedOperation(description = "Rebuilds the index from the database")
+    public void rebuild() {
+        build();
+    }
+
+    private synchronized DependencyGraph build() {
+        long start = System.currentTimeMillis();
+        List<ObjectChange> changes = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            DependencyGraph builtGraph = load();
+            lock.writeLock().lock();
+            try {
+                changes.forEach(change -> change.applyTo(builtGraph));
+                graph = builtGraph;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastBuildDuration = System.currentTimeMillis() - start;
+            log.info("Dependency index of " + builtGraph.objectCount + " catalog objects built in " +
+                     lastBuildDuration + " ms");
+            return builtGraph;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops the index, to be called when the catalog objects are deleted without going through the catalog object
+     * service. The index is then rebuilt on its next use.
+     */
+    @ManagedOperation(description = "Drops the index, which is rebuilt on its next use")
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            graph = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the dependencies of the last revision of a catalog object.
+     *
+     * @param bucketName name of the bucket of the object
+     * @param name name of the object
+     * @param revisionCommitTime commit time of the revision whose dependencies are requested
+     * @return the dependencies in the order of their metadata, or null if the index does not hold the given revision
+     * of the object (older revision, unknown object)
+     */
+    public List<IndexedDependency> findDependsOn(String bucketName, String name, long revisionCommitTime) {
+        DependencyGraph indexedGraph = getGraph();
+        lock.readLock().lock();
+        try {
+            IndexedObject object = indexedGraph.get(separatorUtility.getConcatWithSeparator(bucketName, name));
+            if (object == null || object.lastCommitTime != revisionCommitTime) {
+                return null;
+            }
+            List<IndexedDependency> dependencies = new ArrayList<>(object.dependsOn.length);
+            for (int i = 0; i < object.dependsOn.length; i++) {
+                IndexedObject dependency = indexedGraph.objects.get(object.dependsOn[i]);
+                dependencies.add(new IndexedDependency(indexedGraph.keys.get(object.dependsOn[i]),
+                                                       object.dependsOnRevisions[i],
+                                                       dependency == null ? null : dependency.kind));
+            }
+            return dependencies;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param bucketName name of the bucket of the object
+     * @param name name of the object
+     * @return the bucket and object names of the objects whose last revision depends on the given object, sorted
+     */
+    public List<String> findCalledBy(String bucketName, String name) {
+        DependencyGraph indexedGraph = getGraph();
+        lock.readLock().lock();
+        try {
+            Integer id = indexedGraph.ids.get(separatorUtility.getConcatWithSeparator(bucketName, name));
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            return indexedGraph.callers.get(id)
+                                       .stream()
+                                       .map(indexedGraph.keys::get)
+                                       .sorted()
+                                       .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param bucketName name of the bucket of the object
+     * @param name name of the object
+     * @return the names of the buckets of the dependencies of the indexed last revision of the object, empty if the
+     * object is not indexed
+     */
+    public Set<String> findDependsOnBucketNames(String bucketName, String name) {
+        DependencyGraph indexedGraph = getGraph();
+        lock.readLock().lock();
+        try {
+            IndexedObject object = indexedGraph.get(separatorUtility.getConcatWithSeparator(bucketName, name));
+            Set<String> bucketNames = new HashSet<>();
+            if (object != null) {
+                for (int dependency : object.dependsOn) {
+                    bucketNames.add(separatorUtility.getSplitBySeparator(indexedGraph.keys.get(dependency)).get(0));
+                }
+            }
+            return bucketNames;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param bucketAndObjectName bucket name and object name, joined by the depends_on separator
+     * @return the kind of the object, or null if the object is not in the catalog
+     */
+    public String findKind(String bucketAndObjectName) {
+        DependencyGraph indexedGraph = getGraph();
+        lock.readLock().lock();
+        try {
+            IndexedObject object = indexedGraph.get(bucketAndObjectName);
+            return object == null ? null : object.kind;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the object once the current transaction commits, to be called when a revision becomes the last
+     * revision of an object, or when the kind of an object changes.
+     *
+     * @param bucketName name of the bucket of the object
+     * @param revision last revision of the object
+     */
+    public void objectRevised(String bucketName, CatalogObjectRevisionEntity revision) {
+        if (!enabled) {
+            return;
+        }
+        CatalogObjectEntity catalogObject = revision.getCatalogObject();
+        List<String> dependsOn = new ArrayList<>();
+        List<String> dependsOnRevisions = new ArrayList<>();
+        for (KeyValueLabelMetadataEntity metadata : revision.getKeyValueMetadataList()) {
+            if (WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL.equals(metadata.getLabel())) {
+                dependsOn.add(metadata.getKey());
+                dependsOnRevisions.add(metadata.getValue());
+            }
+        }
+        onCommit(new ObjectChange(separatorUtility.getConcatWithSeparator(bucketName, catalogObject.getId().getName()),
+                                  catalogObject.getKind(),
+                                  revision.getCommitTime(),
+                                  dependsOn,
+                                  dependsOnRevisions));
+    }
+
+    /**
+     * Removes the object once the current transaction commits.
+     *
+     * @param bucketName name of the bucket of the object
+     * @param name name of the object
+     */
+    public void objectDeleted(String bucketName, String name) {
+        if (enabled) {
+            onCommit(new ObjectChange(separatorUtility.getConcatWithSeparator(bucketName, name)));
+        }
+    }
+
+    @ManagedAttribute(description = "Whether the dependencies are indexed")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute(description = "Number of indexed catalog objects")
+    public long getObjectCount() {
+        lock.readLock().lock();
+        try {
+            return graph == null ? 0 : graph.objectCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "Number of indexed dependencies")
+    public long getDependencyCount() {
+        lock.readLock().lock();
+        try {
+            return graph == null ? 0 : graph.dependencyCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "Duration in milliseconds of the last build of the index")
+    public long getLastBuildDuration() {
+        return lastBuildDuration;
+    }
+
+    private DependencyGraph getGraph() {
+        lock.readLock().lock();
+        try {
+            if (graph != null) {
+                return graph;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return build();
+    }
+
+    private DependencyGraph load() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            Map<String, ObjectChange> objects = new LinkedHashMap<>();
+            for (Object[] object : catalogObjectRepository.findAllBucketNamesKindsAndLastCommitTimes()) {
+                String key = separatorUtility.getConcatWithSeparator((String) object[0], (String) object[1]);
+                objects.put(key,
+                            new ObjectChange(key,
+                                             (String) object[2],
+                                             (Long) object[3],
+                                             new ArrayList<>(),
+                                             new ArrayList<>()));
+            }
+            for (Object[] dependency : catalogObjectRevisionRepository.findDependsOnOfLastRevisions()) {
+                ObjectChange object = objects.get(separatorUtility.getConcatWithSeparator((String) dependency[0],
+                                                                                          (String) dependency[1]));
+                if (object != null) {
+                    object.dependsOn.add((String) dependency[2]);
+                    object.dependsOnRevisions.add((String) dependency[3]);
+                }
+            }
+            DependencyGraph loadedGraph = new DependencyGraph();
+            objects.values().forEach(object -> object.applyTo(loadedGraph));
+            return loadedGraph;
+        });
+    }
+
+    private void onCommit(ObjectChange change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(ObjectChange change) {
+        lock.writeLock().lock();
+        try {
+            if (graph != null) {
+                change.applyTo(graph);
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Last revision of a catalog object: its kind, its commit time and the ids of its dependencies
+     */
+    private static class IndexedObject {
+
+        private final String kind;
+
+        private final long lastCommitTime;
+
+        private final int[] dependsOn;
+
+        private final String[] dependsOnRevisions;
+
+        private IndexedObject(String kind, long lastCommitTime, int[] dependsOn, String[] dependsOnRevisions) {
+            this.kind = kind;
+            this.lastCommitTime = lastCommitTime;
+            this.dependsOn = dependsOn;
+            this.dependsOnRevisions = dependsOnRevisions;
+        }
+    }
+
+    /**
+     * The objects and the reverse adjacency lists, indexed by the interned object ids. The ids of the dependencies
+     * which are not in the catalog are interned as well, their object is then null.
+     */
+    private static class DependencyGraph {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        private final List<String> keys = new ArrayList<>();
+
+        private final List<IndexedObject> objects = new ArrayList<>();
+
+        private final List<Set<Integer>> callers = new ArrayList<>();
+
+        private long objectCount;
+
+        private long dependencyCount;
+
+        private IndexedObject get(String key) {
+            Integer id = ids.get(key);
+            return id == null ? null : objects.get(id);
+        }
+
+        private int intern(String key) {
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = keys.size();
+                ids.put(key, id);
+                keys.add(key);
+                objects.add(null);
+                callers.add(new HashSet<>());
+            }
+            return id;
+        }
+
+        private void put(String key, IndexedObject object, List<String> dependsOn) {
+            int id = intern(key);
+            remove(id);
+            for (int i = 0; i < dependsOn.size(); i++) {
+                object.dependsOn[i] = intern(dependsOn.get(i));
+                callers.get(object.dependsOn[i]).add(id);
+            }
+            objects.set(id, object);
+            objectCount++;
+            dependencyCount += dependsOn.size();
+        }
+
+        private void remove(String key) {
+            Integer id = ids.get(key);
+            if (id != null) {
+                remove(id);
+            }
+        }
+
+        private void remove(int id) {
+            IndexedObject object = objects.get(id);
+            if (object == null) {
+                return;
+            }
+            for (int dependency : object.dependsOn) {
+                callers.get(dependency).remove(id);
+            }
+            objects.set(id, null);
+            objectCount--;
+            dependencyCount -= object.dependsOn.length;
+        }
+    }
+
+    /**
+     * New state of a catalog object, or its deletion
+     */
+    private static class ObjectChange {
+
+        private final String key;
+
+        private final boolean deleted;
+
+        private final String kind;
+
+        private final long lastCommitTime;
+
+        private final List<String> dependsOn;
+
+        private final List<String> dependsOnRevisions;
+
+        private ObjectChange(String key) {
+            this.key = key;
+            this.deleted = true;
+            this.kind = null;
+            this.lastCommitTime = 0;
+            this.dependsOn = Collections.emptyList();
+            this.dependsOnRevisions = Collections.emptyList();
+        }
+
+        private ObjectChange(String key, String kind, long lastCommitTime, List<String> dependsOn,
+                List<String> dependsOnRevisions) {
+            this.key = key;
+            this.deleted = false;
+            this.kind = kind;
+            this.lastCommitTime = lastCommitTime;
+            this.dependsOn = dependsOn;
+            this.dependsOnRevisions = dependsOnRevisions;
+        }
+
+        private void applyTo(DependencyGraph graph) {
+            if (deleted) {
+                graph.remove(key);
+            } else {
+                graph.put(key,
+                          new IndexedObject(kind,
+                                            lastCommitTime,
+                                            new int[dependsOn.size()],
+                                            dependsOnRevisions.toArray(new String[0])),
+                          dependsOn);
+            }
+        }
+    }
+}
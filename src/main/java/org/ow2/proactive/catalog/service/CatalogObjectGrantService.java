@@ -36,13 +36,16 @@ import org.ow2.proactive.catalog.repository.BucketRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectGrantRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.*;
+import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectGrantAlreadyExistsException;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectNotFoundException;
 import org.ow2.proactive.catalog.service.exception.GrantNotFoundException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CachedBucket;
 import org.ow2.proactive.catalog.util.AccessTypeValidator;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.ow2.proactive.catalog.util.ModificationHistoryData;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
 import org.ow2.proactive.catalog.util.PriorityLevelValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -66,9 +69,15 @@ public class CatalogObjectGrantService {
     @Autowired
     private BucketRepository bucketRepository;
 
+    @Autowired
+    private BucketCache bucketCache;
+
     @Autowired
     private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
 
+    @Autowired
+    private PartitionedQueryHelper partitionedQueryHelper;
+
     /**
      *
      * @param bucketName name of the bucket where the catalog object is stored.
@@ -92,10 +101,21 @@ public class CatalogObjectGrantService {
      * @param user authenticated user
      * @return the list of all the catalog object grants assigned to the user and its groups
      */
+    @Transactional(readOnly = true)
     public List<CatalogObjectGrantMetadata> getObjectsGrants(AuthenticatedUser user) {
-        List<CatalogObjectGrantEntity> userGrants = catalogObjectGrantRepository.findAllObjectGrantsAssignedToAUser(user.getName());
-        userGrants.addAll(catalogObjectGrantRepository.findAllObjectGrantsAssignedToUserGroups(user.getGroups()));
-        return GrantHelper.mapToObjectGrants(userGrants);
+        List<String> groups = user.getGroups() == null ? Collections.emptyList()
+                                                       : new ArrayList<>(new LinkedHashSet<>(user.getGroups()));
+        if (groups.isEmpty()) {
+            return GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findAllObjectGrantsAssignedToAUser(user.getName()));
+        }
+        // The grants of the user and of its groups are loaded by a single query, together with their objects and
+        // buckets, unless the user belongs to more groups than an IN clause accepts
+        List<String> firstGroups = groups.subList(0, Math.min(groups.size(), PartitionedQueryHelper.MAX_IN_PARAMETERS));
+        List<CatalogObjectGrantMetadata> userGrants = GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findAllObjectGrantsAssignedToAUserOrUserGroups(user.getName(),
+                                                                                                                                                                firstGroups));
+        userGrants.addAll(partitionedQueryHelper.fetch(groups.subList(firstGroups.size(), groups.size()),
+                                                       otherGroups -> GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findAllObjectGrantsAssignedToUserGroups(otherGroups))));
+        return userGrants;
     }
 
     /**
@@ -140,7 +160,11 @@ public class CatalogObjectGrantService {
      * @return the list of all catalog object grant metadata assigned to a bucket
      */
     public List<CatalogObjectGrantMetadata> getObjectsGrantsInABucket(String bucketName) {
-        long bucketId = bucketRepository.findOneByBucketName(bucketName).getId();
+        CachedBucket bucket = bucketCache.getBucket(bucketName, bucketRepository::findOneByBucketName);
+        if (bucket == null) {
+            throw new BucketNotFoundException(bucketName);
+        }
+        long bucketId = bucket.getId();
         return GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findCatalogObjectGrantEntitiesByBucketEntityId(bucketId));
     }
 
@@ -160,13 +184,12 @@ public class CatalogObjectGrantService {
      * @param user authenticated user
      * @return the list of all grants with a noAccess rights assigned to a user
      */
+    @Transactional(readOnly = true)
     public List<CatalogObjectGrantMetadata> getNoAccessGrant(AuthenticatedUser user) {
-        List<CatalogObjectGrantEntity> userGrants = catalogObjectGrantRepository.findAllObjectGrantsWithNoAccessRightsAndAssignedToAUsername(user.getName());
-        List<CatalogObjectGrantEntity> userGroupGrants = catalogObjectGrantRepository.findAllObjectGrantsWithNoAccessRightsAndAssignedToAUserGroup(user.getGroups());
-        if (userGroupGrants != null && !userGroupGrants.isEmpty()) {
-            userGrants.addAll(userGroupGrants);
-        }
-        return userGrants.stream().map(CatalogObjectGrantMetadata::new).collect(Collectors.toList());
+        List<CatalogObjectGrantMetadata> userGrants = GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findAllObjectGrantsWithNoAccessRightsAndAssignedToAUsername(user.getName()));
+        userGrants.addAll(partitionedQueryHelper.fetch(user.getGroups(),
+                                                       groups -> GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findAllObjectGrantsWithNoAccessRightsAndAssignedToAUserGroup(groups))));
+        return userGrants;
     }
 
     /**
@@ -175,10 +198,12 @@ public class CatalogObjectGrantService {
      * @param user authenticated user
      * @return the list of all the catalog object grants assigned to the user and its groups
      */
+    @Transactional(readOnly = true)
     public List<CatalogObjectGrantMetadata> getAccessibleObjectsGrants(AuthenticatedUser user) {
-        List<CatalogObjectGrantEntity> userGrants = catalogObjectGrantRepository.findAllAccessibleObjectGrantsAssignedToAUser(user.getName());
-        userGrants.addAll(catalogObjectGrantRepository.findAllAccessibleObjectGrantsAssignedToUserGroups(user.getGroups()));
-        return GrantHelper.mapToObjectGrants(userGrants);
+        List<CatalogObjectGrantMetadata> userGrants = GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findAllAccessibleObjectGrantsAssignedToAUser(user.getName()));
+        userGrants.addAll(partitionedQueryHelper.fetch(user.getGroups(),
+                                                       groups -> GrantHelper.mapToObjectGrants(catalogObjectGrantRepository.findAllAccessibleObjectGrantsAssignedToUserGroups(groups))));
+        return userGrants;
     }
 
     /**
@@ -221,6 +246,7 @@ public class CatalogObjectGrantService {
                                                                                          catalogObjectRevisionEntity.getCatalogObject());
         // Save the grant
         catalogObjectGrantEntity = catalogObjectGrantRepository.save(catalogObjectGrantEntity);
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
         // Return the result
         return new CatalogObjectGrantMetadata(catalogObjectGrantEntity);
     }
@@ -269,6 +295,7 @@ public class CatalogObjectGrantService {
                                                                                          catalogObjectRevisionEntity.getCatalogObject());
         // Save the grant
         catalogObjectGrantEntity = catalogObjectGrantRepository.save(catalogObjectGrantEntity);
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
         // Return the result
         return new CatalogObjectGrantMetadata(catalogObjectGrantEntity);
     }
@@ -313,6 +340,7 @@ public class CatalogObjectGrantService {
             throw new GrantNotFoundException(username, bucketName, catalogObjectName);
         }
         catalogObjectGrantEntity = catalogObjectGrantRepository.save(catalogObjectGrantEntity);
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
         return new CatalogObjectGrantMetadata(catalogObjectGrantEntity);
     }
 
@@ -358,6 +386,7 @@ public class CatalogObjectGrantService {
             throw new GrantNotFoundException(userGroup, bucketName, catalogObjectName);
         }
         catalogObjectGrantEntity = catalogObjectGrantRepository.save(catalogObjectGrantEntity);
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
         return new CatalogObjectGrantMetadata(catalogObjectGrantEntity);
     }
 
@@ -387,6 +416,7 @@ public class CatalogObjectGrantService {
         } else {
             throw new DataIntegrityViolationException("Catalog object grant was not found in the DB.");
         }
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
         return new CatalogObjectGrantMetadata(catalogObjectGrantEntity);
     }
 
@@ -415,6 +445,7 @@ public class CatalogObjectGrantService {
         } else {
             throw new DataIntegrityViolationException("Catalog object grant was not found in the DB.");
         }
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
         return new CatalogObjectGrantMetadata(catalogObjectGrantEntity);
     }
 
@@ -446,6 +477,7 @@ public class CatalogObjectGrantService {
                                                                                                           catalogObjectName);
 
         catalogObjectGrantRepository.delete(result);
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
         return result.stream().map(CatalogObjectGrantMetadata::new).collect(Collectors.toList());
     }
 
@@ -461,6 +493,7 @@ public class CatalogObjectGrantService {
         List<CatalogObjectGrantEntity> catalogObjectGrants = catalogObjectGrantRepository.findCatalogObjectGrantsByBucketNameAndCatalogObjectName(bucketName,
                                                                                                                                                   catalogObjectName);
         catalogObjectGrantRepository.delete(catalogObjectGrants);
+        grantRightsCache.invalidateCatalogObject(bucketName, catalogObjectName);
     }
 
     /**
@@ -25,6 +25,9 @@
  */
 package org.ow2.proactive.catalog.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -32,6 +35,7 @@ import java.util.TreeSet;
 
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.report.CatalogObjectReportPDFGenerator;
+import org.ow2.proactive.catalog.service.model.ReportArtifactKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -47,38 +51,60 @@ import lombok.extern.log4j.Log4j2;
 @Transactional
 public class CatalogObjectReportService {
 
+    private static final String REPORT_ARTIFACT = "report";
+
+    private static final String SELECTED_OBJECTS_REPORT_ARTIFACT = "selected-objects-report";
+
     @Autowired
     private CatalogObjectService catalogObjectService;
 
+    @Autowired
+    private ReportArtifactCache reportArtifactCache;
+
     @Autowired
     private CatalogObjectReportPDFGenerator catalogObjectReportPDFGenerator;
 
-    public byte[] generateBytesReportForSelectedObjects(String bucketName, List<String> catalogObjectsNames,
-            Optional<String> kind, Optional<String> contentType) {
+    public void writeReportForSelectedObjects(String bucketName, List<String> catalogObjectsNames,
+            Optional<String> kind, Optional<String> contentType, OutputStream outputStream) throws IOException {
 
-        List<CatalogObjectMetadata> metadataList = catalogObjectService.listSelectedCatalogObjects(bucketName,
-                                                                                                   catalogObjectsNames);
+        ReportArtifactKey key = reportArtifactCache.newKey(SELECTED_OBJECTS_REPORT_ARTIFACT,
+                                                           Collections.singletonList(bucketName),
+                                                           kind,
+                                                           contentType,
+                                                           catalogObjectsNames);
 
-        return orderCatalogObjectsByBucketAndProjectName(kind, contentType, metadataList);
+        reportArtifactCache.write(key, outputStream, artifactStream -> {
+            List<CatalogObjectMetadata> metadataList = catalogObjectService.listSelectedCatalogObjects(bucketName,
+                                                                                                       catalogObjectsNames);
 
-    }
+            return catalogObjectReportPDFGenerator.generatePDF(sortObjectsPerBucket(metadataList),
+                                                               kind,
+                                                               contentType,
+                                                               artifactStream);
+        });
 
-    public byte[] generateBytesReport(List<String> authorisedBucketsNames, Optional<String> kind,
-            Optional<String> contentType) {
+    }
 
-        List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjects(authorisedBucketsNames,
-                                                                                           kind,
-                                                                                           contentType);
+    public void writeReport(List<String> authorisedBucketsNames, Optional<String> kind, Optional<String> contentType,
+            OutputStream outputStream) throws IOException {
 
-        return orderCatalogObjectsByBucketAndProjectName(kind, contentType, metadataList);
+        ReportArtifactKey key = reportArtifactCache.newKey(REPORT_ARTIFACT,
+                                                           authorisedBucketsNames,
+                                                           kind,
+                                                           contentType,
+                                                           Collections.emptyList());
 
-    }
+        reportArtifactCache.write(key, outputStream, artifactStream -> {
+            List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjects(authorisedBucketsNames,
+                                                                                               kind,
+                                                                                               contentType);
 
-    private byte[] orderCatalogObjectsByBucketAndProjectName(Optional<String> kind, Optional<String> contentType,
-            List<CatalogObjectMetadata> metadataList) {
-        TreeSet<CatalogObjectMetadata> orderedObjectsPerBucket = sortObjectsPerBucket(metadataList);
+            return catalogObjectReportPDFGenerator.generatePDF(sortObjectsPerBucket(metadataList),
+                                                               kind,
+                                                               contentType,
+                                                               artifactStream);
+        });
 
-        return catalogObjectReportPDFGenerator.generatePDF(orderedObjectsPerBucket, kind, contentType);
     }
 
     private TreeSet<CatalogObjectMetadata> sortObjectsPerBucket(List<CatalogObjectMetadata> metadataList) {
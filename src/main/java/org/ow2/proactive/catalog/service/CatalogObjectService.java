@@ -29,11 +29,22 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -42,11 +53,14 @@ import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.ow2.proactive.catalog.dto.CatalogObjectDependencies;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.dto.CatalogObjectMetadataPage;
 import org.ow2.proactive.catalog.dto.CatalogObjectNameReference;
 import org.ow2.proactive.catalog.dto.CatalogRawObject;
 import org.ow2.proactive.catalog.dto.DependsOnCatalogObject;
 import org.ow2.proactive.catalog.dto.Metadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectCursor;
+import org.ow2.proactive.catalog.repository.CatalogObjectNameFilter;
 import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
@@ -54,10 +68,14 @@ import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
 import org.ow2.proactive.catalog.service.exception.*;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CachedBucket;
+import org.ow2.proactive.catalog.service.model.CatalogObjectImportResult;
 import org.ow2.proactive.catalog.service.model.GenericInfoBucketData;
+import org.ow2.proactive.catalog.service.model.IndexedDependency;
 import org.ow2.proactive.catalog.util.ArchiveManagerHelper;
 import org.ow2.proactive.catalog.util.ArchiveManagerHelper.FileNameAndContent;
-import org.ow2.proactive.catalog.util.ArchiveManagerHelper.ZipArchiveContent;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
 import org.ow2.proactive.catalog.util.RevisionCommitMessageBuilder;
 import org.ow2.proactive.catalog.util.SeparatorUtility;
 import org.ow2.proactive.catalog.util.name.validator.KindAndContentTypeValidator;
@@ -71,14 +89,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
 
 
@@ -90,8 +114,6 @@ import lombok.extern.log4j.Log4j2;
 @Transactional
 public class CatalogObjectService {
 
-    public static int ORACLEDB_MAX_IN_PARAMS = 1000;
-
     @Autowired
     private CatalogObjectRepository catalogObjectRepository;
 
@@ -101,12 +123,24 @@ public class CatalogObjectService {
     @Autowired
     private BucketRepository bucketRepository;
 
+    @Autowired
+    private BucketCache bucketCache;
+
+    @Autowired
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Autowired
+    private ReportArtifactCache reportArtifactCache;
+
     @Autowired
     private ArchiveManagerHelper archiveManager;
 
     @Autowired
     private KeyValueLabelMetadataHelper keyValueLabelMetadataHelper;
 
+    @Autowired
+    private CatalogObjectContentHelper catalogObjectContentHelper;
+
     @Autowired
     private WorkflowInfoAdder workflowInfoAdder;
 
@@ -123,7 +157,7 @@ public class CatalogObjectService {
     private ObjectNameValidator objectNameValidator;
 
     @Autowired
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationService authorizationService;
 
     @Autowired
     private SeparatorUtility separatorUtility;
@@ -131,9 +165,27 @@ public class CatalogObjectService {
     @Autowired
     CatalogObjectGrantService catalogObjectGrantService;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PartitionedQueryHelper partitionedQueryHelper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Value("${kind.separator}")
     protected String kindSeparator;
 
+    @Value("${pa.catalog.import.batch.size:100}")
+    protected int importBatchSize;
+
+    @Value("${pa.catalog.import.parser.threads:4}")
+    protected int importParserThreads;
+
+    @Value("${pa.catalog.revision.skip.unchanged:false}")
+    protected boolean skipUnchangedRevisions;
+
     @VisibleForTesting
     static final String KIND_NOT_FOUND = "N/A";
 
@@ -141,8 +193,32 @@ public class CatalogObjectService {
 
     static final String OBJECT_TAG_LABEL = "object_tag";
 
+    private static final String JOB_PROJECT_NAME_ATTRIBUTE = "projectName";
+
+    private static final String JOB_TAGS_ATTRIBUTE = "tags";
+
+    private static final int ZIP_ARCHIVE_PAGE_SIZE = 50;
+
     private AutoDetectParser mediaTypeFileParser = new AutoDetectParser();
 
+    /**
+     * Parses the entries of the imported ZIP archives, shared by all the imports
+     */
+    private ExecutorService importParserPool;
+
+    @PostConstruct
+    public void init() {
+        importParserPool = Executors.newFixedThreadPool(Math.max(1, importParserThreads),
+                                                        new ThreadFactoryBuilder().setNameFormat("archive-import-parser-%d")
+                                                                                  .setDaemon(true)
+                                                                                  .build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importParserPool.shutdownNow();
+    }
+
     public CatalogObjectMetadata createCatalogObject(String bucketName, String name, String projectName, String tags,
             String kind, String commitMessage, String username, String contentType, byte[] rawObject,
             String extension) {
@@ -167,52 +243,90 @@ public class CatalogObjectService {
         if (filesContainedInArchive.isEmpty()) {
             throw new UnprocessableEntityException("Malformed archive");
         }
-        BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
+        long bucketId = findBucketIdByNameAndCheck(bucketName);
+
+        return filesContainedInArchive.stream()
+                                      .map(file -> createCatalogObjectOrRevisionFromArchiveFile(bucketName,
+                                                                                                bucketId,
+                                                                                                projectName,
+                                                                                                tags,
+                                                                                                kind,
+                                                                                                commitMessage,
+                                                                                                username,
+                                                                                                file))
+                                      .collect(Collectors.toList());
+    }
 
-        return filesContainedInArchive.stream().map(file -> {
-            String objectName = file.getName();
-            CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
-                                                                                                                               objectName));
-            if (catalogObject == null) {
-                String contentTypeOfFile = getFileMimeType(file);
-                return this.createCatalogObject(bucketName,
-                                                objectName,
-                                                projectName,
-                                                tags,
-                                                kind,
-                                                commitMessage,
-                                                username,
-                                                contentTypeOfFile,
-                                                Collections.emptyList(),
-                                                file.getContent(),
-                                                FilenameUtils.getExtension(file.getFileNameWithExtension()));
-            } else {
-                return this.createCatalogObjectRevision(bucketName,
-                                                        objectName,
+    /**
+     * Imports the entries of a ZIP archive in the bucket. The archive is read as a stream and its entries are
+     * grouped in batches of {@code pa.catalog.import.batch.size} entries: the entries of a batch are parsed
+     * concurrently, then stored together in their own transaction. The objects already present in the bucket are
+     * listed once, so that each entry is stored as a new object or as a new revision without further lookups.
+     * A failing entry does not prevent the other entries from being imported and is reported in the results.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CatalogObjectImportResult> importCatalogObjects(String bucketName, String projectName, String tags,
+            String kind, String commitMessage, String username, InputStream zipArchive) {
+        return importCatalogObjects(bucketName, projectName, tags, kind, commitMessage, username, zipArchive, null);
+    }
+
+    /**
+     * @param skipIfUnchanged whether the entries identical to the last revision of their object are left as is,
+     *                        the pa.catalog.revision.skip.unchanged property being used when null
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CatalogObjectImportResult> importCatalogObjects(String bucketName, String projectName, String tags,
+            String kind, String commitMessage, String username, InputStream zipArchive, Boolean skipIfUnchanged) {
+        BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
+        ArchiveImport archiveImport = new ArchiveImport(bucketEntity,
                                                         projectName,
                                                         tags,
+                                                        kind,
                                                         commitMessage,
                                                         username,
-                                                        file.getContent());
-            }
-        }).collect(Collectors.toList());
+                                                        isSkipIfUnchanged(skipIfUnchanged),
+                                                        importParserPool);
+        int extractedFiles = archiveManager.extractZIP(zipArchive, archiveImport::add);
+        if (extractedFiles == 0) {
+            throw new UnprocessableEntityException("Malformed archive");
+        }
+        return archiveImport.finish();
+    }
+
+    private CatalogObjectMetadata createCatalogObjectOrRevisionFromArchiveFile(String bucketName, Long bucketId,
+            String projectName, String tags, String kind, String commitMessage, String username,
+            FileNameAndContent file) {
+        String objectName = file.getName();
+        CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketId,
+                                                                                                                           objectName));
+        if (catalogObject == null) {
+            String contentTypeOfFile = getFileMimeType(file);
+            return this.createCatalogObject(bucketName,
+                                            objectName,
+                                            projectName,
+                                            tags,
+                                            kind,
+                                            commitMessage,
+                                            username,
+                                            contentTypeOfFile,
+                                            Collections.emptyList(),
+                                            file.getContent(),
+                                            FilenameUtils.getExtension(file.getFileNameWithExtension()));
+        } else {
+            return this.createCatalogObjectRevision(bucketName,
+                                                    objectName,
+                                                    projectName,
+                                                    tags,
+                                                    commitMessage,
+                                                    username,
+                                                    file.getContent());
+        }
     }
 
     public CatalogObjectMetadata createCatalogObject(String bucketName, String name, String projectName, String tags,
             String kind, String commitMessage, String username, String contentType, List<Metadata> metadataList,
             byte[] rawObject, String extension) {
-        if (!objectNameValidator.isValid(name)) {
-            throw new ObjectNameIsNotValidException(name);
-        }
-        if (!kindAndContentTypeValidator.isValid(kind)) {
-            throw new KindOrContentTypeIsNotValidException(kind, "kind");
-        }
-        if (!kindAndContentTypeValidator.isValid(contentType)) {
-            throw new KindOrContentTypeIsNotValidException(contentType, "Content-Type");
-        }
-        if (!tagsValidator.isValid(tags)) {
-            throw new TagsIsNotValidException(tags, "tags");
-        }
+        checkNewCatalogObject(name, kind, contentType, tags);
 
         BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
 
@@ -222,18 +336,11 @@ public class CatalogObjectService {
             throw new CatalogObjectAlreadyExistingException(bucketName, name);
         }
 
-        CatalogObjectEntity catalogObjectEntity = CatalogObjectEntity.builder()
-                                                                     .bucket(bucketEntity)
-                                                                     .contentType(contentType)
-                                                                     .contentTypeLower(contentType)
-                                                                     .kind(kind)
-                                                                     .kindLower(kind)
-                                                                     .extension(extension)
-                                                                     .id(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
-                                                                                                                        name))
-                                                                     .nameLower(name)
-                                                                     .build();
-        bucketEntity.getCatalogObjects().add(catalogObjectEntity);
+        CatalogObjectEntity catalogObjectEntity = newCatalogObjectEntity(bucketEntity,
+                                                                         name,
+                                                                         kind,
+                                                                         contentType,
+                                                                         extension);
         CatalogObjectRevisionEntity result = buildCatalogObjectRevisionEntity(commitMessage,
                                                                               username,
                                                                               projectName,
@@ -241,9 +348,39 @@ public class CatalogObjectService {
                                                                               rawObject,
                                                                               catalogObjectEntity,
                                                                               metadataList);
+        bucketRepository.updateObjectCount(bucketEntity.getId(), 1);
         return new CatalogObjectMetadata(result);
     }
 
+    private void checkNewCatalogObject(String name, String kind, String contentType, String tags) {
+        if (!objectNameValidator.isValid(name)) {
+            throw new ObjectNameIsNotValidException(name);
+        }
+        if (!kindAndContentTypeValidator.isValid(kind)) {
+            throw new KindOrContentTypeIsNotValidException(kind, "kind");
+        }
+        if (!kindAndContentTypeValidator.isValid(contentType)) {
+            throw new KindOrContentTypeIsNotValidException(contentType, "Content-Type");
+        }
+        if (!tagsValidator.isValid(tags)) {
+            throw new TagsIsNotValidException(tags, "tags");
+        }
+    }
+
+    private CatalogObjectEntity newCatalogObjectEntity(BucketEntity bucketEntity, String name, String kind,
+            String contentType, String extension) {
+        return CatalogObjectEntity.builder()
+                                  .bucket(bucketEntity)
+                                  .contentType(contentType)
+                                  .contentTypeLower(contentType)
+                                  .kind(kind)
+                                  .kindLower(kind)
+                                  .extension(extension)
+                                  .id(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(), name))
+                                  .nameLower(name)
+                                  .build();
+    }
+
     private String getFileMimeType(FileNameAndContent file) {
         InputStream is = new BufferedInputStream(new ByteArrayInputStream(file.getContent()));
         Detector detector = mediaTypeFileParser.getDetector();
@@ -260,7 +397,7 @@ public class CatalogObjectService {
 
     public CatalogObjectMetadata updateObjectMetadata(String bucketName, String name, Optional<String> kind,
             Optional<String> contentType, Optional<String> projectName, Optional<String> tags) {
-        findBucketByNameAndCheck(bucketName);
+        findBucketIdByNameAndCheck(bucketName);
         CatalogObjectRevisionEntity catalogObjectRevisionEntity = findCatalogObjectByNameAndBucketAndCheck(bucketName,
                                                                                                            name);
 
@@ -287,19 +424,14 @@ public class CatalogObjectService {
         catalogObjectRevisionEntity.setKeyValueMetadataList(synchronizeTagsInMetadataEntityList(catalogObjectRevisionEntity.getKeyValueMetadataList(),
                                                                                                 tags.orElse("")));
 
-        byte[] workflowWithSynchronizedProjectName = workflowInfoAdder.addAttributeToRawObjectIfWorkflow(catalogObjectRevisionEntity.getRawObject(),
-                                                                                                         kind.orElse(""),
-                                                                                                         "projectName",
-                                                                                                         projectName.orElse(""));
-
-        byte[] workflowWithSynchronizedProjectNameAndTags = workflowInfoAdder.addAttributeToRawObjectIfWorkflow(workflowWithSynchronizedProjectName,
-                                                                                                                kind.orElse(""),
-                                                                                                                "tags",
-                                                                                                                tags.orElse(""));
+        byte[] workflowWithSynchronizedProjectNameAndTags = workflowInfoAdder.addAttributesToRawObjectIfWorkflow(catalogObjectRevisionEntity.getRawObject(),
+                                                                                                                 kind.orElse(""),
+                                                                                                                 jobAttributes(projectName.orElse(""),
+                                                                                                                               tags.orElse("")));
 
         catalogObjectRevisionEntity.setProjectName(projectName.orElse(""));
         catalogObjectRevisionEntity.setTags(tags.orElse(""));
-        catalogObjectRevisionEntity.setRawObject(workflowWithSynchronizedProjectNameAndTags);
+        catalogObjectContentHelper.replaceContent(catalogObjectRevisionEntity, workflowWithSynchronizedProjectNameAndTags);
         catalogObjectRevisionRepository.save(catalogObjectRevisionEntity);
         CatalogObjectEntity catalogObjectEntity = catalogObjectRevisionEntity.getCatalogObject();
         kind.ifPresent(catalogObjectEntity::setKind);
@@ -308,6 +440,8 @@ public class CatalogObjectService {
         contentType.ifPresent(catalogObjectEntity::setContentType);
         contentType.ifPresent(catalogObjectEntity::setContentTypeLower);
         catalogObjectRepository.save(catalogObjectEntity);
+        catalogObjectDependencyIndex.objectRevised(bucketName, catalogObjectRevisionEntity);
+        reportArtifactCache.bucketChanged(bucketName);
         return new CatalogObjectMetadata(catalogObjectEntity);
     }
 
@@ -322,6 +456,44 @@ public class CatalogObjectService {
 
     protected CatalogObjectDependencies processObjectDependencies(String bucketName, String name,
             long revisionCommitTime) {
+        if (catalogObjectDependencyIndex.isEnabled()) {
+            List<IndexedDependency> indexedDependencies = catalogObjectDependencyIndex.findDependsOn(bucketName,
+                                                                                                     name,
+                                                                                                     revisionCommitTime);
+            List<DependsOnCatalogObject> dependsOnBucketAndObjectNameList;
+            if (indexedDependencies != null) {
+                dependsOnBucketAndObjectNameList = indexedDependencies.stream()
+                                                                      .map(dependency -> toDependsOnCatalogObject(dependency,
+                                                                                                                  revisionCommitTime))
+                                                                      .collect(Collectors.toList());
+            } else {
+                // the index only holds the last revisions, the dependencies of the older ones are read from the database
+                dependsOnBucketAndObjectNameList = findDependsOnCatalogObjects(bucketName, name, revisionCommitTime);
+            }
+            return new CatalogObjectDependencies(dependsOnBucketAndObjectNameList,
+                                                 catalogObjectDependencyIndex.findCalledBy(bucketName, name));
+        }
+        return new CatalogObjectDependencies(findDependsOnCatalogObjects(bucketName, name, revisionCommitTime),
+                                             findCalledByCatalogObjects(bucketName, name));
+    }
+
+    private DependsOnCatalogObject toDependsOnCatalogObject(IndexedDependency dependency, long revisionCommitTime) {
+        boolean isCatalogObjectExist = dependency.getKind() != null;
+        if (isCatalogObjectExist && !dependency.getRevision().equals(WorkflowParser.LATEST_VERSION)) {
+            // only the existence of the last revision is indexed
+            List<String> dependOnBucketAndObjectName = separatorUtility.getSplitBySeparator(dependency.getBucketAndObjectName());
+            isCatalogObjectExist = isDependsOnObjectExistInCatalog(dependOnBucketAndObjectName.get(0),
+                                                                   dependOnBucketAndObjectName.get(1),
+                                                                   dependency.getRevision());
+        }
+        return new DependsOnCatalogObject(dependency.getBucketAndObjectName(),
+                                          isCatalogObjectExist ? dependency.getKind() : KIND_NOT_FOUND,
+                                          String.valueOf(revisionCommitTime),
+                                          isCatalogObjectExist);
+    }
+
+    private List<DependsOnCatalogObject> findDependsOnCatalogObjects(String bucketName, String name,
+            long revisionCommitTime) {
         List<String> dependsOnCatalogObjectsList = catalogObjectRevisionRepository.findDependsOnCatalogObjectNamesFromKeyValueMetadata(bucketName,
                                                                                                                                        name,
                                                                                                                                        revisionCommitTime);
@@ -349,6 +521,10 @@ public class CatalogObjectService {
                                                                             isCatalogObjectExist));
 
         }
+        return dependsOnBucketAndObjectNameList;
+    }
+
+    private List<String> findCalledByCatalogObjects(String bucketName, String name) {
         String input = separatorUtility.getConcatWithSeparator(bucketName, name);
         List<CatalogObjectRevisionEntity> calledByCatalogObjectList = catalogObjectRevisionRepository.findCalledByCatalogObjectsFromKeyValueMetadata(input);
         List<String> calledByBucketAndObjectNameList = calledByCatalogObjectList.stream()
@@ -359,14 +535,17 @@ public class CatalogObjectService {
                                                                                                                                                              .getId()
                                                                                                                                                              .getName()))
                                                                                 .collect(Collectors.toList());
-
-        return new CatalogObjectDependencies(dependsOnBucketAndObjectNameList, calledByBucketAndObjectNameList);
+        return calledByBucketAndObjectNameList;
     }
 
     public boolean isDependsOnObjectExistInCatalog(String bucketName, String name,
             String revisionCommitTimeOfDependsOnObject) {
         CatalogObjectRevisionEntity catalogObjectRevisionEntity;
         if (revisionCommitTimeOfDependsOnObject.equals(WorkflowParser.LATEST_VERSION)) {
+            if (catalogObjectDependencyIndex.isEnabled()) {
+                return catalogObjectDependencyIndex.findKind(separatorUtility.getConcatWithSeparator(bucketName,
+                                                                                                     name)) != null;
+            }
             catalogObjectRevisionEntity = catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList(bucketName),
                                                                                                                  name);
         } else {
@@ -378,6 +557,52 @@ public class CatalogObjectService {
         return catalogObjectRevisionEntity != null;
     }
 
+    /**
+     * Get the kinds of several catalog objects at once, from the dependency index or otherwise with a single query
+     * (partitioned by chunks of names), instead of checking the existence and loading the metadata of each object.
+     *
+     * @param bucketAndObjectNames bucket names and object names, joined by the depends_on separator
+     * @return the kinds of the objects which are in the catalog, keyed by their bucket and object name
+     */
+    @Transactional(readOnly = true)
+    public Map<String, String> getKindsOfCatalogObjects(Collection<String> bucketAndObjectNames) {
+        Map<String, String> kinds = new HashMap<>();
+        if (catalogObjectDependencyIndex.isEnabled()) {
+            for (String bucketAndObjectName : bucketAndObjectNames) {
+                String kind = catalogObjectDependencyIndex.findKind(bucketAndObjectName);
+                if (kind != null) {
+                    kinds.put(bucketAndObjectName, kind);
+                }
+            }
+            return kinds;
+        }
+        Set<String> requestedObjects = new HashSet<>(bucketAndObjectNames);
+        Map<String, Set<String>> namesByBucket = new HashMap<>();
+        for (String bucketAndObjectName : requestedObjects) {
+            List<String> bucketAndName = separatorUtility.getSplitBySeparator(bucketAndObjectName);
+            namesByBucket.computeIfAbsent(bucketAndName.get(0), bucketName -> new HashSet<>()).add(bucketAndName.get(1));
+        }
+        // both the bucket names and the object names are bound to IN clauses, so both are split into chunks
+        for (List<String> bucketNames : Lists.partition(new ArrayList<>(namesByBucket.keySet()),
+                                                        PartitionedQueryHelper.MAX_IN_PARAMETERS)) {
+            Set<String> names = bucketNames.stream()
+                                           .flatMap(bucketName -> namesByBucket.get(bucketName).stream())
+                                           .collect(Collectors.toSet());
+            partitionedQueryHelper.fetch(names,
+                                         chunk -> catalogObjectRepository.findBucketAndObjectNamesAndKinds(bucketNames,
+                                                                                                           chunk))
+                                  .forEach(row -> {
+                                      String bucketAndObjectName = separatorUtility.getConcatWithSeparator((String) row[0],
+                                                                                                           (String) row[1]);
+                                      // the query matches all the combinations of the bucket names and the names
+                                      if (requestedObjects.contains(bucketAndObjectName)) {
+                                          kinds.put(bucketAndObjectName, (String) row[2]);
+                                      }
+                                  });
+        }
+        return kinds;
+    }
+
     /**
      *
      * @param bucketName
@@ -406,6 +631,14 @@ public class CatalogObjectService {
         return bucketEntity;
     }
 
+    private long findBucketIdByNameAndCheck(String bucketName) {
+        CachedBucket bucket = bucketCache.getBucket(bucketName, bucketRepository::findOneByBucketName);
+        if (bucket == null) {
+            throw new BucketNotFoundException(bucketName);
+        }
+        return bucket.getId();
+    }
+
     protected CatalogObjectRevisionEntity findCatalogObjectByNameAndBucketAndCheck(String bucketName, String name) {
         CatalogObjectRevisionEntity catalogObject = catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList(bucketName),
                                                                                                                            name);
@@ -418,6 +651,77 @@ public class CatalogObjectService {
     private CatalogObjectRevisionEntity buildCatalogObjectRevisionEntity(final String commitMessage,
             final String username, final String projectName, final String tags, final byte[] rawObject,
             final CatalogObjectEntity catalogObjectEntity, final List<Metadata> metadataList) {
+        CatalogObjectRevisionEntity catalogObjectRevisionEntity = prepareCatalogObjectRevisionEntity(commitMessage,
+                                                                                                     username,
+                                                                                                     projectName,
+                                                                                                     tags,
+                                                                                                     rawObject,
+                                                                                                     catalogObjectEntity,
+                                                                                                     metadataList);
+        return saveRevision(catalogObjectEntity, catalogObjectRevisionEntity);
+    }
+
+    private CatalogObjectRevisionEntity saveRevision(CatalogObjectEntity catalogObjectEntity,
+            CatalogObjectRevisionEntity catalogObjectRevisionEntity) {
+        String bucketName = catalogObjectEntity.getBucket().getBucketName();
+        Set<String> changedBucketNames = findDependsOnBucketNames(bucketName,
+                                                                  catalogObjectEntity.getId().getName(),
+                                                                  catalogObjectEntity.getLastCommitTime());
+        catalogObjectEntity.addRevision(catalogObjectRevisionEntity);
+        catalogObjectContentHelper.storeContent(catalogObjectRevisionEntity);
+        CatalogObjectRevisionEntity savedRevision = catalogObjectRevisionRepository.save(catalogObjectRevisionEntity);
+        catalogObjectDependencyIndex.objectRevised(bucketName, savedRevision);
+        changedBucketNames.add(bucketName);
+        changedBucketNames.addAll(findDependsOnBucketNames(savedRevision));
+        changedBucketNames.forEach(reportArtifactCache::bucketChanged);
+        return savedRevision;
+    }
+
+    /**
+     * The reports list the objects calling the objects they show, so the reports of the buckets whose objects are
+     * called by the last revision of an object change as well when the object is revised or deleted. This method is
+     * called before the change is done.
+     *
+     * @param bucketName name of the bucket of the object
+     * @param name name of the object
+     * @param lastCommitTime commit time of the last revision of the object, 0 for a new object
+     * @return the names of the buckets of the dependencies of the last revision of the object
+     */
+    private Set<String> findDependsOnBucketNames(String bucketName, String name, long lastCommitTime) {
+        if (lastCommitTime == 0) {
+            return new HashSet<>();
+        }
+        if (catalogObjectDependencyIndex.isEnabled()) {
+            // the index is updated once the transaction commits, so it still holds the last revision
+            return catalogObjectDependencyIndex.findDependsOnBucketNames(bucketName, name);
+        }
+        return catalogObjectRevisionRepository.findDependsOnCatalogObjectNamesFromKeyValueMetadata(bucketName,
+                                                                                                   name,
+                                                                                                   lastCommitTime)
+                                              .stream()
+                                              .map(dependsOn -> separatorUtility.getSplitBySeparator(dependsOn).get(0))
+                                              .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private Set<String> findDependsOnBucketNames(CatalogObjectRevisionEntity revision) {
+        return revision.getKeyValueMetadataList()
+                       .stream()
+                       .filter(metadata -> WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL.equals(metadata.getLabel()))
+                       .map(metadata -> separatorUtility.getSplitBySeparator(metadata.getKey()).get(0))
+                       .collect(Collectors.toSet());
+    }
+
+    private boolean isSkipIfUnchanged(Boolean skipIfUnchanged) {
+        return skipIfUnchanged != null ? skipIfUnchanged : skipUnchangedRevisions;
+    }
+
+    /**
+     * Builds a revision of the given catalog object without persisting it. Nothing is read from the database here,
+     * which allows archive imports to prepare their entries concurrently.
+     */
+    private CatalogObjectRevisionEntity prepareCatalogObjectRevisionEntity(final String commitMessage,
+            final String username, final String projectName, final String tags, final byte[] rawObject,
+            final CatalogObjectEntity catalogObjectEntity, final List<Metadata> metadataList) {
         List<KeyValueLabelMetadataEntity> keyValueMetadataEntities = KeyValueLabelMetadataHelper.convertToEntity(metadataList);
         if (keyValueMetadataEntities == null) {
             throw new NullPointerException("Cannot build catalog object!");
@@ -466,19 +770,13 @@ public class CatalogObjectService {
         //synchronize tags values
         List<KeyValueLabelMetadataEntity> synchronizedKeyValueMetadataEntityList = synchronizeTagsInMetadataEntityList(genericInformationWithBucketDataList,
                                                                                                                        synchronizedTags);
-        byte[] workflowWithReplacedGenericInfo = workflowInfoAdder.addGenericInformationJobNameToRawObjectIfWorkflow(rawObject,
-                                                                                                                     catalogObjectEntity.getKind(),
-                                                                                                                     keyValueLabelMetadataHelper.toMap(keyValueLabelMetadataHelper.getOnlyGenericInformation(synchronizedKeyValueMetadataEntityList)),
-                                                                                                                     catalogObjectEntity.getId()
-                                                                                                                                        .getName());
-        byte[] workflowWithSynchronizedProjectName = workflowInfoAdder.addAttributeToRawObjectIfWorkflow(workflowWithReplacedGenericInfo,
-                                                                                                         catalogObjectEntity.getKind(),
-                                                                                                         "projectName",
-                                                                                                         synchronizedProjectName);
-        byte[] workflowWithSynchronizedProjectNameAndTags = workflowInfoAdder.addAttributeToRawObjectIfWorkflow(workflowWithSynchronizedProjectName,
-                                                                                                                catalogObjectEntity.getKind(),
-                                                                                                                "tags",
-                                                                                                                synchronizedTags);
+        byte[] workflowWithSynchronizedProjectNameAndTags = workflowInfoAdder.addGenericInformationJobNameAndAttributesToRawObjectIfWorkflow(rawObject,
+                                                                                                                                            catalogObjectEntity.getKind(),
+                                                                                                                                            keyValueLabelMetadataHelper.toMap(keyValueLabelMetadataHelper.getOnlyGenericInformation(synchronizedKeyValueMetadataEntityList)),
+                                                                                                                                            catalogObjectEntity.getId()
+                                                                                                                                                               .getName(),
+                                                                                                                                            jobAttributes(synchronizedProjectName,
+                                                                                                                                                          synchronizedTags));
 
         CatalogObjectRevisionEntity catalogObjectRevisionEntity = CatalogObjectRevisionEntity.builder()
                                                                                              .commitMessage(commitMessage)
@@ -494,8 +792,14 @@ public class CatalogObjectService {
                                                                                              .catalogObject(catalogObjectEntity)
                                                                                              .build();
         synchronizedKeyValueMetadataEntityList.forEach(keyValue -> keyValue.setCatalogObjectRevision(catalogObjectRevisionEntity));
-        catalogObjectEntity.addRevision(catalogObjectRevisionEntity);
-        return catalogObjectRevisionRepository.save(catalogObjectRevisionEntity);
+        return catalogObjectRevisionEntity;
+    }
+
+    private Map<String, String> jobAttributes(String projectName, String tags) {
+        Map<String, String> jobAttributes = new LinkedHashMap<>();
+        jobAttributes.put(JOB_PROJECT_NAME_ATTRIBUTE, projectName);
+        jobAttributes.put(JOB_TAGS_ATTRIBUTE, tags);
+        return jobAttributes;
     }
 
     private String synchronizeMetadataValue(String queryParamMetadata, String metadataListMetadata,
@@ -541,7 +845,7 @@ public class CatalogObjectService {
     }
 
     public List<CatalogObjectMetadata> listCatalogObjects(List<String> bucketNames, int pageNo, int pageSize) {
-        bucketNames.forEach(this::findBucketByNameAndCheck);
+        bucketNames.forEach(this::findBucketIdByNameAndCheck);
         List<CatalogObjectRevisionEntity> result = listCatalogObjectsEntities(bucketNames, pageNo, pageSize);
 
         return buildMetadataWithLink(result);
@@ -585,6 +889,84 @@ public class CatalogObjectService {
         return metadataList;
     }
 
+    /**
+     * Lists the catalog objects by keyset pagination, ordered by project name and object name. Unlike the page
+     * number, the cursor gives the same cost for all the pages and does not skip or repeat objects when objects are
+     * added or removed meanwhile.
+     *
+     * @param accessibleObjects restriction of the objects accessible by the user, null when all the objects are
+     *                          accessible
+     * @param cursor cursor returned with the previous page, empty for the first page
+     */
+    public CatalogObjectMetadataPage listCatalogObjects(List<String> bucketsNames, Optional<String> kind,
+            Optional<String> contentType, Optional<String> objectNameFilter, Optional<String> objectTagFilter,
+            CatalogObjectNameFilter accessibleObjects, Optional<String> cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new WrongParametersException("the page size must be positive");
+        }
+        CatalogObjectCursor after = null;
+        if (cursor.isPresent()) {
+            try {
+                after = CatalogObjectCursor.decode(cursor.get());
+            } catch (IllegalArgumentException e) {
+                throw new WrongParametersException(e.getMessage());
+            }
+        }
+        bucketsNames.forEach(this::findBucketIdByNameAndCheck);
+
+        // one more object is requested to know whether there is a next page
+        int maxResults = pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1;
+        List<CatalogObjectRevisionEntity> objectList = catalogObjectRevisionRepository.findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucketAfter(bucketsNames,
+                                                                                                                                                                        toKindList(kind),
+                                                                                                                                                                        contentType.orElse(null),
+                                                                                                                                                                        objectNameFilter.orElse(null),
+                                                                                                                                                                        objectTagFilter.orElse(null),
+                                                                                                                                                                        accessibleObjects,
+                                                                                                                                                                        after,
+                                                                                                                                                                        maxResults);
+        String nextCursor = null;
+        if (objectList.size() > pageSize) {
+            objectList = objectList.subList(0, pageSize);
+            nextCursor = CatalogObjectCursor.of(objectList.get(pageSize - 1)).encode();
+        }
+        return new CatalogObjectMetadataPage(buildMetadataWithLink(objectList), nextCursor);
+    }
+
+    /**
+     * Lists the catalog objects accessible by the user. The accessibility is checked in the listing query, so that
+     * the pages are not shortened by the objects the user cannot access.
+     *
+     * @param accessibleObjects restriction of the objects accessible by the user, null when all the objects are
+     *                          accessible
+     */
+    public List<CatalogObjectMetadata> listCatalogObjects(List<String> bucketsNames, Optional<String> kind,
+            Optional<String> contentType, Optional<String> objectNameFilter, Optional<String> objectTagFilter,
+            CatalogObjectNameFilter accessibleObjects, int pageNo, int pageSize) {
+        if (accessibleObjects == null) {
+            return listCatalogObjects(bucketsNames,
+                                      kind,
+                                      contentType,
+                                      objectNameFilter,
+                                      objectTagFilter,
+                                      pageNo,
+                                      pageSize);
+        }
+        bucketsNames.forEach(this::findBucketIdByNameAndCheck);
+        List<CatalogObjectRevisionEntity> objectList = catalogObjectRevisionRepository.findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(bucketsNames,
+                                                                                                                                                                   toKindList(kind),
+                                                                                                                                                                   contentType.orElse(null),
+                                                                                                                                                                   objectNameFilter.orElse(null),
+                                                                                                                                                                   objectTagFilter.orElse(null),
+                                                                                                                                                                   accessibleObjects,
+                                                                                                                                                                   pageNo,
+                                                                                                                                                                   pageSize);
+        return buildMetadataWithLink(objectList);
+    }
+
+    private List<String> toKindList(Optional<String> kind) {
+        return kind.map(kinds -> Arrays.asList(kinds.toLowerCase().split(","))).orElse(Collections.emptyList());
+    }
+
     private List<CatalogObjectMetadata> buildMetadataWithLink(List<CatalogObjectRevisionEntity> result) {
         return result.stream().map(CatalogObjectMetadata::new).collect(Collectors.toList());
     }
@@ -593,7 +975,7 @@ public class CatalogObjectService {
     public List<CatalogObjectMetadata> listCatalogObjectsByKindListAndContentTypeAndObjectNameAndObjectTag(
             List<String> bucketNames, String kind, String contentType, String objectName, String objectTag, int pageNo,
             int pageSize) {
-        bucketNames.forEach(this::findBucketByNameAndCheck);
+        bucketNames.forEach(this::findBucketIdByNameAndCheck);
         List<String> kindList = new ArrayList<>();
         if (!kind.isEmpty()) {
             kindList = Arrays.asList(kind.toLowerCase().split(","));
@@ -621,35 +1003,76 @@ public class CatalogObjectService {
         return buildMetadataWithLink(objectList);
     }
 
-    public ZipArchiveContent getCatalogObjectsAsZipArchive(String bucketName, List<String> catalogObjectsNames) {
-        List<CatalogObjectRevisionEntity> revisions = getCatalogObjects(bucketName, catalogObjectsNames);
-        return archiveManager.compressZIP(catalogObjectsNames.size() != revisions.size(), revisions);
+    /**
+     * @return the given names of the objects which exist in the bucket, in the given order. The objects themselves
+     * are not loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<String> getExistingCatalogObjectNames(String bucketName, List<String> catalogObjectsNames) {
+        findBucketIdByNameAndCheck(bucketName);
+
+        Set<String> existingNames = new HashSet<>(partitionedQueryHelper.fetch(catalogObjectsNames,
+                                                                               names -> catalogObjectRepository.findNamesInBucket(bucketName,
+                                                                                                                                  names)));
+        return catalogObjectsNames.stream().filter(existingNames::contains).collect(Collectors.toList());
     }
 
-    public List<CatalogObjectMetadata> listSelectedCatalogObjects(String bucketName, List<String> catalogObjectsNames) {
-        List<CatalogObjectRevisionEntity> result = getCatalogObjects(bucketName, catalogObjectsNames);
-        return buildMetadataWithLink(result);
+    /**
+     * Writes the last revision of the given objects to the stream, as a ZIP archive. The revisions are loaded by
+     * pages, each page in its own read-only transaction, and are released as soon as they are written, so that
+     * neither the memory used nor the delay before the first bytes depend on the number of objects.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeCatalogObjectsAsZipArchive(String bucketName, List<String> catalogObjectsNames,
+            OutputStream outputStream) {
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        for (List<String> names : Lists.partition(catalogObjectsNames, ZIP_ARCHIVE_PAGE_SIZE)) {
+            readOnlyTransactionTemplate.execute(status -> {
+                for (CatalogObjectRevisionEntity revision : catalogObjectRevisionRepository.findDefaultCatalogObjectsByNameInBucket(bucketName,
+                                                                                                                                    names)) {
+                    archiveManager.addToZIP(zipOutputStream, revision);
+                    entityManager.detach(revision);
+                    revision.setContent(null);
+                }
+                return null;
+            });
+        }
+        try {
+            // the output stream belongs to the caller, so the archive is completed without closing it
+            zipOutputStream.finish();
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
     }
 
-    private List<CatalogObjectRevisionEntity> getCatalogObjects(String bucketName, List<String> catalogObjectsNames) {
-        findBucketByNameAndCheck(bucketName);
+    @Transactional(readOnly = true)
+    public List<CatalogObjectMetadata> listSelectedCatalogObjects(String bucketName, List<String> catalogObjectsNames) {
+        findBucketIdByNameAndCheck(bucketName);
 
-        return Lists.partition(catalogObjectsNames, ORACLEDB_MAX_IN_PARAMS)
-                    .stream()
-                    .map(partitionedCatalogObjectsName -> catalogObjectRevisionRepository.findDefaultCatalogObjectsByNameInBucket(bucketName,
-                                                                                                                                  catalogObjectsNames))
-                    .flatMap(List::stream)
-                    .collect(Collectors.toList());
+        return partitionedQueryHelper.fetch(catalogObjectsNames,
+                                            names -> buildMetadataWithLink(catalogObjectRevisionRepository.findDefaultCatalogObjectsByNameInBucket(bucketName,
+                                                                                                                                                   names)));
     }
 
     public CatalogObjectMetadata delete(String bucketName, String name) throws CatalogObjectNotFoundException {
-        BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
+        long bucketId = findBucketIdByNameAndCheck(bucketName);
         CatalogObjectMetadata catalogObjectMetadata = getCatalogObjectMetadata(bucketName, name);
         try {
             // Delete all grants that are associated to the object
             catalogObjectGrantService.deleteAllCatalogObjectGrantsByBucketNameAndObjectName(bucketName, name);
-            // Delete the catalog Object
-            catalogObjectRepository.delete(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(), name));
+            // Delete the catalog Object, and the contents of its revisions which are not shared with other revisions
+            long lastCommitTime = Long.parseLong(catalogObjectMetadata.getCommitTimeRaw());
+            Set<String> changedBucketNames = findDependsOnBucketNames(bucketName, name, lastCommitTime);
+            List<Long> releasedContentIds = catalogObjectContentHelper.releaseContents(bucketId, name);
+            catalogObjectRepository.delete(new CatalogObjectEntity.CatalogObjectEntityKey(bucketId, name));
+            bucketRepository.updateObjectCount(bucketId, -1);
+            catalogObjectDependencyIndex.objectDeleted(bucketName, name);
+            changedBucketNames.add(bucketName);
+            changedBucketNames.forEach(reportArtifactCache::bucketChanged);
+            catalogObjectContentHelper.deleteUnreferencedContents(releasedContentIds);
         } catch (EmptyResultDataAccessException emptyResultDataAccessException) {
             log.warn("CatalogObject {} does not exist in bucket {}", name, bucketName);
             throw new CatalogObjectNotFoundException(bucketName, name);
@@ -671,6 +1094,18 @@ public class CatalogObjectService {
 
     public CatalogObjectMetadata createCatalogObjectRevision(String bucketName, String name, String projectName,
             String tags, String commitMessage, String username, byte[] rawObject) {
+        return this.createCatalogObjectRevision(bucketName,
+                                                name,
+                                                projectName,
+                                                tags,
+                                                commitMessage,
+                                                username,
+                                                rawObject,
+                                                null);
+    }
+
+    public CatalogObjectMetadata createCatalogObjectRevision(String bucketName, String name, String projectName,
+            String tags, String commitMessage, String username, byte[] rawObject, Boolean skipIfUnchanged) {
         return this.createCatalogObjectRevision(bucketName,
                                                 name,
                                                 projectName,
@@ -678,29 +1113,58 @@ public class CatalogObjectService {
                                                 commitMessage,
                                                 username,
                                                 Collections.emptyList(),
-                                                rawObject);
+                                                rawObject,
+                                                skipIfUnchanged);
     }
 
     public CatalogObjectMetadata createCatalogObjectRevision(String bucketName, String name, String projectName,
             String tags, String commitMessage, String username, List<Metadata> metadataListParsed, byte[] rawObject) {
+        return this.createCatalogObjectRevision(bucketName,
+                                                name,
+                                                projectName,
+                                                tags,
+                                                commitMessage,
+                                                username,
+                                                metadataListParsed,
+                                                rawObject,
+                                                null);
+    }
 
-        BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
-        CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
+    /**
+     * @param skipIfUnchanged whether the last revision is returned instead of creating a new one when they have the
+     *                        same content and metadata, the pa.catalog.revision.skip.unchanged property being used
+     *                        when null
+     */
+    public CatalogObjectMetadata createCatalogObjectRevision(String bucketName, String name, String projectName,
+            String tags, String commitMessage, String username, List<Metadata> metadataListParsed, byte[] rawObject,
+            Boolean skipIfUnchanged) {
+
+        long bucketId = findBucketIdByNameAndCheck(bucketName);
+        CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketId,
                                                                                                                            name));
 
         if (catalogObject == null) {
             throw new CatalogObjectNotFoundException(bucketName, name);
         }
 
-        CatalogObjectRevisionEntity revisionEntity = buildCatalogObjectRevisionEntity(commitMessage,
-                                                                                      username,
-                                                                                      projectName,
-                                                                                      tags,
-                                                                                      rawObject,
-                                                                                      catalogObject,
-                                                                                      metadataListParsed);
+        CatalogObjectRevisionEntity revisionEntity = prepareCatalogObjectRevisionEntity(commitMessage,
+                                                                                        username,
+                                                                                        projectName,
+                                                                                        tags,
+                                                                                        rawObject,
+                                                                                        catalogObject,
+                                                                                        metadataListParsed);
+
+        if (isSkipIfUnchanged(skipIfUnchanged)) {
+            CatalogObjectRevisionEntity lastRevision = catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList(bucketName),
+                                                                                                                              name);
+            if (lastRevision != null && catalogObjectContentHelper.isUnchanged(lastRevision, revisionEntity)) {
+                log.debug("Catalog object {} of bucket {} is unchanged, no revision is created", name, bucketName);
+                return new CatalogObjectMetadata(lastRevision);
+            }
+        }
 
-        return new CatalogObjectMetadata(revisionEntity);
+        return new CatalogObjectMetadata(saveRevision(catalogObject, revisionEntity));
     }
 
     protected String getTagsValueIfExistsOrEmptyString(List<Metadata> metadataListParsed, String metadataLabel) {
@@ -723,6 +1187,11 @@ public class CatalogObjectService {
 
     public CatalogObjectMetadata createCatalogObjectRevision(CatalogObjectRevisionEntity catalogObjectRevision,
             String commitMessage) {
+        return createCatalogObjectRevision(catalogObjectRevision, commitMessage, null);
+    }
+
+    public CatalogObjectMetadata createCatalogObjectRevision(CatalogObjectRevisionEntity catalogObjectRevision,
+            String commitMessage, Boolean skipIfUnchanged) {
         return createCatalogObjectRevision(catalogObjectRevision.getCatalogObject().getBucket().getBucketName(),
                                            catalogObjectRevision.getCatalogObject().getId().getName(),
                                            catalogObjectRevision.getProjectName(),
@@ -730,13 +1199,14 @@ public class CatalogObjectService {
                                            commitMessage,
                                            catalogObjectRevision.getUsername(),
                                            KeyValueLabelMetadataHelper.convertFromEntity(catalogObjectRevision.getKeyValueMetadataList()),
-                                           catalogObjectRevision.getRawObject());
+                                           catalogObjectRevision.getRawObject(),
+                                           skipIfUnchanged);
     }
 
     public List<CatalogObjectMetadata> listCatalogObjectRevisions(String bucketName, String name) {
-        BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
+        long bucketId = findBucketIdByNameAndCheck(bucketName);
         findCatalogObjectByNameAndBucketAndCheck(bucketName, name);
-        CatalogObjectEntity list = catalogObjectRepository.readCatalogObjectRevisionsById(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
+        CatalogObjectEntity list = catalogObjectRepository.readCatalogObjectRevisionsById(new CatalogObjectEntity.CatalogObjectEntityKey(bucketId,
                                                                                                                                          name));
 
         return list.getRevisions().stream().map(CatalogObjectMetadata::new).collect(Collectors.toList());
@@ -823,8 +1293,13 @@ public class CatalogObjectService {
         return new TreeSet<>(catalogObjectRepository.findAllObjectTags());
     }
 
+    /**
+     * @param user the authenticated user, or null to list the catalog objects of all the buckets
+     * @return the name references of the catalog objects of the given kind and content type, in the buckets
+     * accessible by the user
+     */
     public List<CatalogObjectNameReference> getAccessibleCatalogObjectsNameReferenceByKindAndContentType(
-            boolean sessionIdRequired, String sessionId, Optional<String> kind, Optional<String> contentType) {
+            AuthenticatedUser user, Optional<String> kind, Optional<String> contentType) {
 
         List<CatalogObjectNameReference> catalogObjectsNameReferenceByKindAndContentType = generateCatalogObjectsNameReferenceByKind(catalogObjectRevisionRepository.findCatalogObjectNameReferenceByKindAndContentType(kind.orElse(""),
                                                                                                                                                                                                                         contentType.orElse("")));
@@ -833,9 +1308,9 @@ public class CatalogObjectService {
         List<BucketEntity> buckets = bucketRepository.findAll();
 
         return buckets.stream()
-                      .filter(bucketEntity -> restApiAccessService.isBucketAccessibleByUser(sessionIdRequired,
-                                                                                            sessionId,
-                                                                                            bucketEntity.getBucketName()))
+                      .filter(bucketEntity -> user == null ||
+                                              authorizationService.askUserAuthorizationByBucketOwner(user,
+                                                                                                     bucketEntity.getOwner()))
                       .map(bucketEntity -> catalogObjectsGroupedByBucket.get(bucketEntity.getBucketName()))
                       .filter(Objects::nonNull)
                       .flatMap(Collection::stream)
@@ -873,4 +1348,260 @@ public class CatalogObjectService {
         return revisionEntity;
     }
 
+    /**
+     * State of an archive import: the objects of the bucket and the batch of entries waiting to be stored.
+     */
+    private class ArchiveImport {
+
+        private final BucketEntity bucketEntity;
+
+        private final String projectName;
+
+        private final String tags;
+
+        private final String kind;
+
+        private final String commitMessage;
+
+        private final String username;
+
+        private final boolean skipIfUnchanged;
+
+        private final ExecutorService parserPool;
+
+        private final TransactionTemplate transactionTemplate;
+
+        // kinds of the objects of the bucket, by object name
+        private final Map<String, String> objectKinds = new HashMap<>();
+
+        private final Map<String, FileNameAndContent> batch = new LinkedHashMap<>();
+
+        private final List<CatalogObjectImportResult> results = new ArrayList<>();
+
+        ArchiveImport(BucketEntity bucketEntity, String projectName, String tags, String kind, String commitMessage,
+                String username, boolean skipIfUnchanged, ExecutorService parserPool) {
+            this.bucketEntity = bucketEntity;
+            this.projectName = projectName;
+            this.tags = tags;
+            this.kind = kind;
+            this.commitMessage = commitMessage;
+            this.username = username;
+            this.skipIfUnchanged = skipIfUnchanged;
+            this.parserPool = parserPool;
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+            catalogObjectRepository.findNamesAndKindsInBucket(bucketEntity.getId())
+                                   .forEach(nameAndKind -> objectKinds.put((String) nameAndKind[0],
+                                                                           (String) nameAndKind[1]));
+        }
+
+        void add(FileNameAndContent file) {
+            // an entry having the same name as a pending one becomes a revision of it, so it goes to the next batch
+            if (batch.size() >= importBatchSize || batch.containsKey(file.getName())) {
+                importBatch();
+            }
+            batch.put(file.getName(), file);
+        }
+
+        List<CatalogObjectImportResult> finish() {
+            importBatch();
+            return results;
+        }
+
+        private void importBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Future<PreparedEntry>> pendingEntries = batch.values()
+                                                              .stream()
+                                                              .map(file -> parserPool.submit(() -> prepare(file)))
+                                                              .collect(Collectors.toList());
+            List<PreparedEntry> entries = pendingEntries.stream().map(this::await).collect(Collectors.toList());
+            batch.clear();
+
+            List<PreparedEntry> preparedEntries = entries.stream()
+                                                         .filter(entry -> entry.getError() == null)
+                                                         .collect(Collectors.toList());
+            Map<String, CatalogObjectImportResult> storedObjects;
+            String storeError = null;
+            try {
+                storedObjects = transactionTemplate.execute(status -> store(preparedEntries));
+            } catch (RuntimeException e) {
+                log.warn("Could not store a batch of {} archive entries in bucket {}",
+                         preparedEntries.size(),
+                         bucketEntity.getBucketName(),
+                         e);
+                storedObjects = Collections.emptyMap();
+                storeError = e.getMessage();
+            }
+
+            for (PreparedEntry entry : entries) {
+                CatalogObjectImportResult result = storedObjects.get(entry.getName());
+                if (result == null) {
+                    results.add(CatalogObjectImportResult.failed(entry.getName(),
+                                                                 entry.getError() != null ? entry.getError()
+                                                                                          : storeError));
+                } else {
+                    if (result.getStatus() == CatalogObjectImportResult.Status.CREATED) {
+                        objectKinds.put(entry.getName(), kind);
+                    }
+                    results.add(result);
+                }
+            }
+        }
+
+        /**
+         * Parses the entry and builds its revision, without accessing the database.
+         */
+        private PreparedEntry prepare(FileNameAndContent file) {
+            String name = file.getName();
+            try {
+                String existingKind = objectKinds.get(name);
+                CatalogObjectEntity catalogObject;
+                if (existingKind == null) {
+                    String contentType = getFileMimeType(file);
+                    checkNewCatalogObject(name, kind, contentType, tags);
+                    catalogObject = newCatalogObjectEntity(bucketEntity,
+                                                           name,
+                                                           kind,
+                                                           contentType,
+                                                           FilenameUtils.getExtension(file.getFileNameWithExtension()));
+                } else {
+                    // placeholder of the stored object, replaced by the managed entity when the revision is stored
+                    catalogObject = CatalogObjectEntity.builder()
+                                                       .bucket(bucketEntity)
+                                                       .kind(existingKind)
+                                                       .id(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
+                                                                                                          name))
+                                                       .build();
+                }
+                CatalogObjectRevisionEntity revision = prepareCatalogObjectRevisionEntity(commitMessage,
+                                                                                          username,
+                                                                                          projectName,
+                                                                                          tags,
+                                                                                          file.getContent(),
+                                                                                          catalogObject,
+                                                                                          Collections.emptyList());
+                return new PreparedEntry(name, existingKind == null, revision, null);
+            } catch (RuntimeException e) {
+                log.warn("Archive entry {} cannot be imported in bucket {}", name, bucketEntity.getBucketName(), e);
+                return new PreparedEntry(name, false, null, e.getMessage());
+            }
+        }
+
+        private Map<String, CatalogObjectImportResult> store(List<PreparedEntry> entries) {
+            BucketEntity bucketReference = bucketRepository.getOne(bucketEntity.getId());
+            List<String> revisedObjectNames = entries.stream()
+                                                     .filter(entry -> !entry.isNewObject())
+                                                     .map(PreparedEntry::getName)
+                                                     .collect(Collectors.toList());
+            // loaded in the current transaction, since the new revisions are attached to them
+            Map<String, CatalogObjectEntity> revisedObjects = new HashMap<>();
+            Lists.partition(revisedObjectNames, PartitionedQueryHelper.MAX_IN_PARAMETERS)
+                 .forEach(names -> catalogObjectRepository.findByBucketIdAndNames(bucketEntity.getId(), names)
+                                                          .forEach(catalogObject -> revisedObjects.put(catalogObject.getId()
+                                                                                                                    .getName(),
+                                                                                                       catalogObject)));
+
+            Map<String, CatalogObjectImportResult> storedObjects = new HashMap<>();
+            List<PreparedEntry> changedEntries = entries;
+            if (skipIfUnchanged && !revisedObjectNames.isEmpty()) {
+                Map<String, CatalogObjectRevisionEntity> lastRevisions = new HashMap<>();
+                Lists.partition(revisedObjectNames, PartitionedQueryHelper.MAX_IN_PARAMETERS)
+                     .forEach(names -> catalogObjectRevisionRepository.findDefaultCatalogObjectsByNameInBucket(bucketEntity.getBucketName(),
+                                                                                                               names)
+                                                                      .forEach(revision -> lastRevisions.put(revision.getCatalogObject()
+                                                                                                                     .getId()
+                                                                                                                     .getName(),
+                                                                                                             revision)));
+                Map<Long, String> lastContentDigests = catalogObjectContentHelper.findContentDigests(lastRevisions.values());
+                changedEntries = new ArrayList<>();
+                for (PreparedEntry entry : entries) {
+                    CatalogObjectRevisionEntity lastRevision = lastRevisions.get(entry.getName());
+                    if (lastRevision != null &&
+                        catalogObjectContentHelper.isUnchanged(lastRevision,
+                                                               lastContentDigests.get(lastRevision.getId()),
+                                                               entry.getRevision())) {
+                        storedObjects.put(entry.getName(),
+                                          CatalogObjectImportResult.unchanged(new CatalogObjectMetadata(lastRevision)));
+                    } else {
+                        changedEntries.add(entry);
+                    }
+                }
+            }
+
+            catalogObjectContentHelper.storeContents(changedEntries.stream()
+                                                                   .map(PreparedEntry::getRevision)
+                                                                   .collect(Collectors.toList()));
+
+            // read before the revisions are saved, which moves the last revisions of the objects
+            Set<String> changedBucketNames = new HashSet<>();
+            for (PreparedEntry entry : changedEntries) {
+                changedBucketNames.addAll(findDependsOnBucketNames(entry.getRevision()));
+                CatalogObjectEntity catalogObject = revisedObjects.get(entry.getName());
+                if (!entry.isNewObject() && catalogObject != null) {
+                    changedBucketNames.addAll(findDependsOnBucketNames(bucketEntity.getBucketName(),
+                                                                       entry.getName(),
+                                                                       catalogObject.getLastCommitTime()));
+                }
+            }
+
+            for (PreparedEntry entry : changedEntries) {
+                CatalogObjectRevisionEntity revision = entry.getRevision();
+                if (entry.isNewObject()) {
+                    revision.getCatalogObject().setBucket(bucketReference);
+                    revision.getCatalogObject().addRevision(revision);
+                } else {
+                    CatalogObjectEntity catalogObject = revisedObjects.get(entry.getName());
+                    if (catalogObject == null) {
+                        throw new CatalogObjectNotFoundException(bucketEntity.getBucketName(), entry.getName());
+                    }
+                    revision.setCatalogObject(catalogObject);
+                    // the revisions collection is not loaded, only the pointer to the last revision is moved
+                    catalogObject.setLastCommitTime(revision.getCommitTime());
+                }
+                catalogObjectRevisionRepository.save(revision);
+                catalogObjectDependencyIndex.objectRevised(bucketEntity.getBucketName(), revision);
+                storedObjects.put(entry.getName(),
+                                  entry.isNewObject() ? CatalogObjectImportResult.created(new CatalogObjectMetadata(revision))
+                                                      : CatalogObjectImportResult.revised(new CatalogObjectMetadata(revision)));
+            }
+            long createdObjects = changedEntries.stream().filter(PreparedEntry::isNewObject).count();
+            if (createdObjects > 0) {
+                bucketRepository.updateObjectCount(bucketEntity.getId(), (int) createdObjects);
+            }
+            if (!changedEntries.isEmpty()) {
+                changedBucketNames.add(bucketEntity.getBucketName());
+                changedBucketNames.forEach(reportArtifactCache::bucketChanged);
+            }
+            // the inserts are sent in JDBC batches, then the persistence context is emptied for the next batch
+            entityManager.flush();
+            entityManager.clear();
+            return storedObjects;
+        }
+
+        private PreparedEntry await(Future<PreparedEntry> pendingEntry) {
+            try {
+                return pendingEntry.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while parsing the archive entries", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not parse the archive entries", e.getCause());
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    @Getter
+    private static class PreparedEntry {
+
+        private final String name;
+
+        private final boolean newObject;
+
+        private final CatalogObjectRevisionEntity revision;
+
+        private final String error;
+    }
+
 }
@@ -43,9 +43,17 @@ public class DatabaseBackwardCompatibilityManager {
     @Autowired
     NameKindContentTypeLowerCaseStartupAdder nameKindContentTypeLowerCaseStartupAdder;
 
+    @Autowired
+    RevisionContentStartupAdder revisionContentStartupAdder;
+
+    @Autowired
+    BucketObjectCountStartupAdder bucketObjectCountStartupAdder;
+
     @PostConstruct
     public void initMissingColumnsInDatabase() {
         projectNameStartupAdder.synchronizeProjectName();
         nameKindContentTypeLowerCaseStartupAdder.synchronizeNameKindAndContentType();
+        revisionContentStartupAdder.moveRawObjectsToContentTable();
+        bucketObjectCountStartupAdder.synchronizeObjectCount();
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * In-memory cache of the effective rights of the users on the buckets and the catalog objects. The rights on a bucket
+ * and its catalog objects are invalidated when a bucket grant or the bucket itself changes, the rights on a catalog
+ * object when one of its grants changes.
+ *
+ * @author ActiveEon Team
+ */
+@Log4j2
+@Component
+@ManagedResource(objectName = "org.ow2.proactive.catalog:name=GrantRightsCache", description = "Cache of the effective rights of the users")
+public class GrantRightsCache {
+
+    @Value("${pa.catalog.grant.rights.cache.enabled:true}")
+    protected boolean enabled;
+
+    @Value("${pa.catalog.grant.rights.cache.size:10000}")
+    protected long maximumSize;
+
+    @Value("${pa.catalog.grant.rights.cache.expiration.seconds:300}")
+    protected long expirationSeconds;
+
+    private TransactionAwareCache<RightsKey, String> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new TransactionAwareCache<>(maximumSize, expirationSeconds);
+    }
+
+    /**
+     * Get the rights of the user on the bucket from the cache, or compute and cache them.
+     *
+     * @param user authenticated user
+     * @param bucketName name of the bucket
+     * @param rightsSupplier computes the rights when they are not cached
+     * @return the user's rights on the bucket
+     */
+    public String getBucketRights(AuthenticatedUser user, String bucketName, Supplier<String> rightsSupplier) {
+        return get(new RightsKey(user, bucketName, null), rightsSupplier);
+    }
+
+    /**
+     * Get the rights of the user on the catalog object from the cache, or compute and cache them.
+     *
+     * @param user authenticated user
+     * @param bucketName name of the bucket of the catalog object
+     * @param catalogObjectName name of the catalog object
+     * @param rightsSupplier computes the rights when they are not cached
+     * @return the user's rights on the catalog object
+     */
+    public String getCatalogObjectRights(AuthenticatedUser user, String bucketName, String catalogObjectName,
+            Supplier<String> rightsSupplier) {
+        return get(new RightsKey(user, bucketName, catalogObjectName), rightsSupplier);
+    }
+
+    /**
+     * Invalidate the rights of all the users on the bucket and on its catalog objects.
+     *
+     * @param bucketName name of the bucket
+     */
+    public void invalidateBucket(String bucketName) {
+        cache.invalidate(key -> key.bucketName.equals(bucketName));
+    }
+
+    /**
+     * Invalidate the rights of all the users on the catalog object.
+     *
+     * @param bucketName name of the bucket of the catalog object
+     * @param catalogObjectName name of the catalog object
+     */
+    public void invalidateCatalogObject(String bucketName, String catalogObjectName) {
+        cache.invalidate(key -> key.bucketName.equals(bucketName) &&
+                                catalogObjectName.equals(key.catalogObjectName));
+    }
+
+    /**
+     * @return a value which changes each time rights are invalidated, i.e. each time grants may have changed
+     */
+    public long getGeneration() {
+        return cache.getGeneration();
+    }
+
+    @ManagedOperation(description = "Invalidates all the cached rights")
+    public void invalidateAll() {
+        cache.invalidate(key -> true);
+    }
+
+    @ManagedAttribute(description = "Whether the rights are cached")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute(description = "Number of cached rights")
+    public long getSize() {
+        return cache.getSize();
+    }
+
+    @ManagedAttribute(description = "Number of rights found in the cache")
+    public long getHitCount() {
+        return cache.getStats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of rights computed because they were not in the cache")
+    public long getMissCount() {
+        return cache.getStats().missCount();
+    }
+
+    @ManagedAttribute(description = "Ratio of the rights found in the cache")
+    public double getHitRate() {
+        return cache.getStats().hitRate();
+    }
+
+    @ManagedAttribute(description = "Number of cached rights evicted because of the cache size or the expiration delay")
+    public long getEvictionCount() {
+        return cache.getStats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Number of invalidations caused by the grant, bucket and catalog object changes")
+    public long getInvalidationCount() {
+        return cache.getInvalidationCount();
+    }
+
+    private String get(RightsKey key, Supplier<String> rightsSupplier) {
+        if (!enabled) {
+            return rightsSupplier.get();
+        }
+        return cache.get(key, rightsSupplier);
+    }
+
+    private static final class RightsKey {
+
+        private final String userName;
+
+        private final Set<String> groups;
+
+        private final String bucketName;
+
+        private final String catalogObjectName;
+
+        private final int hashCode;
+
+        private RightsKey(AuthenticatedUser user, String bucketName, String catalogObjectName) {
+            this.userName = user.getName();
+            this.groups = user.getGroups() == null ? new HashSet<>() : new HashSet<>(user.getGroups());
+            this.bucketName = bucketName;
+            this.catalogObjectName = catalogObjectName;
+            this.hashCode = Objects.hash(userName, groups, bucketName, catalogObjectName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RightsKey)) {
+                return false;
+            }
+            RightsKey other = (RightsKey) o;
+            return hashCode == other.hashCode && Objects.equals(userName, other.userName) &&
+                   Objects.equals(bucketName, other.bucketName) &&
+                   Objects.equals(catalogObjectName, other.catalogObjectName) && groups.equals(other.groups);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -30,23 +30,33 @@ import static org.ow2.proactive.catalog.util.AccessType.noAccess;
 import static org.ow2.proactive.catalog.util.AccessType.read;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.GrantMetadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
-import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.CatalogObjectNameFilter;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectNotFoundException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CachedBucket;
+import org.ow2.proactive.catalog.service.model.UserGrantSnapshot;
 import org.ow2.proactive.catalog.util.AccessTypeHelper;
 import org.ow2.proactive.catalog.util.GrantHelper;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.google.common.collect.Lists;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -56,6 +66,8 @@ import lombok.extern.log4j.Log4j2;
 @Transactional
 public class GrantRightsService {
 
+    private static final String USER_GRANT_SNAPSHOT_ATTRIBUTE = UserGrantSnapshot.class.getName();
+
     @Autowired
     private BucketGrantService bucketGrantService;
 
@@ -65,6 +77,46 @@ public class GrantRightsService {
     @Autowired
     private BucketRepository bucketRepository;
 
+    @Autowired
+    private CatalogObjectRepository catalogObjectRepository;
+
+    @Autowired
+    private BucketCache bucketCache;
+
+    @Autowired
+    private GrantRightsCache grantRightsCache;
+
+    @Autowired
+    private PartitionedQueryHelper partitionedQueryHelper;
+
+    /**
+     * Get all the bucket and catalog object grants assigned to the user and its groups. The grants are loaded once
+     * per request (the snapshot is held as a request attribute) and reloaded only when grants changed meanwhile.
+     *
+     * @param user authenticated user
+     * @return the snapshot of the user's grants
+     */
+    public UserGrantSnapshot getUserGrantSnapshot(AuthenticatedUser user) {
+        long generation = grantRightsCache.getGeneration();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            Object heldSnapshot = requestAttributes.getAttribute(USER_GRANT_SNAPSHOT_ATTRIBUTE,
+                                                                 RequestAttributes.SCOPE_REQUEST);
+            if (heldSnapshot instanceof UserGrantSnapshot &&
+                ((UserGrantSnapshot) heldSnapshot).isValidFor(user, generation)) {
+                return (UserGrantSnapshot) heldSnapshot;
+            }
+        }
+        UserGrantSnapshot snapshot = new UserGrantSnapshot(user,
+                                                           generation,
+                                                           bucketGrantService.getUserAllBucketsGrants(user),
+                                                           catalogObjectGrantService.getObjectsGrants(user));
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(USER_GRANT_SNAPSHOT_ATTRIBUTE, snapshot, RequestAttributes.SCOPE_REQUEST);
+        }
+        return snapshot;
+    }
+
     /**
      *
      * This method calculates the resulting grant for a user for an operation regarding a bucket, taking into consideration the priorities of the grants assigned
@@ -76,7 +128,11 @@ public class GrantRightsService {
      * @return the resulting access right for a bucket related operation
      */
     public String getBucketRights(AuthenticatedUser user, String bucketName) {
-        BucketEntity bucket = bucketRepository.findOneByBucketName(bucketName);
+        return grantRightsCache.getBucketRights(user, bucketName, () -> computeBucketRights(user, bucketName));
+    }
+
+    private String computeBucketRights(AuthenticatedUser user, String bucketName) {
+        CachedBucket bucket = bucketCache.getBucket(bucketName, bucketRepository::findOneByBucketName);
         if (bucket == null) {
             throw new BucketNotFoundException(bucketName);
         }
@@ -84,7 +140,7 @@ public class GrantRightsService {
             return admin.name();
         }
 
-        List<BucketGrantMetadata> userBucketGrants = bucketGrantService.getUserBucketGrants(user, bucketName);
+        List<BucketGrantMetadata> userBucketGrants = getUserGrantSnapshot(user).getBucketGrants(bucketName);
         addGrantsForBucketOwner(user, bucketName, bucket.getOwner(), userBucketGrants);
 
         return getBucketRights(userBucketGrants);
@@ -117,21 +173,108 @@ public class GrantRightsService {
      * @return the resulting access rights for a catalog object related operation
      */
     public String getCatalogObjectRights(AuthenticatedUser user, String bucketName, String catalogObjectName) {
+        return grantRightsCache.getCatalogObjectRights(user,
+                                                       bucketName,
+                                                       catalogObjectName,
+                                                       () -> computeCatalogObjectRights(user,
+                                                                                        bucketName,
+                                                                                        catalogObjectName));
+    }
+
+    private String computeCatalogObjectRights(AuthenticatedUser user, String bucketName, String catalogObjectName) {
         CatalogObjectRevisionEntity object = catalogObjectGrantService.getCatalogObject(bucketName, catalogObjectName);
         if (object == null) {
             throw new CatalogObjectNotFoundException(bucketName, catalogObjectName);
         }
 
-        List<CatalogObjectGrantMetadata> objGrants = catalogObjectGrantService.getObjectGrants(user,
-                                                                                               bucketName,
-                                                                                               catalogObjectName);
+        UserGrantSnapshot userGrants = getUserGrantSnapshot(user);
+        List<CatalogObjectGrantMetadata> objGrants = userGrants.getPositiveObjectGrants(bucketName, catalogObjectName);
         if (!objGrants.isEmpty()) {
-            Optional<String> userSpecBucketRights = bucketGrantService.getUserSpecificPostiveGrants(user, bucketName)
-                                                                      .map(BucketGrantMetadata::getAccessType);
+            Optional<String> userSpecBucketRights = userGrants.getUserSpecificPositiveBucketGrant(bucketName)
+                                                              .map(BucketGrantMetadata::getAccessType);
             return getCatalogObjectRightsFromHighestPriorityGrant(userSpecBucketRights, objGrants);
         }
         // In case when the user and user group object grants are unavailable, we check in the bucket grants for the accessType
-        return this.getBucketRights(user, bucketName);
+        return computeBucketRights(user, bucketName);
+    }
+
+    /**
+     * Calculate the user's rights on many catalog objects at once, following the same rules as
+     * {@link #getCatalogObjectRights(AuthenticatedUser, String, String)}.
+     * The user's grants and the existing objects are loaded once for all the objects, instead of once per object, and
+     * the rights are then resolved in memory.
+     *
+     * @param user authenticated user
+     * @param catalogObjectNamesByBucket names of the catalog objects, by name of the bucket where they are stored
+     * @return the rights of the user on each catalog object, by bucket name then by catalog object name. The buckets
+     * and catalog objects which do not exist are not part of the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, String>> getCatalogObjectsRights(AuthenticatedUser user,
+            Map<String, ? extends Collection<String>> catalogObjectNamesByBucket) {
+        Map<String, List<String>> existingNamesByBucket = filterExistingCatalogObjects(catalogObjectNamesByBucket);
+        UserGrantSnapshot userGrants = getUserGrantSnapshot(user);
+
+        Map<String, Map<String, String>> rights = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : existingNamesByBucket.entrySet()) {
+            String bucketName = entry.getKey();
+            List<String> bucketObjectNames = entry.getValue();
+            String bucketRights = getBucketRights(user, bucketName);
+            Optional<String> userSpecBucketRights = userGrants.getUserSpecificPositiveBucketGrant(bucketName)
+                                                              .map(BucketGrantMetadata::getAccessType);
+            Map<String, List<CatalogObjectGrantMetadata>> positiveGrantsByObject = GrantHelper.groupObjectGrantsByName(GrantHelper.filterPositiveGrants(userGrants.getObjectGrants(bucketName)));
+
+            Map<String, String> bucketObjectsRights = new LinkedHashMap<>();
+            for (String name : bucketObjectNames) {
+                bucketObjectsRights.put(name,
+                                        grantRightsCache.getCatalogObjectRights(user, bucketName, name, () -> {
+                                            List<CatalogObjectGrantMetadata> objGrants = positiveGrantsByObject.getOrDefault(name,
+                                                                                                                             Collections.emptyList());
+                                            return objGrants.isEmpty() ? bucketRights
+                                                                       : getCatalogObjectRightsFromHighestPriorityGrant(userSpecBucketRights,
+                                                                                                                        objGrants);
+                                        }));
+            }
+            rights.put(bucketName, bucketObjectsRights);
+        }
+        return rights;
+    }
+
+    /**
+     * @param catalogObjectNamesByBucket names of the catalog objects, by name of the bucket where they are stored
+     * @return the names of the given catalog objects which exist, by bucket name, in the given order. The buckets
+     * without any existing catalog object are not part of the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<String>>
+            filterExistingCatalogObjects(Map<String, ? extends Collection<String>> catalogObjectNamesByBucket) {
+        // both the bucket names and the object names are bound to IN clauses, so both are split into chunks
+        Set<Pair<String, String>> existingObjects = new HashSet<>();
+        for (List<String> bucketNames : Lists.partition(new ArrayList<>(catalogObjectNamesByBucket.keySet()),
+                                                        PartitionedQueryHelper.MAX_IN_PARAMETERS)) {
+            Set<String> catalogObjectNames = bucketNames.stream()
+                                                        .flatMap(bucketName -> catalogObjectNamesByBucket.get(bucketName)
+                                                                                                         .stream())
+                                                        .collect(Collectors.toSet());
+            existingObjects.addAll(partitionedQueryHelper.fetch(catalogObjectNames,
+                                                                names -> catalogObjectRepository.findBucketAndObjectNames(bucketNames,
+                                                                                                                          names)
+                                                                                                .stream()
+                                                                                                .map(row -> Pair.of((String) row[0],
+                                                                                                                    (String) row[1]))
+                                                                                                .collect(Collectors.toList())));
+        }
+
+        Map<String, List<String>> existingNamesByBucket = new LinkedHashMap<>();
+        catalogObjectNamesByBucket.forEach((bucketName, names) -> {
+            List<String> existingNames = names.stream()
+                                              .filter(name -> existingObjects.contains(Pair.of(bucketName, name)))
+                                              .collect(Collectors.toList());
+            if (!existingNames.isEmpty()) {
+                existingNamesByBucket.put(bucketName, existingNames);
+            }
+        });
+        return existingNamesByBucket;
     }
 
     /**
@@ -162,11 +305,13 @@ public class GrantRightsService {
      * @param user authenticated user
      * @return the list of buckets that are accessible for the user via his grants
      */
+    @Transactional(readOnly = true)
     public List<BucketMetadata> getBucketsByPrioritiedGrants(AuthenticatedUser user) {
-        List<BucketGrantMetadata> bucketsGrants = bucketGrantService.getUserAccessibleBucketsGrants(user);
-        List<CatalogObjectGrantMetadata> catalogObjectGrants = catalogObjectGrantService.getAccessibleObjectsGrants(user);
+        UserGrantSnapshot userGrants = getUserGrantSnapshot(user);
+        List<BucketGrantMetadata> bucketsGrants = userGrants.getPositiveBucketGrants();
+        List<CatalogObjectGrantMetadata> catalogObjectGrants = userGrants.getPositiveObjectGrants();
 
-        List<BucketGrantMetadata> noAccessGrantBuckets = bucketGrantService.getNoAccessBucketsGrants(user);
+        List<BucketGrantMetadata> noAccessGrantBuckets = userGrants.getNoAccessBucketGrants();
         for (BucketGrantMetadata nonAccessibleBucketGrant : noAccessGrantBuckets) {
             if (GrantHelper.isUserSpecificGrant(nonAccessibleBucketGrant) &&
                 nonAccessibleBucketGrant.getGrantee().equals(user.getName())) {
@@ -185,13 +330,22 @@ public class GrantRightsService {
         Set<String> bucketNames = GrantHelper.collectBucketNames(bucketsGrants);
         bucketNames.addAll(GrantHelper.collectBucketNames(catalogObjectGrants));
 
+        // The owners and the object counts of all the buckets are loaded by a single query
+        Map<String, BucketMetadata> bucketsByName = new HashMap<>();
+        for (Object[] bucketWithObjectCount : partitionedQueryHelper.fetch(bucketNames,
+                                                                           bucketRepository::findBucketsWithObjectCount)) {
+            BucketMetadata bucketMetadata = new BucketMetadata((String) bucketWithObjectCount[0],
+                                                               (String) bucketWithObjectCount[1],
+                                                               (Integer) bucketWithObjectCount[2]);
+            bucketsByName.put(bucketMetadata.getName(), bucketMetadata);
+        }
+
         List<BucketMetadata> bucketMetadataList = new LinkedList<>();
         for (String bucketName : bucketNames) {
-            BucketEntity bucket = bucketRepository.findOneByBucketName(bucketName);
-            if (bucket == null) {
+            BucketMetadata bucketMetadata = bucketsByName.get(bucketName);
+            if (bucketMetadata == null) {
                 throw new BucketNotFoundException(bucketName);
             }
-            BucketMetadata bucketMetadata = new BucketMetadata(bucket, bucket.getCatalogObjects().size());
             bucketMetadataList.add(bucketMetadata);
         }
         return bucketMetadataList;
@@ -229,17 +383,31 @@ public class GrantRightsService {
      */
     public void removeInaccessibleObjectsInBucket(List<CatalogObjectMetadata> metadataList,
             List<BucketGrantMetadata> bucketGrants, List<CatalogObjectGrantMetadata> objectsGrants) {
+        CatalogObjectNameFilter accessibleObjects = getAccessibleObjectsFilter(bucketGrants, objectsGrants);
+        metadataList.removeIf(object -> !accessibleObjects.accepts(object.getName()));
+    }
+
+    /**
+     * Get the restriction of the catalog objects of a bucket to the ones accessible by the user, to be applied in
+     * the listing query
+     *
+     * Note that the calculation of the accessibility is following the rule: userObject grant > userBucket grant > groupObject grant > groupBucket grant
+     *
+     * @param bucketGrants list of user's bucket grants
+     * @param objectsGrants list of user's catalog object grants for catalog objects in the bucket
+     * @return the names of the only accessible objects, or of the only inaccessible objects
+     */
+    public CatalogObjectNameFilter getAccessibleObjectsFilter(List<BucketGrantMetadata> bucketGrants,
+            List<CatalogObjectGrantMetadata> objectsGrants) {
         String bucketRights = getBucketRights(bucketGrants);
         Optional<BucketGrantMetadata> bucketUserSpecificGrant = GrantHelper.filterFirstUserSpecificGrant(bucketGrants);
 
         if (bucketRights.equals(noAccess.name())) {
-            // When the user has no access on the bucket, we count only objects that the user have a positive grant over them
-            Set<String> accessibleObjects = getAccessibleObjects(bucketUserSpecificGrant, objectsGrants);
-            metadataList.removeIf(object -> !accessibleObjects.contains(object.getName()));
+            // When the user has no access on the bucket, only the objects that the user have a positive grant over them are accessible
+            return CatalogObjectNameFilter.only(getAccessibleObjects(bucketUserSpecificGrant, objectsGrants));
         } else {
-            // When the user has access on the bucket, we count the objects that the user has a negative grant over it, then reduce it from the bucket objects count
-            Set<String> inaccessibleObjects = getInaccessibleObjects(bucketUserSpecificGrant, objectsGrants);
-            metadataList.removeIf(object -> inaccessibleObjects.contains(object.getName()));
+            // When the user has access on the bucket, all the objects are accessible except the ones that the user has a negative grant over them
+            return CatalogObjectNameFilter.except(getInaccessibleObjects(bucketUserSpecificGrant, objectsGrants));
         }
     }
 
@@ -271,10 +439,10 @@ public class GrantRightsService {
         if (isPublicBucket) {
             return true;
         } else {
-            List<BucketGrantMetadata> bucketGrants = bucketGrantService.getUserBucketGrants(user, bucket.getName());
+            UserGrantSnapshot userGrants = getUserGrantSnapshot(user);
+            List<BucketGrantMetadata> bucketGrants = userGrants.getBucketGrants(bucket.getName());
             addGrantsForBucketOwner(user, bucket.getName(), bucket.getOwner(), bucketGrants);
-            List<CatalogObjectGrantMetadata> catalogObjectsGrants = catalogObjectGrantService.getObjectsGrantsInABucket(user,
-                                                                                                                        bucket.getName());
+            List<CatalogObjectGrantMetadata> catalogObjectsGrants = userGrants.getObjectGrants(bucket.getName());
 
             String bucketRights = getBucketRights(bucketGrants);
             return isBucketAccessible(bucketRights, bucketGrants, catalogObjectsGrants);
@@ -319,9 +487,10 @@ public class GrantRightsService {
         // When the bucket has the no-access right not through user-specific grant (i.e., through its groups grants), we need to
         // calculate grant priority for getting the accessible catalog objects.
         Set<String> objectsWithPositiveGrants = GrantHelper.collectObjectNames(objectsPositiveGrants);
+        Map<String, List<CatalogObjectGrantMetadata>> grantsByObject = GrantHelper.groupObjectGrantsByName(objectsGrants);
         for (String objName : objectsWithPositiveGrants) {
             // Get the list of grants assigned to the user groups for this catalog object
-            List<CatalogObjectGrantMetadata> objectGrants = GrantHelper.filterObjectGrants(objectsGrants, objName);
+            List<CatalogObjectGrantMetadata> objectGrants = grantsByObject.get(objName);
             // Check and get the group grant that has the highest priority to decide whether the object accessible
             Optional<CatalogObjectGrantMetadata> highestPriorityGroupGrant = getHighestPriorityGroupGrants(objectGrants);
             if (highestPriorityGroupGrant.isPresent() && GrantHelper.isPositiveGrant(highestPriorityGroupGrant.get())) {
@@ -345,9 +514,10 @@ public class GrantRightsService {
         // calculate grant priority for getting the inaccessible catalog objects.
         // Therefore, for each object which has no-access grants, we calculate the highest priority grant for this object. If the highest priority grant is the type of no-access, it's added to the inaccessibleObjects.
         Set<String> objectsWithNoAccessGrants = GrantHelper.collectObjectNames(objectsNoAccessGrants);
+        Map<String, List<CatalogObjectGrantMetadata>> grantsByObject = GrantHelper.groupObjectGrantsByName(objectsGrants);
         for (String objName : objectsWithNoAccessGrants) {
             // Get the list of grants assigned to this catalog object
-            List<CatalogObjectGrantMetadata> objectGrants = GrantHelper.filterObjectGrants(objectsGrants, objName);
+            List<CatalogObjectGrantMetadata> objectGrants = grantsByObject.get(objName);
             // Check and get the group grant that has the highest priority to decide whether the object accessible
             Optional<CatalogObjectGrantMetadata> highestPriorityGroupGrant = getHighestPriorityGroupGrants(objectGrants);
             if (highestPriorityGroupGrant.isPresent() && GrantHelper.isNoAccessGrant(highestPriorityGroupGrant.get())) {
@@ -32,12 +32,14 @@ import java.util.Map;
 
 import javax.annotation.PostConstruct;
 
+import org.ow2.proactive.catalog.service.exception.WrongParametersException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import com.google.common.collect.ImmutableMap;
 
+import graphql.ExceptionWhileDataFetching;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
 import graphql.schema.DataFetcher;
@@ -96,6 +98,16 @@ public class GraphqlService {
 
         Map<String, Object> result = new LinkedHashMap<>();
 
+        // the wrong arguments are reported as a bad request, like for the REST listings
+        executionResult.getErrors()
+                       .stream()
+                       .filter(error -> error instanceof ExceptionWhileDataFetching &&
+                                        ((ExceptionWhileDataFetching) error).getException() instanceof WrongParametersException)
+                       .findFirst()
+                       .ifPresent(error -> {
+                           throw (WrongParametersException) ((ExceptionWhileDataFetching) error).getException();
+                       });
+
         if (!executionResult.getErrors().isEmpty()) {
             result.put("errors", executionResult.getErrors());
             log.error("Errors: {}", executionResult.getErrors());
@@ -0,0 +1,355 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ow2.proactive.catalog.service.model.ReportArtifactKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Cache of the generated pdf reports, stored as files on the local disk and keyed by the report type, buckets, filters
+ * and the change versions of these buckets. The version of a bucket is incremented, and its reports deleted, once a
+ * revision or a deletion of one of its objects is committed.
+ *
+ * @author ActiveEon Team
+ */
+@Component
+@Log4j2
+@ManagedResource(objectName = "org.ow2.proactive.catalog:name=ReportArtifactCache", description = "Cache of the generated pdf reports")
+public class ReportArtifactCache {
+
+    private static final String ARTIFACT_PREFIX = "report-";
+
+    private static final String ARTIFACT_SUFFIX = ".pdf";
+
+    @Value("${pa.catalog.report.cache.enabled:true}")
+    protected boolean enabled;
+
+    @Value("${pa.catalog.report.cache.dir:}")
+    protected String directoryPath;
+
+    @Value("${pa.catalog.report.cache.max.bytes:536870912}")
+    protected long maximumBytes;
+
+    @Value("${pa.catalog.report.cache.expiration.seconds:3600}")
+    protected long expirationSeconds;
+
+    /**
+     * Incremented when the whole catalog changes
+     */
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    private final ConcurrentHashMap<String, Long> bucketVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private Path directory;
+
+    private boolean temporaryDirectory;
+
+    private Cache<ReportArtifactKey, StoredArtifact> cache;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (StringUtils.isEmpty(directoryPath)) {
+            directory = Files.createTempDirectory("catalog-reports");
+            temporaryDirectory = true;
+        } else {
+            directory = Files.createDirectories(Paths.get(directoryPath));
+            // the reports stored by a previous run are not indexed anymore
+            deleteArtifacts();
+        }
+        cache = Caffeine.newBuilder()
+                        .maximumWeight(Math.max(1, maximumBytes / 1024))
+                        .weigher((ReportArtifactKey key,
+                                StoredArtifact artifact) -> weightInKilobytes(artifact.getFile()))
+                        .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+                        .removalListener((ReportArtifactKey key, StoredArtifact artifact,
+                                RemovalCause cause) -> deleteArtifact(artifact.getFile()))
+                        .executor(Runnable::run)
+                        .recordStats()
+                        .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        if (temporaryDirectory) {
+            deleteArtifacts();
+            deleteArtifact(directory);
+        }
+    }
+
+    /**
+     * Create the key of a report, holding the current change versions of its buckets. The key must be created before
+     * the catalog objects of the report are read.
+     *
+     * @param type type of the report
+     * @param bucketNames names of the buckets covered by the report
+     * @param kind kind filter of the report
+     * @param contentType Content-Type filter of the report
+     * @param objectNames names of the selected objects, empty when the report covers all the objects of the buckets
+     * @return the key of the report
+     */
+    public ReportArtifactKey newKey(String type, Collection<String> bucketNames, Optional<String> kind,
+            Optional<String> contentType, Collection<String> objectNames) {
+        List<String> sortedBucketNames = bucketNames.stream().distinct().sorted().collect(Collectors.toList());
+        return new ReportArtifactKey(type,
+                                     sortedBucketNames,
+                                     kind.orElse(null),
+                                     contentType.orElse(null),
+                                     objectNames.stream().distinct().sorted().collect(Collectors.toList()),
+                                     catalogVersion.get(),
+                                     versionsOf(sortedBucketNames));
+    }
+
+    /**
+     * Write the stored report into the output stream, or generate it, store it and then write it.
+     *
+     * @param key key of the report, created before the generation
+     * @param outputStream stream receiving the report, not closed
+     * @param generator writes the report into the given stream
+     * @throws IOException if the report cannot be stored or written into the output stream
+     */
+    public void write(ReportArtifactKey key, OutputStream outputStream, ArtifactGenerator generator)
+            throws IOException {
+        if (!enabled || cache == null) {
+            generator.generate(outputStream);
+            return;
+        }
+        StoredArtifact storedArtifact = cache.getIfPresent(key);
+        if (storedArtifact != null) {
+            try {
+                Files.copy(storedArtifact.getFile(), outputStream);
+                return;
+            } catch (NoSuchFileException e) {
+                // evicted since it was found
+                log.debug("Stored report {} was deleted, it is generated again", storedArtifact.getFile());
+            }
+        }
+
+        Map<String, Long> versionsBeforeGeneration = new HashMap<>(bucketVersions);
+        Path generatedFile = Files.createTempFile(directory, ARTIFACT_PREFIX, ARTIFACT_SUFFIX);
+        Set<String> involvedBucketNames = new HashSet<>(key.getBucketNames());
+        try {
+            try (OutputStream artifactStream = new BufferedOutputStream(Files.newOutputStream(generatedFile))) {
+                involvedBucketNames.addAll(generator.generate(artifactStream));
+            }
+            Files.copy(generatedFile, outputStream);
+        } catch (IOException | RuntimeException e) {
+            deleteArtifact(generatedFile);
+            throw e;
+        }
+
+        StoredArtifact generatedArtifact = new StoredArtifact(generatedFile, involvedBucketNames);
+        if (isUnchanged(key, versionsBeforeGeneration, involvedBucketNames)) {
+            cache.put(key, generatedArtifact);
+            // a change committed while the report was put is not removed by its invalidation
+            if (!isUnchanged(key, versionsBeforeGeneration, involvedBucketNames)) {
+                cache.asMap().remove(key, generatedArtifact);
+            }
+        } else {
+            // the report may miss changes committed during its generation
+            deleteArtifact(generatedFile);
+        }
+    }
+
+    /**
+     * Invalidate the reports involving the bucket, to be called when an object of the bucket is revised or deleted.
+     *
+     * @param bucketName name of the bucket
+     */
+    public void bucketChanged(String bucketName) {
+        afterCommit(() -> {
+            bucketVersions.merge(bucketName, 1L, Long::sum);
+            invalidate(artifact -> artifact.getBucketNames().contains(bucketName));
+        });
+    }
+
+    @ManagedOperation(description = "Invalidates all the stored reports")
+    public void invalidateAll() {
+        afterCommit(() -> {
+            catalogVersion.incrementAndGet();
+            invalidate(artifact -> true);
+        });
+    }
+
+    @ManagedAttribute(description = "Whether the generated reports are stored")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute(description = "Number of stored reports")
+    public long getSize() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    @ManagedAttribute(description = "Number of reports sent from the stored files")
+    public long getHitCount() {
+        return cache == null ? 0 : cache.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of reports generated because they were not stored")
+    public long getMissCount() {
+        return cache == null ? 0 : cache.stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Ratio of the reports sent from the stored files")
+    public double getHitRate() {
+        return cache == null ? 0 : cache.stats().hitRate();
+    }
+
+    @ManagedAttribute(description = "Number of stored reports evicted because of the size limit or the expiration delay")
+    public long getEvictionCount() {
+        return cache == null ? 0 : cache.stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Number of invalidations caused by the catalog changes")
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    private List<Long> versionsOf(List<String> bucketNames) {
+        return bucketNames.stream().map(name -> bucketVersions.getOrDefault(name, 0L)).collect(Collectors.toList());
+    }
+
+    private boolean isUnchanged(ReportArtifactKey key, Map<String, Long> versionsBeforeGeneration,
+            Set<String> involvedBucketNames) {
+        return key.getCatalogVersion() == catalogVersion.get() &&
+               involvedBucketNames.stream()
+                                  .allMatch(name -> bucketVersions.getOrDefault(name, 0L)
+                                                                  .equals(versionsBeforeGeneration.getOrDefault(name,
+                                                                                                                0L)));
+    }
+
+    private void invalidate(Predicate<StoredArtifact> predicate) {
+        invalidations.incrementAndGet();
+        if (cache != null) {
+            cache.asMap().values().removeIf(predicate);
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private int weightInKilobytes(Path artifact) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(1, Files.size(artifact) / 1024));
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    private void deleteArtifacts() {
+        try (DirectoryStream<Path> artifacts = Files.newDirectoryStream(directory,
+                                                                        ARTIFACT_PREFIX + "*" + ARTIFACT_SUFFIX)) {
+            artifacts.forEach(this::deleteArtifact);
+        } catch (IOException e) {
+            log.warn("Could not list the stored reports in {}", directory, e);
+        }
+    }
+
+    private void deleteArtifact(Path artifact) {
+        try {
+            Files.deleteIfExists(artifact);
+        } catch (IOException e) {
+            // the file may still be sent to a client on some file systems
+            log.debug("Could not delete the stored report {}", artifact, e);
+            artifact.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * Writes a report and returns the names of the buckets of the objects shown in it, the buckets referenced by
+     * their dependencies included
+     */
+    @FunctionalInterface
+    public interface ArtifactGenerator {
+
+        Collection<String> generate(OutputStream outputStream);
+    }
+
+    @Data
+    private static class StoredArtifact {
+
+        private final Path file;
+
+        private final Set<String> bucketNames;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.hibernate.type.LongType;
+import org.hibernate.type.MaterializedBlobType;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Moves the raw content of the revisions created before it was stored in its own table. The revisions are moved by
+ * batches, each batch in its own transaction, so that the move can be resumed if the server is stopped meanwhile.
+ * The legacy RAW_OBJECT column is not mapped by any entity: it only exists in the databases created by a previous
+ * version, and it is dropped once all the revisions are moved.
+ */
+@Log4j2
+@Component
+public class RevisionContentStartupAdder {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String REVISION_TABLE = "CATALOG_OBJECT_REVISION";
+
+    private static final String LEGACY_RAW_OBJECT_COLUMN = "RAW_OBJECT";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogObjectContentHelper catalogObjectContentHelper;
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void moveRawObjectsToContentTable() {
+        log.info("Checking catalog object revision contents ... ");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        if (!transactionTemplate.execute(status -> hasLegacyRawObjectColumn())) {
+            return;
+        }
+        int movedRevisions = 0;
+        int batchSize;
+        do {
+            batchSize = transactionTemplate.execute(status -> moveBatch());
+            movedRevisions += batchSize;
+        } while (batchSize == BATCH_SIZE);
+        if (movedRevisions > 0) {
+            log.info("Content of " + movedRevisions + " catalog object revisions moved successfully.");
+        }
+        transactionTemplate.execute(status -> entityManager.createNativeQuery("ALTER TABLE " + REVISION_TABLE +
+                                                                              " DROP COLUMN " +
+                                                                              LEGACY_RAW_OBJECT_COLUMN)
+                                                           .executeUpdate());
+        log.info("Legacy column " + LEGACY_RAW_OBJECT_COLUMN + " of " + REVISION_TABLE + " dropped.");
+    }
+
+    private boolean hasLegacyRawObjectColumn() {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // unquoted identifiers are stored in upper case by most databases, in lower case by PostgreSQL
+            return hasColumn(metaData, REVISION_TABLE, LEGACY_RAW_OBJECT_COLUMN) ||
+                   hasColumn(metaData, REVISION_TABLE.toLowerCase(), LEGACY_RAW_OBJECT_COLUMN.toLowerCase());
+        });
+    }
+
+    private boolean hasColumn(DatabaseMetaData metaData, String table, String column) throws SQLException {
+        // the underscores of the names are wildcards in the metadata patterns
+        String escape = metaData.getSearchStringEscape();
+        try (ResultSet columns = metaData.getColumns(null,
+                                                     null,
+                                                     table.replace("_", escape + "_"),
+                                                     column.replace("_", escape + "_"))) {
+            return columns.next();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int moveBatch() {
+        List<Object[]> legacyRawObjects = entityManager.createNativeQuery("SELECT ID, " + LEGACY_RAW_OBJECT_COLUMN +
+                                                                          " FROM " + REVISION_TABLE + " WHERE " +
+                                                                          LEGACY_RAW_OBJECT_COLUMN + " IS NOT NULL")
+                                                       .unwrap(SQLQuery.class)
+                                                       .addScalar("ID", LongType.INSTANCE)
+                                                       .addScalar(LEGACY_RAW_OBJECT_COLUMN,
+                                                                  MaterializedBlobType.INSTANCE)
+                                                       .setMaxResults(BATCH_SIZE)
+                                                       .list();
+        if (legacyRawObjects.isEmpty()) {
+            return 0;
+        }
+        List<CatalogObjectRevisionEntity> revisions = new ArrayList<>();
+        for (Object[] legacyRawObject : legacyRawObjects) {
+            CatalogObjectRevisionEntity revision = entityManager.find(CatalogObjectRevisionEntity.class,
+                                                                      legacyRawObject[0]);
+            if (revision.getContent() == null) {
+                revision.setRawObject((byte[]) legacyRawObject[1]);
+                revisions.add(revision);
+            }
+        }
+        // the revisions having the same content share it
+        catalogObjectContentHelper.storeContents(revisions);
+        entityManager.createNativeQuery("UPDATE " + REVISION_TABLE + " SET " + LEGACY_RAW_OBJECT_COLUMN +
+                                        " = NULL WHERE ID IN (:ids)")
+                     .setParameter("ids",
+                                   legacyRawObjects.stream()
+                                                   .map(legacyRawObject -> legacyRawObject[0])
+                                                   .collect(Collectors.toList()))
+                     .executeUpdate();
+        entityManager.flush();
+        entityManager.clear();
+        return legacyRawObjects.size();
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Deletes the old revisions of the catalog objects, according to a retention policy: the last N revisions of each
+ * object and/or its revisions younger than a given number of days are kept, and the last revision is always kept.
+ * A policy can be defined for all the buckets and overridden for a given bucket, e.g.
+ * {@code pa.catalog.revision.retention.bucket.<bucket name>.keep.last}.
+ * <p>
+ * The old revisions are deleted with bulk statements, together with their metadata, by batches of bounded size,
+ * each batch in its own transaction. The number of deleted rows is exposed over JMX.
+ * <p>
+ * The revision contents left unreferenced by rolled back transactions are deleted by another job, once they are
+ * older than a delay, whether the retention is enabled or not.
+ *
+ * @author ActiveEon Team
+ */
+@Log4j2
+@Service
+@ManagedResource(objectName = "org.ow2.proactive.catalog:name=RevisionRetention", description = "Retention of the catalog object revisions")
+public class RevisionRetentionService {
+
+    private static final String BUCKET_PROPERTY_PREFIX = "pa.catalog.revision.retention.bucket.";
+
+    @Autowired
+    private BucketRepository bucketRepository;
+
+    @Autowired
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Autowired
+    private CatalogObjectContentHelper catalogObjectContentHelper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${pa.catalog.revision.retention.enabled:false}")
+    protected boolean enabled;
+
+    @Value("${pa.catalog.revision.retention.keep.last:0}")
+    protected int keepLast;
+
+    @Value("${pa.catalog.revision.retention.keep.days:0}")
+    protected int keepDays;
+
+    @Value("${pa.catalog.revision.retention.batch.size:500}")
+    protected int batchSize;
+
+    @Value("${pa.catalog.content.orphan.cleanup.enabled:true}")
+    protected boolean orphanContentCleanupEnabled;
+
+    @Value("${pa.catalog.content.orphan.delay.minutes:60}")
+    protected int orphanContentDelayMinutes;
+
+    private final AtomicLong runs = new AtomicLong();
+
+    private final AtomicLong deletedRevisions = new AtomicLong();
+
+    private final AtomicLong deletedMetadata = new AtomicLong();
+
+    private final AtomicLong deletedContents = new AtomicLong();
+
+    private volatile long lastRunDuration;
+
+    @Scheduled(cron = "${pa.catalog.revision.retention.cron:0 0 3 * * *}")
+    public void scheduledRetention() {
+        if (enabled) {
+            applyRetention();
+        }
+    }
+
+    @Scheduled(cron = "${pa.catalog.content.orphan.cleanup.cron:0 30 3 * * *}")
+    public void scheduledOrphanContentCleanup() {
+        if (orphanContentCleanupEnabled) {
+            deleteOrphanContents();
+        }
+    }
+
+    /**
+     * Deletes the revision contents which are not referenced by any revision and were stored before the delay, by
+     * batches, each batch in its own transaction.
+     *
+     * @return the number of deleted contents
+     */
+    @ManagedOperation(description = "Deletes the revision contents left unreferenced by rolled back transactions")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public synchronized long deleteOrphanContents() {
+        long creationTimeLimit = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(orphanContentDelayMinutes);
+        int contentsPerBatch = Math.max(1, batchSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long deletedContentsOfRun = 0;
+        int deletedContentsOfBatch;
+        do {
+            deletedContentsOfBatch = transactionTemplate.execute(status -> catalogObjectContentHelper.deleteOrphanContents(creationTimeLimit,
+                                                                                                                           contentsPerBatch));
+            deletedContentsOfRun += deletedContentsOfBatch;
+        } while (deletedContentsOfBatch == contentsPerBatch);
+        deletedContents.addAndGet(deletedContentsOfRun);
+        log.info("Orphan content cleanup deleted " + deletedContentsOfRun + " revision contents");
+        return deletedContentsOfRun;
+    }
+
+    /**
+     * Applies the retention policy to all the catalog objects.
+     *
+     * @return the number of deleted revisions
+     */
+    @ManagedOperation(description = "Deletes the old revisions according to the retention policy")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public synchronized long applyRetention() {
+        long start = System.currentTimeMillis();
+        long deletedRevisionsOfRun = 0;
+        for (Object[] bucketIdAndName : bucketRepository.findIdsAndNames()) {
+            String bucketName = (String) bucketIdAndName[1];
+            int bucketKeepLast = bucketProperty(bucketName, "keep.last", keepLast);
+            int bucketKeepDays = bucketProperty(bucketName, "keep.days", keepDays);
+            if (bucketKeepLast <= 0 && bucketKeepDays <= 0) {
+                continue;
+            }
+            long commitTimeLimit = bucketKeepDays <= 0 ? Long.MAX_VALUE
+                                                       : start - TimeUnit.DAYS.toMillis(bucketKeepDays);
+            deletedRevisionsOfRun += applyRetention((Long) bucketIdAndName[0], bucketKeepLast, commitTimeLimit);
+        }
+        runs.incrementAndGet();
+        lastRunDuration = System.currentTimeMillis() - start;
+        log.info("Revision retention deleted " + deletedRevisionsOfRun + " revisions in " + lastRunDuration + " ms");
+        return deletedRevisionsOfRun;
+    }
+
+    /**
+     * Deletes the revisions of the objects of a bucket which are neither among the last revisions of their object nor
+     * committed after the limit. The revisions of the bucket are read once, by object and from the most recent one,
+     * each batch resuming after the last revision read by the previous one.
+     */
+    @VisibleForTesting
+    long applyRetention(Long bucketId, int bucketKeepLast, long commitTimeLimit) {
+        // the last revision is always kept
+        long keptRevisions = Math.max(bucketKeepLast, 1);
+
+        // the ids of a batch are bound to IN clauses
+        int revisionsPerBatch = Math.min(batchSize, PartitionedQueryHelper.MAX_IN_PARAMETERS);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        RetentionCursor cursor = new RetentionCursor();
+        int readRevisionsOfBatch;
+        do {
+            readRevisionsOfBatch = transactionTemplate.execute(status -> deleteBatch(bucketId,
+                                                                                     commitTimeLimit,
+                                                                                     keptRevisions,
+                                                                                     revisionsPerBatch,
+                                                                                     cursor));
+        } while (readRevisionsOfBatch == revisionsPerBatch);
+        return cursor.deletedRevisions;
+    }
+
+    private int deleteBatch(Long bucketId, long commitTimeLimit, long keptRevisions, int revisionsPerBatch,
+            RetentionCursor cursor) {
+        // only the revisions already read are deleted, so the next batch is not shifted by the deletions
+        PageRequest pageRequest = new PageRequest(0, revisionsPerBatch);
+        List<Object[]> revisions;
+        if (cursor.name == null) {
+            revisions = catalogObjectRevisionRepository.findRevisionKeysInBucket(bucketId, pageRequest);
+        } else {
+            revisions = catalogObjectRevisionRepository.findRevisionKeysInBucketAfter(bucketId,
+                                                                                      cursor.name,
+                                                                                      cursor.commitTime,
+                                                                                      pageRequest);
+        }
+        List<Long> revisionIds = new ArrayList<>();
+        for (Object[] revision : revisions) {
+            String name = (String) revision[1];
+            long commitTime = (Long) revision[2];
+            cursor.newerRevisions = name.equals(cursor.name) ? cursor.newerRevisions + 1 : 0;
+            cursor.name = name;
+            cursor.commitTime = commitTime;
+            if (cursor.newerRevisions >= keptRevisions && commitTime < commitTimeLimit) {
+                revisionIds.add((Long) revision[0]);
+            }
+        }
+        if (!revisionIds.isEmpty()) {
+            List<Long> releasedContentIds = catalogObjectContentHelper.releaseContentsOfRevisions(revisionIds);
+            deletedMetadata.addAndGet(catalogObjectRevisionRepository.deleteMetadataOfRevisions(revisionIds));
+            int deletedRevisionsOfBatch = catalogObjectRevisionRepository.deleteByIds(revisionIds);
+            deletedRevisions.addAndGet(deletedRevisionsOfBatch);
+            cursor.deletedRevisions += deletedRevisionsOfBatch;
+            deletedContents.addAndGet(catalogObjectContentHelper.deleteUnreferencedContents(releasedContentIds));
+        }
+        return revisions.size();
+    }
+
+    private int bucketProperty(String bucketName, String property, int defaultValue) {
+        return environment.getProperty(BUCKET_PROPERTY_PREFIX + bucketName + "." + property,
+                                       Integer.class,
+                                       defaultValue);
+    }
+
+    @ManagedAttribute(description = "Number of retention runs")
+    public long getRuns() {
+        return runs.get();
+    }
+
+    @ManagedAttribute(description = "Number of revisions deleted since the server start")
+    public long getDeletedRevisions() {
+        return deletedRevisions.get();
+    }
+
+    @ManagedAttribute(description = "Number of revision metadata deleted since the server start")
+    public long getDeletedMetadata() {
+        return deletedMetadata.get();
+    }
+
+    @ManagedAttribute(description = "Number of revision contents deleted since the server start")
+    public long getDeletedContents() {
+        return deletedContents.get();
+    }
+
+    @ManagedAttribute(description = "Duration of the last retention run, in milliseconds")
+    public long getLastRunDuration() {
+        return lastRunDuration;
+    }
+
+    /**
+     * Position of a retention run in the revisions of a bucket: the last revision read, the number of revisions of
+     * the same object read before it and the number of revisions deleted so far.
+     */
+    private static final class RetentionCursor {
+
+        private String name;
+
+        private long commitTime;
+
+        private long newerRevisions;
+
+        private long deletedRevisions;
+    }
+}
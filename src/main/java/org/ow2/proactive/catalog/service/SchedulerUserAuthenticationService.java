@@ -26,76 +26,222 @@
 package org.ow2.proactive.catalog.service;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang3.StringUtils;
 import org.ow2.proactive.authentication.UserData;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
+import org.ow2.proactive_grid_cloud_portal.scheduler.client.SchedulerRestClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 
 /**
+ * Validates the session ids against the scheduler.
+ * <p>
+ * The user data of the valid sessions is cached, and the concurrent validations of the same session id are
+ * coalesced into a single scheduler call. The session ids which the scheduler answered are not connected are cached
+ * for a short time, so that repeated requests with an expired session do not all reach the scheduler. A failure to
+ * reach the scheduler is not cached, the next validation calls it again. Within a request, a session id is validated
+ * once.
+ * The scheduler REST clients are pooled and reused by the validations.
+ *
  * @author ActiveEon Team
  * @since 27/07/2017
  */
 @Component
+@ManagedResource(objectName = "org.ow2.proactive.catalog:name=SessionValidation", description = "Validation of the session ids against the scheduler")
 public class SchedulerUserAuthenticationService {
 
+    private static final String AUTHENTICATED_USER_ATTRIBUTE_PREFIX = AuthenticatedUser.class.getName() + ".";
+
     private final SchedulerRestClientCreator schedulerRestClientCreator;
 
     @Value("${pa.catalog.sessionId.timeout.minutes}")
-    private int cacheTimeoutValue;
+    protected int cacheTimeoutValue;
 
-    // Cache used for future planning calculations
-    private Cache<String, UserData> userDataCache = null;
+    @Value("${pa.catalog.sessionId.invalid.timeout.seconds:5}")
+    protected int invalidSessionTimeoutSeconds;
 
-    private Cache<String, UserData> getCache() {
-        synchronized (SchedulerUserAuthenticationService.class) {
-            if (userDataCache == null) {
-                userDataCache = CacheBuilder.newBuilder().expireAfterWrite(cacheTimeoutValue, TimeUnit.MINUTES).build();
-            }
-            return userDataCache;
-        }
-    }
+    @Value("${pa.catalog.sessionId.cache.size:10000}")
+    protected long cacheSize;
+
+    @Value("${pa.catalog.scheduler.client.pool.size:8}")
+    protected int clientPoolSize;
+
+    private Cache<String, UserData> userDataCache;
+
+    /**
+     * The reason why each session id recently answered not connected by the scheduler is invalid
+     */
+    private Cache<String, String> invalidSessionCache;
+
+    private final Queue<SchedulerRestClient> idleClients = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong schedulerValidations = new AtomicLong();
+
+    private final AtomicLong rejectedFromCache = new AtomicLong();
+
+    private final AtomicLong validationTimeNanos = new AtomicLong();
+
+    private volatile long lastValidationTimeMillis;
 
     @Autowired
     public SchedulerUserAuthenticationService(SchedulerRestClientCreator schedulerRestClientCreator) {
         this.schedulerRestClientCreator = schedulerRestClientCreator;
     }
 
+    @PostConstruct
+    public void init() {
+        userDataCache = Caffeine.newBuilder()
+                                .maximumSize(cacheSize)
+                                .expireAfterWrite(cacheTimeoutValue, TimeUnit.MINUTES)
+                                .recordStats()
+                                .build();
+        invalidSessionCache = Caffeine.newBuilder()
+                                      .maximumSize(cacheSize)
+                                      .expireAfterWrite(invalidSessionTimeoutSeconds, TimeUnit.SECONDS)
+                                      .build();
+    }
+
     public AuthenticatedUser authenticateBySessionId(String sessionId) throws NotAuthenticatedException {
         if (sessionId == null || sessionId.isEmpty()) {
             throw new NotAuthenticatedException("Could not validate empty sessionId");
         }
 
-        UserData userData = getCache().getIfPresent(sessionId);
-
-        if (userData == null) {
-            try {
-                userData = this.schedulerRestClientCreator.getNewClientInitializedWithSchedulerRestUrl()
-                                                          .getScheduler()
-                                                          .getUserDataFromSessionId(sessionId);
-            } catch (Exception exception) {
-                throw new NotAuthenticatedException("Could not validate sessionId, validation returned: " +
-                                                    exception.getMessage(), exception);
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        String requestAttribute = AUTHENTICATED_USER_ATTRIBUTE_PREFIX + sessionId;
+        if (requestAttributes != null) {
+            Object authenticatedUser = requestAttributes.getAttribute(requestAttribute,
+                                                                      RequestAttributes.SCOPE_REQUEST);
+            if (authenticatedUser instanceof AuthenticatedUser) {
+                return (AuthenticatedUser) authenticatedUser;
             }
+        }
 
-            if (userData == null || StringUtils.isEmpty(userData.getUserName())) {
-                throw new NotAuthenticatedException("SessionId is invalid");
-            }
-            getCache().put(sessionId, userData);
+        throwIfRecentlyRejected(sessionId);
+        // concurrent validations of the same session id wait for a single scheduler call
+        UserData userData = userDataCache.get(sessionId, this::getUserDataFromScheduler);
+
+        AuthenticatedUser authenticatedUser = AuthenticatedUser.builder()
+                                                               .name(userData.getUserName())
+                                                               .groups(new ArrayList<String>(userData.getGroups()))
+                                                               .build();
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(requestAttribute, authenticatedUser, RequestAttributes.SCOPE_REQUEST);
         }
+        return authenticatedUser;
+    }
 
-        return AuthenticatedUser.builder()
-                                .name(userData.getUserName())
-                                .groups(new ArrayList<String>(userData.getGroups()))
-                                .build();
+    @ManagedOperation(description = "Forgets all the validated and rejected session ids")
+    public void invalidateAll() {
+        userDataCache.invalidateAll();
+        invalidSessionCache.invalidateAll();
+    }
+
+    @ManagedAttribute(description = "Number of session ids validated from the cache")
+    public long getHitCount() {
+        return userDataCache.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of session ids not found in the cache")
+    public long getMissCount() {
+        return userDataCache.stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Ratio of the session ids validated from the cache")
+    public double getHitRate() {
+        return userDataCache.stats().hitRate();
+    }
+
+    @ManagedAttribute(description = "Number of session ids rejected because they were recently found invalid")
+    public long getRejectedFromCacheCount() {
+        return rejectedFromCache.get();
+    }
+
+    @ManagedAttribute(description = "Number of session ids validated by the scheduler")
+    public long getSchedulerValidationCount() {
+        return schedulerValidations.get();
+    }
+
+    @ManagedAttribute(description = "Average duration in milliseconds of a session id validation by the scheduler")
+    public double getAverageSchedulerValidationTime() {
+        long validations = schedulerValidations.get();
+        return validations == 0 ? 0 : validationTimeNanos.get() / 1e6 / validations;
+    }
+
+    @ManagedAttribute(description = "Duration in milliseconds of the last session id validation by the scheduler")
+    public long getLastSchedulerValidationTime() {
+        return lastValidationTimeMillis;
+    }
+
+    @ManagedAttribute(description = "Number of idle scheduler REST clients")
+    public int getIdleClientCount() {
+        return idleClients.size();
+    }
+
+    private void throwIfRecentlyRejected(String sessionId) {
+        String invalidityReason = invalidSessionCache.getIfPresent(sessionId);
+        if (invalidityReason != null) {
+            rejectedFromCache.incrementAndGet();
+            throw new NotAuthenticatedException(invalidityReason);
+        }
+    }
+
+    private UserData getUserDataFromScheduler(String sessionId) {
+        // a validation waiting for a rejected one must not call the scheduler again
+        throwIfRecentlyRejected(sessionId);
+
+        long start = System.nanoTime();
+        UserData userData;
+        try {
+            SchedulerRestClient client = borrowClient();
+            userData = client.getScheduler().getUserDataFromSessionId(sessionId);
+            releaseClient(client);
+        } catch (Exception exception) {
+            // the scheduler could not answer, e.g. it is unreachable: the session id may be valid
+            throw new NotAuthenticatedException("Could not validate sessionId, validation returned: " +
+                                                exception.getMessage(), exception);
+        } finally {
+            long duration = System.nanoTime() - start;
+            schedulerValidations.incrementAndGet();
+            validationTimeNanos.addAndGet(duration);
+            lastValidationTimeMillis = TimeUnit.NANOSECONDS.toMillis(duration);
+        }
+
+        if (userData == null || StringUtils.isEmpty(userData.getUserName())) {
+            // the scheduler answered that the session is not connected
+            String reason = "SessionId is invalid";
+            invalidSessionCache.put(sessionId, reason);
+            throw new NotAuthenticatedException(reason);
+        }
+        return userData;
+    }
+
+    private SchedulerRestClient borrowClient() {
+        SchedulerRestClient client = idleClients.poll();
+        return client != null ? client : schedulerRestClientCreator.getNewClientInitializedWithSchedulerRestUrl();
+    }
+
+    private void releaseClient(SchedulerRestClient client) {
+        // a client which failed is dropped, the pool only keeps the clients which are known to work
+        if (idleClients.size() < clientPoolSize) {
+            idleClients.offer(client);
+        }
     }
 }
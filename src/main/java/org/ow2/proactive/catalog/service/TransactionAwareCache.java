@@ -0,0 +1,128 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+
+/**
+ * Caffeine cache whose entries are invalidated immediately and once again when the current transaction completes,
+ * so that a value loaded from data not committed yet, or before the commit, does not stay in the cache.
+ *
+ * @author ActiveEon Team
+ */
+class TransactionAwareCache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    /**
+     * Incremented by each invalidation, allows to detect that an invalidation happened while a value was loaded
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    TransactionAwareCache(long maximumSize, long expirationSeconds) {
+        cache = Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+                        .recordStats()
+                        .build();
+    }
+
+    /**
+     * Get the value from the cache, or load and cache it.
+     *
+     * @param key key of the value
+     * @param valueLoader loads the value when it is not cached
+     * @return the value, null values are returned but not cached
+     */
+    V get(K key, Supplier<V> valueLoader) {
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long generationBeforeLoading = generation.get();
+        value = valueLoader.get();
+        if (value != null) {
+            cache.put(key, value);
+            if (generation.get() != generationBeforeLoading) {
+                // the value may have been loaded from data which was changed meanwhile
+                cache.invalidate(key);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Invalidate the entries whose key matches the predicate, now and when the current transaction completes.
+     */
+    void invalidate(Predicate<K> predicate) {
+        invalidations.incrementAndGet();
+        doInvalidate(predicate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    doInvalidate(predicate);
+                }
+            });
+        }
+    }
+
+    long getGeneration() {
+        return generation.get();
+    }
+
+    long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    long getSize() {
+        return cache.estimatedSize();
+    }
+
+    CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private void doInvalidate(Predicate<K> predicate) {
+        // the generation is incremented before removing the entries, so that an entry added concurrently is either
+        // removed here or by the thread which added it
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(predicate);
+    }
+}
@@ -56,6 +56,36 @@ public class WorkflowInfoAdder {
         return workflowWithReplacedGenericInfoJobName;
     }
 
+    /**
+     * Rewrites the job name, the generic information, the hidden variables and the given job attributes of a
+     * workflow in a single pass, instead of chaining {@link #addGenericInformationJobNameToRawObjectIfWorkflow} and
+     * {@link #addAttributeToRawObjectIfWorkflow} calls which each parse and serialize the whole workflow.
+     */
+    public byte[] addGenericInformationJobNameAndAttributesToRawObjectIfWorkflow(final byte[] rawObject,
+            final String catalogObjectEntityKind, Map<String, String> genericInformationMap, final String jobName,
+            final Map<String, String> jobAttributes) {
+        byte[] rewrittenWorkflow = rawObject;
+
+        if (isWorkflow(catalogObjectEntityKind)) {
+            rewrittenWorkflow = workflowXmlManipulator.replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel(rawObject,
+                                                                                                                              genericInformationMap,
+                                                                                                                              jobName,
+                                                                                                                              jobAttributes);
+        }
+        return rewrittenWorkflow;
+    }
+
+    public byte[] addAttributesToRawObjectIfWorkflow(final byte[] rawObject, final String catalogObjectEntityKind,
+            final Map<String, String> jobAttributes) {
+        byte[] workflowWithReplacedAttributes = rawObject;
+
+        if (isWorkflow(catalogObjectEntityKind)) {
+            workflowWithReplacedAttributes = workflowXmlManipulator.replaceOrAddOrRemoveAttributesOnJobLevel(rawObject,
+                                                                                                             jobAttributes);
+        }
+        return workflowWithReplacedAttributes;
+    }
+
     public byte[] addAttributeToRawObjectIfWorkflow(final byte[] rawObject, final String catalogObjectEntityKind,
             final String attributeName, final String attributeValue) {
         byte[] workflowWithReplacedAttribute = rawObject;
@@ -69,4 +99,9 @@ public class WorkflowInfoAdder {
         return workflowWithReplacedAttribute;
     }
 
+    private boolean isWorkflow(String catalogObjectEntityKind) {
+        return catalogObjectEntityKind != null &&
+               catalogObjectEntityKind.toLowerCase().startsWith(SupportedParserKinds.WORKFLOW.toString().toLowerCase());
+    }
+
 }
@@ -25,34 +25,52 @@
  */
 package org.ow2.proactive.catalog.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.Comment;
+import javax.xml.stream.events.DTD;
+import javax.xml.stream.events.EntityReference;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.ProcessingInstruction;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 
 import org.ow2.proactive.catalog.service.exception.ParsingObjectException;
 import org.ow2.proactive.core.properties.PropertyDecrypter;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+
+import com.google.common.collect.ImmutableSet;
 
 import lombok.extern.log4j.Log4j2;
 
 
 /**
+ * Rewrites the job level data of a ProActive XML workflow (job name and attributes, generic information and
+ * hidden variables).
+ *
+ * The workflow is streamed through a StAX reader and writer: every event is copied as is, except the root
+ * {@code <job>} attributes, the job level {@code <genericInformation>} block and the job level hidden
+ * {@code <variable>} values. Memory usage is therefore proportional to the nesting depth of the workflow rather
+ * than to its size, and task level content (scripts, CDATA sections, comments, formatting) is left untouched.
+ *
  * @author ActiveEon Team
  * @since 09/08/2017
  */
@@ -61,6 +79,57 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class WorkflowXmlManipulator {
 
+    private static final String JOB_NAME_ATTRIBUTE = "name";
+
+    private static final String GENERIC_INFORMATION_ELEMENT = "genericInformation";
+
+    private static final String INFO_ELEMENT = "info";
+
+    private static final String INFO_NAME_ATTRIBUTE = "name";
+
+    private static final String INFO_VALUE_ATTRIBUTE = "value";
+
+    private static final String VARIABLES_ELEMENT = "variables";
+
+    private static final String VARIABLE_ELEMENT = "variable";
+
+    private static final QName VARIABLE_NAME_ATTRIBUTE = new QName("name");
+
+    private static final QName VARIABLE_VALUE_ATTRIBUTE = new QName("value");
+
+    private static final QName VARIABLE_MODEL_ATTRIBUTE = new QName("model");
+
+    private static final String HIDDEN_VARIABLE_MODEL = "PA:HIDDEN";
+
+    private static final String ENCRYPTED_VALUE_PREFIX = "ENC(";
+
+    // job level elements before which the generic information block is inserted when the workflow has none
+    private static final Set<String> ELEMENTS_AFTER_GENERIC_INFORMATION = ImmutableSet.of("inputSpace",
+                                                                                          "outputSpace",
+                                                                                          "globalSpace",
+                                                                                          "userSpace",
+                                                                                          "taskFlow");
+
+    // makes the JDK and Woodstox readers report CDATA sections, which are otherwise merged into plain characters
+    private static final String REPORT_CDATA_EVENT_PROPERTY = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    private static final String DEFAULT_XML_VERSION = "1.0";
+
+    private static final String INDENTATION = "  ";
+
+    private static final int JOB_DEPTH = 1;
+
+    private static final int JOB_CHILD_DEPTH = 2;
+
+    private static final int JOB_VARIABLE_DEPTH = 3;
+
+    // StAX factories are thread safe once configured, they are shared by all the rewrites
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
     public byte[] replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(final byte[] xmlWorkflow,
             Map<String, String> genericInfoMap, String jobName) {
         if (xmlWorkflow == null || xmlWorkflow.length == 0) {
@@ -69,149 +138,370 @@ public class WorkflowXmlManipulator {
         if (genericInfoMap == null) {
             return xmlWorkflow;
         }
+        return replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel(xmlWorkflow,
+                                                                                      genericInfoMap,
+                                                                                      jobName,
+                                                                                      Collections.emptyMap());
+    }
 
-        Document doc = null;
-        try {
-            doc = parseWorkflow(xmlWorkflow);
+    /**
+     * Applies every job level rewrite of a workflow commit in a single pass: job name, generic information,
+     * hidden variables encryption and the given job attributes (an attribute with a blank value is removed).
+     *
+     * @param xmlWorkflow the workflow to rewrite
+     * @param genericInfoMap the job generic information, the job name, generic information and hidden variables
+     *                       are left untouched when null
+     * @param jobName the new job name
+     * @param jobAttributes the job attributes to replace, add or remove, applied in iteration order
+     * @return the rewritten workflow
+     */
+    public byte[] replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel(final byte[] xmlWorkflow,
+            Map<String, String> genericInfoMap, String jobName, Map<String, String> jobAttributes) {
+        if (xmlWorkflow == null || xmlWorkflow.length == 0) {
+            return new byte[] {};
+        }
 
-            Element rootElement = doc.getDocumentElement();
-            replaceJobName(rootElement, jobName);
-            replaceOrAddGenericInfoElement(genericInfoMap, doc, rootElement);
-            replaceHiddenVariables(rootElement);
+        ByteArrayOutputStream answer = new ByteArrayOutputStream(xmlWorkflow.length);
+        rewriteJobLevel(new ByteArrayInputStream(xmlWorkflow), answer, genericInfoMap, jobName, jobAttributes);
+        return answer.toByteArray();
+    }
 
-            ByteArrayOutputStream answer = transform(doc);
-            return answer.toByteArray();
+    /**
+     * Streaming variant of {@link #replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel}: the
+     * workflow is read from the given input and the rewritten workflow is written to the given output, using the
+     * encoding declared by the workflow (UTF-8 by default). Streams are neither closed nor buffered.
+     */
+    public void rewriteJobLevel(InputStream xmlWorkflow, OutputStream rewrittenWorkflow,
+            Map<String, String> genericInfoMap, String jobName, Map<String, String> jobAttributes) {
+        XMLEventReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLEventReader(xmlWorkflow);
+            new JobLevelRewriter(reader, rewrittenWorkflow, genericInfoMap, jobName, jobAttributes).rewrite();
         } catch (Exception e) {
             throw new ParsingObjectException(e);
+        } finally {
+            closeQuietly(reader);
         }
     }
 
-    private Document parseWorkflow(byte[] xmlWorkflow) throws SAXException, IOException, ParserConfigurationException {
-        return DocumentBuilderFactory.newInstance()
-                                     .newDocumentBuilder()
-                                     .parse(new InputSource(new StringReader(new String(xmlWorkflow))));
+    public byte[] replaceOrAddOrRemoveAttributeOnJobLevel(final byte[] xmlWorkflow, String attributeName,
+            String attributeValue) {
+        return replaceOrAddOrRemoveAttributesOnJobLevel(xmlWorkflow,
+                                                        Collections.singletonMap(attributeName, attributeValue));
     }
 
-    private ByteArrayOutputStream transform(Document doc) throws TransformerException {
-        Transformer xformer = TransformerFactory.newInstance().newTransformer();
-        xformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        ByteArrayOutputStream answer = new ByteArrayOutputStream();
-        xformer.transform(new DOMSource(doc), new StreamResult(answer));
-        return answer;
+    public byte[] replaceOrAddOrRemoveAttributesOnJobLevel(final byte[] xmlWorkflow,
+            Map<String, String> jobAttributes) {
+        return replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel(xmlWorkflow,
+                                                                                      null,
+                                                                                      null,
+                                                                                      jobAttributes);
     }
 
-    public byte[] replaceOrAddOrRemoveAttributeOnJobLevel(final byte[] xmlWorkflow, String attributeName,
-            String attributeValue) {
-        if (xmlWorkflow == null || xmlWorkflow.length == 0) {
-            return new byte[] {};
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        if (xmlInputFactory.isPropertySupported(REPORT_CDATA_EVENT_PROPERTY)) {
+            xmlInputFactory.setProperty(REPORT_CDATA_EVENT_PROPERTY, true);
         }
-        Document doc = null;
-        try {
-            doc = parseWorkflow(xmlWorkflow);
+        return xmlInputFactory;
+    }
 
-            Element rootElement = doc.getDocumentElement();
-            if (attributeValue.trim().isEmpty()) {
-                removeAttributeValue(rootElement, attributeName);
-            } else {
-                replaceAttributeValue(rootElement, attributeName, attributeValue);
+    private static void closeQuietly(XMLEventReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                log.debug("Could not close the workflow reader", e);
             }
-            ByteArrayOutputStream answer = transform(doc);
-            return answer.toByteArray();
-        } catch (Exception e) {
-            throw new ParsingObjectException(e);
         }
     }
 
-    private void replaceOrAddGenericInfoElement(Map<String, String> genericInfoMap, Document doc, Element rootElement) {
-        NodeList nodes = rootElement.getChildNodes();
-        for (int idx = 0; idx < nodes.getLength(); idx++) {
-            if ("genericInformation".equals(nodes.item(idx).getNodeName())) {
-                Element oldGenericInfoElement = (Element) nodes.item(idx);
-                rootElement.replaceChild(createGenericInfoElement(doc, genericInfoMap), oldGenericInfoElement);
-                break;
-            }
-            switch (nodes.item(idx).getNodeName()) {
-                case "genericInformation":
-                    Element oldGenericInfoElement = (Element) nodes.item(idx);
-                    rootElement.replaceChild(createGenericInfoElement(doc, genericInfoMap), oldGenericInfoElement);
-                    return;
-                case "inputSpace":
-                case "outputSpace":
-                case "globalSpace":
-                case "userSpace":
-                case "taskFlow":
-                    Element elementAfterGenericInfo = (Element) nodes.item(idx);
-                    rootElement.insertBefore(createGenericInfoElement(doc, genericInfoMap), elementAfterGenericInfo);
-                    return;
+    /**
+     * Holds the state of one streaming rewrite: the current element depth, whether the job generic information
+     * block has already been written and whether the reader is inside the job level variables.
+     */
+    private static final class JobLevelRewriter {
+
+        private final XMLEventReader reader;
+
+        private final OutputStream output;
+
+        private final Map<String, String> genericInfoMap;
+
+        private final String jobName;
+
+        private final Map<String, String> jobAttributes;
+
+        private XMLStreamWriter writer;
+
+        private int depth = 0;
+
+        private boolean genericInfoWritten = false;
+
+        private boolean insideJobVariables = false;
+
+        private String jobPrefix = "";
+
+        private String jobNamespaceUri = "";
+
+        private String whitespaceBeforeJobChild = "";
+
+        private JobLevelRewriter(XMLEventReader reader, OutputStream output, Map<String, String> genericInfoMap,
+                String jobName, Map<String, String> jobAttributes) {
+            this.reader = reader;
+            this.output = output;
+            this.genericInfoMap = genericInfoMap;
+            this.jobName = jobName;
+            this.jobAttributes = jobAttributes;
+        }
+
+        private void rewrite() throws XMLStreamException {
+            try {
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    switch (event.getEventType()) {
+                        case XMLStreamConstants.START_DOCUMENT:
+                            writeStartDocument((StartDocument) event);
+                            break;
+                        case XMLStreamConstants.START_ELEMENT:
+                            writeStartElement(event.asStartElement());
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            writeEndElement();
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                        case XMLStreamConstants.SPACE:
+                            writeCharacters(event.asCharacters());
+                            break;
+                        case XMLStreamConstants.COMMENT:
+                            writer.writeComment(((Comment) event).getText());
+                            writeNewLineOutsideOfJob();
+                            break;
+                        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                            writeProcessingInstruction((ProcessingInstruction) event);
+                            writeNewLineOutsideOfJob();
+                            break;
+                        case XMLStreamConstants.DTD:
+                            writer.writeDTD(((DTD) event).getDocumentTypeDeclaration());
+                            writeNewLineOutsideOfJob();
+                            break;
+                        case XMLStreamConstants.ENTITY_REFERENCE:
+                            writer.writeEntityRef(((EntityReference) event).getName());
+                            break;
+                        case XMLStreamConstants.END_DOCUMENT:
+                            writer.writeEndDocument();
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                writer.flush();
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
             }
         }
-    }
 
-    private void replaceHiddenVariables(Element rootElement) {
-        NodeList nodes = rootElement.getChildNodes();
-        for (int idx = 0; idx < nodes.getLength(); idx++) {
-            if ("variables".equals(nodes.item(idx).getNodeName())) {
-                Element variablesElement = (Element) nodes.item(idx);
-                NodeList variableNodes = variablesElement.getChildNodes();
-                for (int varIdx = 0; varIdx < variableNodes.getLength(); varIdx++) {
-                    Node variableNode = variableNodes.item(varIdx);
-                    if (variableNode.getNodeType() == Node.ELEMENT_NODE) {
-                        Element variableElement = (Element) variableNode;
-                        if (checkHiddenVariableReplacementNeeded(variableElement)) {
-                            String value = variableElement.getAttribute("value");
-                            try {
-                                value = PropertyDecrypter.encryptData(value);
-                            } catch (Exception e) {
-                                String name = variableElement.getAttribute("name");
-                                log.warn("Could not encrypt hidden variable " + name, e);
-                            }
-                            variableElement.setAttribute("value", value);
-                        }
+        private void writeStartDocument(StartDocument startDocument) throws XMLStreamException {
+            String encoding = startDocument.encodingSet() ? startDocument.getCharacterEncodingScheme()
+                                                          : DEFAULT_ENCODING;
+            String version = startDocument.getVersion() != null ? startDocument.getVersion() : DEFAULT_XML_VERSION;
+            writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(output, encoding);
+            writer.writeStartDocument(encoding, version);
+            writer.writeCharacters("\n");
+        }
+
+        private void writeStartElement(StartElement startElement) throws XMLStreamException {
+            depth++;
+            String localName = startElement.getName().getLocalPart();
+            Map<QName, String> attributes = readAttributes(startElement);
+
+            if (depth == JOB_DEPTH) {
+                jobPrefix = startElement.getName().getPrefix();
+                jobNamespaceUri = startElement.getName().getNamespaceURI();
+                rewriteJobAttributes(attributes);
+            } else if (depth == JOB_CHILD_DEPTH) {
+                if (genericInfoMap != null && !genericInfoWritten) {
+                    if (GENERIC_INFORMATION_ELEMENT.equals(localName)) {
+                        writeGenericInformation();
+                        skipElement();
+                        return;
+                    } else if (ELEMENTS_AFTER_GENERIC_INFORMATION.contains(localName)) {
+                        writeGenericInformation();
+                        writer.writeCharacters(whitespaceBeforeJobChild);
                     }
                 }
+                insideJobVariables = VARIABLES_ELEMENT.equals(localName);
+            } else if (depth == JOB_VARIABLE_DEPTH && insideJobVariables && genericInfoMap != null &&
+                       VARIABLE_ELEMENT.equals(localName)) {
+                encryptHiddenVariableValue(attributes);
+            }
+
+            // elements without content are kept as empty elements
+            boolean emptyElement = reader.peek() != null && reader.peek().isEndElement();
+            writeElement(emptyElement,
+                         startElement.getName().getPrefix(),
+                         localName,
+                         startElement.getName().getNamespaceURI());
+            writeNamespaces(startElement);
+            for (Map.Entry<QName, String> attribute : attributes.entrySet()) {
+                writeAttribute(attribute.getKey(), attribute.getValue());
+            }
+            if (emptyElement) {
+                reader.nextEvent();
+                leaveElement();
             }
         }
-    }
 
-    private Element replaceJobName(Element element, String jobName) {
-        return replaceAttributeValue(element, "name", jobName);
-    }
+        private void writeEndElement() throws XMLStreamException {
+            writer.writeEndElement();
+            leaveElement();
+        }
 
-    private boolean checkHiddenVariableReplacementNeeded(Element element) {
-        String model = element.getAttribute("model");
-        if ("PA:HIDDEN".equalsIgnoreCase(model)) {
-            String value = element.getAttribute("value");
-            if (!value.startsWith("ENC(")) {
-                return true;
+        private void leaveElement() {
+            if (depth == JOB_CHILD_DEPTH) {
+                insideJobVariables = false;
             }
+            depth--;
         }
-        return false;
-    }
 
-    private Element replaceAttributeValue(Element element, String attrName, String attrValue) {
-        element.setAttribute(attrName, attrValue);
-        return element;
-    }
+        private void writeCharacters(Characters characters) throws XMLStreamException {
+            if (characters.isCData()) {
+                writer.writeCData(characters.getData());
+            } else if (depth > 0) {
+                if (depth == JOB_DEPTH && characters.isWhiteSpace()) {
+                    whitespaceBeforeJobChild = characters.getData();
+                }
+                writer.writeCharacters(characters.getData());
+            }
+            // whitespace outside of the job element is dropped, new lines are written around prolog items instead
+        }
 
-    private Element removeAttributeValue(Element element, String attrName) {
-        element.removeAttribute(attrName);
-        return element;
-    }
+        private void writeNewLineOutsideOfJob() throws XMLStreamException {
+            if (depth == 0) {
+                writer.writeCharacters("\n");
+            }
+        }
 
-    private Element createInfoElement(Document doc, String name, String value) {
-        Element infoElement = doc.createElement("info");
-        infoElement.setAttribute("name", name);
-        infoElement.setAttribute("value", value);
-        return infoElement;
-    }
+        private void writeProcessingInstruction(ProcessingInstruction processingInstruction)
+                throws XMLStreamException {
+            if (processingInstruction.getData() == null) {
+                writer.writeProcessingInstruction(processingInstruction.getTarget());
+            } else {
+                writer.writeProcessingInstruction(processingInstruction.getTarget(), processingInstruction.getData());
+            }
+        }
+
+        private void rewriteJobAttributes(Map<QName, String> attributes) {
+            if (genericInfoMap != null) {
+                attributes.put(new QName(JOB_NAME_ATTRIBUTE), jobName);
+            }
+            for (Map.Entry<String, String> jobAttribute : jobAttributes.entrySet()) {
+                QName attributeName = new QName(jobAttribute.getKey());
+                if (jobAttribute.getValue().trim().isEmpty()) {
+                    attributes.remove(attributeName);
+                } else {
+                    attributes.put(attributeName, jobAttribute.getValue());
+                }
+            }
+        }
+
+        private void encryptHiddenVariableValue(Map<QName, String> attributes) {
+            String value = attributes.getOrDefault(VARIABLE_VALUE_ATTRIBUTE, "");
+            if (HIDDEN_VARIABLE_MODEL.equalsIgnoreCase(attributes.get(VARIABLE_MODEL_ATTRIBUTE)) &&
+                !value.startsWith(ENCRYPTED_VALUE_PREFIX)) {
+                try {
+                    value = PropertyDecrypter.encryptData(value);
+                } catch (Exception e) {
+                    log.warn("Could not encrypt hidden variable " + attributes.get(VARIABLE_NAME_ATTRIBUTE), e);
+                }
+                attributes.put(VARIABLE_VALUE_ATTRIBUTE, value);
+            }
+        }
+
+        private void writeGenericInformation() throws XMLStreamException {
+            genericInfoWritten = true;
+            if (genericInfoMap.isEmpty()) {
+                writeElement(true, jobPrefix, GENERIC_INFORMATION_ELEMENT, jobNamespaceUri);
+                return;
+            }
+            String indentation = whitespaceBeforeJobChild.substring(whitespaceBeforeJobChild.lastIndexOf('\n') + 1);
+            writeElement(false, jobPrefix, GENERIC_INFORMATION_ELEMENT, jobNamespaceUri);
+            for (Map.Entry<String, String> genericInfo : genericInfoMap.entrySet()) {
+                writer.writeCharacters("\n" + indentation + INDENTATION);
+                writeElement(true, jobPrefix, INFO_ELEMENT, jobNamespaceUri);
+                writer.writeAttribute(INFO_NAME_ATTRIBUTE, genericInfo.getKey());
+                writer.writeAttribute(INFO_VALUE_ATTRIBUTE, genericInfo.getValue());
+            }
+            writer.writeCharacters("\n" + indentation);
+            writer.writeEndElement();
+        }
+
+        /**
+         * Consumes the events of the element which has just been started, up to and including its end event.
+         */
+        private void skipElement() throws XMLStreamException {
+            int openElements = 1;
+            while (openElements > 0) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    openElements++;
+                } else if (event.isEndElement()) {
+                    openElements--;
+                }
+            }
+            leaveElement();
+        }
+
+        private void writeElement(boolean emptyElement, String prefix, String localName, String namespaceUri)
+                throws XMLStreamException {
+            boolean unprefixed = prefix == null || prefix.isEmpty();
+            if (emptyElement && unprefixed) {
+                writer.writeEmptyElement(localName);
+            } else if (emptyElement) {
+                writer.writeEmptyElement(prefix, localName, namespaceUri);
+            } else if (unprefixed) {
+                writer.writeStartElement(localName);
+            } else {
+                writer.writeStartElement(prefix, localName, namespaceUri);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void writeNamespaces(StartElement startElement) throws XMLStreamException {
+            Iterator<Namespace> namespaces = startElement.getNamespaces();
+            while (namespaces.hasNext()) {
+                Namespace namespace = namespaces.next();
+                if (namespace.isDefaultNamespaceDeclaration()) {
+                    writer.writeDefaultNamespace(namespace.getNamespaceURI());
+                } else {
+                    writer.writeNamespace(namespace.getPrefix(), namespace.getNamespaceURI());
+                }
+            }
+        }
 
-    private Node createGenericInfoElement(Document doc, Map<String, String> keyValueMetadataEntities) {
-        Element genericInfoElement = doc.createElement("genericInformation");
-        for (Map.Entry<String, String> entry : keyValueMetadataEntities.entrySet()) {
-            Element child = createInfoElement(doc, entry.getKey(), entry.getValue());
-            genericInfoElement.appendChild(child);
+        private void writeAttribute(QName name, String value) throws XMLStreamException {
+            if (name.getPrefix() == null || name.getPrefix().isEmpty()) {
+                writer.writeAttribute(name.getLocalPart(), value);
+            } else {
+                writer.writeAttribute(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(), value);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<QName, String> readAttributes(StartElement startElement) {
+            Map<QName, String> attributes = new LinkedHashMap<>();
+            Iterator<Attribute> iterator = startElement.getAttributes();
+            while (iterator.hasNext()) {
+                Attribute attribute = iterator.next();
+                attributes.put(attribute.getName(), attribute.getValue());
+            }
+            return attributes;
         }
-        return genericInfoElement;
     }
 
 }
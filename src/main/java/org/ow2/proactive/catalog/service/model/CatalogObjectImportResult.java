@@ -0,0 +1,77 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+
+/**
+ * Outcome of the import of a single entry of a ZIP archive.
+ *
+ * @author ActiveEon Team
+ */
+@AllArgsConstructor
+@Data
+public class CatalogObjectImportResult {
+
+    public enum Status {
+        CREATED,
+        REVISED,
+        UNCHANGED,
+        FAILED
+    }
+
+    private final String name;
+
+    private final Status status;
+
+    private final CatalogObjectMetadata metadata;
+
+    private final String error;
+
+    public static CatalogObjectImportResult created(CatalogObjectMetadata metadata) {
+        return new CatalogObjectImportResult(metadata.getName(), Status.CREATED, metadata, null);
+    }
+
+    public static CatalogObjectImportResult revised(CatalogObjectMetadata metadata) {
+        return new CatalogObjectImportResult(metadata.getName(), Status.REVISED, metadata, null);
+    }
+
+    public static CatalogObjectImportResult unchanged(CatalogObjectMetadata metadata) {
+        return new CatalogObjectImportResult(metadata.getName(), Status.UNCHANGED, metadata, null);
+    }
+
+    public static CatalogObjectImportResult failed(String name, String error) {
+        return new CatalogObjectImportResult(name, Status.FAILED, null, error);
+    }
+
+    public boolean isFailed() {
+        return status == Status.FAILED;
+    }
+}
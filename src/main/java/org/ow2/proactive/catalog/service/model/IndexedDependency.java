@@ -0,0 +1,54 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import lombok.Data;
+
+
+/**
+ * A depends_on entry of the last revision of a catalog object, as kept in the
+ * {@link org.ow2.proactive.catalog.service.CatalogObjectDependencyIndex}.
+ *
+ * @author ActiveEon Team
+ */
+@Data
+public class IndexedDependency {
+
+    /**
+     * bucket name and object name of the dependency, joined by the depends_on separator
+     */
+    private final String bucketAndObjectName;
+
+    /**
+     * revision of the dependency, a commit time or {@code latest}
+     */
+    private final String revision;
+
+    /**
+     * current kind of the dependency, or null if the dependency is not in the catalog
+     */
+    private final String kind;
+}
@@ -0,0 +1,59 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import java.util.List;
+
+import lombok.Data;
+
+
+/**
+ * Identifies a pdf report kept in the {@link org.ow2.proactive.catalog.service.ReportArtifactCache}: the report type,
+ * the buckets and the filters it was generated for, and the change versions of the catalog and of these buckets at
+ * generation time.
+ *
+ * @author ActiveEon Team
+ */
+@Data
+public class ReportArtifactKey {
+
+    private final String type;
+
+    private final List<String> bucketNames;
+
+    private final String kind;
+
+    private final String contentType;
+
+    /**
+     * The names of the selected objects, empty when the report covers all the objects of its buckets
+     */
+    private final List<String> objectNames;
+
+    private final long catalogVersion;
+
+    private final List<Long> bucketVersions;
+}
@@ -0,0 +1,165 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
+import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
+import org.ow2.proactive.catalog.util.GrantHelper;
+
+import lombok.Getter;
+
+
+/**
+ * All the bucket and catalog object grants assigned to a user and to its groups, loaded at once and then used to
+ * compute the user's rights on any bucket or catalog object during a request, without further grant queries.
+ * <p>
+ * The lists returned by the getters are copies, which can be modified by the caller.
+ *
+ * @author ActiveEon Team
+ */
+public class UserGrantSnapshot {
+
+    @Getter
+    private final AuthenticatedUser user;
+
+    /**
+     * Generation of the rights cache when the grants were loaded, the snapshot is outdated once it changed
+     */
+    @Getter
+    private final long generation;
+
+    private final List<BucketGrantMetadata> bucketGrants;
+
+    private final List<CatalogObjectGrantMetadata> objectGrants;
+
+    private final Map<String, List<BucketGrantMetadata>> bucketGrantsByBucket;
+
+    private final Map<String, List<CatalogObjectGrantMetadata>> objectGrantsByBucket;
+
+    public UserGrantSnapshot(AuthenticatedUser user, long generation, List<BucketGrantMetadata> bucketGrants,
+            List<CatalogObjectGrantMetadata> objectGrants) {
+        this.user = user;
+        this.generation = generation;
+        this.bucketGrants = Collections.unmodifiableList(new ArrayList<>(bucketGrants));
+        this.objectGrants = Collections.unmodifiableList(new ArrayList<>(objectGrants));
+        this.bucketGrantsByBucket = this.bucketGrants.stream()
+                                                     .collect(Collectors.groupingBy(BucketGrantMetadata::getBucketName));
+        this.objectGrantsByBucket = this.objectGrants.stream()
+                                                     .collect(Collectors.groupingBy(CatalogObjectGrantMetadata::getBucketName));
+    }
+
+    /**
+     * @param otherUser authenticated user
+     * @param currentGeneration current generation of the rights cache
+     * @return true if the snapshot was loaded for the same user and groups, and no grant changed since
+     */
+    public boolean isValidFor(AuthenticatedUser otherUser, long currentGeneration) {
+        return generation == currentGeneration && Objects.equals(user.getName(), otherUser.getName()) &&
+               Objects.equals(groupsOf(user), groupsOf(otherUser));
+    }
+
+    /**
+     * @return all the bucket grants (including all access types) assigned to the user and its groups
+     */
+    public List<BucketGrantMetadata> getBucketGrants() {
+        return new ArrayList<>(bucketGrants);
+    }
+
+    /**
+     * @param bucketName name of the bucket
+     * @return the bucket grants (including all access types) assigned to the user and its groups for the bucket
+     */
+    public List<BucketGrantMetadata> getBucketGrants(String bucketName) {
+        return new ArrayList<>(bucketGrantsByBucket.getOrDefault(bucketName, Collections.emptyList()));
+    }
+
+    /**
+     * @return the positive (i.e. its access type is not "noAccess") bucket grants assigned to the user and its groups
+     */
+    public List<BucketGrantMetadata> getPositiveBucketGrants() {
+        return GrantHelper.filterPositiveGrants(bucketGrants);
+    }
+
+    /**
+     * @return the no-access bucket grants assigned to the user and its groups
+     */
+    public List<BucketGrantMetadata> getNoAccessBucketGrants() {
+        return GrantHelper.filterNoAccessGrants(bucketGrants);
+    }
+
+    /**
+     * @param bucketName name of the bucket
+     * @return the user-specific positive bucket grant assigned to the user (not its groups) for the bucket
+     */
+    public Optional<BucketGrantMetadata> getUserSpecificPositiveBucketGrant(String bucketName) {
+        return bucketGrantsByBucket.getOrDefault(bucketName, Collections.emptyList())
+                                   .stream()
+                                   .filter(GrantHelper::isUserSpecificGrant)
+                                   .filter(GrantHelper::isPositiveGrant)
+                                   .findFirst();
+    }
+
+    /**
+     * @return all the catalog object grants (including all access types) assigned to the user and its groups
+     */
+    public List<CatalogObjectGrantMetadata> getObjectGrants() {
+        return new ArrayList<>(objectGrants);
+    }
+
+    /**
+     * @param bucketName name of the bucket
+     * @return the grants (including all access types) assigned to the user and its groups for the catalog objects
+     * of the bucket
+     */
+    public List<CatalogObjectGrantMetadata> getObjectGrants(String bucketName) {
+        return new ArrayList<>(objectGrantsByBucket.getOrDefault(bucketName, Collections.emptyList()));
+    }
+
+    /**
+     * @return the positive catalog object grants assigned to the user and its groups
+     */
+    public List<CatalogObjectGrantMetadata> getPositiveObjectGrants() {
+        return GrantHelper.filterPositiveGrants(objectGrants);
+    }
+
+    /**
+     * @param bucketName name of the bucket of the catalog object
+     * @param catalogObjectName name of the catalog object
+     * @return the positive grants assigned to the user and its groups for the catalog object
+     */
+    public List<CatalogObjectGrantMetadata> getPositiveObjectGrants(String bucketName, String catalogObjectName) {
+        return GrantHelper.filterPositiveGrants(GrantHelper.filterObjectGrants(objectGrantsByBucket.getOrDefault(bucketName,
+                                                                                                                 Collections.emptyList()),
+                                                                               catalogObjectName));
+    }
+
+    private static Set<String> groupsOf(AuthenticatedUser user) {
+        return user.getGroups() == null ? Collections.emptySet() : new HashSet<>(user.getGroups());
+    }
+}
@@ -32,16 +32,17 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.zeroturnaround.zip.ByteSource;
-import org.zeroturnaround.zip.ZipEntrySource;
 import org.zeroturnaround.zip.ZipUtil;
 
 
@@ -128,19 +129,11 @@ public class ArchiveManagerHelper {
 
             ZipArchiveContent zipContent = new ZipArchiveContent();
 
-            Stream<ZipEntrySource> streamSources = catalogObjectList.stream()
-                                                                    .filter(Objects::nonNull)
-                                                                    .map(catalogObjectRevision -> {
-                                                                        CatalogObjectEntity catalogObjectEntity = catalogObjectRevision.getCatalogObject();
-                                                                        String fileNameWithExtension = rawObjectResponseCreator.getNameWithFileExtension(catalogObjectEntity.getId()
-                                                                                                                                                                            .getName(),
-                                                                                                                                                         catalogObjectEntity.getExtension(),
-                                                                                                                                                         catalogObjectEntity.getKind());
-                                                                        return new ByteSource(fileNameWithExtension,
-                                                                                              catalogObjectRevision.getRawObject());
-                                                                    });
-            ZipEntrySource[] sources = streamSources.toArray(size -> new ZipEntrySource[size]);
-            ZipUtil.pack(sources, byteArrayOutputStream);
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
+                catalogObjectList.stream()
+                                 .filter(Objects::nonNull)
+                                 .forEach(catalogObjectRevision -> addToZIP(zipOutputStream, catalogObjectRevision));
+            }
             zipContent.setContent(byteArrayOutputStream.toByteArray());
             zipContent.setPartial(isPartial);
             return zipContent;
@@ -150,6 +143,28 @@ public class ArchiveManagerHelper {
 
     }
 
+    /**
+     * Write a CatalogObjectRevision file as the next entry of a ZIP archive
+     * @param zipOutputStream the archive being written
+     * @param catalogObjectRevision the catalogObject revision to add to the archive
+     */
+    public void addToZIP(ZipOutputStream zipOutputStream, CatalogObjectRevisionEntity catalogObjectRevision) {
+        CatalogObjectEntity catalogObjectEntity = catalogObjectRevision.getCatalogObject();
+        String fileNameWithExtension = rawObjectResponseCreator.getNameWithFileExtension(catalogObjectEntity.getId()
+                                                                                                            .getName(),
+                                                                                         catalogObjectEntity.getExtension(),
+                                                                                         catalogObjectEntity.getKind());
+        try {
+            zipOutputStream.putNextEntry(new ZipEntry(fileNameWithExtension));
+            if (catalogObjectRevision.getRawObject() != null) {
+                zipOutputStream.write(catalogObjectRevision.getRawObject());
+            }
+            zipOutputStream.closeEntry();
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
+
     /**
      * Extract files from an archive
      * @param byteArrayArchive the archive as byte array
@@ -163,7 +178,7 @@ public class ArchiveManagerHelper {
         }
 
         try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayArchive)) {
-            ZipUtil.iterate(byteArrayInputStream, (in, zipEntry) -> checkAndAddFileFromZip(filesList, in, zipEntry));
+            extractZIP(byteArrayInputStream, filesList::add);
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
@@ -171,17 +186,38 @@ public class ArchiveManagerHelper {
         return filesList;
     }
 
+    /**
+     * Extract files from an archive stream, one entry at a time: each file is handed to the consumer before the
+     * next entry is read, so that only the file being processed is held in memory
+     * @param archive the archive stream, it is not closed
+     * @param fileConsumer the consumer of the extracted files
+     * @return the number of extracted files
+     */
+    public int extractZIP(InputStream archive, Consumer<FileNameAndContent> fileConsumer) {
+        AtomicInteger extractedFiles = new AtomicInteger();
+        ZipUtil.iterate(archive, (in, zipEntry) -> {
+            if (checkAndAddFileFromZip(fileConsumer, in, zipEntry)) {
+                extractedFiles.incrementAndGet();
+            }
+        });
+        return extractedFiles.get();
+    }
+
     /**
      * check the name of zip entry, exclude containing folder as extracting file
-     * @param filesList
+     * @param fileConsumer
      * @param in
      * @param entry
+     * @return true if the entry is a file which has been extracted
      */
-    private void checkAndAddFileFromZip(List<FileNameAndContent> filesList, InputStream in, ZipEntry entry) {
+    private boolean checkAndAddFileFromZip(Consumer<FileNameAndContent> fileConsumer, InputStream in,
+            ZipEntry entry) {
         String nameZipEntry = FilenameUtils.getName(entry.getName());
         if (!nameZipEntry.isEmpty()) {
-            filesList.add(process(in, entry));
+            fileConsumer.accept(process(in, entry));
+            return true;
         }
+        return false;
     }
 
     /**
@@ -191,16 +227,11 @@ public class ArchiveManagerHelper {
      * @return FileNameAndContent
      */
     private FileNameAndContent process(InputStream in, ZipEntry entry) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+        try {
             FileNameAndContent file = new FileNameAndContent();
             file.setName(FilenameUtils.getBaseName(entry.getName()));
             file.setFileNameWithExtension(FilenameUtils.getName(entry.getName()));
-
-            int data = 0;
-            while ((data = in.read()) != -1) {
-                outputStream.write(data);
-            }
-            file.setContent(outputStream.toByteArray());
+            file.setContent(IOUtils.toByteArray(in));
             return file;
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
@@ -29,6 +29,7 @@ import static org.ow2.proactive.catalog.util.AccessType.admin;
 import static org.ow2.proactive.catalog.util.AccessType.noAccess;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -110,6 +111,15 @@ public class GrantHelper {
                      .collect(Collectors.toList());
     }
 
+    /**
+     * Index of the grants by catalog object name, to find the grants of many objects without scanning all the grants
+     * for each object
+     */
+    public static Map<String, List<CatalogObjectGrantMetadata>>
+            groupObjectGrantsByName(List<CatalogObjectGrantMetadata> grants) {
+        return grants.stream().collect(Collectors.groupingBy(CatalogObjectGrantMetadata::getCatalogObjectName));
+    }
+
     public static <T extends GrantMetadata> List<T> filterBucketGrants(List<T> grants, String bucketName) {
         return grants.stream().filter(g -> g.getBucketName().equals(bucketName)).collect(Collectors.toList());
     }
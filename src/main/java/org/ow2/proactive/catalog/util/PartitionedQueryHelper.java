@@ -0,0 +1,154 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+
+/**
+ * Runs the queries whose collection parameter is bound to an IN clause by chunks of at most
+ * {@link #MAX_IN_PARAMETERS} values, as some databases (e.g. Oracle) limit the number of values of an IN clause.
+ * <p>
+ * When the values fit in a single chunk, the query runs in the calling thread and transaction. Otherwise the chunks
+ * are queried concurrently on a bounded pool, each of them in its own read-only transaction, and their results are
+ * merged in the order of the chunks, without duplicates. The entities loaded by a chunk are detached once its
+ * transaction is over, so the given query is expected to map them to what the caller needs.
+ * <p>
+ * The transactions of the concurrent chunks cannot see the changes not yet committed by the caller. So when the
+ * caller runs in a read-write transaction, which may hold such changes, the chunks are queried one after the other in
+ * the calling thread and transaction instead. The service lookups using this helper are therefore declared read-only,
+ * as their services are transactional by default.
+ *
+ * @author ActiveEon Team
+ */
+@Component
+public class PartitionedQueryHelper {
+
+    public static final int MAX_IN_PARAMETERS = 1000;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${pa.catalog.partitioned.queries.threads:4}")
+    private int threads;
+
+    private ExecutorService executorService;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        executorService = Executors.newFixedThreadPool(Math.max(1, threads),
+                                                       new ThreadFactoryBuilder().setNameFormat("partitioned-query-%d")
+                                                                                 .setDaemon(true)
+                                                                                 .build());
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * @param values the values bound to the IN clause, duplicates are ignored
+     * @param query the query, called with a chunk of the values
+     * @return the merged results of the query for all the values
+     */
+    public <V, R> List<R> fetch(Collection<V> values, Function<List<V>, ? extends Collection<R>> query) {
+        return fetch(values, MAX_IN_PARAMETERS, query);
+    }
+
+    @VisibleForTesting
+    <V, R> List<R> fetch(Collection<V> values, int chunkSize, Function<List<V>, ? extends Collection<R>> query) {
+        if (values == null || values.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<V> distinctValues = new ArrayList<>(new LinkedHashSet<>(values));
+        if (distinctValues.size() <= chunkSize) {
+            return new ArrayList<>(query.apply(distinctValues));
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive() &&
+            !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Set<R> results = new LinkedHashSet<>();
+            Lists.partition(distinctValues, chunkSize).forEach(chunk -> results.addAll(query.apply(chunk)));
+            return new ArrayList<>(results);
+        }
+
+        List<Future<List<R>>> chunkResults = Lists.partition(distinctValues, chunkSize)
+                                                  .stream()
+                                                  .map(chunk -> executorService.submit(() -> fetchChunk(chunk, query)))
+                                                  .collect(Collectors.toList());
+        Set<R> results = new LinkedHashSet<>();
+        for (Future<List<R>> chunkResult : chunkResults) {
+            results.addAll(await(chunkResult));
+        }
+        return new ArrayList<>(results);
+    }
+
+    private <V, R> List<R> fetchChunk(List<V> chunk, Function<List<V>, ? extends Collection<R>> query) {
+        return readOnlyTransactionTemplate.execute(status -> new ArrayList<R>(query.apply(chunk)));
+    }
+
+    private <R> List<R> await(Future<List<R>> chunkResult) {
+        try {
+            return chunkResult.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a partitioned query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -27,11 +27,15 @@ package org.ow2.proactive.catalog.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
@@ -72,12 +76,31 @@ public class ReportGeneratorHelper {
     @Value("${pa.catalog.pdf.report.ttf.font.bold.italic.path}")
     private static String ttfFontBoldItalicPath;
 
+    @Value("${pa.catalog.pdf.report.memory.max.bytes:67108864}")
+    private long maxMainMemoryBytes;
+
+    @Value("${pa.catalog.pdf.report.scratch.dir:}")
+    private String scratchDir;
+
     @Autowired
     private SeparatorUtility separatorUtility;
 
     @Autowired
     private CatalogObjectService catalogObjectService;
 
+    /**
+     * Create a document keeping at most {@code pa.catalog.pdf.report.memory.max.bytes} of its streams in memory,
+     * the rest is spilled to a scratch file (in {@code pa.catalog.pdf.report.scratch.dir} when set, otherwise in the
+     * default temporary directory) which is deleted when the document is closed.
+     */
+    public PDDocument createDocument() {
+        MemoryUsageSetting memoryUsageSetting = MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+        if (!StringUtils.isEmpty(scratchDir)) {
+            memoryUsageSetting.setTempDir(new File(scratchDir));
+        }
+        return new PDDocument(memoryUsageSetting);
+    }
+
     public void setFontToUse(PDDocument doc) throws IOException {
         FontUtils.setSansFontsAsDefault(doc);
         addFontTypeIfFileExists(doc, ttfFontPath, "font");
@@ -127,34 +150,34 @@ public class ReportGeneratorHelper {
     }
 
     public CallGraphHolder buildCatalogCallGraph(List<CatalogObjectMetadata> catalogObjectMetadataList) {
+        List<List<String>> dependsOnCatalogObjectsList = catalogObjectMetadataList.stream()
+                                                                                  .map(this::collectDependsOnCatalogObjects)
+                                                                                  .collect(Collectors.toList());
+        // the existence and the kind of all the called objects are resolved at once
+        Set<String> calledCatalogObjects = dependsOnCatalogObjectsList.stream()
+                                                                      .flatMap(List::stream)
+                                                                      .collect(Collectors.toSet());
+        Map<String, String> calledCatalogObjectKinds = calledCatalogObjects.isEmpty() ? Collections.emptyMap()
+                                                                                      : catalogObjectService.getKindsOfCatalogObjects(calledCatalogObjects);
+        Map<String, List<String>> calledBucketAndObjectNames = new HashMap<>();
 
         CallGraphHolder callGraphHolder = new CallGraphHolder();
-        for (CatalogObjectMetadata catalogObjectMetadata : catalogObjectMetadataList) {
-            List<String> dependsOnCatalogObjects = collectDependsOnCatalogObjects(catalogObjectMetadata);
+        for (int i = 0; i < catalogObjectMetadataList.size(); i++) {
+            CatalogObjectMetadata catalogObjectMetadata = catalogObjectMetadataList.get(i);
+            List<String> dependsOnCatalogObjects = dependsOnCatalogObjectsList.get(i);
             if (!dependsOnCatalogObjects.isEmpty()) {
                 GraphNode callingCatalogObject = callGraphHolder.addNode(catalogObjectMetadata.getBucketName(),
                                                                          catalogObjectMetadata.getName(),
                                                                          catalogObjectMetadata.getKind(),
                                                                          true);
-                String bucketName;
-                String objectName;
-                boolean isCatalogObjectExist;
-                String objectKind;
-                GraphNode calledCatalogObject;
                 for (String dependsOnCatalogObject : dependsOnCatalogObjects) {
-                    bucketName = separatorUtility.getSplitBySeparator(dependsOnCatalogObject).get(0);
-                    objectName = separatorUtility.getSplitBySeparator(dependsOnCatalogObject).get(1);
-                    isCatalogObjectExist = catalogObjectService.isDependsOnObjectExistInCatalog(bucketName,
-                                                                                                objectName,
-                                                                                                WorkflowParser.LATEST_VERSION);
-                    objectKind = isCatalogObjectExist ? catalogObjectService.getCatalogObjectMetadata(bucketName,
-                                                                                                      objectName)
-                                                                            .getKind()
-                                                      : "N/A";
-                    calledCatalogObject = callGraphHolder.addNode(bucketName,
-                                                                  objectName,
-                                                                  objectKind,
-                                                                  isCatalogObjectExist);
+                    List<String> bucketAndObjectName = calledBucketAndObjectNames.computeIfAbsent(dependsOnCatalogObject,
+                                                                                                  separatorUtility::getSplitBySeparator);
+                    String objectKind = calledCatalogObjectKinds.get(dependsOnCatalogObject);
+                    GraphNode calledCatalogObject = callGraphHolder.addNode(bucketAndObjectName.get(0),
+                                                                            bucketAndObjectName.get(1),
+                                                                            objectKind != null ? objectKind : "N/A",
+                                                                            objectKind != null);
                     callGraphHolder.addDependsOnEdge(callingCatalogObject, calledCatalogObject);
                 }
             }
@@ -0,0 +1,122 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.callgraph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Test;
+
+
+/**
+ * @author ActiveEon Team
+ */
+public class CallGraphDecompositionTest {
+
+    @Test
+    public void testRootsCalledGraphsAndDepths() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode workflow1 = callGraphHolder.addNode("bucket", "workflow1", "workflow", true);
+        GraphNode workflow2 = callGraphHolder.addNode("bucket", "workflow2", "workflow", true);
+        GraphNode script1 = callGraphHolder.addNode("scripts", "script1", "Script", true);
+        GraphNode script2 = callGraphHolder.addNode("scripts", "script2", "Script", true);
+        GraphNode missing = callGraphHolder.addNode("scripts", "missing", "N/A", false);
+        callGraphHolder.addDependsOnEdge(workflow1, script1);
+        callGraphHolder.addDependsOnEdge(script1, script2);
+        callGraphHolder.addDependsOnEdge(workflow1, script2);
+        callGraphHolder.addDependsOnEdge(workflow2, missing);
+
+        CallGraphDecomposition callGraphDecomposition = new CallGraphDecomposition(callGraphHolder.getCallGraph());
+
+        assertThat(callGraphDecomposition.getRoots()).containsExactly(workflow1, workflow2).inOrder();
+        Graph<GraphNode, DefaultEdge> calledGraph = callGraphDecomposition.getCalledGraph(workflow1);
+        assertThat(calledGraph.vertexSet()).containsExactly(workflow1, script1, script2);
+        assertThat(calledGraph.edgeSet()).hasSize(3);
+        assertThat(callGraphDecomposition.getDepth(workflow1)).isEqualTo(2);
+        assertThat(callGraphDecomposition.getDepth(workflow2)).isEqualTo(1);
+        assertThat(callGraphDecomposition.getDepth(script2)).isEqualTo(0);
+        assertThat(names(callGraphDecomposition.getCallChains(workflow1, 10))).containsExactly("script1,script2",
+                                                                                               "script2");
+    }
+
+    @Test
+    public void testCycles() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode a = callGraphHolder.addNode("bucket", "a", "workflow", true);
+        GraphNode b = callGraphHolder.addNode("bucket", "b", "workflow", true);
+        GraphNode c = callGraphHolder.addNode("bucket", "c", "workflow", true);
+        GraphNode d = callGraphHolder.addNode("bucket", "d", "workflow", true);
+        callGraphHolder.addDependsOnEdge(c, a);
+        callGraphHolder.addDependsOnEdge(a, b);
+        callGraphHolder.addDependsOnEdge(b, c);
+        callGraphHolder.addDependsOnEdge(b, d);
+
+        CallGraphDecomposition callGraphDecomposition = new CallGraphDecomposition(callGraphHolder.getCallGraph());
+
+        // the cycle is not called from outside of it, its first object is the root
+        assertThat(callGraphDecomposition.getRoots()).containsExactly(a);
+        assertThat(callGraphDecomposition.getCalledGraph(a).vertexSet()).containsExactly(a, b, c, d);
+        assertThat(callGraphDecomposition.getDepth(a)).isEqualTo(3);
+        assertThat(names(callGraphDecomposition.getCallChains(a, 10))).containsExactly("b,c,a", "b,d");
+    }
+
+    @Test
+    public void testDeepDiamondGraph() {
+        // 2^40 call chains from the root to the leaf
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode root = callGraphHolder.addNode("bucket", "root", "workflow", true);
+        GraphNode previous = root;
+        for (int level = 0; level < 40; level++) {
+            GraphNode left = callGraphHolder.addNode("bucket", "left" + level, "Script", true);
+            GraphNode right = callGraphHolder.addNode("bucket", "right" + level, "Script", true);
+            GraphNode join = callGraphHolder.addNode("bucket", "join" + level, "Script", true);
+            callGraphHolder.addDependsOnEdge(previous, left);
+            callGraphHolder.addDependsOnEdge(previous, right);
+            callGraphHolder.addDependsOnEdge(left, join);
+            callGraphHolder.addDependsOnEdge(right, join);
+            previous = join;
+        }
+
+        CallGraphDecomposition callGraphDecomposition = new CallGraphDecomposition(callGraphHolder.getCallGraph());
+
+        assertThat(callGraphDecomposition.getRoots()).containsExactly(root);
+        assertThat(callGraphDecomposition.getCalledGraph(root).vertexSet()).hasSize(121);
+        assertThat(callGraphDecomposition.getDepth(root)).isEqualTo(80);
+        assertThat(callGraphDecomposition.getCallChains(root, 5)).hasSize(5);
+    }
+
+    private static List<String> names(List<List<GraphNode>> callChains) {
+        return callChains.stream()
+                         .map(callChain -> callChain.stream()
+                                                    .map(GraphNode::getObjectName)
+                                                    .collect(Collectors.joining(",")))
+                         .collect(Collectors.toList());
+    }
+}
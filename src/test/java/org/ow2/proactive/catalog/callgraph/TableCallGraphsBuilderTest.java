@@ -32,10 +32,13 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -58,6 +61,16 @@ public class TableCallGraphsBuilderTest {
     @Mock
     private CellFactory cellFactory;
 
+    @Before
+    public void setUp() {
+        tableCallGraphsBuilder.init();
+    }
+
+    @After
+    public void tearDown() {
+        tableCallGraphsBuilder.shutdown();
+    }
+
     @Test
     public void buildCallGraphsTableWithCallGraphHolder0Order() throws IOException {
 
@@ -92,4 +105,18 @@ public class TableCallGraphsBuilderTest {
 
     }
 
+    @Test
+    public void boundImageSizeShrinksLargeImagesKeepingTheirRatio() {
+
+        BufferedImage smallImage = new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB);
+        assertThat(tableCallGraphsBuilder.boundImageSize(smallImage)).isSameAs(smallImage);
+
+        BufferedImage largeImage = new BufferedImage(TableCallGraphsBuilder.MAX_IMAGE_WIDTH * 4,
+                                                     TableCallGraphsBuilder.MAX_IMAGE_HEIGHT,
+                                                     BufferedImage.TYPE_INT_ARGB);
+        BufferedImage boundedImage = tableCallGraphsBuilder.boundImageSize(largeImage);
+        assertThat(boundedImage.getWidth()).isEqualTo(TableCallGraphsBuilder.MAX_IMAGE_WIDTH);
+        assertThat(boundedImage.getHeight()).isEqualTo(TableCallGraphsBuilder.MAX_IMAGE_HEIGHT / 4);
+    }
+
 }
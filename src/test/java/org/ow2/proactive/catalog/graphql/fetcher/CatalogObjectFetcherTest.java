@@ -0,0 +1,78 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.graphql.fetcher;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.graphql.bean.common.Arguments;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.service.exception.WrongParametersException;
+
+import graphql.schema.DataFetchingEnvironment;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogObjectFetcherTest {
+
+    @InjectMocks
+    private CatalogObjectFetcher catalogObjectFetcher;
+
+    @Mock
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Mock
+    private DataFetchingEnvironment environment;
+
+    @Test
+    public void testMalformedCursorIsAWrongParameter() {
+        Map<String, Object> pageInfo = new HashMap<>();
+        pageInfo.put("size", 10);
+        pageInfo.put("after", "not a cursor!");
+        when(environment.<Object> getArgument(Arguments.PAGE_INFO.getName())).thenReturn(pageInfo);
+
+        try {
+            catalogObjectFetcher.get(environment);
+            throw new AssertionError("The malformed cursor must be rejected");
+        } catch (WrongParametersException e) {
+            verify(catalogObjectRevisionRepository, never()).findDefaultCatalogObjectsAfter(any(), any(), anyInt());
+        }
+    }
+}
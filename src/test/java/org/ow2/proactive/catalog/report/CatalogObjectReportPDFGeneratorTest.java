@@ -90,6 +90,7 @@ public class CatalogObjectReportPDFGeneratorTest {
         pdPage2 = new PDPage();
         callGraphHolder = new CallGraphHolder();
 
+        when(reportGeneratorHelper.createDocument()).thenAnswer(invocation -> new PDDocument());
         when(reportGeneratorHelper.initializeTable(any(PDDocument.class),
                                                    eq(MARGIN),
                                                    any(PDPage.class))).thenCallRealMethod();
@@ -50,7 +50,7 @@ public class BucketControllerTest {
     private BucketService bucketService;
 
     @Mock
-    private RestApiAccessService restApiAccessService;
+    private AuthorizationContext authorizationContext;
 
     @Mock
     private BucketGrantService bucketGrantService;
@@ -27,13 +27,18 @@ package org.ow2.proactive.catalog.rest.controller;
 
 import static org.mockito.Mockito.*;
 
+import java.lang.reflect.Field;
+import java.util.Collections;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.ow2.proactive.catalog.service.AuthorizationContext;
 import org.ow2.proactive.catalog.service.BucketGrantService;
 import org.ow2.proactive.catalog.service.GrantRightsService;
+import org.ow2.proactive.catalog.service.exception.LostOfAdminGrantRightException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
 
 
@@ -48,6 +53,9 @@ public class BucketGrantControllerTest {
     @Mock
     GrantRightsService grantRightsService;
 
+    @Mock
+    private AuthorizationContext authorizationContext;
+
     private final String DUMMY_SESSION_ID = "12345";
 
     private final String DUMMY_BUCKET_NAME = "dummy-bucket";
@@ -112,6 +120,23 @@ public class BucketGrantControllerTest {
                                                                         DUMMY_GROUP);
     }
 
+    @Test(expected = LostOfAdminGrantRightException.class)
+    public void testUpdateGrantOfOwnGroupChecksTheAdminRightsOfTheRequest() throws Exception {
+        Field sessionIdRequired = BucketGrantController.class.getDeclaredField("sessionIdRequired");
+        sessionIdRequired.setAccessible(true);
+        sessionIdRequired.setBoolean(bucketGrantController, true);
+        AuthenticatedUser user = AuthenticatedUser.builder()
+                                                  .name(DUMMY_USER)
+                                                  .groups(Collections.singletonList(DUMMY_GROUP))
+                                                  .build();
+        when(authorizationContext.getUser()).thenReturn(user);
+        when(authorizationContext.isPublicBucket(DUMMY_BUCKET_NAME)).thenReturn(false);
+        // the rights of the request are read again once the grant of the group is updated
+        when(authorizationContext.getBucketRights(DUMMY_BUCKET_NAME)).thenReturn("admin", "write");
+
+        bucketGrantController.updateBucketGrantForAGroup(DUMMY_SESSION_ID, DUMMY_BUCKET_NAME, DUMMY_GROUP, "write", 1);
+    }
+
     @Test
     public void testDeleteBucketGrant() {
         bucketGrantController.deleteBucketGrantForAUser(DUMMY_SESSION_ID, DUMMY_BUCKET_NAME, DUMMY_USER);
@@ -26,13 +26,13 @@
 package org.ow2.proactive.catalog.rest.controller;
 
 import static org.mockito.Matchers.anyList;
-import static org.mockito.Matchers.anyObject;
-import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -77,8 +77,6 @@ public class CatalogObjectCallGraphControllerTest {
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
 
-        byte[] content = "some data to test".getBytes();
-
         List<BucketMetadata> authorisedBuckets = Lists.newArrayList(new BucketMetadata("bucket2", "xxx"),
                                                                     new BucketMetadata("bucket5", "xxx"));
 
@@ -87,15 +85,11 @@ public class CatalogObjectCallGraphControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
 
         when(bucketService.listBuckets(ownerName, kind, contentType)).thenReturn(authorisedBuckets);
-        when(catalogObjectCallGraphService.generateBytesCallGraph(anyList(),
-                                                                  anyObject(),
-                                                                  anyObject())).thenReturn(content);
 
         CatalogObjectCallGraphController.getCallGraph(response, "sessionid", "xxx", Optional.empty(), Optional.empty());
-        verify(response, times(1)).addHeader("Content-size", new Integer(content.length).toString());
         verify(response, times(1)).setCharacterEncoding("UTF-8");
 
-        verify(sos, times(1)).write(content);
+        verify(catalogObjectCallGraphService, times(1)).writeCallGraph(anyList(), eq(kind), eq(contentType), eq(sos));
 
         verify(sos, times(1)).flush();
 
@@ -107,8 +101,6 @@ public class CatalogObjectCallGraphControllerTest {
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
 
-        byte[] content = "some data to test".getBytes();
-
         List<BucketMetadata> authorisedBuckets = Lists.newArrayList(new BucketMetadata("bucket2", "xxx"),
                                                                     new BucketMetadata("bucket5", "xxx"));
 
@@ -117,10 +109,6 @@ public class CatalogObjectCallGraphControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
 
         when(bucketService.listBuckets("xxx", kind, contentType)).thenReturn(authorisedBuckets);
-        when(catalogObjectCallGraphService.generateBytesCallGraphForSelectedObjects(anyString(),
-                                                                                    anyList(),
-                                                                                    anyObject(),
-                                                                                    anyObject())).thenReturn(content);
 
         String bucketName = "basic-examples";
         Optional<List<String>> catalogObjectsNames = Optional.of(Lists.newArrayList("object1"));
@@ -131,10 +119,13 @@ public class CatalogObjectCallGraphControllerTest {
                                                                         kind,
                                                                         contentType,
                                                                         catalogObjectsNames);
-        verify(response, times(1)).addHeader("Content-size", new Integer(content.length).toString());
         verify(response, times(1)).setCharacterEncoding("UTF-8");
 
-        verify(sos, times(1)).write(content);
+        verify(catalogObjectCallGraphService, times(1)).writeCallGraphForSelectedObjects(eq(bucketName),
+                                                                                         eq(catalogObjectsNames.get()),
+                                                                                         eq(kind),
+                                                                                         eq(contentType),
+                                                                                         eq(sos));
 
         verify(sos, times(1)).flush();
 
@@ -146,15 +137,10 @@ public class CatalogObjectCallGraphControllerTest {
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
 
-        byte[] content = "some data to test".getBytes();
-
         HttpServletResponse response = mock(HttpServletResponse.class);
         ServletOutputStream sos = mock(ServletOutputStream.class);
         when(response.getOutputStream()).thenReturn(sos);
 
-        when(catalogObjectCallGraphService.generateBytesCallGraph(anyList(),
-                                                                  anyObject(),
-                                                                  anyObject())).thenReturn(content);
 
         String bucketName = "basic-examples";
         Optional<List<String>> catalogObjectsNames = Optional.empty();
@@ -165,10 +151,12 @@ public class CatalogObjectCallGraphControllerTest {
                                                                         kind,
                                                                         contentType,
                                                                         catalogObjectsNames);
-        verify(response, times(1)).addHeader("Content-size", new Integer(content.length).toString());
         verify(response, times(1)).setCharacterEncoding("UTF-8");
 
-        verify(sos, times(1)).write(content);
+        verify(catalogObjectCallGraphService, times(1)).writeCallGraph(eq(Collections.singletonList(bucketName)),
+                                                                       eq(kind),
+                                                                       eq(contentType),
+                                                                       eq(sos));
 
         verify(sos, times(1)).flush();
 
@@ -27,8 +27,10 @@ package org.ow2.proactive.catalog.rest.controller;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -37,8 +39,11 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.servlet.ServletOutputStream;
@@ -52,13 +57,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.dto.CatalogObjectMetadataPage;
 import org.ow2.proactive.catalog.dto.CatalogRawObject;
 import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectNameFilter;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
 import org.ow2.proactive.catalog.service.*;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.util.ArchiveManagerHelper;
-import org.ow2.proactive.catalog.util.ArchiveManagerHelper.ZipArchiveContent;
 import org.ow2.proactive.catalog.util.RawObjectResponseCreator;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.springframework.http.HttpHeaders;
@@ -117,9 +123,7 @@ public class CatalogObjectControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
         List<String> nameList = new ArrayList<>();
         nameList.add("workflowname");
-        ZipArchiveContent content = new ZipArchiveContent();
-        content.setContent(new byte[0]);
-        when(catalogObjectService.getCatalogObjectsAsZipArchive("bucket-name", nameList)).thenReturn(content);
+        when(catalogObjectService.getExistingCatalogObjectNames("bucket-name", nameList)).thenReturn(nameList);
         catalogObjectController.list("",
                                      "bucket-name",
                                      Optional.empty(),
@@ -129,13 +133,14 @@ public class CatalogObjectControllerTest {
                                      Optional.of(nameList),
                                      0,
                                      Integer.MAX_VALUE,
+                                     Optional.empty(),
                                      response);
-        verify(catalogObjectService, times(1)).getCatalogObjectsAsZipArchive("bucket-name", nameList);
+        verify(catalogObjectService, times(1)).getExistingCatalogObjectNames("bucket-name", nameList);
         verify(response, times(1)).setStatus(HttpServletResponse.SC_OK);
         verify(response, times(1)).setContentType("application/zip");
         verify(response, times(1)).addHeader(HttpHeaders.CONTENT_ENCODING, "binary");
         verify(response, times(1)).addHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"archive.zip\"");
-        verify(sos, times(1)).write(any());
+        verify(catalogObjectService, times(1)).writeCatalogObjectsAsZipArchive("bucket-name", nameList, sos);
         verify(sos, times(1)).flush();
     }
 
@@ -147,10 +152,8 @@ public class CatalogObjectControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
         List<String> nameList = new ArrayList<>();
         nameList.add("workflowname");
-        ZipArchiveContent content = new ZipArchiveContent();
-        content.setContent(new byte[0]);
-        content.setPartial(true);
-        when(catalogObjectService.getCatalogObjectsAsZipArchive("bucket-name", nameList)).thenReturn(content);
+        when(catalogObjectService.getExistingCatalogObjectNames("bucket-name",
+                                                                nameList)).thenReturn(Collections.emptyList());
         catalogObjectController.list("",
                                      "bucket-name",
                                      Optional.empty(),
@@ -160,9 +163,11 @@ public class CatalogObjectControllerTest {
                                      Optional.of(nameList),
                                      0,
                                      Integer.MAX_VALUE,
+                                     Optional.empty(),
                                      response);
-        verify(catalogObjectService, times(1)).getCatalogObjectsAsZipArchive("bucket-name", nameList);
+        verify(catalogObjectService, times(1)).getExistingCatalogObjectNames("bucket-name", nameList);
         verify(response, never()).setStatus(HttpServletResponse.SC_OK);
+        verify(response, times(1)).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
     }
 
     @Test
@@ -181,16 +186,52 @@ public class CatalogObjectControllerTest {
                                      Optional.empty(),
                                      0,
                                      Integer.MAX_VALUE,
+                                     Optional.empty(),
                                      response);
         verify(catalogObjectService, times(1)).listCatalogObjects(anyList(),
                                                                   any(Optional.class),
                                                                   any(Optional.class),
                                                                   any(Optional.class),
                                                                   any(Optional.class),
+                                                                  any(CatalogObjectNameFilter.class),
                                                                   any(Integer.class),
                                                                   any(Integer.class));
     }
 
+    @Test
+    public void testListWithCursor() throws Exception {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(catalogObjectService.listCatalogObjects(anyList(),
+                                                     any(Optional.class),
+                                                     any(Optional.class),
+                                                     any(Optional.class),
+                                                     any(Optional.class),
+                                                     any(CatalogObjectNameFilter.class),
+                                                     eq(Optional.empty()),
+                                                     eq(10))).thenReturn(new CatalogObjectMetadataPage(new ArrayList<>(),
+                                                                                                       "next"));
+        ResponseEntity<List<CatalogObjectMetadata>> page = catalogObjectController.list("",
+                                                                                        "bucket-name",
+                                                                                        Optional.empty(),
+                                                                                        Optional.empty(),
+                                                                                        Optional.empty(),
+                                                                                        Optional.empty(),
+                                                                                        Optional.empty(),
+                                                                                        0,
+                                                                                        10,
+                                                                                        Optional.of(""),
+                                                                                        response);
+        assertThat(page.getHeaders().getFirst(CatalogObjectController.NEXT_CURSOR_HEADER)).isEqualTo("next");
+        verify(catalogObjectService, never()).listCatalogObjects(anyList(),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(CatalogObjectNameFilter.class),
+                                                                 anyInt(),
+                                                                 anyInt());
+    }
+
     @Test
     public void testGetRaw() throws Exception {
         CatalogRawObject rawObject = new CatalogRawObject("bucket-name",
@@ -236,4 +277,20 @@ public class CatalogObjectControllerTest {
         assertThat(mock).isEqualTo(result);
         verify(catalogObjectService, times(1)).delete(anyString(), anyString());
     }
+
+    @Test
+    public void testGetCatalogObjectsRightsWithoutSessionOmitsMissingObjects() throws Exception {
+        Map<String, List<String>> requestedNames = new LinkedHashMap<>();
+        requestedNames.put("bucket-a", Arrays.asList("object-1", "missing"));
+        requestedNames.put("missing-bucket", Collections.singletonList("object-1"));
+        Map<String, List<String>> existingNames = new LinkedHashMap<>();
+        existingNames.put("bucket-a", Collections.singletonList("object-1"));
+        when(grantRightsService.filterExistingCatalogObjects(requestedNames)).thenReturn(existingNames);
+
+        Map<String, Map<String, String>> rights = catalogObjectController.getCatalogObjectsRights("", requestedNames);
+
+        assertThat(rights.keySet()).containsExactly("bucket-a");
+        assertThat(rights.get("bucket-a").keySet()).containsExactly("object-1");
+        assertThat(rights.get("bucket-a").get("object-1")).isEqualTo("admin");
+    }
 }
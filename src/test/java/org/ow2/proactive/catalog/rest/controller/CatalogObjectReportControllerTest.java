@@ -26,13 +26,13 @@
 package org.ow2.proactive.catalog.rest.controller;
 
 import static org.mockito.Matchers.anyList;
-import static org.mockito.Matchers.anyObject;
-import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -77,8 +77,6 @@ public class CatalogObjectReportControllerTest {
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
 
-        byte[] content = "some data to test".getBytes();
-
         List<BucketMetadata> authorisedBuckets = Lists.newArrayList(new BucketMetadata("bucket2", "xxx"),
                                                                     new BucketMetadata("bucket5", "xxx"));
 
@@ -87,13 +85,11 @@ public class CatalogObjectReportControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
 
         when(bucketService.listBuckets(ownerName, kind, contentType)).thenReturn(authorisedBuckets);
-        when(catalogObjectReportService.generateBytesReport(anyList(), anyObject(), anyObject())).thenReturn(content);
 
         catalogObjectReportController.getReport(response, "sessionid", "xxx", Optional.empty(), Optional.empty());
-        verify(response, times(1)).addHeader("Content-size", new Integer(content.length).toString());
         verify(response, times(1)).setCharacterEncoding("UTF-8");
 
-        verify(sos, times(1)).write(content);
+        verify(catalogObjectReportService, times(1)).writeReport(anyList(), eq(kind), eq(contentType), eq(sos));
 
         verify(sos, times(1)).flush();
 
@@ -105,8 +101,6 @@ public class CatalogObjectReportControllerTest {
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
 
-        byte[] content = "some data to test".getBytes();
-
         List<BucketMetadata> authorisedBuckets = Lists.newArrayList(new BucketMetadata("bucket2", "xxx"),
                                                                     new BucketMetadata("bucket5", "xxx"));
 
@@ -115,10 +109,6 @@ public class CatalogObjectReportControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
 
         when(bucketService.listBuckets("xxx", kind, contentType)).thenReturn(authorisedBuckets);
-        when(catalogObjectReportService.generateBytesReportForSelectedObjects(anyString(),
-                                                                              anyList(),
-                                                                              anyObject(),
-                                                                              anyObject())).thenReturn(content);
 
         String bucketName = "basic-examples";
         Optional<List<String>> catalogObjectsNames = Optional.of(Lists.newArrayList("object1"));
@@ -128,10 +118,13 @@ public class CatalogObjectReportControllerTest {
                                                                   kind,
                                                                   contentType,
                                                                   catalogObjectsNames);
-        verify(response, times(1)).addHeader("Content-size", new Integer(content.length).toString());
         verify(response, times(1)).setCharacterEncoding("UTF-8");
 
-        verify(sos, times(1)).write(content);
+        verify(catalogObjectReportService, times(1)).writeReportForSelectedObjects(eq(bucketName),
+                                                                                   eq(catalogObjectsNames.get()),
+                                                                                   eq(kind),
+                                                                                   eq(contentType),
+                                                                                   eq(sos));
 
         verify(sos, times(1)).flush();
 
@@ -143,13 +136,10 @@ public class CatalogObjectReportControllerTest {
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
 
-        byte[] content = "some data to test".getBytes();
-
         HttpServletResponse response = mock(HttpServletResponse.class);
         ServletOutputStream sos = mock(ServletOutputStream.class);
         when(response.getOutputStream()).thenReturn(sos);
 
-        when(catalogObjectReportService.generateBytesReport(anyList(), anyObject(), anyObject())).thenReturn(content);
 
         String bucketName = "basic-examples";
         Optional<List<String>> catalogObjectsNames = Optional.empty();
@@ -159,10 +149,12 @@ public class CatalogObjectReportControllerTest {
                                                                   kind,
                                                                   contentType,
                                                                   catalogObjectsNames);
-        verify(response, times(1)).addHeader("Content-size", new Integer(content.length).toString());
         verify(response, times(1)).setCharacterEncoding("UTF-8");
 
-        verify(sos, times(1)).write(content);
+        verify(catalogObjectReportService, times(1)).writeReport(eq(Collections.singletonList(bucketName)),
+                                                                 eq(kind),
+                                                                 eq(contentType),
+                                                                 eq(sos));
 
         verify(sos, times(1)).flush();
 
@@ -0,0 +1,148 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.dto.BucketMetadata;
+import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuthorizationContextTest {
+
+    @InjectMocks
+    private AuthorizationContext authorizationContext;
+
+    @Mock
+    private SchedulerUserAuthenticationService schedulerUserAuthenticationService;
+
+    @Mock
+    private BucketService bucketService;
+
+    @Mock
+    private GrantRightsService grantRightsService;
+
+    @Mock
+    private GrantRightsCache grantRightsCache;
+
+    @Mock
+    private AuthorizationService authorizationService;
+
+    private final AuthenticatedUser user = AuthenticatedUser.builder()
+                                                            .name("user")
+                                                            .groups(Collections.singletonList("group"))
+                                                            .build();
+
+    @Before
+    public void setUp() {
+        authorizationContext.setSessionId("sessionId");
+        when(schedulerUserAuthenticationService.authenticateBySessionId("sessionId")).thenReturn(user);
+        when(grantRightsCache.getGeneration()).thenReturn(0L);
+    }
+
+    @Test
+    public void testUserIsAuthenticatedOncePerRequest() {
+        assertThat(authorizationContext.getUser()).isEqualTo(user);
+        authorizationContext.getBucketRights("bucket");
+        authorizationContext.getCatalogObjectRights("bucket", "object");
+
+        verify(schedulerUserAuthenticationService, times(1)).authenticateBySessionId("sessionId");
+    }
+
+    @Test(expected = AccessDeniedException.class)
+    public void testInactiveSessionIsDenied() {
+        authorizationContext.setSessionId("inactive");
+        authorizationContext.getUser();
+    }
+
+    @Test
+    public void testOwnerOrGroupAccessIsGranted() {
+        when(authorizationService.askUserAuthorizationByBucketOwner(user, "GROUP:group")).thenReturn(true);
+
+        assertThat(authorizationContext.checkOwnerOrGroupAccess("GROUP:group")).isEqualTo(user);
+        authorizationContext.getBucketRights("bucket");
+
+        verify(schedulerUserAuthenticationService, times(1)).authenticateBySessionId("sessionId");
+    }
+
+    @Test(expected = AccessDeniedException.class)
+    public void testOwnerOrGroupAccessIsDenied() {
+        when(authorizationService.askUserAuthorizationByBucketOwner(user, "GROUP:other")).thenReturn(false);
+
+        authorizationContext.checkOwnerOrGroupAccess("GROUP:other");
+    }
+
+    @Test
+    public void testRightsAreResolvedOncePerRequest() {
+        when(grantRightsService.getBucketRights(user, "bucket")).thenReturn("write");
+        when(grantRightsService.getCatalogObjectRights(user, "bucket", "object")).thenReturn("read");
+
+        assertThat(authorizationContext.getBucketRights("bucket")).isEqualTo("write");
+        assertThat(authorizationContext.getBucketRights("bucket")).isEqualTo("write");
+        assertThat(authorizationContext.getCatalogObjectRights("bucket", "object")).isEqualTo("read");
+        assertThat(authorizationContext.getCatalogObjectRights("bucket", "object")).isEqualTo("read");
+
+        verify(grantRightsService, times(1)).getBucketRights(user, "bucket");
+        verify(grantRightsService, times(1)).getCatalogObjectRights(user, "bucket", "object");
+    }
+
+    @Test
+    public void testRightsAreResolvedAgainWhenTheGrantsChange() {
+        when(grantRightsService.getBucketRights(user, "bucket")).thenReturn("admin", "read");
+
+        assertThat(authorizationContext.getBucketRights("bucket")).isEqualTo("admin");
+        when(grantRightsCache.getGeneration()).thenReturn(1L);
+        assertThat(authorizationContext.getBucketRights("bucket")).isEqualTo("read");
+
+        verify(grantRightsService, times(2)).getBucketRights(user, "bucket");
+    }
+
+    @Test
+    public void testBucketIsLoadedOncePerRequest() {
+        when(bucketService.getBucketMetadata(anyString())).thenReturn(new BucketMetadata("bucket",
+                                                                                         BucketService.DEFAULT_BUCKET_OWNER));
+
+        assertThat(authorizationContext.isPublicBucket("bucket")).isTrue();
+        assertThat(authorizationContext.getBucket("bucket").getName()).isEqualTo("bucket");
+
+        verify(bucketService, times(1)).getBucketMetadata(eq("bucket"));
+    }
+}
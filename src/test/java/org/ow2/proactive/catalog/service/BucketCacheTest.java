@@ -0,0 +1,128 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.service.model.CachedBucket;
+
+
+public class BucketCacheTest {
+
+    private BucketCache bucketCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        bucketCache = new BucketCache();
+        bucketCache.enabled = true;
+        bucketCache.maximumSize = 100;
+        bucketCache.expirationSeconds = 60;
+        bucketCache.init();
+        loads.set(0);
+    }
+
+    @Test
+    public void testBucketIsLoadedOnce() {
+        CachedBucket bucket = bucketCache.getBucket("bucket", loader(1L, "owner"));
+        assertThat(bucket.getId()).isEqualTo(1L);
+        assertThat(bucket.getName()).isEqualTo("bucket");
+        assertThat(bucket.getOwner()).isEqualTo("owner");
+
+        assertThat(bucketCache.getBucket("bucket", loader(2L, "other-owner")).getOwner()).isEqualTo("owner");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(bucketCache.getHitCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testMissingBucketIsNotCached() {
+        assertThat(bucketCache.getBucket("bucket", name -> null)).isNull();
+        assertThat(bucketCache.getBucket("bucket", loader(1L, "owner")).getId()).isEqualTo(1L);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidate() {
+        bucketCache.getBucket("bucket", loader(1L, "owner"));
+        bucketCache.getBucket("other-bucket", loader(2L, "owner"));
+
+        bucketCache.invalidate("bucket");
+
+        assertThat(bucketCache.getBucket("bucket", loader(1L, "new-owner")).getOwner()).isEqualTo("new-owner");
+        assertThat(bucketCache.getBucket("other-bucket", loader(2L, "new-owner")).getOwner()).isEqualTo("owner");
+        assertThat(bucketCache.getInvalidationCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        bucketCache.getBucket("bucket", loader(1L, "owner"));
+        bucketCache.getBucket("other-bucket", loader(2L, "owner"));
+
+        bucketCache.invalidateAll();
+
+        bucketCache.getBucket("bucket", loader(1L, "owner"));
+        bucketCache.getBucket("other-bucket", loader(2L, "owner"));
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testBucketLoadedDuringAnInvalidationIsNotCached() {
+        bucketCache.getBucket("bucket", name -> {
+            bucketCache.invalidate(name);
+            return newBucket(name, 1L, "owner");
+        });
+
+        assertThat(bucketCache.getBucket("bucket", loader(1L, "new-owner")).getOwner()).isEqualTo("new-owner");
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysLoads() {
+        bucketCache.enabled = false;
+        bucketCache.getBucket("bucket", loader(1L, "owner"));
+        bucketCache.getBucket("bucket", loader(1L, "owner"));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Function<String, BucketEntity> loader(long id, String owner) {
+        return name -> {
+            loads.incrementAndGet();
+            return newBucket(name, id, owner);
+        };
+    }
+
+    private BucketEntity newBucket(String name, long id, String owner) {
+        BucketEntity bucketEntity = new BucketEntity(name, owner);
+        bucketEntity.setId(id);
+        return bucketEntity;
+    }
+}
@@ -43,6 +43,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
@@ -64,12 +65,18 @@ public class BucketGrantServiceTest {
     @Mock
     private BucketRepository bucketRepository;
 
+    @Spy
+    private BucketCache bucketCache = new BucketCache();
+
     @Mock
     private BucketGrantRepository bucketGrantRepository;
 
     @Mock
     private CatalogObjectGrantService catalogObjectGrantService;
 
+    @Mock
+    private GrantRightsCache grantRightsCache;
+
     private final String DUMMY_USERNAME = "dummyUser";
 
     private final String DUMMY_CURRENT_USERNAME = "dummyAdmin";
@@ -0,0 +1,192 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BucketOwnerRevisionServiceTest {
+
+    private static final Long BUCKET_ID = 1L;
+
+    private static final String BUCKET = "bucket";
+
+    private static final String OWNER = "GROUP:owner";
+
+    @InjectMocks
+    private BucketOwnerRevisionService bucketOwnerRevisionService;
+
+    @Mock
+    private BucketRepository bucketRepository;
+
+    @Mock
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Mock
+    private CatalogObjectService catalogObjectService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        bucketOwnerRevisionService.batchSize = 2;
+        when(bucketRepository.updateOwnerRevisionCursor(eq(BUCKET_ID), eq(OWNER), anyString())).thenReturn(1);
+    }
+
+    @Test
+    public void testObjectsAreRevisedByBatchesAndTheCursorIsSaved() {
+        List<CatalogObjectRevisionEntity> firstBatch = headRevisions("a", "b");
+        List<CatalogObjectRevisionEntity> secondBatch = headRevisions("c");
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketOrderedByName(BUCKET_ID,
+                                                                                            new PageRequest(0,
+                                                                                                            2))).thenReturn(firstBatch);
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketAfterName(BUCKET_ID,
+                                                                                        "b",
+                                                                                        new PageRequest(0,
+                                                                                                        2))).thenReturn(secondBatch);
+
+        long revisedObjects = bucketOwnerRevisionService.reviseObjectsOfBucket(BUCKET_ID, BUCKET, OWNER, null);
+
+        assertThat(revisedObjects).isEqualTo(3);
+        for (CatalogObjectRevisionEntity headRevision : firstBatch) {
+            verify(catalogObjectService).createCatalogObjectRevision(headRevision,
+                                                                     BucketOwnerRevisionService.COMMIT_MESSAGE_UPDATE_BUCKET,
+                                                                     true);
+        }
+        verify(bucketRepository).updateOwnerRevisionCursor(BUCKET_ID, OWNER, "b");
+        verify(bucketRepository).updateOwnerRevisionCursor(BUCKET_ID, OWNER, "c");
+        verify(bucketRepository).completeOwnerRevision(BUCKET_ID, OWNER);
+        assertThat(bucketOwnerRevisionService.getRevisedObjects()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFirstPageIsReadWithoutNamePredicate() {
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketOrderedByName(BUCKET_ID,
+                                                                                            new PageRequest(0,
+                                                                                                            2))).thenReturn(headRevisions("a"));
+
+        // an empty cursor is read as null on Oracle, both start from the first object
+        assertThat(bucketOwnerRevisionService.reviseObjectsOfBucket(BUCKET_ID, BUCKET, OWNER, null)).isEqualTo(1);
+        assertThat(bucketOwnerRevisionService.reviseObjectsOfBucket(BUCKET_ID, BUCKET, OWNER, "")).isEqualTo(1);
+
+        verify(catalogObjectRevisionRepository, never()).findDefaultCatalogObjectsInBucketAfterName(eq(BUCKET_ID),
+                                                                                                    eq(""),
+                                                                                                    any(Pageable.class));
+        verify(catalogObjectService, times(2)).createCatalogObjectRevision(any(CatalogObjectRevisionEntity.class),
+                                                                          eq(BucketOwnerRevisionService.COMMIT_MESSAGE_UPDATE_BUCKET),
+                                                                          eq(true));
+    }
+
+    @Test
+    public void testRevisionResumesAfterTheCursor() {
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketAfterName(BUCKET_ID,
+                                                                                        "b",
+                                                                                        new PageRequest(0,
+                                                                                                        2))).thenReturn(headRevisions("c"));
+
+        long revisedObjects = bucketOwnerRevisionService.reviseObjectsOfBucket(BUCKET_ID, BUCKET, OWNER, "b");
+
+        assertThat(revisedObjects).isEqualTo(1);
+        verify(catalogObjectRevisionRepository, never()).findDefaultCatalogObjectsInBucketOrderedByName(eq(BUCKET_ID),
+                                                                                                        any(Pageable.class));
+        verify(bucketRepository).completeOwnerRevision(BUCKET_ID, OWNER);
+    }
+
+    @Test
+    public void testRevisionStopsWhenTheOwnerChanged() {
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketOrderedByName(BUCKET_ID,
+                                                                                            new PageRequest(0,
+                                                                                                            2))).thenReturn(headRevisions("a",
+                                                                                                                                      "b"));
+        when(bucketRepository.updateOwnerRevisionCursor(BUCKET_ID, OWNER, "b")).thenReturn(0);
+
+        long revisedObjects = bucketOwnerRevisionService.reviseObjectsOfBucket(BUCKET_ID, BUCKET, OWNER, null);
+
+        assertThat(revisedObjects).isEqualTo(0);
+        verify(catalogObjectRevisionRepository, times(1)).findDefaultCatalogObjectsInBucketOrderedByName(BUCKET_ID,
+                                                                                                         new PageRequest(0,
+                                                                                                                         2));
+        verify(catalogObjectRevisionRepository, never()).findDefaultCatalogObjectsInBucketAfterName(eq(BUCKET_ID),
+                                                                                                    anyString(),
+                                                                                                    any(Pageable.class));
+    }
+
+    @Test
+    public void testPendingBucketsAreRevised() {
+        when(bucketRepository.findPendingOwnerRevisions()).thenReturn(Collections.singletonList(new Object[] { BUCKET_ID,
+                                                                                                               BUCKET,
+                                                                                                               OWNER,
+                                                                                                               null }));
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectsInBucketOrderedByName(BUCKET_ID,
+                                                                                            new PageRequest(0,
+                                                                                                            2))).thenReturn(headRevisions("a"));
+
+        assertThat(bucketOwnerRevisionService.reviseObjectsOfPendingBuckets()).isEqualTo(1);
+        verify(bucketRepository).completeOwnerRevision(BUCKET_ID, OWNER);
+    }
+
+    private List<CatalogObjectRevisionEntity> headRevisions(String... names) {
+        return Arrays.stream(names)
+                     .map(name -> CatalogObjectRevisionEntity.builder()
+                                                             .catalogObject(CatalogObjectEntity.builder()
+                                                                                               .id(new CatalogObjectEntity.CatalogObjectEntityKey(BUCKET_ID,
+                                                                                                                                                  name))
+                                                                                               .build())
+                                                             .build())
+                     .collect(Collectors.toList());
+    }
+}
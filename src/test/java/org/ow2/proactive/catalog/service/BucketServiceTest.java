@@ -37,29 +37,24 @@ import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
-import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
-import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.service.exception.BucketNameIsNotValidException;
 import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.DeleteNonEmptyBucketException;
 import org.ow2.proactive.catalog.util.name.validator.BucketNameValidator;
-import org.ow2.proactive.catalog.util.parser.SupportedParserKinds;
 import org.springframework.data.domain.Sort;
 
 
@@ -74,18 +69,21 @@ public class BucketServiceTest {
     @InjectMocks
     private BucketService bucketService;
 
-    @Mock
-    private CatalogObjectService catalogObjectService;
-
     @Mock
     private BucketRepository bucketRepository;
 
+    @Spy
+    private BucketCache bucketCache = new BucketCache();
+
     @Mock
     private BucketNameValidator bucketNameValidator;
 
     @Mock
     private BucketGrantService bucketGrantService;
 
+    @Mock
+    private GrantRightsCache grantRightsCache;
+
     @Test
     public void testThatEmptyListIsReturnedIfListAndKindAreNull() {
         assertThat(bucketService.listBuckets((List<String>) null, null, null, null, null)).isEmpty();
@@ -130,30 +128,14 @@ public class BucketServiceTest {
         BucketEntity mockedBucket = newMockedBucket(1L, "bucket-name", LocalDateTime.now());
         BucketEntity mockedBucketWithOwner = newMockedBucket(1L, "bucket-name", LocalDateTime.now());
         mockedBucketWithOwner.setOwner(DEFAULT_BUCKET_NAME);
-        List<CatalogObjectRevisionEntity> objectsList = new ArrayList<>();
-        CatalogObjectRevisionEntity catalogObjectRevisionEntity = CatalogObjectRevisionEntity.builder()
-                                                                                             .catalogObject(CatalogObjectEntity.builder()
-                                                                                                                               .kind(SupportedParserKinds.WORKFLOW.toString())
-                                                                                                                               .kindLower(SupportedParserKinds.WORKFLOW.toString())
-                                                                                                                               .build())
-                                                                                             .build();
-        objectsList.add(catalogObjectRevisionEntity);
-
         when(bucketRepository.findOneByBucketName(anyString())).thenReturn(mockedBucket);
         when(bucketRepository.save(mockedBucket)).thenReturn(mockedBucketWithOwner);
-        when(catalogObjectService.listCatalogObjectsEntities((Arrays.asList(bucketName)),
-                                                             0,
-                                                             Integer.MAX_VALUE)).thenReturn(objectsList);
 
         BucketMetadata bucketMetadata = bucketService.updateOwnerByBucketName(bucketName, DEFAULT_BUCKET_NAME);
         verify(mockedBucket, times(1)).setOwner(DEFAULT_BUCKET_NAME);
         verify(bucketRepository, times(1)).findOneByBucketName(bucketName);
         verify(bucketRepository, times(1)).save(mockedBucket);
-        verify(catalogObjectService, times(1)).listCatalogObjectsEntities(Arrays.asList(bucketName),
-                                                                          0,
-                                                                          Integer.MAX_VALUE);
-        verify(catalogObjectService, times(1)).createCatalogObjectRevision(catalogObjectRevisionEntity,
-                                                                           BucketService.COMMIT_MESSAGE_UPDATE_BUCKET);
+        verify(bucketRepository, times(1)).markOwnerRevisionPending(mockedBucketWithOwner.getId());
         assertEquals(mockedBucketWithOwner.getBucketName(), bucketMetadata.getName());
         assertEquals(mockedBucketWithOwner.getOwner(), bucketMetadata.getOwner());
     }
@@ -199,7 +181,7 @@ public class BucketServiceTest {
     public void testDeleteEmptyBucket() {
         BucketEntity mockedBucket = newMockedBucket(1L, "bucket-name", LocalDateTime.now());
 
-        when(mockedBucket.getCatalogObjects()).thenReturn(new HashSet<>());
+        when(mockedBucket.getObjectCount()).thenReturn(0);
         when(bucketRepository.findBucketForUpdate(anyString())).thenReturn(mockedBucket);
         BucketMetadata bucketMetadata = bucketService.deleteEmptyBucket("bucket-name");
         verify(bucketRepository, times(1)).findBucketForUpdate("bucket-name");
@@ -216,19 +198,7 @@ public class BucketServiceTest {
     @Test(expected = DeleteNonEmptyBucketException.class)
     public void testNotEmptyBucket() {
         BucketEntity mockedBucket = newMockedBucket(1L, "bucket-name", LocalDateTime.now());
-        Set<CatalogObjectEntity> objects = new HashSet<>();
-        CatalogObjectEntity catalogObjectEntity = CatalogObjectEntity.builder()
-                                                                     .id(new CatalogObjectEntity.CatalogObjectEntityKey(mockedBucket.getId(),
-                                                                                                                        "catalog"))
-                                                                     .nameLower("catalog")
-                                                                     .kind("object")
-                                                                     .kindLower("object")
-                                                                     .contentType("application/xml")
-                                                                     .contentTypeLower("application/xml")
-                                                                     .bucket(mockedBucket)
-                                                                     .build();
-        objects.add(catalogObjectEntity);
-        when(mockedBucket.getCatalogObjects()).thenReturn(objects);
+        when(mockedBucket.getObjectCount()).thenReturn(1);
         when(bucketRepository.findBucketForUpdate(anyString())).thenReturn(mockedBucket);
         bucketService.deleteEmptyBucket("bucket-name");
         verify(bucketRepository, times(1)).findBucketForUpdate("bucket-name");
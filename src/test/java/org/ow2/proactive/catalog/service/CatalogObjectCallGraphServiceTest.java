@@ -29,8 +29,13 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,6 +43,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.callgraph.CatalogObjectCallGraphPDFGenerator;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
@@ -72,10 +78,13 @@ public class CatalogObjectCallGraphServiceTest {
     @Mock
     private CatalogObjectService catalogObjectService;
 
+    @Spy
+    private ReportArtifactCache reportArtifactCache = new ReportArtifactCache();
+
     private SeparatorUtility separatorUtility = new SeparatorUtility();
 
     @Test
-    public void testGenerateBytesCallGraph() {
+    public void testWriteCallGraph() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
@@ -89,13 +98,13 @@ public class CatalogObjectCallGraphServiceTest {
                                                      any(Optional.class),
                                                      any(Optional.class))).thenReturn(objectsMetadata);
 
-        when(catalogObjectCallGraphPDFGenerator.generatePdfImage(objectsMetadata,
-                                                                 kind,
-                                                                 contentType)).thenReturn("onetwothree".getBytes());
+        mockCallGraphGeneration(objectsMetadata, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectCallGraphService.generateBytesCallGraph(authorisedBucketsNames,
-                                                                              kind,
-                                                                              contentType);
+        catalogObjectCallGraphService.writeCallGraph(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -103,7 +112,7 @@ public class CatalogObjectCallGraphServiceTest {
     }
 
     @Test
-    public void testGenerateBytesCallGraphForSelectedObjects() {
+    public void testWriteCallGraphForSelectedObjects() throws IOException {
         String bucketsName = "bucket3";
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
@@ -116,14 +125,17 @@ public class CatalogObjectCallGraphServiceTest {
         List<CatalogObjectMetadata> objectsMetadata = Lists.newArrayList(one, two);
         when(catalogObjectService.listSelectedCatalogObjects(anyString(), anyList())).thenReturn(objectsMetadata);
 
-        when(catalogObjectCallGraphPDFGenerator.generatePdfImage(objectsMetadata,
-                                                                 kind,
-                                                                 contentType)).thenReturn("onetwo".getBytes());
+        mockCallGraphGeneration(objectsMetadata, kind, contentType, "onetwo");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectCallGraphService.generateBytesCallGraphForSelectedObjects(bucketsName,
-                                                                                                objectsName,
-                                                                                                kind,
-                                                                                                contentType);
+        catalogObjectCallGraphService.writeCallGraphForSelectedObjects(bucketsName,
+                                                                       objectsName,
+                                                                       kind,
+                                                                       contentType,
+                                                                       outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwo".length());
@@ -131,7 +143,7 @@ public class CatalogObjectCallGraphServiceTest {
     }
 
     @Test
-    public void testGenerateBytesCallGraphWithKind() {
+    public void testWriteCallGraphWithKind() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.of("kind");
         Optional<String> contentType = Optional.empty();
@@ -145,13 +157,13 @@ public class CatalogObjectCallGraphServiceTest {
                                                      any(Optional.class),
                                                      any(Optional.class))).thenReturn(objectsMetadata);
 
-        when(catalogObjectCallGraphPDFGenerator.generatePdfImage(objectsMetadata,
-                                                                 kind,
-                                                                 contentType)).thenReturn("onetwothree".getBytes());
+        mockCallGraphGeneration(objectsMetadata, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectCallGraphService.generateBytesCallGraph(authorisedBucketsNames,
-                                                                              kind,
-                                                                              contentType);
+        catalogObjectCallGraphService.writeCallGraph(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -159,7 +171,7 @@ public class CatalogObjectCallGraphServiceTest {
     }
 
     @Test
-    public void testGenerateBytesCallGraphWithContentType() {
+    public void testWriteCallGraphWithContentType() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.of("contentType");
@@ -173,13 +185,13 @@ public class CatalogObjectCallGraphServiceTest {
                                                      any(Optional.class),
                                                      any(Optional.class))).thenReturn(objectsMetadata);
 
-        when(catalogObjectCallGraphPDFGenerator.generatePdfImage(objectsMetadata,
-                                                                 kind,
-                                                                 contentType)).thenReturn("onetwothree".getBytes());
+        mockCallGraphGeneration(objectsMetadata, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectCallGraphService.generateBytesCallGraph(authorisedBucketsNames,
-                                                                              kind,
-                                                                              contentType);
+        catalogObjectCallGraphService.writeCallGraph(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -187,7 +199,7 @@ public class CatalogObjectCallGraphServiceTest {
     }
 
     @Test
-    public void testGenerateBytesCallGraphWithKindAndContentType() {
+    public void testWriteCallGraphWithKindAndContentType() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.of("kind");
         Optional<String> contentType = Optional.of("contentType");
@@ -201,13 +213,13 @@ public class CatalogObjectCallGraphServiceTest {
                                                      any(Optional.class),
                                                      any(Optional.class))).thenReturn(objectsMetadata);
 
-        when(catalogObjectCallGraphPDFGenerator.generatePdfImage(objectsMetadata,
-                                                                 kind,
-                                                                 contentType)).thenReturn("onetwothree".getBytes());
+        mockCallGraphGeneration(objectsMetadata, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectCallGraphService.generateBytesCallGraph(authorisedBucketsNames,
-                                                                              kind,
-                                                                              contentType);
+        catalogObjectCallGraphService.writeCallGraph(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -215,7 +227,7 @@ public class CatalogObjectCallGraphServiceTest {
     }
 
     @Test
-    public void testGenerateBytesCallGraphEmptyBucket() {
+    public void testWriteCallGraphEmptyBucket() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList();
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
@@ -225,18 +237,29 @@ public class CatalogObjectCallGraphServiceTest {
                                                      any(Integer.class),
                                                      any(Integer.class))).thenReturn(objectsMetadata);
 
-        when(catalogObjectCallGraphPDFGenerator.generatePdfImage(objectsMetadata,
-                                                                 kind,
-                                                                 contentType)).thenReturn("onetwothree".getBytes());
+        mockCallGraphGeneration(objectsMetadata, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectCallGraphService.generateBytesCallGraph(authorisedBucketsNames,
-                                                                              kind,
-                                                                              contentType);
+        catalogObjectCallGraphService.writeCallGraph(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
 
     }
 
+    private void mockCallGraphGeneration(List<CatalogObjectMetadata> objectsMetadata, Optional<String> kind,
+            Optional<String> contentType, String content) {
+        when(catalogObjectCallGraphPDFGenerator.generatePdfImage(eq(objectsMetadata),
+                                                                 eq(kind),
+                                                                 eq(contentType),
+                                                                 any(OutputStream.class))).thenAnswer(invocation -> {
+            ((OutputStream) invocation.getArguments()[3]).write(content.getBytes());
+            return Collections.emptySet();
+        });
+    }
+
     private CatalogObjectMetadata createObjectMetadata(String bucketName, String name) {
         List<Metadata> metadataList = Lists.newArrayList(new Metadata(separatorUtility.getConcatWithSeparator("bucket3",
                                                                                                               "one"),
@@ -0,0 +1,252 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogObjectContentHelperTest {
+
+    @InjectMocks
+    private CatalogObjectContentHelper catalogObjectContentHelper;
+
+    @Mock
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Mock
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Test
+    public void testStoreContentsSharesIdenticalContents() {
+        CatalogObjectRevisionEntity first = newRevision("<workflow/>");
+        CatalogObjectRevisionEntity second = newRevision("<workflow/>");
+        CatalogObjectRevisionEntity stored = newRevision("<stored/>");
+        CatalogObjectContentEntity storedContent = new CatalogObjectContentEntity();
+        storedContent.setId(7L);
+        CatalogObjectContentEntity newContent = new CatalogObjectContentEntity();
+        newContent.setId(8L);
+        when(catalogObjectContentRepository.findDigestsAndIds(anyCollection())).thenReturn(Collections.singletonList(new Object[] { stored.getContent()
+                                                                                                                                           .getDigest(),
+                                                                                                                                     7L }));
+        when(catalogObjectContentRepository.save(anyListOf(CatalogObjectContentEntity.class))).thenAnswer(assignIds(8L));
+        when(catalogObjectContentRepository.addReferences(anyLong(), anyLong())).thenReturn(1);
+        when(catalogObjectContentRepository.getOne(7L)).thenReturn(storedContent);
+        when(catalogObjectContentRepository.getOne(8L)).thenReturn(newContent);
+
+        catalogObjectContentHelper.storeContents(Arrays.asList(first, second, stored));
+
+        assertThat(first.getContent()).isSameAs(newContent);
+        assertThat(second.getContent()).isSameAs(newContent);
+        assertThat(stored.getContent()).isSameAs(storedContent);
+        verify(catalogObjectContentRepository).addReferences(7L, 1);
+        verify(catalogObjectContentRepository).addReferences(8L, 2);
+        // the new content is inserted once, without references
+        ArgumentCaptor<List> insertedContents = ArgumentCaptor.forClass(List.class);
+        verify(catalogObjectContentRepository).save(insertedContents.capture());
+        assertThat(insertedContents.getValue()).hasSize(1);
+        CatalogObjectContentEntity insertedContent = (CatalogObjectContentEntity) insertedContents.getValue().get(0);
+        assertThat(insertedContent.getDigest()).isEqualTo(CatalogObjectContentEntity.digest("<workflow/>".getBytes(StandardCharsets.UTF_8)));
+        assertThat(insertedContent.getReferenceCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testStoreContentsStoresAgainAContentDeletedConcurrently() {
+        CatalogObjectRevisionEntity revision = newRevision("<workflow/>");
+        CatalogObjectContentEntity newContent = new CatalogObjectContentEntity();
+        newContent.setId(8L);
+        when(catalogObjectContentRepository.findDigestsAndIds(anyCollection())).thenReturn(Collections.singletonList(new Object[] { revision.getContent()
+                                                                                                                                           .getDigest(),
+                                                                                                                                     7L }));
+        // the stored content lost its last reference and was deleted since it was looked up
+        when(catalogObjectContentRepository.addReferences(7L, 1)).thenReturn(0);
+        when(catalogObjectContentRepository.save(anyListOf(CatalogObjectContentEntity.class))).thenAnswer(assignIds(8L));
+        when(catalogObjectContentRepository.addReferences(8L, 1)).thenReturn(1);
+        when(catalogObjectContentRepository.getOne(8L)).thenReturn(newContent);
+
+        catalogObjectContentHelper.storeContent(revision);
+
+        assertThat(revision.getContent()).isSameAs(newContent);
+    }
+
+    @Test
+    public void testStoreContentsReferencesAContentStoredConcurrently() {
+        CatalogObjectRevisionEntity first = newRevision("<workflow/>");
+        CatalogObjectRevisionEntity second = newRevision("<workflow/>");
+        String digest = first.getContent().getDigest();
+        CatalogObjectContentEntity concurrentContent = new CatalogObjectContentEntity();
+        concurrentContent.setId(9L);
+        // not stored yet when looked up, then stored by another transaction before the insert
+        when(catalogObjectContentRepository.findDigestsAndIds(anyCollection())).thenReturn(Collections.emptyList())
+                                                                               .thenReturn(Collections.singletonList(new Object[] { digest,
+                                                                                                                                    9L }));
+        when(catalogObjectContentRepository.save(anyListOf(CatalogObjectContentEntity.class))).thenThrow(new DataIntegrityViolationException("CONTENT_DIGEST_INDEX"));
+        when(catalogObjectContentRepository.addReferences(9L, 2)).thenReturn(1);
+        when(catalogObjectContentRepository.getOne(9L)).thenReturn(concurrentContent);
+
+        catalogObjectContentHelper.storeContents(Arrays.asList(first, second));
+
+        assertThat(first.getContent()).isSameAs(concurrentContent);
+        assertThat(second.getContent()).isSameAs(concurrentContent);
+        verify(catalogObjectContentRepository).addReferences(9L, 2);
+    }
+
+    @Test
+    public void testReplaceContentWithSameBytesKeepsContent() {
+        CatalogObjectRevisionEntity revision = newRevision("<workflow/>");
+        CatalogObjectContentEntity content = revision.getContent();
+        content.setId(3L);
+
+        catalogObjectContentHelper.replaceContent(revision, "<workflow/>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(revision.getContent()).isSameAs(content);
+        verify(catalogObjectContentRepository, never()).addReferences(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testReplaceContentReleasesPreviousContent() {
+        CatalogObjectRevisionEntity revision = newRevision("<workflow/>");
+        revision.getContent().setId(3L);
+        CatalogObjectContentEntity updatedContent = new CatalogObjectContentEntity("<updated/>".getBytes(StandardCharsets.UTF_8));
+        updatedContent.setId(4L);
+        when(catalogObjectContentRepository.findDigestsAndIds(anyCollection())).thenReturn(Collections.emptyList());
+        when(catalogObjectContentRepository.save(anyListOf(CatalogObjectContentEntity.class))).thenAnswer(assignIds(4L));
+        when(catalogObjectContentRepository.addReferences(4L, 1)).thenReturn(1);
+        when(catalogObjectContentRepository.getOne(4L)).thenReturn(updatedContent);
+
+        catalogObjectContentHelper.replaceContent(revision, "<updated/>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(revision.getContent()).isSameAs(updatedContent);
+        verify(catalogObjectContentRepository).addReferences(3L, -1);
+        verify(entityManager).flush();
+        verify(catalogObjectContentRepository).deleteIfUnreferenced(3L);
+    }
+
+    @Test
+    public void testReleaseContents() {
+        List<Object[]> contentReferences = Arrays.asList(new Object[] { 3L, 2L }, new Object[] { 4L, 1L });
+        when(catalogObjectRevisionRepository.countContentReferences(1L, "object")).thenReturn(contentReferences);
+
+        List<Long> releasedContentIds = catalogObjectContentHelper.releaseContents(1L, "object");
+        catalogObjectContentHelper.deleteUnreferencedContents(releasedContentIds);
+
+        assertThat(releasedContentIds).containsExactly(3L, 4L);
+        verify(catalogObjectContentRepository).addReferences(3L, -2);
+        verify(catalogObjectContentRepository).addReferences(4L, -1);
+        verify(catalogObjectContentRepository).deleteIfUnreferenced(3L);
+        verify(catalogObjectContentRepository).deleteIfUnreferenced(4L);
+    }
+
+    @Test
+    public void testDeleteOrphanContents() {
+        when(catalogObjectContentRepository.findUnreferencedIdsCreatedBefore(100L,
+                                                                             new PageRequest(0, 2))).thenReturn(Arrays.asList(3L,
+                                                                                                                              4L));
+        when(catalogObjectContentRepository.deleteIfUnreferenced(3L)).thenReturn(1);
+        when(catalogObjectContentRepository.deleteIfUnreferenced(4L)).thenReturn(0);
+
+        assertThat(catalogObjectContentHelper.deleteOrphanContents(100L, 2)).isEqualTo(1);
+        verify(entityManager).flush();
+    }
+
+    @Test
+    public void testIsUnchanged() {
+        CatalogObjectRevisionEntity storedRevision = newRevision("<workflow/>");
+        storedRevision.addKeyValue(new KeyValueLabelMetadataEntity("key", "value", "label"));
+        String storedDigest = storedRevision.getContent().getDigest();
+
+        CatalogObjectRevisionEntity sameRevision = newRevision("<workflow/>");
+        sameRevision.addKeyValue(new KeyValueLabelMetadataEntity("key", "value", "label"));
+        assertThat(catalogObjectContentHelper.isUnchanged(storedRevision, storedDigest, sameRevision)).isTrue();
+
+        CatalogObjectRevisionEntity otherContent = newRevision("<updated/>");
+        otherContent.addKeyValue(new KeyValueLabelMetadataEntity("key", "value", "label"));
+        assertThat(catalogObjectContentHelper.isUnchanged(storedRevision, storedDigest, otherContent)).isFalse();
+
+        CatalogObjectRevisionEntity otherMetadata = newRevision("<workflow/>");
+        otherMetadata.addKeyValue(new KeyValueLabelMetadataEntity("key", "other", "label"));
+        assertThat(catalogObjectContentHelper.isUnchanged(storedRevision, storedDigest, otherMetadata)).isFalse();
+
+        CatalogObjectRevisionEntity otherTags = newRevision("<workflow/>");
+        otherTags.addKeyValue(new KeyValueLabelMetadataEntity("key", "value", "label"));
+        otherTags.setTags("tag");
+        assertThat(catalogObjectContentHelper.isUnchanged(storedRevision, storedDigest, otherTags)).isFalse();
+    }
+
+    private Answer<List<CatalogObjectContentEntity>> assignIds(long firstId) {
+        return invocation -> {
+            @SuppressWarnings("unchecked")
+            List<CatalogObjectContentEntity> contents = (List<CatalogObjectContentEntity>) invocation.getArguments()[0];
+            long id = firstId;
+            for (CatalogObjectContentEntity content : contents) {
+                content.setId(id++);
+            }
+            return contents;
+        };
+    }
+
+    private CatalogObjectRevisionEntity newRevision(String rawObject) {
+        return CatalogObjectRevisionEntity.builder().rawObject(rawObject.getBytes(StandardCharsets.UTF_8)).build();
+    }
+}
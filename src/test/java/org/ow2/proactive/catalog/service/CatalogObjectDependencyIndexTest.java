@@ -0,0 +1,171 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.ow2.proactive.catalog.service.model.IndexedDependency;
+import org.ow2.proactive.catalog.util.SeparatorUtility;
+import org.ow2.proactive.catalog.util.parser.WorkflowParser;
+import org.springframework.transaction.PlatformTransactionManager;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogObjectDependencyIndexTest {
+
+    @InjectMocks
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Mock
+    private CatalogObjectRepository catalogObjectRepository;
+
+    @Mock
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private SeparatorUtility separatorUtility = new SeparatorUtility();
+
+    @Before
+    public void setUp() {
+        catalogObjectDependencyIndex.enabled = true;
+        List<Object[]> objects = Arrays.asList(new Object[] { "bucket", "workflow", "workflow/standard", 10L },
+                                               new Object[] { "scripts", "script-a", "Script/pre", 20L },
+                                               new Object[] { "scripts", "script-b", "Script/post", 30L });
+        List<Object[]> dependencies = Arrays.asList(new Object[] { "bucket", "workflow", "scripts/script-a", "latest" },
+                                                    new Object[] { "bucket", "workflow", "scripts/script-b", "25" },
+                                                    new Object[] { "bucket", "workflow", "scripts/missing", "latest" });
+        when(catalogObjectRepository.findAllBucketNamesKindsAndLastCommitTimes()).thenReturn(objects);
+        when(catalogObjectRevisionRepository.findDependsOnOfLastRevisions()).thenReturn(dependencies);
+    }
+
+    @Test
+    public void testFindDependsOnBuildsTheIndexOnce() {
+        List<IndexedDependency> dependencies = catalogObjectDependencyIndex.findDependsOn("bucket", "workflow", 10L);
+
+        assertThat(dependencies).containsExactly(new IndexedDependency("scripts/script-a", "latest", "Script/pre"),
+                                                 new IndexedDependency("scripts/script-b", "25", "Script/post"),
+                                                 new IndexedDependency("scripts/missing", "latest", null))
+                                .inOrder();
+        assertThat(catalogObjectDependencyIndex.findCalledBy("scripts", "script-a")).containsExactly("bucket/workflow");
+        assertThat(catalogObjectDependencyIndex.findKind("scripts/missing")).isNull();
+        assertThat(catalogObjectDependencyIndex.getObjectCount()).isEqualTo(3L);
+        assertThat(catalogObjectDependencyIndex.getDependencyCount()).isEqualTo(3L);
+        verify(catalogObjectRepository, times(1)).findAllBucketNamesKindsAndLastCommitTimes();
+        verify(catalogObjectRevisionRepository, times(1)).findDependsOnOfLastRevisions();
+    }
+
+    @Test
+    public void testFindDependsOnOfAnOlderRevision() {
+        assertThat(catalogObjectDependencyIndex.findDependsOn("bucket", "workflow", 5L)).isNull();
+        assertThat(catalogObjectDependencyIndex.findDependsOn("bucket", "unknown", 10L)).isNull();
+    }
+
+    @Test
+    public void testFindDependsOnBucketNames() {
+        assertThat(catalogObjectDependencyIndex.findDependsOnBucketNames("bucket", "workflow")).containsExactly("scripts");
+        assertThat(catalogObjectDependencyIndex.findDependsOnBucketNames("bucket", "unknown")).isEmpty();
+    }
+
+    @Test
+    public void testObjectRevised() {
+        catalogObjectDependencyIndex.rebuild();
+        CatalogObjectRevisionEntity revision = CatalogObjectRevisionEntity.builder()
+                                                                          .commitTime(40L)
+                                                                          .catalogObject(CatalogObjectEntity.builder()
+                                                                                                            .id(new CatalogObjectEntity.CatalogObjectEntityKey(1L,
+                                                                                                                                                               "workflow"))
+                                                                                                            .kind("workflow/standard")
+                                                                                                            .build())
+                                                                          .keyValueMetadataList(Arrays.asList(new KeyValueLabelMetadataEntity("scripts/missing",
+                                                                                                                                              "latest",
+                                                                                                                                              WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL),
+                                                                                                              new KeyValueLabelMetadataEntity("project_name",
+                                                                                                                                              "project",
+                                                                                                                                              "General")))
+                                                                          .build();
+
+        catalogObjectDependencyIndex.objectRevised("bucket", revision);
+
+        assertThat(catalogObjectDependencyIndex.findDependsOn("bucket", "workflow", 10L)).isNull();
+        assertThat(catalogObjectDependencyIndex.findDependsOn("bucket",
+                                                              "workflow",
+                                                              40L)).containsExactly(new IndexedDependency("scripts/missing",
+                                                                                                          "latest",
+                                                                                                          null));
+        assertThat(catalogObjectDependencyIndex.findCalledBy("scripts", "script-a")).isEmpty();
+        assertThat(catalogObjectDependencyIndex.findCalledBy("scripts", "missing")).containsExactly("bucket/workflow");
+        assertThat(catalogObjectDependencyIndex.getDependencyCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testObjectDeleted() {
+        catalogObjectDependencyIndex.rebuild();
+
+        catalogObjectDependencyIndex.objectDeleted("scripts", "script-a");
+
+        assertThat(catalogObjectDependencyIndex.findKind("scripts/script-a")).isNull();
+        assertThat(catalogObjectDependencyIndex.findDependsOn("bucket", "workflow", 10L)
+                                               .get(0)).isEqualTo(new IndexedDependency("scripts/script-a",
+                                                                                        "latest",
+                                                                                        null));
+        assertThat(catalogObjectDependencyIndex.getObjectCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testInvalidate() {
+        catalogObjectDependencyIndex.rebuild();
+        catalogObjectDependencyIndex.invalidate();
+        when(catalogObjectRevisionRepository.findDependsOnOfLastRevisions()).thenReturn(Collections.emptyList());
+
+        assertThat(catalogObjectDependencyIndex.findDependsOn("bucket", "workflow", 10L)).isEmpty();
+        verify(catalogObjectRepository, times(2)).findAllBucketNamesKindsAndLastCommitTimes();
+    }
+}
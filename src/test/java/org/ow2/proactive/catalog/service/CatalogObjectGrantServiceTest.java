@@ -39,6 +39,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
@@ -63,9 +64,15 @@ public class CatalogObjectGrantServiceTest {
     @Mock
     private BucketRepository bucketRepository;
 
+    @Spy
+    private BucketCache bucketCache = new BucketCache();
+
     @Mock
     private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
 
+    @Mock
+    private GrantRightsCache grantRightsCache;
+
     private final String DUMMY_USERNAME = "dummyUser";
 
     private final String DUMMY_CURRENT_USERNAME = "dummyAdmin";
@@ -29,8 +29,13 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -40,6 +45,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.Metadata;
@@ -71,8 +77,11 @@ public class CatalogObjectReportServiceTest {
     @Mock
     private CatalogObjectService catalogObjectService;
 
+    @Spy
+    private ReportArtifactCache reportArtifactCache = new ReportArtifactCache();
+
     @Test
-    public void testGenerateBytesReportEmptyBucket() {
+    public void testWriteReportEmptyBucket() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList();
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
@@ -84,18 +93,20 @@ public class CatalogObjectReportServiceTest {
 
         TreeSet<CatalogObjectMetadata> orderedObjectsPerBucket = sortObjectsPerBucket(objectsMetadata);
 
-        when(catalogObjectReportPDFGenerator.generatePDF(orderedObjectsPerBucket,
-                                                         kind,
-                                                         contentType)).thenReturn("onetwothree".getBytes());
+        mockReportGeneration(orderedObjectsPerBucket, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectReportService.generateBytesReport(authorisedBucketsNames, kind, contentType);
+        catalogObjectReportService.writeReport(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
 
     }
 
     @Test
-    public void testGenerateBytesReportForSelectedObjects() {
+    public void testWriteReportForSelectedObjects() throws IOException {
         String bucketsName = "bucket3";
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
@@ -110,14 +121,17 @@ public class CatalogObjectReportServiceTest {
 
         TreeSet<CatalogObjectMetadata> orderedObjectsPerBucket = sortObjectsPerBucket(objectsMetadata);
 
-        when(catalogObjectReportPDFGenerator.generatePDF(orderedObjectsPerBucket,
-                                                         kind,
-                                                         contentType)).thenReturn("onetwo".getBytes());
+        mockReportGeneration(orderedObjectsPerBucket, kind, contentType, "onetwo");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectReportService.generateBytesReportForSelectedObjects(bucketsName,
-                                                                                          objectsName,
-                                                                                          kind,
-                                                                                          contentType);
+        catalogObjectReportService.writeReportForSelectedObjects(bucketsName,
+                                                                 objectsName,
+                                                                 kind,
+                                                                 contentType,
+                                                                 outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwo".length());
@@ -125,7 +139,7 @@ public class CatalogObjectReportServiceTest {
     }
 
     @Test
-    public void testGenerateBytesReport() {
+    public void testWriteReport() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.empty();
@@ -141,11 +155,13 @@ public class CatalogObjectReportServiceTest {
 
         TreeSet<CatalogObjectMetadata> orderedObjectsPerBucket = sortObjectsPerBucket(objectsMetadata);
 
-        when(catalogObjectReportPDFGenerator.generatePDF(orderedObjectsPerBucket,
-                                                         kind,
-                                                         contentType)).thenReturn("onetwothree".getBytes());
+        mockReportGeneration(orderedObjectsPerBucket, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectReportService.generateBytesReport(authorisedBucketsNames, kind, contentType);
+        catalogObjectReportService.writeReport(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -153,7 +169,7 @@ public class CatalogObjectReportServiceTest {
     }
 
     @Test
-    public void testGenerateBytesReportWithKind() {
+    public void testWriteReportWithKind() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.of("kind");
         Optional<String> contentType = Optional.empty();
@@ -169,11 +185,13 @@ public class CatalogObjectReportServiceTest {
 
         TreeSet<CatalogObjectMetadata> orderedObjectsPerBucket = sortObjectsPerBucket(objectsMetadata);
 
-        when(catalogObjectReportPDFGenerator.generatePDF(orderedObjectsPerBucket,
-                                                         kind,
-                                                         contentType)).thenReturn("onetwothree".getBytes());
+        mockReportGeneration(orderedObjectsPerBucket, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectReportService.generateBytesReport(authorisedBucketsNames, kind, contentType);
+        catalogObjectReportService.writeReport(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -181,7 +199,7 @@ public class CatalogObjectReportServiceTest {
     }
 
     @Test
-    public void testGenerateBytesReportWithContentType() {
+    public void testWriteReportWithContentType() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.empty();
         Optional<String> contentType = Optional.of("contentType");
@@ -197,11 +215,13 @@ public class CatalogObjectReportServiceTest {
 
         TreeSet<CatalogObjectMetadata> orderedObjectsPerBucket = sortObjectsPerBucket(objectsMetadata);
 
-        when(catalogObjectReportPDFGenerator.generatePDF(orderedObjectsPerBucket,
-                                                         kind,
-                                                         contentType)).thenReturn("onetwothree".getBytes());
+        mockReportGeneration(orderedObjectsPerBucket, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectReportService.generateBytesReport(authorisedBucketsNames, kind, contentType);
+        catalogObjectReportService.writeReport(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -209,7 +229,7 @@ public class CatalogObjectReportServiceTest {
     }
 
     @Test
-    public void testGenerateBytesReportWithKindAndContentType() {
+    public void testWriteReportWithKindAndContentType() throws IOException {
         List<String> authorisedBucketsNames = Lists.newArrayList("bucket3", "bucket6");
         Optional<String> kind = Optional.of("kind");
         Optional<String> contentType = Optional.of("contentType");
@@ -225,11 +245,13 @@ public class CatalogObjectReportServiceTest {
 
         TreeSet<CatalogObjectMetadata> orderedObjectsPerBucket = sortObjectsPerBucket(objectsMetadata);
 
-        when(catalogObjectReportPDFGenerator.generatePDF(orderedObjectsPerBucket,
-                                                         kind,
-                                                         contentType)).thenReturn("onetwothree".getBytes());
+        mockReportGeneration(orderedObjectsPerBucket, kind, contentType, "onetwothree");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        byte[] content = catalogObjectReportService.generateBytesReport(authorisedBucketsNames, kind, contentType);
+        catalogObjectReportService.writeReport(authorisedBucketsNames, kind, contentType, outputStream);
+
+        byte[] content = outputStream.toByteArray();
 
         assertThat(content).isNotNull();
         assertThat(content.length).isEqualTo("onetwothree".length());
@@ -249,6 +271,17 @@ public class CatalogObjectReportServiceTest {
         return sortedObjects;
     }
 
+    private void mockReportGeneration(TreeSet<CatalogObjectMetadata> objectsMetadata, Optional<String> kind,
+            Optional<String> contentType, String content) {
+        when(catalogObjectReportPDFGenerator.generatePDF(eq(objectsMetadata),
+                                                         eq(kind),
+                                                         eq(contentType),
+                                                         any(OutputStream.class))).thenAnswer(invocation -> {
+            ((OutputStream) invocation.getArguments()[3]).write(content.getBytes());
+            return Collections.emptySet();
+        });
+    }
+
     private CatalogObjectMetadata createObjectMetadata(String bucketName, String name) {
         List<Metadata> metadataList = Lists.newArrayList(new Metadata("project_name", "project " + name, "label"));
         CatalogObjectMetadata catalogObjectMetadata = new CatalogObjectMetadata(bucketName,
@@ -27,21 +27,34 @@ package org.ow2.proactive.catalog.service;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.ow2.proactive.catalog.service.CatalogObjectService.KIND_NOT_FOUND;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.ZipOutputStream;
+
+import javax.persistence.EntityManager;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.CatalogObjectDependencies;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
@@ -55,11 +68,17 @@ import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
 import org.ow2.proactive.catalog.service.exception.*;
+import org.ow2.proactive.catalog.service.model.CatalogObjectImportResult;
+import org.ow2.proactive.catalog.service.model.IndexedDependency;
+import org.ow2.proactive.catalog.util.ArchiveManagerHelper;
+import org.ow2.proactive.catalog.util.ArchiveManagerHelper.FileNameAndContent;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
 import org.ow2.proactive.catalog.util.SeparatorUtility;
 import org.ow2.proactive.catalog.util.name.validator.KindAndContentTypeValidator;
 import org.ow2.proactive.catalog.util.name.validator.ObjectNameValidator;
 import org.ow2.proactive.catalog.util.name.validator.TagsValidator;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import com.google.common.collect.ImmutableList;
 
@@ -100,9 +119,21 @@ public class CatalogObjectServiceTest {
     @Mock
     private BucketRepository bucketRepository;
 
+    @Spy
+    private BucketCache bucketCache = new BucketCache();
+
+    @Mock
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Mock
+    private ReportArtifactCache reportArtifactCache;
+
     @Mock
     private KeyValueLabelMetadataHelper keyValueLabelMetadataHelper;
 
+    @Mock
+    private CatalogObjectContentHelper catalogObjectContentHelper;
+
     @Mock
     private WorkflowInfoAdder workflowInfoAdder;
 
@@ -118,6 +149,18 @@ public class CatalogObjectServiceTest {
     @Mock
     private SeparatorUtility separatorUtility;
 
+    @Mock
+    private ArchiveManagerHelper archiveManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private PartitionedQueryHelper partitionedQueryHelper = new PartitionedQueryHelper();
+
     @Test(expected = BucketNotFoundException.class)
     public void testCreateCatalogObjectWithInvalidBucket() {
         when(objectNameValidator.isValid(anyString())).thenReturn(true);
@@ -156,6 +199,34 @@ public class CatalogObjectServiceTest {
         assertThat(storedKinds).isEqualTo(returnedKinds);
     }
 
+    @Test
+    public void testGetKindsOfCatalogObjectsSplitsTheBucketNames() {
+        when(separatorUtility.getSplitBySeparator(anyString())).thenCallRealMethod();
+        when(separatorUtility.getConcatWithSeparator(anyString(), anyString())).thenCallRealMethod();
+        SeparatorUtility sep = new SeparatorUtility();
+        List<String> bucketAndObjectNames = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            bucketAndObjectNames.add(sep.getConcatWithSeparator("bucket-" + i, "object"));
+        }
+        List<Integer> queriedBucketCounts = new ArrayList<>();
+        when(catalogObjectRepository.findBucketAndObjectNamesAndKinds(anyCollection(),
+                                                                      anyCollection())).thenAnswer(invocation -> {
+                                                                          Collection<String> bucketNames = (Collection<String>) invocation.getArguments()[0];
+                                                                          queriedBucketCounts.add(bucketNames.size());
+                                                                          return bucketNames.stream()
+                                                                                            .map(bucketName -> new Object[] { bucketName,
+                                                                                                                              "object",
+                                                                                                                              "workflow" })
+                                                                                            .collect(Collectors.toList());
+                                                                      });
+
+        Map<String, String> kinds = catalogObjectService.getKindsOfCatalogObjects(bucketAndObjectNames);
+
+        assertThat(queriedBucketCounts).containsExactly(1000, 500);
+        assertThat(kinds).hasSize(1500);
+        assertThat(kinds.get(sep.getConcatWithSeparator("bucket-1499", "object"))).isEqualTo("workflow");
+    }
+
     @Test
     public void testGetContentTypes() {
         TreeSet<String> storedContentTypes = new TreeSet<>();
@@ -190,11 +261,11 @@ public class CatalogObjectServiceTest {
         CatalogObjectRevisionEntity catalogObjectEntity = newCatalogObjectRevisionEntity(bucketEntity,
                                                                                          System.currentTimeMillis());
         when(catalogObjectRevisionRepository.save(any(CatalogObjectRevisionEntity.class))).thenReturn(catalogObjectEntity);
-        when(workflowInfoAdder.addGenericInformationJobNameToRawObjectIfWorkflow(any(),
-                                                                                 any(),
-                                                                                 any(),
-                                                                                 any())).thenReturn(new byte[] {});
-        when(workflowInfoAdder.addAttributeToRawObjectIfWorkflow(any(), any(), any(), any())).thenReturn(new byte[] {});
+        when(workflowInfoAdder.addGenericInformationJobNameAndAttributesToRawObjectIfWorkflow(any(),
+                                                                                              any(),
+                                                                                              any(),
+                                                                                              any(),
+                                                                                              any())).thenReturn(new byte[] {});
         List<Metadata> keyValues = ImmutableList.of(new Metadata("key", "value", null));
 
         CatalogObjectMetadata catalogObject = catalogObjectService.createCatalogObject("bucket",
@@ -446,6 +517,63 @@ public class CatalogObjectServiceTest {
 
     }
 
+    @Test
+    public void testGetObjectDependenciesFromTheIndex() {
+        when(separatorUtility.getSplitBySeparator(anyString())).thenCallRealMethod();
+        SeparatorUtility sep = new SeparatorUtility();
+
+        long commitTime = 1L;
+        String dependency1 = sep.getConcatWithSeparator(BUCKET, "dep1");
+        String dependency2 = sep.getConcatWithSeparator(BUCKET, "dep2");
+        String dependency3 = sep.getConcatWithSeparator(BUCKET, "dep3");
+        String caller = sep.getConcatWithSeparator(BUCKET, "caller");
+        String kind = "kind";
+
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList(BUCKET),
+                                                                                    OBJECT)).thenReturn(CatalogObjectRevisionEntity.builder()
+                                                                                                                                   .commitTime(commitTime)
+                                                                                                                                   .build());
+        when(catalogObjectDependencyIndex.isEnabled()).thenReturn(true);
+        when(catalogObjectDependencyIndex.findDependsOn(BUCKET,
+                                                        OBJECT,
+                                                        commitTime)).thenReturn(Arrays.asList(new IndexedDependency(dependency1,
+                                                                                                                    WorkflowParser.LATEST_VERSION,
+                                                                                                                    kind),
+                                                                                              new IndexedDependency(dependency2,
+                                                                                                                    "2",
+                                                                                                                    kind),
+                                                                                              new IndexedDependency(dependency3,
+                                                                                                                    WorkflowParser.LATEST_VERSION,
+                                                                                                                    null)));
+        when(catalogObjectDependencyIndex.findCalledBy(BUCKET, OBJECT)).thenReturn(Collections.singletonList(caller));
+
+        CatalogObjectDependencies catalogObjectDependencies = catalogObjectService.getObjectDependencies(BUCKET,
+                                                                                                         OBJECT);
+
+        String revisionCommitInString = String.valueOf(commitTime);
+        assertThat(catalogObjectDependencies.getDependsOnList()).containsExactly(new DependsOnCatalogObject(dependency1,
+                                                                                                            kind,
+                                                                                                            revisionCommitInString,
+                                                                                                            true),
+                                                                                 new DependsOnCatalogObject(dependency2,
+                                                                                                            KIND_NOT_FOUND,
+                                                                                                            revisionCommitInString,
+                                                                                                            false),
+                                                                                 new DependsOnCatalogObject(dependency3,
+                                                                                                            KIND_NOT_FOUND,
+                                                                                                            revisionCommitInString,
+                                                                                                            false));
+        assertThat(catalogObjectDependencies.getCalledByList()).containsExactly(caller);
+        // the pinned revision of a dependency is still looked up in the database
+        verify(catalogObjectRevisionRepository).findCatalogObjectRevisionByCommitTime(Collections.singletonList(BUCKET),
+                                                                                      "dep2",
+                                                                                      2L);
+        verify(catalogObjectRevisionRepository, never()).findDependsOnCatalogObjectNamesFromKeyValueMetadata(anyString(),
+                                                                                                             anyString(),
+                                                                                                             anyLong());
+        verify(catalogObjectRevisionRepository, never()).findCalledByCatalogObjectsFromKeyValueMetadata(anyString());
+    }
+
     @Test
     public void testGetObjectDependencies() {
 
@@ -533,13 +661,14 @@ public class CatalogObjectServiceTest {
 
     }
 
-    private CatalogObjectEntity newCatalogObjectEntity(long now) {
+    private CatalogObjectEntity newCatalogObjectEntity(BucketEntity bucketEntity, long now) {
         CatalogObjectEntity catalogObjectEntity = CatalogObjectEntity.builder()
                                                                      .id(new CatalogObjectEntity.CatalogObjectEntityKey(1L,
                                                                                                                         "catalog"))
                                                                      .nameLower("catalog")
                                                                      .kind("object")
                                                                      .kindLower("object")
+                                                                     .bucket(bucketEntity)
                                                                      .contentType("application/xml")
                                                                      .contentTypeLower("application/xml")
                                                                      .lastCommitTime(now)
@@ -611,7 +740,7 @@ public class CatalogObjectServiceTest {
     @Test
     public void testCreateCatalogObjectRevision() {
         BucketEntity bucketEntity = new BucketEntity("bucket", "owner");
-        CatalogObjectEntity catalogObjectEntity = newCatalogObjectEntity(System.currentTimeMillis());
+        CatalogObjectEntity catalogObjectEntity = newCatalogObjectEntity(bucketEntity, System.currentTimeMillis());
         CatalogObjectRevisionEntity catalogObjectRevisionEntity = newCatalogObjectRevisionEntity(bucketEntity,
                                                                                                  System.currentTimeMillis());
         when(bucketRepository.findOneByBucketName(anyString())).thenReturn(bucketEntity);
@@ -640,6 +769,121 @@ public class CatalogObjectServiceTest {
         assertThat(catalogObject.getMetadataList()).hasSize(1);
     }
 
+    @Test
+    public void testCreateCatalogObjectRevisionSkippedWhenUnchanged() {
+        BucketEntity bucketEntity = new BucketEntity("bucket", "owner");
+        CatalogObjectEntity catalogObjectEntity = newCatalogObjectEntity(bucketEntity, System.currentTimeMillis());
+        CatalogObjectRevisionEntity lastRevision = newCatalogObjectRevisionEntity(bucketEntity,
+                                                                                  System.currentTimeMillis());
+        when(bucketRepository.findOneByBucketName(anyString())).thenReturn(bucketEntity);
+        when(catalogObjectRepository.findOne(any(CatalogObjectEntity.CatalogObjectEntityKey.class))).thenReturn(catalogObjectEntity);
+        when(keyValueLabelMetadataHelper.replaceMetadataRelatedGenericInfoAndKeepOthers(any(),
+                                                                                        any())).thenReturn(Collections.emptyList());
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList("bucket"),
+                                                                                    NAME)).thenReturn(lastRevision);
+        when(catalogObjectContentHelper.isUnchanged(eq(lastRevision),
+                                                    any(CatalogObjectRevisionEntity.class))).thenReturn(true);
+
+        CatalogObjectMetadata catalogObject = catalogObjectService.createCatalogObjectRevision("bucket",
+                                                                                               NAME,
+                                                                                               PROJECT_NAME,
+                                                                                               TAGS,
+                                                                                               COMMIT_MESSAGE,
+                                                                                               USERNAME,
+                                                                                               null,
+                                                                                               true);
+
+        assertThat(catalogObject.getCommitDateTime()).isEqualTo(new CatalogObjectMetadata(lastRevision).getCommitDateTime());
+        verify(catalogObjectRevisionRepository, never()).save(any(CatalogObjectRevisionEntity.class));
+        verify(catalogObjectContentHelper, never()).storeContent(any(CatalogObjectRevisionEntity.class));
+    }
+
+    @Test
+    public void testCreateCatalogObjectRevisionNotSkippedWhenChanged() {
+        BucketEntity bucketEntity = new BucketEntity("bucket", "owner");
+        CatalogObjectEntity catalogObjectEntity = newCatalogObjectEntity(bucketEntity, System.currentTimeMillis());
+        CatalogObjectRevisionEntity lastRevision = newCatalogObjectRevisionEntity(bucketEntity,
+                                                                                  System.currentTimeMillis());
+        when(bucketRepository.findOneByBucketName(anyString())).thenReturn(bucketEntity);
+        when(catalogObjectRepository.findOne(any(CatalogObjectEntity.CatalogObjectEntityKey.class))).thenReturn(catalogObjectEntity);
+        when(keyValueLabelMetadataHelper.replaceMetadataRelatedGenericInfoAndKeepOthers(any(),
+                                                                                        any())).thenReturn(Collections.emptyList());
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList("bucket"),
+                                                                                    NAME)).thenReturn(lastRevision);
+        when(catalogObjectContentHelper.isUnchanged(eq(lastRevision),
+                                                    any(CatalogObjectRevisionEntity.class))).thenReturn(false);
+        when(catalogObjectRevisionRepository.save(any(CatalogObjectRevisionEntity.class))).thenReturn(lastRevision);
+
+        catalogObjectService.createCatalogObjectRevision("bucket",
+                                                         NAME,
+                                                         PROJECT_NAME,
+                                                         TAGS,
+                                                         COMMIT_MESSAGE,
+                                                         USERNAME,
+                                                         null,
+                                                         true);
+
+        verify(catalogObjectContentHelper).storeContent(any(CatalogObjectRevisionEntity.class));
+        verify(catalogObjectRevisionRepository).save(any(CatalogObjectRevisionEntity.class));
+    }
+
+    @Test
+    public void testCreateCatalogObjectRevisionAddingADependencyInvalidatesTheReportsOfTheCalledBucket() {
+        BucketEntity bucketEntity = new BucketEntity("bucket", "owner");
+        CatalogObjectEntity catalogObjectEntity = newCatalogObjectEntity(bucketEntity, System.currentTimeMillis());
+        when(bucketRepository.findOneByBucketName(anyString())).thenReturn(bucketEntity);
+        when(catalogObjectRepository.findOne(any(CatalogObjectEntity.CatalogObjectEntityKey.class))).thenReturn(catalogObjectEntity);
+        when(catalogObjectRevisionRepository.save(any(CatalogObjectRevisionEntity.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(separatorUtility.getSplitBySeparator(anyString())).thenCallRealMethod();
+        when(catalogObjectDependencyIndex.isEnabled()).thenReturn(true);
+        when(catalogObjectDependencyIndex.findDependsOnBucketNames("bucket", NAME)).thenReturn(new HashSet<>());
+        KeyValueLabelMetadataEntity dependsOn = new KeyValueLabelMetadataEntity(new SeparatorUtility().getConcatWithSeparator("called-bucket",
+                                                                                                                              "workflow"),
+                                                                                WorkflowParser.LATEST_VERSION,
+                                                                                WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL);
+        when(keyValueLabelMetadataHelper.replaceMetadataRelatedGenericInfoAndKeepOthers(any(),
+                                                                                        any())).thenReturn(Collections.singletonList(dependsOn));
+
+        catalogObjectService.createCatalogObjectRevision("bucket",
+                                                         NAME,
+                                                         PROJECT_NAME,
+                                                         TAGS,
+                                                         COMMIT_MESSAGE,
+                                                         USERNAME,
+                                                         ImmutableList.of(new Metadata("key", "value", null)),
+                                                         null);
+
+        // the reports of the called bucket list the objects calling its objects
+        verify(reportArtifactCache).bucketChanged("bucket");
+        verify(reportArtifactCache).bucketChanged("called-bucket");
+    }
+
+    @Test
+    public void testCreateCatalogObjectRevisionRemovingADependencyInvalidatesTheReportsOfTheCalledBucket() {
+        BucketEntity bucketEntity = new BucketEntity("bucket", "owner");
+        CatalogObjectEntity catalogObjectEntity = newCatalogObjectEntity(bucketEntity, System.currentTimeMillis());
+        when(bucketRepository.findOneByBucketName(anyString())).thenReturn(bucketEntity);
+        when(catalogObjectRepository.findOne(any(CatalogObjectEntity.CatalogObjectEntityKey.class))).thenReturn(catalogObjectEntity);
+        when(catalogObjectRevisionRepository.save(any(CatalogObjectRevisionEntity.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(catalogObjectDependencyIndex.isEnabled()).thenReturn(true);
+        when(catalogObjectDependencyIndex.findDependsOnBucketNames("bucket",
+                                                                   NAME)).thenReturn(new HashSet<>(Collections.singleton("called-bucket")));
+        when(keyValueLabelMetadataHelper.replaceMetadataRelatedGenericInfoAndKeepOthers(any(),
+                                                                                        any())).thenReturn(Collections.emptyList());
+
+        catalogObjectService.createCatalogObjectRevision("bucket",
+                                                         NAME,
+                                                         PROJECT_NAME,
+                                                         TAGS,
+                                                         COMMIT_MESSAGE,
+                                                         USERNAME,
+                                                         ImmutableList.of(new Metadata("key", "value", null)),
+                                                         null);
+
+        verify(reportArtifactCache).bucketChanged("bucket");
+        verify(reportArtifactCache).bucketChanged("called-bucket");
+    }
+
     @Test(expected = RevisionNotFoundException.class)
     public void testGetCatalogObjectRevisionNotFound() {
         long now = System.currentTimeMillis();
@@ -674,4 +918,92 @@ public class CatalogObjectServiceTest {
         assertThat(catalogObjectRevisionEntity.getKeyValueMetadataList()).isNotEmpty();
         assertThat(catalogObjectRevisionEntity.getKeyValueMetadataList()).hasSize(1);
     }
+
+    @Test
+    public void testImportCatalogObjects() {
+        BucketEntity bucketEntity = new BucketEntity(BUCKET, "owner");
+        bucketEntity.setId(1L);
+        CatalogObjectEntity existingObject = newCatalogObjectRevisionEntity(bucketEntity,
+                                                                            REVISION_COMMIT_TIME).getCatalogObject();
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(bucketEntity);
+        when(bucketRepository.getOne(1L)).thenReturn(bucketEntity);
+        when(catalogObjectRepository.findNamesAndKindsInBucket(1L)).thenReturn(Collections.singletonList(new Object[] { NAME,
+                                                                                                                       OBJECT }));
+        when(catalogObjectRepository.findByBucketIdAndNames(eq(1L),
+                                                            any())).thenReturn(Collections.singletonList(existingObject));
+        when(objectNameValidator.isValid(anyString())).thenReturn(true);
+        when(objectNameValidator.isValid("invalid name")).thenReturn(false);
+        when(kindAndContentTypeValidator.isValid(anyString())).thenReturn(true);
+        when(tagsValidator.isValid(anyString())).thenReturn(true);
+        when(archiveManager.extractZIP(any(InputStream.class), any())).thenAnswer(invocation -> {
+            Consumer<FileNameAndContent> consumer = (Consumer<FileNameAndContent>) invocation.getArguments()[1];
+            List<String> names = Arrays.asList(NAME, "new", "invalid name");
+            names.forEach(name -> consumer.accept(newFileNameAndContent(name)));
+            return names.size();
+        });
+        catalogObjectService.importBatchSize = 2;
+        catalogObjectService.importParserThreads = 2;
+        catalogObjectService.init();
+
+        List<CatalogObjectImportResult> results = catalogObjectService.importCatalogObjects(BUCKET,
+                                                                                            PROJECT_NAME,
+                                                                                            TAGS,
+                                                                                            OBJECT,
+                                                                                            COMMIT_MESSAGE,
+                                                                                            USERNAME,
+                                                                                            new ByteArrayInputStream(new byte[0]));
+        catalogObjectService.shutdown();
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getStatus()).isEqualTo(CatalogObjectImportResult.Status.REVISED);
+        assertThat(results.get(0).getMetadata().getName()).isEqualTo(NAME);
+        assertThat(results.get(1).getStatus()).isEqualTo(CatalogObjectImportResult.Status.CREATED);
+        assertThat(results.get(1).getMetadata().getName()).isEqualTo("new");
+        assertThat(results.get(1).getMetadata().getCommitMessage()).isEqualTo(COMMIT_MESSAGE);
+        assertThat(results.get(2).getStatus()).isEqualTo(CatalogObjectImportResult.Status.FAILED);
+        assertThat(results.get(2).getName()).isEqualTo("invalid name");
+        assertThat(existingObject.getLastCommitTime()).isGreaterThan(REVISION_COMMIT_TIME);
+        // the existing names are listed once, then each batch is stored in its own transaction
+        verify(catalogObjectRepository, times(1)).findNamesAndKindsInBucket(1L);
+        verify(catalogObjectRevisionRepository, times(2)).save(any(CatalogObjectRevisionEntity.class));
+        verify(bucketRepository, times(1)).updateObjectCount(1L, 1);
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    public void testGetExistingCatalogObjectNames() {
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(new BucketEntity(BUCKET, "owner"));
+        when(catalogObjectRepository.findNamesInBucket(eq(BUCKET), any())).thenReturn(Arrays.asList("b", "a"));
+
+        List<String> existingNames = catalogObjectService.getExistingCatalogObjectNames(BUCKET,
+                                                                                       Arrays.asList("a", "c", "b"));
+
+        assertThat(existingNames).containsExactly("a", "b").inOrder();
+    }
+
+    @Test
+    public void testWriteCatalogObjectsAsZipArchive() {
+        BucketEntity bucketEntity = new BucketEntity(BUCKET, "owner");
+        CatalogObjectRevisionEntity revision = newCatalogObjectRevisionEntity(bucketEntity, REVISION_COMMIT_TIME);
+        revision.setRawObject(new byte[] { 1, 2, 3 });
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectsByNameInBucket(BUCKET,
+                                                                                     Collections.singletonList(NAME))).thenReturn(Collections.singletonList(revision));
+
+        catalogObjectService.writeCatalogObjectsAsZipArchive(BUCKET,
+                                                             Collections.singletonList(NAME),
+                                                             new ByteArrayOutputStream());
+
+        verify(archiveManager).addToZIP(any(ZipOutputStream.class), eq(revision));
+        verify(entityManager).detach(revision);
+        // the raw object is released once written
+        assertThat(revision.getRawObject()).isNull();
+    }
+
+    private FileNameAndContent newFileNameAndContent(String name) {
+        FileNameAndContent file = new FileNameAndContent();
+        file.setName(name);
+        file.setFileNameWithExtension(name + ".xml");
+        file.setContent("<content/>".getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
 }
@@ -25,7 +25,16 @@
  */
 package org.ow2.proactive.catalog.service;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.ow2.proactive.catalog.util.AccessType.admin;
 import static org.ow2.proactive.catalog.util.AccessType.noAccess;
 import static org.ow2.proactive.catalog.util.AccessType.read;
@@ -33,19 +42,36 @@ import static org.ow2.proactive.catalog.util.AccessType.write;
 import static org.ow2.proactive.catalog.util.GrantHelper.USER_GRANTEE_TYPE;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectNameFilter;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.UserGrantSnapshot;
+import org.ow2.proactive.catalog.util.PartitionedQueryHelper;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 
 @RunWith(MockitoJUnitRunner.class)
@@ -60,6 +86,21 @@ public class GrantRightServiceTest {
     @Mock
     BucketGrantService bucketGrantService;
 
+    @Mock
+    BucketRepository bucketRepository;
+
+    @Mock
+    CatalogObjectRepository catalogObjectRepository;
+
+    @Spy
+    BucketCache bucketCache = new BucketCache();
+
+    @Mock
+    GrantRightsCache grantRightsCache;
+
+    @Spy
+    PartitionedQueryHelper partitionedQueryHelper = new PartitionedQueryHelper();
+
     private final String bucketName = "test-bucket";
 
     private final String username = "user";
@@ -115,6 +156,38 @@ public class GrantRightServiceTest {
         assertEquals(1, metadataList.size());
     }
 
+    @Test
+    public void testGetAccessibleObjectsFilterGivenUserHasNoAccessBucketGrantAndPositiveObjectGrants() {
+        List<BucketGrantMetadata> bucketGrants = Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                     noAccess.toString(),
+                                                                                                     bucketName));
+        List<CatalogObjectGrantMetadata> objectGrants = Collections.singletonList(createObjectGrantMetadata(bucketName,
+                                                                                                            "object1",
+                                                                                                            read.name()));
+
+        CatalogObjectNameFilter filter = grantRightsService.getAccessibleObjectsFilter(bucketGrants, objectGrants);
+
+        assertThat(filter.isOnlyNames()).isTrue();
+        assertThat(filter.getNames()).containsExactly("object1");
+    }
+
+    @Test
+    public void testGetAccessibleObjectsFilterGivenUserHasReadBucketGrantAndNoAccessObjectGrants() {
+        List<BucketGrantMetadata> bucketGrants = Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                     read.toString(),
+                                                                                                     bucketName));
+        List<CatalogObjectGrantMetadata> objectGrants = Collections.singletonList(createObjectGrantMetadata(bucketName,
+                                                                                                            "object2",
+                                                                                                            noAccess.name()));
+
+        CatalogObjectNameFilter filter = grantRightsService.getAccessibleObjectsFilter(bucketGrants, objectGrants);
+
+        assertThat(filter.isOnlyNames()).isFalse();
+        assertThat(filter.getNames()).containsExactly("object2");
+        assertThat(filter.accepts("object1")).isTrue();
+        assertThat(filter.accepts("object2")).isFalse();
+    }
+
     @Test
     public void testGetTheNumberOfAccessibleObjectsInTheBucketWithReadGrantBucketAndNoObjectGrants() {
         BucketMetadata bucketRead = new BucketMetadata(bucketName, "admin-group", 5);
@@ -161,6 +234,120 @@ public class GrantRightServiceTest {
         assertEquals(2, numberOfObjectsInBucketNoAccess);
     }
 
+    @Test
+    public void testUserGrantSnapshotIsLoadedOncePerRequest() {
+        AuthenticatedUser user = AuthenticatedUser.builder().name(username).groups(Arrays.asList("group")).build();
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                                              read.name(),
+                                                                                                                              bucketName)));
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(new ArrayList<>());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            UserGrantSnapshot snapshot = grantRightsService.getUserGrantSnapshot(user);
+            assertThat(grantRightsService.getUserGrantSnapshot(user)).isSameAs(snapshot);
+            assertThat(snapshot.getBucketGrants(bucketName)).hasSize(1);
+            verify(bucketGrantService, times(1)).getUserAllBucketsGrants(user);
+
+            // grants changed meanwhile
+            when(grantRightsCache.getGeneration()).thenReturn(1L);
+            assertThat(grantRightsService.getUserGrantSnapshot(user)).isNotSameAs(snapshot);
+            verify(bucketGrantService, times(2)).getUserAllBucketsGrants(user);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    public void testGetBucketsByPrioritiedGrantsLoadsTheBucketsAtOnce() {
+        AuthenticatedUser user = AuthenticatedUser.builder().name(username).groups(new ArrayList<>()).build();
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Arrays.asList(createBucketGrantMetadata(username,
+                                                                                                                  read.name(),
+                                                                                                                  "bucket-a"),
+                                                                                        createBucketGrantMetadata(username,
+                                                                                                                  noAccess.name(),
+                                                                                                                  "bucket-c")));
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(Collections.singletonList(createObjectGrantMetadata("bucket-b",
+                                                                                                                             "object",
+                                                                                                                             read.name())));
+        when(bucketRepository.findBucketsWithObjectCount(anyList())).thenReturn(Arrays.asList(new Object[] { "bucket-a",
+                                                                                                             "owner-a",
+                                                                                                             3 },
+                                                                                              new Object[] { "bucket-b",
+                                                                                                             "owner-b",
+                                                                                                             1 }));
+
+        List<BucketMetadata> buckets = grantRightsService.getBucketsByPrioritiedGrants(user);
+
+        assertThat(buckets).containsExactly(new BucketMetadata("bucket-a", "owner-a", 3),
+                                            new BucketMetadata("bucket-b", "owner-b", 1));
+        assertThat(buckets.stream().mapToInt(BucketMetadata::getObjectCount).sum()).isEqualTo(4);
+        verify(bucketRepository, times(1)).findBucketsWithObjectCount(anyList());
+        verify(bucketRepository, never()).findOneByBucketName(anyString());
+    }
+
+    @Test
+    public void testGetCatalogObjectsRightsLoadsTheObjectsAtOnce() {
+        AuthenticatedUser user = AuthenticatedUser.builder().name(username).groups(new ArrayList<>()).build();
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                                              read.name(),
+                                                                                                                              "bucket-a")));
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(Collections.singletonList(createObjectGrantMetadata("bucket-a",
+                                                                                                                             "object-1",
+                                                                                                                             admin.name())));
+        when(catalogObjectRepository.findBucketAndObjectNames(anyCollection(),
+                                                              anyCollection())).thenReturn(Arrays.asList(new Object[] { "bucket-a",
+                                                                                                                        "object-1" },
+                                                                                                         new Object[] { "bucket-a",
+                                                                                                                        "object-2" }));
+        when(bucketRepository.findOneByBucketName("bucket-a")).thenReturn(new BucketEntity("bucket-a", "owner-a"));
+        when(grantRightsCache.getBucketRights(any(AuthenticatedUser.class),
+                                              anyString(),
+                                              any(Supplier.class))).thenAnswer(invocation -> ((Supplier<String>) invocation.getArguments()[2]).get());
+        when(grantRightsCache.getCatalogObjectRights(any(AuthenticatedUser.class),
+                                                     anyString(),
+                                                     anyString(),
+                                                     any(Supplier.class))).thenAnswer(invocation -> ((Supplier<String>) invocation.getArguments()[3]).get());
+
+        Map<String, List<String>> catalogObjectNamesByBucket = new LinkedHashMap<>();
+        catalogObjectNamesByBucket.put("bucket-a", Arrays.asList("object-1", "object-2", "object-3"));
+        catalogObjectNamesByBucket.put("bucket-b", Collections.singletonList("object-1"));
+        Map<String, Map<String, String>> rights = grantRightsService.getCatalogObjectsRights(user,
+                                                                                             catalogObjectNamesByBucket);
+
+        assertThat(rights.keySet()).containsExactly("bucket-a");
+        assertThat(rights.get("bucket-a").keySet()).containsExactly("object-1", "object-2");
+        assertThat(rights.get("bucket-a").get("object-1")).isEqualTo(admin.name());
+        assertThat(rights.get("bucket-a").get("object-2")).isEqualTo(read.name());
+        verify(catalogObjectRepository, times(1)).findBucketAndObjectNames(anyCollection(), anyCollection());
+        verify(bucketGrantService, times(1)).getUserAllBucketsGrants(user);
+        verify(catalogObjectGrantService, never()).getCatalogObject(anyString(), anyString());
+    }
+
+    @Test
+    public void testFilterExistingCatalogObjectsSplitsTheBucketNames() {
+        Map<String, List<String>> catalogObjectNamesByBucket = new LinkedHashMap<>();
+        for (int i = 0; i < 1500; i++) {
+            catalogObjectNamesByBucket.put("bucket-" + i, Arrays.asList("object", "missing"));
+        }
+        List<Integer> queriedBucketCounts = new ArrayList<>();
+        when(catalogObjectRepository.findBucketAndObjectNames(anyCollection(),
+                                                              anyCollection())).thenAnswer(invocation -> {
+                                                                  Collection<String> bucketNames = (Collection<String>) invocation.getArguments()[0];
+                                                                  queriedBucketCounts.add(bucketNames.size());
+                                                                  return bucketNames.stream()
+                                                                                    .map(bucketName -> new Object[] { bucketName,
+                                                                                                                      "object" })
+                                                                                    .collect(Collectors.toList());
+                                                              });
+
+        Map<String, List<String>> existingNamesByBucket = grantRightsService.filterExistingCatalogObjects(catalogObjectNamesByBucket);
+
+        assertThat(queriedBucketCounts).containsExactly(1000, 500).inOrder();
+        assertThat(existingNamesByBucket).hasSize(1500);
+        assertThat(existingNamesByBucket.get("bucket-1499")).containsExactly("object");
+    }
+
     private BucketGrantMetadata createBucketGrantMetadata(String userName, String accessType, String bucketName) {
         return new BucketGrantMetadata(userName, "admin", username, accessType, 0, 1L, bucketName);
     }
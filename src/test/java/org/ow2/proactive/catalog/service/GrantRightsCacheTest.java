@@ -0,0 +1,146 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+
+
+public class GrantRightsCacheTest {
+
+    private GrantRightsCache grantRightsCache;
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private final AuthenticatedUser user = AuthenticatedUser.builder()
+                                                            .name("user")
+                                                            .groups(Arrays.asList("group1", "group2"))
+                                                            .build();
+
+    @Before
+    public void setUp() {
+        grantRightsCache = new GrantRightsCache();
+        grantRightsCache.enabled = true;
+        grantRightsCache.maximumSize = 100;
+        grantRightsCache.expirationSeconds = 60;
+        grantRightsCache.init();
+        computations.set(0);
+    }
+
+    @Test
+    public void testRightsAreComputedOnce() {
+        assertThat(grantRightsCache.getBucketRights(user, "bucket", rights("read"))).isEqualTo("read");
+        assertThat(grantRightsCache.getBucketRights(user, "bucket", rights("write"))).isEqualTo("read");
+        assertThat(grantRightsCache.getCatalogObjectRights(user, "bucket", "object", rights("admin"))).isEqualTo("admin");
+        assertThat(grantRightsCache.getCatalogObjectRights(user, "bucket", "object", rights("read"))).isEqualTo("admin");
+
+        assertThat(computations.get()).isEqualTo(2);
+        assertThat(grantRightsCache.getHitCount()).isEqualTo(2L);
+        assertThat(grantRightsCache.getMissCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testRightsDependOnTheUserGroups() {
+        AuthenticatedUser sameGroupsInAnotherOrder = AuthenticatedUser.builder()
+                                                                      .name("user")
+                                                                      .groups(Arrays.asList("group2", "group1"))
+                                                                      .build();
+        AuthenticatedUser otherGroups = AuthenticatedUser.builder()
+                                                         .name("user")
+                                                         .groups(Arrays.asList("group1"))
+                                                         .build();
+
+        grantRightsCache.getBucketRights(user, "bucket", rights("read"));
+        assertThat(grantRightsCache.getBucketRights(sameGroupsInAnotherOrder,
+                                                    "bucket",
+                                                    rights("write"))).isEqualTo("read");
+        assertThat(grantRightsCache.getBucketRights(otherGroups, "bucket", rights("noAccess"))).isEqualTo("noAccess");
+        assertThat(computations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidateBucket() {
+        grantRightsCache.getBucketRights(user, "bucket", rights("read"));
+        grantRightsCache.getCatalogObjectRights(user, "bucket", "object", rights("read"));
+        grantRightsCache.getBucketRights(user, "other-bucket", rights("read"));
+
+        grantRightsCache.invalidateBucket("bucket");
+
+        assertThat(grantRightsCache.getBucketRights(user, "bucket", rights("write"))).isEqualTo("write");
+        assertThat(grantRightsCache.getCatalogObjectRights(user, "bucket", "object", rights("write"))).isEqualTo("write");
+        assertThat(grantRightsCache.getBucketRights(user, "other-bucket", rights("write"))).isEqualTo("read");
+        assertThat(grantRightsCache.getInvalidationCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testInvalidateCatalogObject() {
+        grantRightsCache.getBucketRights(user, "bucket", rights("read"));
+        grantRightsCache.getCatalogObjectRights(user, "bucket", "object", rights("read"));
+        grantRightsCache.getCatalogObjectRights(user, "bucket", "other-object", rights("read"));
+
+        grantRightsCache.invalidateCatalogObject("bucket", "object");
+
+        assertThat(grantRightsCache.getBucketRights(user, "bucket", rights("write"))).isEqualTo("read");
+        assertThat(grantRightsCache.getCatalogObjectRights(user, "bucket", "object", rights("write"))).isEqualTo("write");
+        assertThat(grantRightsCache.getCatalogObjectRights(user,
+                                                           "bucket",
+                                                           "other-object",
+                                                           rights("write"))).isEqualTo("read");
+    }
+
+    @Test
+    public void testRightsComputedDuringAnInvalidationAreNotCached() {
+        grantRightsCache.getBucketRights(user, "bucket", () -> {
+            grantRightsCache.invalidateBucket("bucket");
+            return "read";
+        });
+
+        assertThat(grantRightsCache.getBucketRights(user, "bucket", rights("write"))).isEqualTo("write");
+    }
+
+    @Test
+    public void testRightsAreNotCachedWhenDisabled() {
+        grantRightsCache.enabled = false;
+
+        grantRightsCache.getBucketRights(user, "bucket", rights("read"));
+        assertThat(grantRightsCache.getBucketRights(user, "bucket", rights("write"))).isEqualTo("write");
+        assertThat(computations.get()).isEqualTo(2);
+    }
+
+    private Supplier<String> rights(String rights) {
+        return () -> {
+            computations.incrementAndGet();
+            return rights;
+        };
+    }
+}
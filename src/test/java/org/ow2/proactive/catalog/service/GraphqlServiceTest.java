@@ -26,6 +26,8 @@
 package org.ow2.proactive.catalog.service;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 
@@ -34,6 +36,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.service.exception.WrongParametersException;
 
 import graphql.schema.DataFetcher;
 
@@ -57,4 +60,15 @@ public class GraphqlServiceTest {
         assertThat(graphqlService.getGraphql()).isNotNull();
     }
 
+    @Test(expected = WrongParametersException.class)
+    public void testWrongParametersAreReportedAsBadRequest() throws Exception {
+        when(catalogObjectFetcher.get(any())).thenThrow(new WrongParametersException("Invalid cursor: %"));
+        graphqlService.init();
+
+        graphqlService.executeQuery("{ allCatalogObjects(pageInfo: {size: 10, after: \"%\"}) { hasNext } }",
+                                    null,
+                                    null,
+                                    null);
+    }
+
 }
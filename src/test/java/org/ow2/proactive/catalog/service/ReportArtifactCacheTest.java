@@ -0,0 +1,197 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ow2.proactive.catalog.service.model.ReportArtifactKey;
+
+
+public class ReportArtifactCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ReportArtifactCache reportArtifactCache;
+
+    private final AtomicInteger generations = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        reportArtifactCache = new ReportArtifactCache();
+        reportArtifactCache.enabled = true;
+        reportArtifactCache.directoryPath = folder.getRoot().getAbsolutePath();
+        reportArtifactCache.maximumBytes = 1024 * 1024;
+        reportArtifactCache.expirationSeconds = 60;
+        reportArtifactCache.init();
+        generations.set(0);
+    }
+
+    @After
+    public void tearDown() {
+        reportArtifactCache.shutdown();
+    }
+
+    @Test
+    public void testReportIsGeneratedOnce() throws IOException {
+        assertThat(write(newKey("bucket"), "first", Collections.emptyList())).isEqualTo("first");
+        assertThat(write(newKey("bucket"), "second", Collections.emptyList())).isEqualTo("first");
+
+        assertThat(generations.get()).isEqualTo(1);
+        assertThat(reportArtifactCache.getHitCount()).isEqualTo(1L);
+        assertThat(folder.getRoot().list()).hasLength(1);
+    }
+
+    @Test
+    public void testReportsAreIdentifiedByTheirBucketsAndFilters() throws IOException {
+        write(reportArtifactCache.newKey("report",
+                                         Arrays.asList("bucket", "other-bucket"),
+                                         Optional.of("workflow"),
+                                         Optional.empty(),
+                                         Collections.emptyList()),
+              "first",
+              Collections.emptyList());
+
+        assertThat(write(reportArtifactCache.newKey("report",
+                                                    Arrays.asList("other-bucket", "bucket"),
+                                                    Optional.of("workflow"),
+                                                    Optional.empty(),
+                                                    Collections.emptyList()),
+                         "second",
+                         Collections.emptyList())).isEqualTo("first");
+        assertThat(write(reportArtifactCache.newKey("report",
+                                                    Arrays.asList("bucket", "other-bucket"),
+                                                    Optional.empty(),
+                                                    Optional.empty(),
+                                                    Collections.emptyList()),
+                         "third",
+                         Collections.emptyList())).isEqualTo("third");
+        assertThat(write(reportArtifactCache.newKey("call-graph",
+                                                    Arrays.asList("bucket", "other-bucket"),
+                                                    Optional.of("workflow"),
+                                                    Optional.empty(),
+                                                    Collections.emptyList()),
+                         "fourth",
+                         Collections.emptyList())).isEqualTo("fourth");
+    }
+
+    @Test
+    public void testBucketChangeInvalidatesTheReportsInvolvingTheBucket() throws IOException {
+        write(newKey("bucket"), "bucket report", Collections.singletonList("dependency-bucket"));
+        write(newKey("other-bucket"), "other bucket report", Collections.emptyList());
+
+        reportArtifactCache.bucketChanged("dependency-bucket");
+
+        assertThat(write(newKey("bucket"), "new bucket report", Collections.emptyList())).isEqualTo("new bucket report");
+        assertThat(write(newKey("other-bucket"), "new other bucket report",
+                         Collections.emptyList())).isEqualTo("other bucket report");
+        assertThat(reportArtifactCache.getInvalidationCount()).isEqualTo(1L);
+        assertThat(folder.getRoot().list()).hasLength(2);
+    }
+
+    @Test
+    public void testReportIsNotStoredWhenItsBucketChangesDuringTheGeneration() throws IOException {
+        ReportArtifactKey key = newKey("bucket");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reportArtifactCache.write(key, outputStream, artifactStream -> {
+            reportArtifactCache.bucketChanged("bucket");
+            return generate(artifactStream, "outdated report", Collections.emptyList());
+        });
+        assertThat(outputStream.toString()).isEqualTo("outdated report");
+
+        assertThat(reportArtifactCache.getSize()).isEqualTo(0L);
+        assertThat(folder.getRoot().list()).isEmpty();
+        assertThat(write(newKey("bucket"), "new report", Collections.emptyList())).isEqualTo("new report");
+    }
+
+    @Test
+    public void testInvalidateAll() throws IOException {
+        write(newKey("bucket"), "bucket report", Collections.emptyList());
+        write(newKey("other-bucket"), "other bucket report", Collections.emptyList());
+
+        reportArtifactCache.invalidateAll();
+
+        assertThat(reportArtifactCache.getSize()).isEqualTo(0L);
+        assertThat(folder.getRoot().list()).isEmpty();
+        assertThat(write(newKey("bucket"), "new bucket report", Collections.emptyList())).isEqualTo("new bucket report");
+    }
+
+    @Test
+    public void testDisabledCacheGeneratesEachReport() throws IOException {
+        reportArtifactCache.shutdown();
+        reportArtifactCache = new ReportArtifactCache();
+        reportArtifactCache.enabled = false;
+        reportArtifactCache.init();
+
+        assertThat(write(newKey("bucket"), "first", Collections.emptyList())).isEqualTo("first");
+        assertThat(write(newKey("bucket"), "second", Collections.emptyList())).isEqualTo("second");
+        assertThat(generations.get()).isEqualTo(2);
+    }
+
+    private ReportArtifactKey newKey(String bucketName) {
+        return reportArtifactCache.newKey("report",
+                                          Collections.singletonList(bucketName),
+                                          Optional.empty(),
+                                          Optional.empty(),
+                                          Collections.emptyList());
+    }
+
+    private String write(ReportArtifactKey key, String content, Collection<String> dependencyBucketNames)
+            throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reportArtifactCache.write(key,
+                                  outputStream,
+                                  artifactStream -> generate(artifactStream, content, dependencyBucketNames));
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private Collection<String> generate(OutputStream outputStream, String content,
+            Collection<String> dependencyBucketNames) {
+        generations.incrementAndGet();
+        try {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dependencyBucketNames;
+    }
+}
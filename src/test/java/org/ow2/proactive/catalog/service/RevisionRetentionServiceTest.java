@@ -0,0 +1,203 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RevisionRetentionServiceTest {
+
+    private static final Long BUCKET_ID = 1L;
+
+    @InjectMocks
+    private RevisionRetentionService revisionRetentionService;
+
+    @Mock
+    private BucketRepository bucketRepository;
+
+    @Mock
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Mock
+    private CatalogObjectContentHelper catalogObjectContentHelper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Environment environment;
+
+    @Before
+    public void setUp() {
+        revisionRetentionService.batchSize = 2;
+        when(environment.getProperty(anyString(),
+                                     eq(Integer.class),
+                                     anyInt())).thenAnswer(invocation -> invocation.getArguments()[2]);
+    }
+
+    @Test
+    public void testRevisionsBeyondTheLastOnesAreDeletedByBatches() {
+        when(catalogObjectRevisionRepository.findRevisionKeysInBucket(BUCKET_ID,
+                                                                      new PageRequest(0, 2))).thenReturn(revisions(revision(10L,
+                                                                                                                            "a",
+                                                                                                                            30L),
+                                                                                                                   revision(11L,
+                                                                                                                            "a",
+                                                                                                                            20L)));
+        when(catalogObjectRevisionRepository.findRevisionKeysInBucketAfter(BUCKET_ID,
+                                                                           "a",
+                                                                           20L,
+                                                                           new PageRequest(0, 2))).thenReturn(revisions(revision(12L,
+                                                                                                                                 "a",
+                                                                                                                                 10L),
+                                                                                                                        revision(13L,
+                                                                                                                                 "b",
+                                                                                                                                 40L)));
+        when(catalogObjectRevisionRepository.findRevisionKeysInBucketAfter(BUCKET_ID,
+                                                                           "b",
+                                                                           40L,
+                                                                           new PageRequest(0, 2))).thenReturn(revisions(revision(14L,
+                                                                                                                                 "b",
+                                                                                                                                 30L)));
+        when(catalogObjectRevisionRepository.deleteByIds(any())).thenAnswer(invocation -> ((List<?>) invocation.getArguments()[0])
+                                                                                                                   .size());
+
+        long deletedRevisions = revisionRetentionService.applyRetention(BUCKET_ID, 1, Long.MAX_VALUE);
+
+        assertThat(deletedRevisions).isEqualTo(3);
+        verify(catalogObjectRevisionRepository).deleteByIds(Collections.singletonList(11L));
+        verify(catalogObjectRevisionRepository).deleteByIds(Collections.singletonList(12L));
+        verify(catalogObjectRevisionRepository).deleteByIds(Collections.singletonList(14L));
+        verify(catalogObjectContentHelper).releaseContentsOfRevisions(Collections.singletonList(11L));
+        verify(catalogObjectRevisionRepository).deleteMetadataOfRevisions(Collections.singletonList(14L));
+        assertThat(revisionRetentionService.getDeletedRevisions()).isEqualTo(3);
+    }
+
+    @Test
+    public void testLastRevisionIsAlwaysKept() {
+        // without limit on the number of revisions, only the last one is kept for sure
+        when(catalogObjectRevisionRepository.findRevisionKeysInBucket(BUCKET_ID,
+                                                                      new PageRequest(0, 2))).thenReturn(revisions(revision(10L,
+                                                                                                                            "a",
+                                                                                                                            100L),
+                                                                                                                   revision(11L,
+                                                                                                                            "a",
+                                                                                                                            50L)));
+        when(catalogObjectRevisionRepository.deleteByIds(Collections.singletonList(11L))).thenReturn(1);
+
+        long deletedRevisions = revisionRetentionService.applyRetention(BUCKET_ID, 0, 200L);
+
+        assertThat(deletedRevisions).isEqualTo(1);
+        verify(catalogObjectRevisionRepository).findRevisionKeysInBucketAfter(BUCKET_ID,
+                                                                              "a",
+                                                                              50L,
+                                                                              new PageRequest(0, 2));
+    }
+
+    @Test
+    public void testRevisionsAfterTheLimitAreKept() {
+        when(catalogObjectRevisionRepository.findRevisionKeysInBucket(BUCKET_ID,
+                                                                      new PageRequest(0, 2))).thenReturn(revisions(revision(10L,
+                                                                                                                            "a",
+                                                                                                                            300L),
+                                                                                                                   revision(11L,
+                                                                                                                            "a",
+                                                                                                                            250L)));
+
+        assertThat(revisionRetentionService.applyRetention(BUCKET_ID, 1, 200L)).isEqualTo(0);
+        verify(catalogObjectRevisionRepository, never()).deleteByIds(any());
+    }
+
+    @Test
+    public void testRetentionQueriesEachBucketWithoutListingItsObjects() {
+        revisionRetentionService.keepLast = 1;
+        when(bucketRepository.findIdsAndNames()).thenReturn(Arrays.asList(new Object[] { BUCKET_ID, "bucket" },
+                                                                          new Object[] { 2L, "archive" }));
+        // the retention is disabled for the second bucket
+        when(environment.getProperty("pa.catalog.revision.retention.bucket.archive.keep.last",
+                                     Integer.class,
+                                     1)).thenReturn(0);
+        when(catalogObjectRevisionRepository.findRevisionKeysInBucket(eq(BUCKET_ID),
+                                                                      any(Pageable.class))).thenReturn(revisions(revision(10L,
+                                                                                                                          "a",
+                                                                                                                          20L),
+                                                                                                                 revision(11L,
+                                                                                                                          "a",
+                                                                                                                          10L)));
+        when(catalogObjectRevisionRepository.deleteByIds(Collections.singletonList(11L))).thenReturn(1);
+
+        assertThat(revisionRetentionService.applyRetention()).isEqualTo(1);
+        verify(catalogObjectRevisionRepository, never()).findRevisionKeysInBucket(eq(2L), any(Pageable.class));
+        assertThat(revisionRetentionService.getRuns()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOrphanContentsAreDeletedByBatches() {
+        when(catalogObjectContentHelper.deleteOrphanContents(anyLong(), eq(2))).thenReturn(2, 1);
+
+        assertThat(revisionRetentionService.deleteOrphanContents()).isEqualTo(3);
+        verify(catalogObjectContentHelper, times(2)).deleteOrphanContents(anyLong(), eq(2));
+        assertThat(revisionRetentionService.getDeletedContents()).isEqualTo(3);
+    }
+
+    private static Object[] revision(Long id, String name, long commitTime) {
+        return new Object[] { id, name, commitTime };
+    }
+
+    private static List<Object[]> revisions(Object[]... revisions) {
+        return Arrays.asList(revisions);
+    }
+}
@@ -26,11 +26,22 @@
 package org.ow2.proactive.catalog.service;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +54,9 @@ import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.ow2.proactive_grid_cloud_portal.common.SchedulerRestInterface;
 import org.ow2.proactive_grid_cloud_portal.scheduler.client.SchedulerRestClient;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 
 /**
@@ -72,6 +86,15 @@ public class SchedulerUserAuthenticationServiceTest {
         when(schedulerRestInterfaceMock.getUserDataFromSessionId(any())).thenReturn(userData);
         when(schedulerRestClientMock.getScheduler()).thenReturn(schedulerRestInterfaceMock);
         when(schedulerRestClientCreator.getNewClientInitializedWithSchedulerRestUrl()).thenReturn(schedulerRestClientMock);
+        schedulerUserAuthenticationService.init();
+    }
+
+    private void enableCaches() {
+        schedulerUserAuthenticationService.cacheTimeoutValue = 1;
+        schedulerUserAuthenticationService.invalidSessionTimeoutSeconds = 60;
+        schedulerUserAuthenticationService.cacheSize = 100;
+        schedulerUserAuthenticationService.clientPoolSize = 1;
+        schedulerUserAuthenticationService.init();
     }
 
     @Test(expected = NotAuthenticatedException.class)
@@ -100,4 +123,107 @@ public class SchedulerUserAuthenticationServiceTest {
         assertThat(authenticatedUser.getGroups()).containsExactly("user", "technical");
     }
 
+    @Test
+    public void testThatValidSessionIsValidatedOnce() throws NotAuthenticatedException {
+        enableCaches();
+        schedulerUserAuthenticationService.authenticateBySessionId("session");
+        AuthenticatedUser authenticatedUser = schedulerUserAuthenticationService.authenticateBySessionId("session");
+
+        assertThat(authenticatedUser.getName()).isEqualTo("testUser");
+        verify(schedulerRestInterfaceMock, times(1)).getUserDataFromSessionId("session");
+        assertThat(schedulerUserAuthenticationService.getHitCount()).isEqualTo(1L);
+        assertThat(schedulerUserAuthenticationService.getSchedulerValidationCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testThatInvalidSessionIsRejectedFromCache() {
+        enableCaches();
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId(any())).thenReturn(null);
+        for (int i = 0; i < 3; i++) {
+            try {
+                schedulerUserAuthenticationService.authenticateBySessionId("expired");
+            } catch (NotAuthenticatedException e) {
+                assertThat(e.getMessage()).isEqualTo("SessionId is invalid");
+            }
+        }
+
+        verify(schedulerRestInterfaceMock, times(1)).getUserDataFromSessionId("expired");
+        assertThat(schedulerUserAuthenticationService.getRejectedFromCacheCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testThatSchedulerFailureIsNotCached() throws NotAuthenticatedException {
+        enableCaches();
+        UserData userData = new UserData();
+        userData.setUserName("testUser");
+        userData.setGroups(new HashSet<>(Arrays.asList("user")));
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId("session")).thenThrow(new RuntimeException("Connection refused"))
+                                                                            .thenReturn(userData);
+        try {
+            schedulerUserAuthenticationService.authenticateBySessionId("session");
+            fail("The scheduler failure must be reported");
+        } catch (NotAuthenticatedException e) {
+            assertThat(e.getMessage()).contains("Connection refused");
+        }
+
+        // the session id is validated again once the scheduler is back
+        AuthenticatedUser authenticatedUser = schedulerUserAuthenticationService.authenticateBySessionId("session");
+
+        assertThat(authenticatedUser.getName()).isEqualTo("testUser");
+        verify(schedulerRestInterfaceMock, times(2)).getUserDataFromSessionId("session");
+        assertThat(schedulerUserAuthenticationService.getRejectedFromCacheCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testThatConcurrentValidationsOfTheSameSessionAreCoalesced() throws Exception {
+        enableCaches();
+        CountDownLatch schedulerCalled = new CountDownLatch(1);
+        CountDownLatch schedulerAnswers = new CountDownLatch(1);
+        UserData userData = new UserData();
+        userData.setUserName("testUser");
+        userData.setGroups(new HashSet<>(Arrays.asList("user")));
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId(anyString())).thenAnswer(invocation -> {
+            schedulerCalled.countDown();
+            schedulerAnswers.await(10, TimeUnit.SECONDS);
+            return userData;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<AuthenticatedUser>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> schedulerUserAuthenticationService.authenticateBySessionId("session")));
+            }
+            assertThat(schedulerCalled.await(10, TimeUnit.SECONDS)).isTrue();
+            schedulerAnswers.countDown();
+            for (Future<AuthenticatedUser> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS).getName()).isEqualTo("testUser");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(schedulerRestInterfaceMock, times(1)).getUserDataFromSessionId("session");
+    }
+
+    @Test
+    public void testThatSchedulerClientIsReused() throws NotAuthenticatedException {
+        enableCaches();
+        schedulerUserAuthenticationService.authenticateBySessionId("session1");
+        schedulerUserAuthenticationService.authenticateBySessionId("session2");
+
+        verify(schedulerRestClientCreator, times(1)).getNewClientInitializedWithSchedulerRestUrl();
+        assertThat(schedulerUserAuthenticationService.getIdleClientCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testThatSessionIsValidatedOncePerRequest() throws NotAuthenticatedException {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            AuthenticatedUser authenticatedUser = schedulerUserAuthenticationService.authenticateBySessionId("session");
+            assertThat(schedulerUserAuthenticationService.authenticateBySessionId("session")).isSameAs(authenticatedUser);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        verify(schedulerRestInterfaceMock, times(1)).getUserDataFromSessionId("session");
+    }
 }
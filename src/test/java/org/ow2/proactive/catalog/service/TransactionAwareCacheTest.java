@@ -0,0 +1,80 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+
+public class TransactionAwareCacheTest {
+
+    private final TransactionAwareCache<String, String> cache = new TransactionAwareCache<>(100, 60);
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testNullValuesAreNotCached() {
+        assertThat(cache.get("key", () -> null)).isNull();
+        assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+        assertThat(cache.get("key", () -> "other value")).isEqualTo("value");
+    }
+
+    @Test
+    public void testValueLoadedDuringAnInvalidationIsNotCached() {
+        cache.get("key", () -> {
+            cache.invalidate(key -> true);
+            return "stale value";
+        });
+
+        assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+        assertThat(cache.getGeneration()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testEntriesAreInvalidatedAgainWhenTheTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate(key -> key.equals("key"));
+        // loaded by a concurrent transaction before the commit of the change
+        cache.get("key", () -> "stale value");
+        cache.get("other key", () -> "other value");
+
+        TransactionSynchronizationManager.getSynchronizations()
+                                         .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+        assertThat(cache.get("other key", () -> "new value")).isEqualTo("other value");
+        assertThat(cache.getInvalidationCount()).isEqualTo(1L);
+    }
+}
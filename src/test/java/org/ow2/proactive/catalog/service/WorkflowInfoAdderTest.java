@@ -78,6 +78,36 @@ public class WorkflowInfoAdderTest {
                                                                                Mockito.any());
     }
 
+    @Test
+    public void testThatWorkflowParserKindTriggersSinglePassXmlManipulation() {
+        genericInformationAdder.addGenericInformationJobNameAndAttributesToRawObjectIfWorkflow(new byte[] {},
+                                                                                               SupportedParserKinds.WORKFLOW.toString() +
+                                                                                                              "specific-workflow-kind",
+                                                                                               Collections.emptyMap(),
+                                                                                               "",
+                                                                                               Collections.emptyMap());
+
+        verify(workflowXmlManipulator).replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel(Mockito.any(),
+                                                                                                              Mockito.any(),
+                                                                                                              Mockito.any(),
+                                                                                                              Mockito.any());
+    }
+
+    @Test
+    public void testThatOtherKindNotTriggersSinglePassXmlManipulation() {
+        genericInformationAdder.addGenericInformationJobNameAndAttributesToRawObjectIfWorkflow(new byte[] {},
+                                                                                               SupportedParserKinds.PCW_RULE.toString(),
+                                                                                               Collections.emptyMap(),
+                                                                                               "",
+                                                                                               Collections.emptyMap());
+
+        verify(workflowXmlManipulator,
+               times(0)).replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel(Mockito.any(),
+                                                                                                Mockito.any(),
+                                                                                                Mockito.any(),
+                                                                                                Mockito.any());
+    }
+
     @Test
     public void testThatOtherKindNotTriggersXmlManipulation() {
         genericInformationAdder.addGenericInformationJobNameToRawObjectIfWorkflow(new byte[] {},
@@ -0,0 +1,216 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+
+/**
+ * Checks that the streaming {@link WorkflowXmlManipulator} rewrites the workflows as the DOM based implementation it
+ * replaced did. The rewritten workflows are compared once parsed, ignoring the formatting, the namespace declarations
+ * and the CDATA boundaries, as well as the encrypted values which differ between two encryptions.
+ *
+ * @author ActiveEon Team
+ */
+public class WorkflowXmlManipulatorEquivalenceTest {
+
+    private static final List<String> WORKFLOWS = Arrays.asList("workflow.xml",
+                                                                "workflow-no-name.xml",
+                                                                "workflow-no-generic-information-no-variable.xml",
+                                                                "workflow-no-project-name-and-tags.xml",
+                                                                "workflow-with-project-name-and-tags.xml",
+                                                                "workflow-visualization.xml",
+                                                                "workflow_variables_with_model.xml",
+                                                                "workflow_variables_with_catalog_object_model.xml",
+                                                                "workflow_with_script_url.xml",
+                                                                "workflow_with_wrong_script_url.xml");
+
+    private static final String ENCRYPTED_VALUE_PREFIX = "ENC(";
+
+    private final byte[] workflowWithHiddenVariablesAndComments = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                                                                   "<!-- workflow comment -->\n" +
+                                                                   "<job xmlns=\"urn:proactive:jobdescriptor:3.10\" name=\"old\" priority=\"normal\">\n" +
+                                                                   "  <!-- job comment -->\n" + "  <variables>\n" +
+                                                                   "    <variable name=\"secret\" value=\"clear\" model=\"PA:HIDDEN\"/>\n" +
+                                                                   "    <variable name=\"encrypted\" value=\"ENC(abc)\" model=\"PA:Hidden\"/>\n" +
+                                                                   "    <variable name=\"plain\" value=\"plain\"/>\n" +
+                                                                   "  </variables>\n" + "  <genericInformation>\n" +
+                                                                   "    <!-- dropped with the old generic information -->\n" +
+                                                                   "    <info name=\"old\" value=\"old\"/>\n" +
+                                                                   "  </genericInformation>\n" + "  <taskFlow>\n" +
+                                                                   "    <task name=\"task\">\n" + "      <variables>\n" +
+                                                                   "        <variable name=\"taskSecret\" value=\"taskClear\" inherited=\"false\" model=\"PA:HIDDEN\"/>\n" +
+                                                                   "      </variables>\n" +
+                                                                   "      <!-- task comment -->\n" +
+                                                                   "      <scriptExecutable>\n" + "        <script>\n" +
+                                                                   "          <code language=\"groovy\"><![CDATA[\n" +
+                                                                   "if (a < b && c > d) { println \"<tag/>\" }\n" +
+                                                                   "]]></code>\n" + "        </script>\n" +
+                                                                   "      </scriptExecutable>\n" + "    </task>\n" +
+                                                                   "  </taskFlow>\n" + "</job>\n").getBytes(StandardCharsets.UTF_8);
+
+    private final WorkflowXmlManipulator workflowXmlManipulator = new WorkflowXmlManipulator();
+
+    private final DomWorkflowXmlManipulator domWorkflowXmlManipulator = new DomWorkflowXmlManipulator();
+
+    @Test
+    public void testThatJobNameGenericInfoAndHiddenVariablesAreRewrittenAsWithDom() throws Exception {
+        Map<String, String> genericInfo = new LinkedHashMap<>();
+        genericInfo.put("bucketName", "bucket");
+        genericInfo.put("Documentation", "a < b & \"c\"");
+        for (String workflow : WORKFLOWS) {
+            assertJobLevelRewriteIsEquivalent(workflow, readWorkflow(workflow), genericInfo);
+        }
+        assertJobLevelRewriteIsEquivalent("inline workflow", workflowWithHiddenVariablesAndComments, genericInfo);
+    }
+
+    @Test
+    public void testThatEmptyGenericInfoIsRewrittenAsWithDom() throws Exception {
+        for (String workflow : WORKFLOWS) {
+            assertJobLevelRewriteIsEquivalent(workflow, readWorkflow(workflow), Collections.emptyMap());
+        }
+    }
+
+    @Test
+    public void testThatJobAttributesAreRewrittenAsWithDom() throws Exception {
+        for (String workflow : WORKFLOWS) {
+            byte[] xmlWorkflow = readWorkflow(workflow);
+            assertEquivalent(workflow,
+                             domWorkflowXmlManipulator.replaceOrAddOrRemoveAttributeOnJobLevel(xmlWorkflow,
+                                                                                               "projectName",
+                                                                                               "project"),
+                             workflowXmlManipulator.replaceOrAddOrRemoveAttributeOnJobLevel(xmlWorkflow,
+                                                                                            "projectName",
+                                                                                            "project"));
+            assertEquivalent(workflow,
+                             domWorkflowXmlManipulator.replaceOrAddOrRemoveAttributeOnJobLevel(xmlWorkflow,
+                                                                                               "priority",
+                                                                                               " "),
+                             workflowXmlManipulator.replaceOrAddOrRemoveAttributeOnJobLevel(xmlWorkflow,
+                                                                                            "priority",
+                                                                                            " "));
+        }
+    }
+
+    private void assertJobLevelRewriteIsEquivalent(String workflow, byte[] xmlWorkflow,
+            Map<String, String> genericInfo) throws Exception {
+        byte[] domWorkflow = domWorkflowXmlManipulator.replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(xmlWorkflow,
+                                                                                                                   genericInfo,
+                                                                                                                   "new name");
+        byte[] streamedWorkflow = workflowXmlManipulator.replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(xmlWorkflow,
+                                                                                                                     genericInfo,
+                                                                                                                     "new name");
+        assertEquivalent(workflow, domWorkflow, streamedWorkflow);
+    }
+
+    private void assertEquivalent(String workflow, byte[] domWorkflow, byte[] streamedWorkflow) throws Exception {
+        assertEquals(workflow, canonicalize(domWorkflow), canonicalize(streamedWorkflow));
+    }
+
+    private byte[] readWorkflow(String workflow) throws IOException {
+        try (InputStream inputStream = WorkflowXmlManipulatorEquivalenceTest.class.getResourceAsStream("/workflows/" +
+                                                                                                       workflow)) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    private String canonicalize(byte[] xmlWorkflow) throws Exception {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        documentBuilderFactory.setCoalescing(true);
+        Document document = documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(xmlWorkflow));
+        StringBuilder canonicalWorkflow = new StringBuilder();
+        appendNode(document, canonicalWorkflow);
+        return canonicalWorkflow.toString();
+    }
+
+    private void appendNode(Node node, StringBuilder canonicalWorkflow) {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                canonicalWorkflow.append('<')
+                                 .append('{')
+                                 .append(node.getNamespaceURI())
+                                 .append('}')
+                                 .append(node.getLocalName())
+                                 .append(readAttributes(node))
+                                 .append('>');
+                appendChildren(node, canonicalWorkflow);
+                canonicalWorkflow.append("</").append(node.getLocalName()).append('>');
+                break;
+            case Node.TEXT_NODE:
+                String text = node.getNodeValue().trim();
+                if (!text.isEmpty()) {
+                    canonicalWorkflow.append(text);
+                }
+                break;
+            case Node.COMMENT_NODE:
+                canonicalWorkflow.append("<!--").append(node.getNodeValue().trim()).append("-->");
+                break;
+            default:
+                appendChildren(node, canonicalWorkflow);
+                break;
+        }
+    }
+
+    private void appendChildren(Node node, StringBuilder canonicalWorkflow) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            appendNode(child, canonicalWorkflow);
+        }
+    }
+
+    private Map<String, String> readAttributes(Node element) {
+        Map<String, String> attributes = new TreeMap<>();
+        NamedNodeMap attributeNodes = element.getAttributes();
+        for (int index = 0; index < attributeNodes.getLength(); index++) {
+            Node attribute = attributeNodes.item(index);
+            if (!"xmlns".equals(attribute.getPrefix()) && !"xmlns".equals(attribute.getNodeName())) {
+                String value = attribute.getNodeValue();
+                attributes.put("{" + attribute.getNamespaceURI() + "}" + attribute.getLocalName(),
+                               value.startsWith(ENCRYPTED_VALUE_PREFIX) ? ENCRYPTED_VALUE_PREFIX + ")" : value);
+            }
+        }
+        return attributes;
+    }
+}
@@ -30,6 +30,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -266,6 +267,61 @@ public class WorkflowXmlManipulatorTest {
 
     }
 
+    @Test
+    public void testThatWorkflowHasGenericInfoJobNameAndAttributesReplacedInOnePass() {
+        Map<String, String> jobAttributes = new LinkedHashMap<>();
+        jobAttributes.put("projectName", "newProjectName");
+        jobAttributes.put("tags", "   ");
+        String modifiedWorkflow = new String(workflowXmlManipulator.replaceGenericInformationHiddenVariablesJobNameAndAttributesOnJobLevel(simpleWorkflowWithGenericInfo,
+                                                                                                                                           this.getTwoSimpleEntries(),
+                                                                                                                                           "newJobName",
+                                                                                                                                           jobAttributes));
+        assertThat(modifiedWorkflow).contains("name=\"newJobName\"");
+        assertThat(modifiedWorkflow).contains("projectName=\"newProjectName\"");
+        assertThat(modifiedWorkflow).doesNotContain("tags");
+        assertThat(modifiedWorkflow).contains("<info name=\"firstTestKey\"");
+        assertThat(modifiedWorkflow).doesNotContain("<info name=\"first\"");
+        assertTrue("Unmodified python code should be found in " + modifiedWorkflow,
+                   pythonCodePattern.matcher(modifiedWorkflow).find());
+    }
+
+    @Test
+    public void testThatWorkflowHasOnlyAttributesReplacedWithoutGenericInfo() {
+        Map<String, String> jobAttributes = new LinkedHashMap<>();
+        jobAttributes.put("projectName", "newProjectName");
+        jobAttributes.put("tags", "newTag");
+        String modifiedWorkflow = new String(workflowXmlManipulator.replaceOrAddOrRemoveAttributesOnJobLevel(simpleWorkflowWithGenericInfo,
+                                                                                                             jobAttributes));
+        assertThat(modifiedWorkflow).contains("projectName=\"newProjectName\"");
+        assertThat(modifiedWorkflow).contains("tags=\"newTag\"");
+        assertThat(modifiedWorkflow).contains("name=\"TestGenericInfo\"");
+        assertThat(modifiedWorkflow).contains("<info name=\"first\"");
+    }
+
+    @Test
+    public void testThatOnlyJobLevelHiddenVariablesAreEncryptedAndTaskContentIsKeptAsIs() {
+        byte[] workflowWithHiddenVariables = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                                              "<job xmlns=\"urn:proactive:jobdescriptor:3.8\" name=\"Hidden\">\n" +
+                                              "  <variables>\n" +
+                                              "    <variable name=\"jobSecret\" value=\"clear\" model=\"PA:HIDDEN\"/>\n" +
+                                              "    <variable name=\"jobPlain\" value=\"plain\"/>\n" +
+                                              "  </variables>\n" + "  <taskFlow>\n" +
+                                              "    <task name=\"Task1\">\n" + "      <!-- task comment -->\n" +
+                                              "      <variables>\n" +
+                                              "        <variable name=\"taskSecret\" value=\"taskClear\" inherited=\"false\" model=\"PA:HIDDEN\"/>\n" +
+                                              "      </variables>\n" + "    </task>\n" + "  </taskFlow>\n" +
+                                              "</job>").getBytes();
+
+        String modifiedWorkflow = new String(workflowXmlManipulator.replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(workflowWithHiddenVariables,
+                                                                                                                                 Collections.emptyMap(),
+                                                                                                                                 "Hidden"));
+        assertThat(modifiedWorkflow).doesNotContain("value=\"clear\"");
+        assertThat(modifiedWorkflow).contains("value=\"ENC(");
+        assertThat(modifiedWorkflow).contains("value=\"plain\"");
+        assertThat(modifiedWorkflow).contains("value=\"taskClear\"");
+        assertThat(modifiedWorkflow).contains("<!-- task comment -->");
+    }
+
     @Test
     public void testThatWorkflowHasGenericInfoReplacedIfAlreadyThere() {
         String modifiedWorkflow = new String(workflowXmlManipulator.replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(simpleWorkflowWithGenericInfo,
@@ -25,6 +25,7 @@
  */
 package org.ow2.proactive.catalog.util;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -34,11 +35,13 @@ import static org.mockito.Mockito.when;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
@@ -157,6 +160,23 @@ public class ArchiveManagerHelperTest {
         compare(convertFromURIToByteArray(XML_FILE_1), files.get(1).getContent());
     }
 
+    @Test
+    public void testExtractZipFromStreamOneEntryAtATime() throws IOException {
+        List<String> extractedNames = new ArrayList<>();
+        try (InputStream archive = Files.newInputStream(Paths.get(ZIP_FILE))) {
+            int extractedFiles = archiveManager.extractZIP(archive, file -> {
+                extractedNames.add(file.getName());
+                if (extractedNames.size() == 1) {
+                    assertArrayEquals(readUnchecked(XML_FILE_0), file.getContent());
+                } else {
+                    assertArrayEquals(readUnchecked(XML_FILE_1), file.getContent());
+                }
+            });
+            assertEquals(2, extractedFiles);
+        }
+        assertEquals(Arrays.asList("workflow_0", "workflow_1"), extractedNames);
+    }
+
     @Test
     public void testExtractZipWithDiffTypes() throws IOException {
         assertTrue(archiveManager.extractZIP(null).isEmpty());
@@ -196,6 +216,14 @@ public class ArchiveManagerHelperTest {
         }
     }
 
+    private byte[] readUnchecked(URI uri) {
+        try {
+            return convertFromURIToByteArray(uri);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Get a byte array of a given file using te file's URI
      * @param uri the URI of the file
@@ -0,0 +1,129 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PartitionedQueryHelperTest {
+
+    @InjectMocks
+    private PartitionedQueryHelper partitionedQueryHelper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        partitionedQueryHelper.init();
+    }
+
+    @After
+    public void tearDown() {
+        partitionedQueryHelper.shutdown();
+    }
+
+    @Test
+    public void testFetchWithoutValuesDoesNotQuery() {
+        List<List<String>> chunks = Collections.synchronizedList(new ArrayList<>());
+        List<String> result = partitionedQueryHelper.fetch(Collections.<String> emptyList(), 2, chunk -> {
+            chunks.add(chunk);
+            return chunk;
+        });
+        assertThat(result).isEmpty();
+        assertThat(chunks).isEmpty();
+    }
+
+    @Test
+    public void testFetchSingleChunk() {
+        List<List<String>> chunks = Collections.synchronizedList(new ArrayList<>());
+        List<String> result = partitionedQueryHelper.fetch(Arrays.asList("a", "b", "a"), 2, chunk -> {
+            chunks.add(chunk);
+            return chunk.stream().map(String::toUpperCase).collect(Collectors.toList());
+        });
+        assertThat(result).containsExactly("A", "B").inOrder();
+        assertThat(chunks).hasSize(1);
+    }
+
+    @Test
+    public void testFetchSeveralChunksMergesResultsInOrderWithoutDuplicates() {
+        List<List<String>> chunks = Collections.synchronizedList(new ArrayList<>());
+        List<String> result = partitionedQueryHelper.fetch(Arrays.asList("a", "b", "c", "d", "e"), 2, chunk -> {
+            chunks.add(chunk);
+            // every chunk also returns a result shared with the other chunks
+            List<String> rows = chunk.stream().map(String::toUpperCase).collect(Collectors.toList());
+            rows.add("shared");
+            return rows;
+        });
+        assertThat(result).containsExactly("A", "B", "shared", "C", "D", "E").inOrder();
+        assertThat(chunks).containsExactly(Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e"));
+    }
+
+    @Test
+    public void testFetchSeveralChunksInReadWriteTransactionRunsThemInTheCallingThread() {
+        List<Thread> chunkThreads = Collections.synchronizedList(new ArrayList<>());
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            List<String> result = partitionedQueryHelper.fetch(Arrays.asList("a", "b", "c", "d", "e"), 2, chunk -> {
+                chunkThreads.add(Thread.currentThread());
+                return chunk;
+            });
+            assertThat(result).containsExactly("a", "b", "c", "d", "e").inOrder();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertThat(chunkThreads).containsExactly(Thread.currentThread(),
+                                                 Thread.currentThread(),
+                                                 Thread.currentThread());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchRethrowsChunkFailure() {
+        partitionedQueryHelper.fetch(Arrays.asList("a", "b", "c"), 2, chunk -> {
+            throw new IllegalArgumentException(chunk.toString());
+        });
+    }
+}
@@ -26,13 +26,17 @@
 package org.ow2.proactive.catalog.util;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anyString;
-import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -157,10 +161,8 @@ public class ReportGeneratorHelperTest {
                                                                                  Collections.emptyList(),
                                                                                  "xml");
 
-        when(catalogObjectService.isDependsOnObjectExistInCatalog(eq(bucketName),
-                                                                  eq(objectName1),
-                                                                  anyString())).thenReturn(true);
-        when(catalogObjectService.getCatalogObjectMetadata(bucketName, objectName1)).thenReturn(catalogObjectMetadata2);
+        when(catalogObjectService.getKindsOfCatalogObjects(Collections.singleton(separatorUtility.getConcatWithSeparator(bucketName,
+                                                                                                                        objectName2)))).thenReturn(Collections.emptyMap());
 
         List<CatalogObjectMetadata> catalogObjectMetadataList = Arrays.asList(catalogObjectMetadata1,
                                                                               catalogObjectMetadata2);
@@ -184,4 +186,55 @@ public class ReportGeneratorHelperTest {
 
     }
 
+    @Test
+    public void buildCatalogCallGraphResolvesTheKindsAtOnceTest() {
+        final String bucketName = "bucketName";
+        final String calledObject = separatorUtility.getConcatWithSeparator(bucketName, "script");
+        final String missingObject = separatorUtility.getConcatWithSeparator(bucketName, "missing");
+
+        List<Metadata> dependencies = Arrays.asList(new Metadata(calledObject,
+                                                                 "latest",
+                                                                 WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL),
+                                                    new Metadata(missingObject,
+                                                                 "latest",
+                                                                 WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL));
+        List<CatalogObjectMetadata> catalogObjectMetadataList = Arrays.asList(new CatalogObjectMetadata(bucketName,
+                                                                                                        "workflow1",
+                                                                                                        "projectName",
+                                                                                                        "tag",
+                                                                                                        "workflow",
+                                                                                                        "application/xml",
+                                                                                                        1400343L,
+                                                                                                        "commit message",
+                                                                                                        "username",
+                                                                                                        dependencies,
+                                                                                                        "xml"),
+                                                                              new CatalogObjectMetadata(bucketName,
+                                                                                                        "workflow2",
+                                                                                                        "projectName",
+                                                                                                        "tag",
+                                                                                                        "workflow",
+                                                                                                        "application/xml",
+                                                                                                        1400343L,
+                                                                                                        "commit message",
+                                                                                                        "username",
+                                                                                                        dependencies,
+                                                                                                        "xml"));
+        when(catalogObjectService.getKindsOfCatalogObjects(anyCollection())).thenReturn(Collections.singletonMap(calledObject,
+                                                                                                                 "Script"));
+
+        CallGraphHolder result = reportGeneratorHelper.buildCatalogCallGraph(catalogObjectMetadataList);
+
+        assertThat(result.nodeSet()
+                         .stream()
+                         .map(node -> node.getObjectName() + ":" + node.getObjectKind() + ":" + node.isInCatalog())
+                         .collect(Collectors.toList())).containsExactly("workflow1:workflow:true",
+                                                                        "script:Script:true",
+                                                                        "missing:N/A:false",
+                                                                        "workflow2:workflow:true");
+        verify(catalogObjectService, times(1)).getKindsOfCatalogObjects(new HashSet<>(Arrays.asList(calledObject,
+                                                                                                    missingObject)));
+        verify(catalogObjectService, never()).isDependsOnObjectExistInCatalog(anyString(), anyString(), anyString());
+        verify(catalogObjectService, never()).getCatalogObjectMetadata(anyString(), anyString());
+    }
 }